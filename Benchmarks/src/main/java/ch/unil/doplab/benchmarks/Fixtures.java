@@ -0,0 +1,45 @@
+package ch.unil.doplab.benchmarks;
+
+import ch.unil.doplab.studybuddy.domain.Property;
+import ch.unil.doplab.studybuddy.domain.Seller;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Seeded test data, so every fork and every run measures the same catalog.
+ */
+final class Fixtures {
+
+    static final long SEED = 42;
+
+    static final String[] LOCATIONS = {
+            "Lausanne", "Geneva", "Zurich", "Bern", "Basel", "Lugano", "Neuchatel", "Fribourg", "Sion", "Montreux"
+    };
+
+    private static final Property.PropertyType[] TYPES = Property.PropertyType.values();
+
+    private Fixtures() {
+    }
+
+    static Seller seller(int index) {
+        return new Seller("Seller", "No" + index, "seller" + index + "@example.com", "seller" + index, "secret");
+    }
+
+    /** Creates listings owned by the seller; about seven in ten are published. */
+    static List<Property> listings(Seller seller, int count, Random random) {
+        List<Property> listings = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Property property = seller.createProperty("Listing " + i, "Description of listing " + i,
+                    LOCATIONS[random.nextInt(LOCATIONS.length)], 100_000 + random.nextInt(1_900_000),
+                    30 + random.nextInt(270), TYPES[random.nextInt(TYPES.length)]);
+            property.addFeature("bedrooms", 1 + random.nextInt(6));
+            if (random.nextInt(10) < 7) {
+                seller.publishProperty(property);
+            }
+            listings.add(property);
+        }
+        return listings;
+    }
+}
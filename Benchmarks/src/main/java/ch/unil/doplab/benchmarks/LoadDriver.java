@@ -0,0 +1,479 @@
+package ch.unil.doplab.benchmarks;
+
+import ch.unil.doplab.studybuddy.domain.Buyer;
+import ch.unil.doplab.studybuddy.domain.Property;
+import ch.unil.doplab.studybuddy.domain.Seller;
+import ch.unil.doplab.studybuddy.domain.User;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Closed-loop load test of a running Webservice. It first registers users and
+ * listings drawn from a MarketplaceGenerator through the API, then runs a
+ * number of clients that each send a request, wait for the response and send
+ * the next, for a warmup and then a measured period. It reports, per
+ * operation, the throughput and latency percentiles of the measured period.
+ *
+ * The mix is mostly searches and detail pages. Offers come in bursts on
+ * popular listings and messages in threads between a buyer and an owner.
+ * Each user logs in once after registering; messages are sent and read with
+ * the bearer token of the user whose mailbox they touch.
+ *
+ * Usage: java -cp target/benchmarks.jar ch.unil.doplab.benchmarks.LoadDriver
+ *        [--url=http://localhost:8080/Webservice-1.0-SNAPSHOT/api] [--clients=16]
+ *        [--warmup=10] [--duration=60] [--listings=2000] [--seed=42] [--report=load-report.json]
+ */
+public final class LoadDriver {
+
+    enum Operation {
+        SEARCH(60), DETAIL(20), OFFER(10), MESSAGE(7), INBOX(3);
+
+        /** Chance, in percent, that a client's next action starts with this operation. */
+        final int weight;
+
+        Operation(int weight) {
+            this.weight = weight;
+        }
+    }
+
+    record Options(URI baseUri, int clients, Duration warmup, Duration duration, int listings, long seed,
+                   Path report) {
+
+        static Options parse(String[] args) {
+            Map<String, String> values = new HashMap<>();
+            for (String arg : args) {
+                if (!arg.startsWith("--") || !arg.contains("=")) {
+                    throw new IllegalArgumentException("Expected --name=value, got: " + arg);
+                }
+                values.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            }
+            String url = values.getOrDefault("url", "http://localhost:8080/Webservice-1.0-SNAPSHOT/api");
+            Options options = new Options(URI.create(url.endsWith("/") ? url : url + "/"),
+                    Integer.parseInt(values.getOrDefault("clients", "16")),
+                    Duration.ofSeconds(Long.parseLong(values.getOrDefault("warmup", "10"))),
+                    Duration.ofSeconds(Long.parseLong(values.getOrDefault("duration", "60"))),
+                    Integer.parseInt(values.getOrDefault("listings", "2000")),
+                    Long.parseLong(values.getOrDefault("seed", String.valueOf(Fixtures.SEED))),
+                    values.containsKey("report") ? Path.of(values.get("report")) : null);
+            if (options.clients <= 0) throw new IllegalArgumentException("Clients must be positive");
+            if (options.listings <= 0) throw new IllegalArgumentException("Listings must be positive");
+            if (options.duration.isZero() || options.duration.isNegative()) {
+                throw new IllegalArgumentException("Duration must be positive");
+            }
+            return options;
+        }
+    }
+
+    /** A published listing as the service knows it. */
+    private record Listing(String propertyId, String ownerId, double price) {
+    }
+
+    private static final Pattern USER_ID = Pattern.compile("\"userId\"\\s*:\\s*\"([0-9a-f-]{36})\"");
+    private static final Pattern TOKEN = Pattern.compile("\"token\"\\s*:\\s*\"([^\"]+)\"");
+    private static final Pattern PROPERTY_ID = Pattern.compile("\"propertyId\"\\s*:\\s*\"([0-9a-f-]{36})\"");
+
+    private final Options options;
+    private final HttpClient http;
+    private final MarketplaceGenerator generator;
+    private final List<String> buyerIds = new ArrayList<>();
+    private final List<Listing> listings = new ArrayList<>();
+    /** Bearer tokens by user ID, filled while the users register. */
+    private final Map<String, String> tokens = new ConcurrentHashMap<>();
+
+    LoadDriver(Options options) {
+        this.options = options;
+        this.http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        this.generator = new MarketplaceGenerator(options.seed());
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = Options.parse(args);
+        LoadDriver driver = new LoadDriver(options);
+        driver.populate();
+        Report report = driver.run();
+        report.print(System.out);
+        if (options.report() != null) {
+            Files.writeString(options.report(), report.toJson());
+        }
+    }
+
+    /** Registers the generated users and listings through the API, in parallel. */
+    void populate() throws Exception {
+        int listingCount = options.listings();
+        MarketplaceGenerator.Marketplace marketplace = generator.generate(new MarketplaceGenerator.Config(
+                Math.max(1, listingCount / 50), Math.max(options.clients() * 4, listingCount / 20), listingCount, 0, 0));
+        // Usernames must be unique across runs against the same service
+        String run = Long.toString(System.currentTimeMillis(), 36);
+        ExecutorService pool = Executors.newFixedThreadPool(options.clients());
+        try {
+            Map<UUID, String> sellerIds = new HashMap<>();
+            List<Future<String>> sellers = new ArrayList<>();
+            for (Seller seller : marketplace.sellers()) {
+                sellers.add(pool.submit(() -> register(seller, "Seller", 0, run)));
+            }
+            List<Future<String>> buyers = new ArrayList<>();
+            for (Buyer buyer : marketplace.buyers()) {
+                buyers.add(pool.submit(() -> register(buyer, "Buyer", buyer.getBudget(), run)));
+            }
+            for (int i = 0; i < sellers.size(); i++) {
+                sellerIds.put(marketplace.sellers().get(i).getUserID(), sellers.get(i).get());
+            }
+            for (Future<String> buyer : buyers) {
+                buyerIds.add(buyer.get());
+            }
+
+            List<Future<Listing>> created = new ArrayList<>();
+            for (Property property : marketplace.listings()) {
+                String ownerId = sellerIds.get(property.getOwnerId());
+                created.add(pool.submit(() -> create(property, ownerId)));
+            }
+            for (Future<Listing> future : created) {
+                Listing listing = future.get();
+                if (listing != null) {
+                    listings.add(listing);
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        if (listings.isEmpty()) {
+            throw new IllegalStateException("No listing was published");
+        }
+        System.out.printf(Locale.ROOT, "Registered %d sellers and %d buyers, published %d of %d listings%n",
+                marketplace.sellers().size(), buyerIds.size(), listings.size(), listingCount);
+    }
+
+    private String register(User user, String role, double budget, String run) throws IOException, InterruptedException {
+        String username = user.getUsername() + "-" + run;
+        String body = "{\"role\":" + json(role) + ",\"firstName\":" + json(user.getFirstName())
+                + ",\"lastName\":" + json(user.getLastName()) + ",\"email\":" + json(username + "@example.com")
+                + ",\"username\":" + json(username) + ",\"password\":" + json("secret-" + run)
+                + ",\"budget\":" + budget + "}";
+        String userId = id(USER_ID, send(post("users", body)));
+        String session = send(post("sessions", "{\"username\":" + json(username)
+                + ",\"password\":" + json("secret-" + run) + "}"));
+        tokens.put(userId, id(TOKEN, session));
+        return userId;
+    }
+
+    private Listing create(Property property, String ownerId) throws IOException, InterruptedException {
+        String body = "{\"ownerId\":" + json(ownerId) + ",\"title\":" + json(property.getTitle())
+                + ",\"description\":" + json(property.getDescription()) + ",\"location\":" + json(property.getLocation())
+                + ",\"price\":" + property.getPrice() + ",\"size\":" + property.getSize()
+                + ",\"type\":" + json(property.getType().name()) + "}";
+        String propertyId = id(PROPERTY_ID, send(post("properties", ownerId, body)));
+        if (!property.isAvailableForSale()) {
+            return null;
+        }
+        send(post("properties/" + propertyId + "/publish", ownerId, ""));
+        return new Listing(propertyId, ownerId, property.getPrice());
+    }
+
+    /** Runs the clients for the warmup and measured periods and returns what they measured. */
+    Report run() throws Exception {
+        long start = System.nanoTime();
+        long measureFrom = start + options.warmup().toNanos();
+        long end = measureFrom + options.duration().toNanos();
+        // Popularity by publication order, as in the generator
+        MarketplaceGenerator.Zipf popularity = new MarketplaceGenerator.Zipf(listings.size(), 1.1);
+        SplittableRandom random = new SplittableRandom(options.seed());
+        ExecutorService pool = Executors.newFixedThreadPool(options.clients());
+        List<Future<Map<Operation, Samples>>> clients = new ArrayList<>();
+        try {
+            for (int i = 0; i < options.clients(); i++) {
+                Client client = new Client(generator.split(), random.split(), popularity, measureFrom, end);
+                clients.add(pool.submit(client::call));
+            }
+            Map<Operation, Samples> merged = new EnumMap<>(Operation.class);
+            for (Future<Map<Operation, Samples>> client : clients) {
+                client.get().forEach((operation, samples) ->
+                        merged.computeIfAbsent(operation, o -> new Samples()).addAll(samples));
+            }
+            return new Report(options, merged);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /** One closed-loop client; its samples are merged once it stops. */
+    private final class Client {
+
+        private final MarketplaceGenerator generator;
+        private final SplittableRandom random;
+        private final MarketplaceGenerator.Zipf popularity;
+        private final long measureFrom;
+        private final long end;
+        private final Map<Operation, Samples> samples = new EnumMap<>(Operation.class);
+
+        Client(MarketplaceGenerator generator, SplittableRandom random, MarketplaceGenerator.Zipf popularity,
+               long measureFrom, long end) {
+            this.generator = generator;
+            this.random = random;
+            this.popularity = popularity;
+            this.measureFrom = measureFrom;
+            this.end = end;
+        }
+
+        Map<Operation, Samples> call() {
+            while (System.nanoTime() < end) {
+                Listing listing = listings.get(popularity.next(random));
+                String buyerId = buyerIds.get(random.nextInt(buyerIds.size()));
+                switch (nextOperation()) {
+                    case SEARCH -> timed(Operation.SEARCH, get("properties?location="
+                            + URLEncoder.encode(generator.nextLocation(), StandardCharsets.UTF_8)
+                            + "&maxPrice=" + generator.nextMaxPrice() + "&limit=20"));
+                    case DETAIL -> timed(Operation.DETAIL, get("properties/" + listing.propertyId()));
+                    case OFFER -> {
+                        int burst = MarketplaceGenerator.geometric(random, 3);
+                        for (int i = 0; i < burst && System.nanoTime() < end; i++) {
+                            String bidder = i == 0 ? buyerId : buyerIds.get(random.nextInt(buyerIds.size()));
+                            double amount = Math.round(listing.price() * (0.88 + 0.17 * random.nextDouble()));
+                            timed(Operation.OFFER, post("offers", bidder, "{\"propertyId\":" + json(listing.propertyId())
+                                    + ",\"buyerId\":" + json(bidder) + ",\"amount\":" + Math.max(1, amount) + "}"));
+                        }
+                    }
+                    case MESSAGE -> {
+                        int length = MarketplaceGenerator.geometric(random, 4);
+                        for (int i = 0; i < length && System.nanoTime() < end; i++) {
+                            String from = i % 2 == 0 ? buyerId : listing.ownerId();
+                            String to = i % 2 == 0 ? listing.ownerId() : buyerId;
+                            timed(Operation.MESSAGE, post("users/" + from + "/messages", from, "{\"recipientId\":" + json(to)
+                                    + ",\"subject\":\"Visit\",\"content\":\"Is the listing still available?\"}"));
+                        }
+                    }
+                    case INBOX -> timed(Operation.INBOX, get("users/" + listing.ownerId()
+                            + "/messages?direction=RECEIVED&limit=20", listing.ownerId()));
+                }
+            }
+            return samples;
+        }
+
+        private Operation nextOperation() {
+            int draw = random.nextInt(100);
+            for (Operation operation : Operation.values()) {
+                draw -= operation.weight;
+                if (draw < 0) {
+                    return operation;
+                }
+            }
+            return Operation.SEARCH;
+        }
+
+        private void timed(Operation operation, HttpRequest request) {
+            long started = System.nanoTime();
+            boolean failed;
+            try {
+                HttpResponse<Void> response = http.send(request, HttpResponse.BodyHandlers.discarding());
+                failed = response.statusCode() >= 400;
+            } catch (IOException e) {
+                failed = true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            long finished = System.nanoTime();
+            if (started >= measureFrom && finished <= end) {
+                samples.computeIfAbsent(operation, o -> new Samples()).record(finished - started, failed);
+            }
+        }
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(options.baseUri().resolve(path)).timeout(Duration.ofSeconds(30)).GET().build();
+    }
+
+    /** A GET on a user's own resources, with that user's token. */
+    private HttpRequest get(String path, String userId) {
+        return HttpRequest.newBuilder(options.baseUri().resolve(path))
+                .timeout(Duration.ofSeconds(30))
+                .header("Authorization", "Bearer " + tokens.get(userId))
+                .GET()
+                .build();
+    }
+
+    private HttpRequest post(String path, String json) {
+        return HttpRequest.newBuilder(options.baseUri().resolve(path))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+
+    /** A POST on a user's own resources, with that user's token. */
+    private HttpRequest post(String path, String userId, String json) {
+        return HttpRequest.newBuilder(options.baseUri().resolve(path))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json")
+                .header("Authorization", "Bearer " + tokens.get(userId))
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+
+    private String send(HttpRequest request) throws IOException, InterruptedException {
+        HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() >= 400) {
+            throw new IOException(request.method() + " " + request.uri() + " failed with " + response.statusCode()
+                    + ": " + response.body());
+        }
+        return response.body();
+    }
+
+    private static String id(Pattern pattern, String body) throws IOException {
+        Matcher matcher = pattern.matcher(body);
+        if (!matcher.find()) {
+            throw new IOException("No ID in response: " + body);
+        }
+        return matcher.group(1);
+    }
+
+    private static String json(String value) {
+        if (value == null) {
+            return "null";
+        }
+        return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+
+    /** Latencies of one operation, in nanoseconds, and its error count. */
+    static final class Samples {
+
+        private long[] latencies = new long[1024];
+        private int count;
+        private long errors;
+
+        void record(long nanos, boolean failed) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = nanos;
+            if (failed) {
+                errors++;
+            }
+        }
+
+        void addAll(Samples other) {
+            if (count + other.count > latencies.length) {
+                latencies = Arrays.copyOf(latencies, Math.max(count + other.count, latencies.length * 2));
+            }
+            System.arraycopy(other.latencies, 0, latencies, count, other.count);
+            count += other.count;
+            errors += other.errors;
+        }
+
+        int count() {
+            return count;
+        }
+
+        long errors() {
+            return errors;
+        }
+
+        /** Sorted copy, for percentile reads. */
+        long[] sorted() {
+            long[] sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            return sorted;
+        }
+    }
+
+    /** Throughput and latency percentiles of the measured period. */
+    static final class Report {
+
+        static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+        private final Options options;
+        private final Map<Operation, Samples> samples;
+
+        Report(Options options, Map<Operation, Samples> samples) {
+            this.options = options;
+            this.samples = samples;
+        }
+
+        void print(PrintStream out) {
+            double seconds = options.duration().toNanos() / 1e9;
+            out.printf(Locale.ROOT, "%d clients, %ds measured after %ds warmup%n", options.clients(),
+                    options.duration().toSeconds(), options.warmup().toSeconds());
+            out.printf(Locale.ROOT, "%-8s %9s %7s %9s %9s %9s %9s %9s %9s%n", "op", "requests", "errors", "req/s",
+                    "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+            Samples total = new Samples();
+            for (Map.Entry<Operation, Samples> entry : samples.entrySet()) {
+                printRow(out, entry.getKey().name().toLowerCase(Locale.ROOT), entry.getValue(), seconds);
+                total.addAll(entry.getValue());
+            }
+            printRow(out, "total", total, seconds);
+        }
+
+        private static void printRow(PrintStream out, String name, Samples samples, double seconds) {
+            long[] sorted = samples.sorted();
+            out.printf(Locale.ROOT, "%-8s %9d %7d %9.1f", name, samples.count(), samples.errors(), samples.count() / seconds);
+            for (double percentile : PERCENTILES) {
+                out.printf(Locale.ROOT, " %9.2f", percentile(sorted, percentile) / 1e6);
+            }
+            out.printf(Locale.ROOT, " %9.2f%n", sorted.length == 0 ? 0 : sorted[sorted.length - 1] / 1e6);
+        }
+
+        String toJson() {
+            double seconds = options.duration().toNanos() / 1e9;
+            StringBuilder json = new StringBuilder();
+            json.append(String.format(Locale.ROOT, "{\"clients\":%d,\"durationSeconds\":%d,\"operations\":{",
+                    options.clients(), options.duration().toSeconds()));
+            String separator = "";
+            for (Map.Entry<Operation, Samples> entry : samples.entrySet()) {
+                Samples operation = entry.getValue();
+                long[] sorted = operation.sorted();
+                json.append(separator).append(String.format(Locale.ROOT,
+                        "\"%s\":{\"requests\":%d,\"errors\":%d,\"throughput\":%.3f,\"latencyMillis\":{",
+                        entry.getKey().name().toLowerCase(Locale.ROOT), operation.count(), operation.errors(),
+                        operation.count() / seconds));
+                for (double percentile : PERCENTILES) {
+                    json.append(String.format(Locale.ROOT, "\"p%s\":%.3f,", format(percentile),
+                            percentile(sorted, percentile) / 1e6));
+                }
+                json.append(String.format(Locale.ROOT, "\"max\":%.3f}}",
+                        sorted.length == 0 ? 0 : sorted[sorted.length - 1] / 1e6));
+                separator = ",";
+            }
+            return json.append("}}").toString();
+        }
+
+        /** Nearest-rank percentile of sorted values. */
+        static long percentile(long[] sorted, double percentile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int rank = (int) Math.ceil(percentile / 100 * sorted.length);
+            return sorted[Math.max(0, Math.min(sorted.length, rank) - 1)];
+        }
+
+        private static String format(double percentile) {
+            return percentile == Math.rint(percentile) ? String.valueOf((int) percentile) : String.valueOf(percentile);
+        }
+    }
+}
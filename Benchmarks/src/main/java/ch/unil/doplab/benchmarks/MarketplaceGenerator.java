@@ -0,0 +1,284 @@
+package ch.unil.doplab.benchmarks;
+
+import ch.unil.doplab.studybuddy.domain.Buyer;
+import ch.unil.doplab.studybuddy.domain.Message;
+import ch.unil.doplab.studybuddy.domain.Offer;
+import ch.unil.doplab.studybuddy.domain.Property;
+import ch.unil.doplab.studybuddy.domain.Seller;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.UUID;
+
+/**
+ * Generates a marketplace with the skew of a real one, through the domain
+ * constructors and actions:
+ *
+ * - locations follow a Zipf law, so a few cities hold most listings, and the
+ *   price per square meter depends on the city;
+ * - sizes and prices are log-normal, with a long tail of expensive listings;
+ * - a few agencies own most listings, and a few listings draw most offers;
+ * - offers arrive in bursts on the same listing, and messages come as
+ *   threads of alternating inquiries and replies.
+ *
+ * The same seed and Config give the same content, in the same order. IDs and
+ * timestamps come from the domain constructors and differ between runs.
+ * Answering an offer scans the seller's listings, so answered offers cost
+ * more for sellers with very large portfolios.
+ */
+public final class MarketplaceGenerator {
+
+    /** How much of each kind of object to generate. */
+    public record Config(int sellers, int buyers, int listings, int offers, int messages) {
+
+        public Config {
+            if (sellers <= 0) throw new IllegalArgumentException("Sellers must be positive");
+            if (buyers <= 0) throw new IllegalArgumentException("Buyers must be positive");
+            if (listings < 0 || offers < 0 || messages < 0) {
+                throw new IllegalArgumentException("Counts must not be negative");
+            }
+        }
+
+        /** A marketplace of the given number of listings, with users, offers and messages in proportion. */
+        public static Config ofListings(int listings) {
+            return new Config(Math.max(1, listings / 50), Math.max(1, listings / 5), listings, listings / 2, listings);
+        }
+    }
+
+    /** The generated objects; offers and messages in creation order, messages as the sent copies. */
+    public record Marketplace(List<Seller> sellers, List<Buyer> buyers, List<Property> listings,
+                              List<Offer> offers, List<Message> messages) {
+    }
+
+    /** Cities and their price per square meter, most listed first. */
+    private static final String[] CITIES = {
+            "Zurich", "Geneva", "Lausanne", "Bern", "Basel", "Lugano", "Lucerne", "Winterthur", "St. Gallen",
+            "Biel", "Fribourg", "Neuchatel", "Sion", "Montreux", "Nyon", "Zug", "Yverdon-les-Bains", "Vevey",
+            "Morges", "Thun", "Chur", "Schaffhausen", "Aarau", "Locarno", "La Chaux-de-Fonds"
+    };
+    private static final double[] PRICE_PER_SQM = {
+            15_500, 14_800, 11_200, 9_000, 9_400, 10_100, 10_600, 8_300, 7_600,
+            6_400, 7_000, 6_900, 6_600, 10_300, 11_700, 17_800, 6_800, 9_200,
+            9_900, 7_200, 6_700, 6_500, 7_900, 8_400, 5_200
+    };
+
+    private static final Zipf LOCATIONS = new Zipf(CITIES.length, 1.2);
+
+    private static final Property.PropertyType[] TYPES = {
+            Property.PropertyType.APARTMENT, Property.PropertyType.HOUSE, Property.PropertyType.STUDIO,
+            Property.PropertyType.VILLA, Property.PropertyType.LOFT, Property.PropertyType.TOWNHOUSE,
+            Property.PropertyType.LAND, Property.PropertyType.COMMERCIAL, Property.PropertyType.OFFICE
+    };
+    private static final double[] TYPE_WEIGHTS = {48, 17, 10, 4, 3, 7, 4, 4, 3};
+    /** Median size in square meters, by TYPES index. */
+    private static final double[] MEDIAN_SIZE = {85, 160, 32, 260, 110, 140, 700, 220, 180};
+
+    // Few distinct texts, shared by every listing, so millions of listings stay affordable
+    private static final String[] DESCRIPTIONS = {
+            "Bright and quiet, close to public transport.",
+            "Renovated recently, with a view of the lake.",
+            "Spacious layout in a sought-after neighbourhood.",
+            "Ideal for a family, schools and shops nearby.",
+            "Modern finishes, underground parking available."
+    };
+    private static final String[] INQUIRIES = {
+            "Is the listing still available?",
+            "Could I visit this weekend?",
+            "Are the charges included in the price?",
+            "Is the price negotiable?"
+    };
+    private static final String[] REPLIES = {
+            "Yes, it is still available.",
+            "Saturday morning would work.",
+            "The charges are listed separately.",
+            "We can discuss it after a visit."
+    };
+
+    private final SplittableRandom random;
+
+    public MarketplaceGenerator(long seed) {
+        this(new SplittableRandom(seed));
+    }
+
+    private MarketplaceGenerator(SplittableRandom random) {
+        this.random = random;
+    }
+
+    /** A generator with its own random stream, for another thread; a generator is not thread-safe. */
+    public MarketplaceGenerator split() {
+        return new MarketplaceGenerator(random.split());
+    }
+
+    public Marketplace generate(Config config) {
+        List<Seller> sellers = new ArrayList<>(config.sellers());
+        for (int i = 0; i < config.sellers(); i++) {
+            sellers.add(new Seller("Agent", "No" + i, "seller" + i + "@example.com", "seller" + i, "secret"));
+        }
+        List<Buyer> buyers = new ArrayList<>(config.buyers());
+        for (int i = 0; i < config.buyers(); i++) {
+            double budget = Math.round(logNormal(900_000, 0.5) / 10_000) * 10_000.0;
+            buyers.add(new Buyer("Buyer", "No" + i, "buyer" + i + "@example.com", "buyer" + i, "secret", budget));
+        }
+
+        Zipf owners = new Zipf(sellers.size(), 1.0);
+        List<Property> listings = new ArrayList<>(config.listings());
+        List<Property> published = new ArrayList<>();
+        for (int i = 0; i < config.listings(); i++) {
+            Property listing = nextListing(sellers.get(owners.next(random)), i);
+            listings.add(listing);
+            if (listing.isAvailableForSale()) {
+                published.add(listing);
+            }
+        }
+
+        List<Offer> offers = new ArrayList<>(config.offers());
+        List<Message> messages = new ArrayList<>(config.messages());
+        if (!published.isEmpty()) {
+            // Popularity follows generation order, which is unrelated to a listing's city, type or price
+            Zipf popularity = new Zipf(published.size(), 1.1);
+            Seller[] ownerOf = ownersOf(published, sellers);
+            while (offers.size() < config.offers()) {
+                int index = popularity.next(random);
+                placeBurst(published.get(index), ownerOf[index], buyers, config.offers() - offers.size(), offers);
+            }
+            while (messages.size() < config.messages()) {
+                int index = popularity.next(random);
+                converse(buyers.get(random.nextInt(buyers.size())), ownerOf[index], published.get(index),
+                        config.messages() - messages.size(), messages);
+            }
+        }
+        return new Marketplace(sellers, buyers, listings, offers, messages);
+    }
+
+    /** A city drawn with the skew of the generated listings. */
+    public String nextLocation() {
+        return CITIES[LOCATIONS.next(random)];
+    }
+
+    /** A price cap drawn from the spread of listing prices, as a buyer's search would set it. */
+    public double nextMaxPrice() {
+        return Math.round(logNormal(1_000_000, 0.6) / 50_000) * 50_000.0;
+    }
+
+    private Property nextListing(Seller seller, int index) {
+        int type = weighted(TYPE_WEIGHTS);
+        int city = LOCATIONS.next(random);
+        double size = Math.max(12, Math.round(logNormal(MEDIAN_SIZE[type], 0.35)));
+        double price = Math.round(PRICE_PER_SQM[city] * size * logNormal(1.0, 0.25) / 1_000) * 1_000.0;
+        String label = TYPES[type].name().charAt(0) + TYPES[type].name().substring(1).toLowerCase(Locale.ROOT);
+        Property listing = seller.createProperty(label + " in " + CITIES[city] + " #" + index,
+                DESCRIPTIONS[random.nextInt(DESCRIPTIONS.length)], CITIES[city], price, size, TYPES[type]);
+        if (TYPES[type] != Property.PropertyType.LAND) {
+            listing.addFeature("bedrooms", Math.max(0, (int) Math.round(size / 30) - 1));
+            listing.addFeature("bathrooms", 1 + (int) (size / 120));
+        }
+        // Already among the seller's listings; publish directly rather than through a scan of them
+        if (random.nextInt(100) < 75) {
+            listing.publish();
+        }
+        return listing;
+    }
+
+    /** Several buyers bid on one listing in quick succession; the seller answers some of the offers. */
+    private void placeBurst(Property listing, Seller owner, List<Buyer> buyers, int limit, List<Offer> offers) {
+        int burst = Math.min(limit, geometric(3));
+        for (int i = 0; i < burst; i++) {
+            Buyer buyer = buyers.get(random.nextInt(buyers.size()));
+            double amount = Math.round(listing.getPrice() * (0.88 + 0.17 * random.nextDouble()) / 1_000) * 1_000.0;
+            Offer offer = buyer.placeOffer(listing, Math.max(1_000, amount));
+            int answer = random.nextInt(100);
+            if (answer < 10) {
+                owner.respondToOffer(offer, true);
+            } else if (answer < 40) {
+                owner.respondToOffer(offer, false);
+            }
+            offers.add(offer);
+        }
+    }
+
+    /** A thread about one listing, opened by the buyer and alternating with the owner's replies. */
+    private void converse(Buyer buyer, Seller owner, Property listing, int limit, List<Message> messages) {
+        int length = Math.min(limit, geometric(4));
+        String subject = listing.getTitle();
+        for (int i = 0; i < length; i++) {
+            if (i % 2 == 0) {
+                messages.add(buyer.sendMessage(owner, subject, INQUIRIES[random.nextInt(INQUIRIES.length)]));
+            } else {
+                messages.add(owner.sendMessage(buyer, "Re: " + subject, REPLIES[random.nextInt(REPLIES.length)]));
+            }
+        }
+    }
+
+    private static Seller[] ownersOf(List<Property> listings, List<Seller> sellers) {
+        Map<UUID, Seller> byId = new HashMap<>();
+        for (Seller seller : sellers) {
+            byId.put(seller.getUserID(), seller);
+        }
+        Seller[] owners = new Seller[listings.size()];
+        for (int i = 0; i < owners.length; i++) {
+            owners[i] = byId.get(listings.get(i).getOwnerId());
+        }
+        return owners;
+    }
+
+    private int weighted(double[] weights) {
+        double total = Arrays.stream(weights).sum();
+        double target = random.nextDouble() * total;
+        for (int i = 0; i < weights.length; i++) {
+            target -= weights[i];
+            if (target < 0) {
+                return i;
+            }
+        }
+        return weights.length - 1;
+    }
+
+    private double logNormal(double median, double sigma) {
+        return median * Math.exp(sigma * gaussian());
+    }
+
+    private double gaussian() {
+        // Box-Muller; SplittableRandom has no nextGaussian on Java 17
+        double u = 1.0 - random.nextDouble();
+        return Math.sqrt(-2 * Math.log(u)) * Math.cos(2 * Math.PI * random.nextDouble());
+    }
+
+    private int geometric(double mean) {
+        return geometric(random, mean);
+    }
+
+    /** Geometric on 1, 2, ... with the given mean, for burst and thread lengths. */
+    static int geometric(SplittableRandom random, double mean) {
+        double u = 1.0 - random.nextDouble();
+        return 1 + (int) (Math.log(u) / Math.log(1 - 1 / mean));
+    }
+
+    /** Zipf distribution over 0..n-1 with exponent s, sampled by binary search of its cumulative weights. */
+    static final class Zipf {
+
+        private final double[] cumulative;
+
+        Zipf(int n, double s) {
+            if (n <= 0) throw new IllegalArgumentException("Size must be positive");
+            cumulative = new double[n];
+            double total = 0;
+            for (int i = 0; i < n; i++) {
+                total += 1 / Math.pow(i + 1, s);
+                cumulative[i] = total;
+            }
+            for (int i = 0; i < n; i++) {
+                cumulative[i] /= total;
+            }
+        }
+
+        int next(SplittableRandom random) {
+            int index = Arrays.binarySearch(cumulative, random.nextDouble());
+            return Math.min(index >= 0 ? index : -index - 1, cumulative.length - 1);
+        }
+    }
+}
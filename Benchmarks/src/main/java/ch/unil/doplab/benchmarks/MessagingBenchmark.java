@@ -0,0 +1,60 @@
+package ch.unil.doplab.benchmarks;
+
+import ch.unil.doplab.studybuddy.domain.Buyer;
+import ch.unil.doplab.studybuddy.domain.Message;
+import ch.unil.doplab.studybuddy.domain.Seller;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading one direction of a mailbox holding the given number of messages,
+ * half of them sent and half received.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessagingBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    public int messageCount;
+
+    private Seller seller;
+
+    @Setup
+    public void setUp() {
+        seller = Fixtures.seller(0);
+        Buyer buyer = new Buyer("Buyer", "One", "buyer@example.com", "buyer", "secret", 1_000_000);
+        for (int i = 0; i < messageCount; i++) {
+            if (i % 2 == 0) {
+                buyer.sendMessage(seller, "Visit " + i, "Is the flat still available for a visit?");
+            } else {
+                seller.sendMessage(buyer, "Re: Visit " + i, "Yes, on Saturday morning.");
+            }
+        }
+    }
+
+    @Benchmark
+    public List<Message> sentMessages() {
+        return seller.getMessages(Message.MessageDirection.SENT);
+    }
+
+    @Benchmark
+    public List<Message> receivedMessages() {
+        return seller.getMessages(Message.MessageDirection.RECEIVED);
+    }
+}
@@ -0,0 +1,60 @@
+package ch.unil.doplab.benchmarks;
+
+import ch.unil.doplab.studybuddy.domain.Buyer;
+import ch.unil.doplab.studybuddy.domain.Offer;
+import ch.unil.doplab.studybuddy.domain.Property;
+import ch.unil.doplab.studybuddy.domain.Seller;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Answering an offer for a seller who owns the given number of listings and
+ * has already answered one offer on each of them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OfferBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    public int ownedCount;
+
+    private Seller seller;
+    private Offer lastOffer;
+    private boolean accept;
+
+    @Setup
+    public void setUp() {
+        seller = Fixtures.seller(0);
+        Buyer buyer = new Buyer("Buyer", "One", "buyer@example.com", "buyer", "secret", 10_000_000);
+        List<Property> listings = Fixtures.listings(seller, ownedCount, new Random(Fixtures.SEED));
+        for (Property property : listings) {
+            lastOffer = buyer.placeOffer(property, property.getPrice() * 0.9);
+            seller.respondToOffer(lastOffer, false);
+        }
+    }
+
+    /** The offer on the most recent listing, the last one found by a scan of the owned and answered lists. */
+    @Benchmark
+    public Offer.Status respondToOffer() {
+        accept = !accept;
+        seller.respondToOffer(lastOffer, accept);
+        return lastOffer.getStatus();
+    }
+}
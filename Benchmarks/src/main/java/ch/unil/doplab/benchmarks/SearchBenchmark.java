@@ -0,0 +1,80 @@
+package ch.unil.doplab.benchmarks;
+
+import ch.unil.doplab.studybuddy.domain.Buyer;
+import ch.unil.doplab.studybuddy.domain.Property;
+import ch.unil.doplab.studybuddy.domain.PropertySearchCriteria;
+import ch.unil.doplab.studybuddy.domain.Seller;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Searching, filtering and listing a catalog of the given size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SearchBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int catalogSize;
+
+    private Buyer buyer;
+    private List<Property> catalog;
+    private PropertySearchCriteria criteria;
+    private Predicate<Property> predicate;
+
+    @Setup
+    public void setUp() {
+        Seller seller = Fixtures.seller(0);
+        catalog = Fixtures.listings(seller, catalogSize, new Random(Fixtures.SEED));
+        buyer = new Buyer("Buyer", "One", "buyer@example.com", "buyer", "secret", 1_000_000);
+        // About one listing in eighty matches
+        criteria = PropertySearchCriteria.builder()
+                .addLocation("Lausanne")
+                .addLocation("Geneva")
+                .addPropertyType("APARTMENT")
+                .addPropertyType("STUDIO")
+                .minPrice(300_000.0)
+                .maxPrice(900_000.0)
+                .build();
+        predicate = criteria.toPredicate();
+    }
+
+    @Benchmark
+    public List<Property> searchProperties() {
+        return buyer.searchProperties(catalog, criteria);
+    }
+
+    @Benchmark
+    public int evaluatePredicate() {
+        int matches = 0;
+        for (Property property : catalog) {
+            if (predicate.test(property)) {
+                matches++;
+            }
+        }
+        return matches;
+    }
+
+    @Benchmark
+    public List<Property> displayAvailableProperties() {
+        return buyer.displayAvailableProperties(catalog);
+    }
+}
@@ -0,0 +1,57 @@
+package ch.unil.doplab.webservice;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * Runs the blocking part of a request on a virtual thread, so resources can
+ * return a CompletionStage and release the container worker thread while
+ * waiting on I/O, the hashing pool or a search fan-out.
+ */
+@ApplicationScoped
+public class AsyncExecutor {
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public <T> CompletionStage<T> supply(Supplier<T> task) {
+        return unwrapped(CompletableFuture.supplyAsync(task, executor));
+    }
+
+    /**
+     * The virtual threads, for continuing a stage that completes on a bounded
+     * pool, so the blocking continuation does not hold a thread of that pool.
+     */
+    public Executor executor() {
+        return executor;
+    }
+
+    /**
+     * Completes with the original exception instead of a CompletionException,
+     * so the regular exception mappers still apply.
+     */
+    public static <T> CompletionStage<T> unwrapped(CompletionStage<T> stage) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        stage.whenComplete((value, error) -> {
+            if (error == null) {
+                result.complete(value);
+            } else {
+                result.completeExceptionally(error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause() : error);
+            }
+        });
+        return result;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+}
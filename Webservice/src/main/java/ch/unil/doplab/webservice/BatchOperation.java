@@ -0,0 +1,13 @@
+package ch.unil.doplab.webservice;
+
+import java.util.UUID;
+
+/**
+ * One item of a batch request: the target property or offer, the action to
+ * apply to it and, for price changes, the new price.
+ */
+public class BatchOperation {
+    public UUID id;
+    public String action;
+    public Double price;
+}
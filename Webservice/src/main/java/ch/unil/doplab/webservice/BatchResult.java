@@ -0,0 +1,76 @@
+package ch.unil.doplab.webservice;
+
+import jakarta.json.stream.JsonGenerator;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+
+/**
+ * Outcome of one batch item, with the HTTP status it would have had as a
+ * single request. A batch answers 200 with one result per item, in order.
+ */
+record BatchResult<T>(UUID id, int status, String error, T item) {
+
+    static final int MAX_BATCH_SIZE = 1_000;
+
+    static <T> BatchResult<T> ok(UUID id, T item) {
+        return new BatchResult<>(id, Response.Status.OK.getStatusCode(), null, item);
+    }
+
+    static <T> BatchResult<T> failed(UUID id, Response.Status status, String error) {
+        return new BatchResult<>(id, status.getStatusCode(), error, null);
+    }
+
+    static <T> BatchResult<T> notFound(UUID id) {
+        return failed(id, Response.Status.NOT_FOUND, "Not found: " + id);
+    }
+
+    boolean succeeded() {
+        return error == null;
+    }
+
+    /** Rejects the whole batch when it is empty, too large or has an item without an ID. */
+    static void validate(List<BatchOperation> operations) {
+        if (operations == null || operations.isEmpty()) {
+            throw new IllegalArgumentException("Batch must not be empty");
+        }
+        if (operations.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("Batch must not exceed " + MAX_BATCH_SIZE + " operations");
+        }
+        for (int i = 0; i < operations.size(); i++) {
+            BatchOperation operation = operations.get(i);
+            if (operation == null || operation.id == null || operation.action == null) {
+                throw new IllegalArgumentException("Operation " + i + " needs an id and an action");
+            }
+        }
+    }
+
+    /** Streams {"succeeded":n,"failed":m,"results":[{"id":...,"status":...,"item"|"error":...}]}. */
+    static <T> StreamingOutput write(List<BatchResult<T>> results, BiConsumer<JsonGenerator, T> writer) {
+        long succeeded = results.stream().filter(BatchResult::succeeded).count();
+        return out -> {
+            try (JsonGenerator json = JsonWriters.generator(out)) {
+                json.writeStartObject()
+                        .write("succeeded", succeeded)
+                        .write("failed", results.size() - succeeded)
+                        .writeStartArray("results");
+                for (BatchResult<T> result : results) {
+                    json.writeStartObject()
+                            .write("id", result.id().toString())
+                            .write("status", result.status());
+                    if (result.succeeded()) {
+                        json.writeKey("item");
+                        writer.accept(json, result.item());
+                    } else {
+                        json.write("error", result.error());
+                    }
+                    json.writeEnd();
+                }
+                json.writeEnd().writeEnd();
+            }
+        };
+    }
+}
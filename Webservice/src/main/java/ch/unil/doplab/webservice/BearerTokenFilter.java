@@ -0,0 +1,103 @@
+package ch.unil.doplab.webservice;
+
+import ch.unil.doplab.studybuddy.domain.User;
+import ch.unil.doplab.studybuddy.security.SessionManager;
+import jakarta.annotation.Priority;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.NotAuthorizedException;
+import jakarta.ws.rs.Priorities;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerRequestFilter;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.SecurityContext;
+import jakarta.ws.rs.ext.Provider;
+
+import java.security.Principal;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Requires an "Authorization: Bearer <token>" header issued by POST /sessions
+ * on @Authenticated resources. A missing, invalid or expired token is answered
+ * with 401; a valid token of another user than the path's {userId} with 403.
+ * The token's user becomes the request's principal, for resources that check
+ * ownership of what they change.
+ */
+@Provider
+@Authenticated
+@Priority(Priorities.AUTHENTICATION)
+public class BearerTokenFilter implements ContainerRequestFilter {
+
+    private static final String BEARER = "Bearer ";
+
+    /** The principal of an authenticated request: the user the token was issued to. */
+    record SessionUser(UUID userId, String role) implements Principal {
+
+        @Override
+        public String getName() {
+            return userId.toString();
+        }
+    }
+
+    @Inject
+    private SessionManager sessions;
+
+    @Override
+    public void filter(ContainerRequestContext request) {
+        String token = token(request.getHeaderString(HttpHeaders.AUTHORIZATION));
+        Optional<User> user = token == null ? Optional.empty() : sessions.validate(token);
+        if (user.isEmpty()) {
+            request.abortWith(Response.status(Response.Status.UNAUTHORIZED)
+                    .header(HttpHeaders.WWW_AUTHENTICATE, "Bearer")
+                    .build());
+            return;
+        }
+        String userId = request.getUriInfo().getPathParameters().getFirst("userId");
+        if (userId != null && !userId.equalsIgnoreCase(user.get().getUserID().toString())) {
+            request.abortWith(Response.status(Response.Status.FORBIDDEN).build());
+            return;
+        }
+        SessionUser principal = new SessionUser(user.get().getUserID(), user.get().getRole());
+        boolean secure = request.getSecurityContext() != null && request.getSecurityContext().isSecure();
+        request.setSecurityContext(new SecurityContext() {
+            @Override
+            public Principal getUserPrincipal() {
+                return principal;
+            }
+
+            @Override
+            public boolean isUserInRole(String role) {
+                return principal.role().equalsIgnoreCase(role);
+            }
+
+            @Override
+            public boolean isSecure() {
+                return secure;
+            }
+
+            @Override
+            public String getAuthenticationScheme() {
+                return "Bearer";
+            }
+        });
+    }
+
+    /** The ID of the user this filter authenticated; 401 when the request did not go through it. */
+    static UUID userId(SecurityContext security) {
+        Principal principal = security == null ? null : security.getUserPrincipal();
+        if (!(principal instanceof SessionUser session)) {
+            throw new NotAuthorizedException("Bearer");
+        }
+        return session.userId();
+    }
+
+    /** The token of a bearer Authorization header, or null when there is none. */
+    static String token(String authorization) {
+        if (authorization == null || !authorization.regionMatches(true, 0, BEARER, 0, BEARER.length())) {
+            return null;
+        }
+        String token = authorization.substring(BEARER.length()).trim();
+        return token.isEmpty() ? null : token;
+    }
+}
@@ -0,0 +1,123 @@
+package ch.unil.doplab.webservice;
+
+import ch.unil.doplab.studybuddy.domain.Buyer;
+import ch.unil.doplab.studybuddy.domain.DomainJournal;
+import ch.unil.doplab.studybuddy.domain.UserDirectory;
+import ch.unil.doplab.studybuddy.storage.ContentStore;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.DELETE;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.NotFoundException;
+import jakarta.ws.rs.PUT;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.PathParam;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletionStage;
+
+@Path("/users/{userId}/documents")
+@Authenticated
+public class DocumentResource {
+
+    @Inject
+    private UserDirectory directory;
+
+    @Inject
+    private ContentStore store;
+
+    @Inject
+    private AsyncExecutor async;
+
+    @Inject
+    private DomainJournal journal;
+
+    @GET
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response list(@PathParam("userId") UUID userId) {
+        Buyer buyer = buyer(userId);
+        List<String> documents;
+        synchronized (buyer) {
+            documents = List.copyOf(buyer.getDocuments());
+        }
+        return Response.ok(JsonWriters.single(documents, (json, names) -> {
+            json.writeStartArray();
+            names.forEach(json::write);
+            json.writeEnd();
+        })).build();
+    }
+
+    /** Streams the upload into the content store on a virtual thread. */
+    @PUT
+    @Path("/{name}")
+    @Consumes(MediaType.WILDCARD)
+    @Produces(MediaType.APPLICATION_JSON)
+    public CompletionStage<Response> upload(@PathParam("userId") UUID userId, @PathParam("name") String name,
+                                            InputStream content) {
+        Buyer buyer = buyer(userId);
+        return async.supply(() -> {
+            try {
+                String hash = store.store(Channels.newChannel(content));
+                long sequence;
+                synchronized (buyer) {
+                    buyer.addDocument(name, hash);
+                    sequence = journal.record(buyer);
+                }
+                journal.sync(sequence);
+                return Response.ok(JsonWriters.single(hash, (json, h) -> json.writeStartObject()
+                        .write("name", name)
+                        .write("hash", h)
+                        .writeEnd())).build();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    @GET
+    @Path("/{name}")
+    @Produces(MediaType.APPLICATION_OCTET_STREAM)
+    public Response download(@PathParam("userId") UUID userId, @PathParam("name") String name) throws IOException {
+        Buyer buyer = buyer(userId);
+        String hash;
+        synchronized (buyer) {
+            hash = buyer.getDocumentHash(name);
+        }
+        if (hash == null || !store.contains(hash)) {
+            throw new NotFoundException();
+        }
+        StreamingOutput body = out -> store.copyTo(hash, Channels.newChannel(out));
+        return Response.ok(body).header("Content-Length", store.size(hash)).build();
+    }
+
+    @DELETE
+    @Path("/{name}")
+    public Response delete(@PathParam("userId") UUID userId, @PathParam("name") String name) {
+        Buyer buyer = buyer(userId);
+        synchronized (buyer) {
+            if (!buyer.hasDocument(name)) {
+                throw new NotFoundException();
+            }
+            // The content may be shared with other buyers, so only the index entry is removed
+            buyer.removeDocument(name);
+            journal.sync(journal.record(buyer));
+        }
+        return Response.noContent().build();
+    }
+
+    private Buyer buyer(UUID userId) {
+        return directory.findById(userId)
+                .filter(Buyer.class::isInstance)
+                .map(Buyer.class::cast)
+                .orElseThrow(NotFoundException::new);
+    }
+}
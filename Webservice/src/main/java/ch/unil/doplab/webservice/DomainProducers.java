@@ -0,0 +1,119 @@
+package ch.unil.doplab.webservice;
+
+import ch.unil.doplab.studybuddy.domain.DomainJournal;
+import ch.unil.doplab.studybuddy.domain.SnapshotStore;
+import ch.unil.doplab.studybuddy.domain.UserDirectory;
+import ch.unil.doplab.studybuddy.security.CredentialService;
+import ch.unil.doplab.studybuddy.security.SessionManager;
+import ch.unil.doplab.studybuddy.storage.ContentStore;
+import ch.unil.doplab.studybuddy.storage.ImagePipeline;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Disposes;
+import jakarta.enterprise.inject.Produces;
+import jakarta.inject.Singleton;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.security.SecureRandom;
+import java.time.Duration;
+
+/**
+ * Exposes the domain services, which carry no CDI annotations themselves, as application-wide beans.
+ */
+@ApplicationScoped
+public class DomainProducers {
+
+    private static final int PASSWORD_COST = Integer.getInteger("realestate.password.cost", 12);
+    private static final int MAX_SESSIONS = Integer.getInteger("realestate.sessions.max", 100_000);
+
+    @Produces
+    @ApplicationScoped
+    public UserDirectory userDirectory() {
+        return new UserDirectory();
+    }
+
+    @Produces
+    @Singleton
+    public CredentialService credentialService() {
+        int threads = Runtime.getRuntime().availableProcessors();
+        return new CredentialService(PASSWORD_COST, threads, threads * 64);
+    }
+
+    public void closeCredentialService(@Disposes CredentialService credentials) {
+        credentials.close();
+    }
+
+    @Produces
+    @Singleton
+    public SessionManager sessionManager() {
+        // Tokens do not survive a restart, so a per-process random key is enough
+        byte[] secret = new byte[32];
+        new SecureRandom().nextBytes(secret);
+        return new SessionManager(secret, Duration.ofHours(8), MAX_SESSIONS);
+    }
+
+    @Produces
+    @Singleton
+    public ContentStore contentStore() {
+        Path root = storageDirectory();
+        try {
+            return new ContentStore(root);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open content store at " + root, e);
+        }
+    }
+
+    @Produces
+    @Singleton
+    public ImagePipeline imagePipeline() {
+        // Kept apart from the documents, so only images are ever served as images
+        Path root = storageDirectory().resolve("images");
+        int threads = Runtime.getRuntime().availableProcessors();
+        try {
+            return new ImagePipeline(new ContentStore(root), root.resolve("thumbnails"), threads, threads * 16);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open image store at " + root, e);
+        }
+    }
+
+    public void closeImagePipeline(@Disposes ImagePipeline images) {
+        images.close();
+    }
+
+    @Produces
+    @Singleton
+    public DomainJournal domainJournal() {
+        Path directory = journalDirectory();
+        try {
+            return new DomainJournal(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open journal at " + directory, e);
+        }
+    }
+
+    public void closeDomainJournal(@Disposes DomainJournal journal) throws IOException {
+        journal.close();
+    }
+
+    @Produces
+    @Singleton
+    public SnapshotStore snapshotStore() {
+        Path directory = journalDirectory().resolve("snapshots");
+        try {
+            return new SnapshotStore(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open snapshots at " + directory, e);
+        }
+    }
+
+    private static Path storageDirectory() {
+        return Path.of(System.getProperty("realestate.storage.dir",
+                Path.of(System.getProperty("java.io.tmpdir"), "realestate-store").toString()));
+    }
+
+    private static Path journalDirectory() {
+        return Path.of(System.getProperty("realestate.journal.dir",
+                Path.of(System.getProperty("java.io.tmpdir"), "realestate-journal").toString()));
+    }
+}
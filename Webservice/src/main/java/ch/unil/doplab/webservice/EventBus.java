@@ -0,0 +1,193 @@
+package ch.unil.doplab.webservice;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * In-process fan-out of per-user events to live connections. Publishing never
+ * blocks: each subscription has a bounded buffer drained by its own virtual
+ * thread, and a subscriber whose buffer is full is evicted rather than slowing
+ * down the publisher or the other subscribers. An evicted client reconnects
+ * and refetches the current state.
+ *
+ * A writer that has had nothing to send for a heartbeat interval sends a
+ * heartbeat instead, so a client that disconnected while its user was quiet
+ * is noticed and dropped rather than held until the next event.
+ */
+@ApplicationScoped
+public class EventBus {
+
+    static final int DEFAULT_BUFFER_SIZE = Integer.getInteger("realestate.events.buffer", 256);
+    static final Duration DEFAULT_HEARTBEAT = Duration.ofSeconds(Long.getLong("realestate.events.heartbeat", 15));
+
+    /** An event addressed to one user; data is the JSON payload. */
+    public record Event(long id, String type, String data) {
+    }
+
+    /** Receives the events of one subscription; send may block, on the subscription's own thread. */
+    public interface Sink {
+
+        void send(Event event) throws Exception;
+
+        /** Writes something the client ignores; fails once the client is gone. */
+        void heartbeat() throws Exception;
+
+        void close();
+    }
+
+    private final Map<UUID, Set<Subscription>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final LongAdder evictions = new LongAdder();
+    private final int bufferSize;
+    private final long heartbeatNanos;
+
+    public EventBus() {
+        this(DEFAULT_BUFFER_SIZE, DEFAULT_HEARTBEAT);
+    }
+
+    EventBus(int bufferSize, Duration heartbeat) {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("Buffer size must be positive");
+        }
+        if (heartbeat == null || heartbeat.isZero() || heartbeat.isNegative()) {
+            throw new IllegalArgumentException("Heartbeat must be positive");
+        }
+        this.bufferSize = bufferSize;
+        this.heartbeatNanos = heartbeat.toNanos();
+    }
+
+    public Subscription subscribe(UUID userId, Sink sink) {
+        if (userId == null || sink == null) {
+            throw new IllegalArgumentException("User and sink are required");
+        }
+        Subscription subscription = new Subscription(userId, sink, bufferSize);
+        subscribers.computeIfAbsent(userId, id -> new CopyOnWriteArraySet<>()).add(subscription);
+        subscription.start();
+        return subscription;
+    }
+
+    /**
+     * Queues the event for every connection of the user and returns the number of
+     * connections it reached. The payload is only rendered when someone listens.
+     */
+    public int publish(UUID userId, String type, Supplier<String> data) {
+        Set<Subscription> targets = userId == null ? null : subscribers.get(userId);
+        if (targets == null || targets.isEmpty()) {
+            return 0;
+        }
+        Event event = new Event(sequence.incrementAndGet(), type, data.get());
+        int delivered = 0;
+        for (Subscription subscription : targets) {
+            if (subscription.offer(event)) {
+                delivered++;
+            } else if (subscription.isOpen()) {
+                evictions.increment();
+                subscription.close();
+            }
+        }
+        return delivered;
+    }
+
+    public int getSubscriberCount(UUID userId) {
+        Set<Subscription> targets = subscribers.get(userId);
+        return targets == null ? 0 : targets.size();
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.values().stream().mapToInt(Set::size).sum();
+    }
+
+    /** Number of subscriptions closed because they fell a full buffer behind. */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        subscribers.values().forEach(targets -> targets.forEach(Subscription::close));
+    }
+
+    private void remove(Subscription subscription) {
+        subscribers.computeIfPresent(subscription.userId, (id, targets) -> {
+            targets.remove(subscription);
+            return targets.isEmpty() ? null : targets;
+        });
+    }
+
+    /** One live connection: a bounded buffer and the virtual thread writing it to the sink. */
+    public final class Subscription implements AutoCloseable {
+
+        private final UUID userId;
+        private final Sink sink;
+        private final BlockingQueue<Event> buffer;
+        private final AtomicBoolean open = new AtomicBoolean(true);
+        private volatile Thread writer;
+
+        private Subscription(UUID userId, Sink sink, int bufferSize) {
+            this.userId = userId;
+            this.sink = sink;
+            this.buffer = new ArrayBlockingQueue<>(bufferSize);
+        }
+
+        private void start() {
+            writer = Thread.ofVirtual().name("events-" + userId).start(this::drain);
+        }
+
+        private boolean offer(Event event) {
+            return open.get() && buffer.offer(event);
+        }
+
+        private void drain() {
+            try {
+                while (open.get()) {
+                    Event event = buffer.poll(heartbeatNanos, TimeUnit.NANOSECONDS);
+                    if (event != null) {
+                        sink.send(event);
+                    } else if (open.get()) {
+                        sink.heartbeat();
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                // The client went away or timed out; drop the subscription
+            } finally {
+                close();
+            }
+        }
+
+        public boolean isOpen() {
+            return open.get();
+        }
+
+        int getBuffered() {
+            return buffer.size();
+        }
+
+        @Override
+        public void close() {
+            if (open.compareAndSet(true, false)) {
+                remove(this);
+                buffer.clear();
+                if (writer != null && writer != Thread.currentThread()) {
+                    writer.interrupt();
+                }
+                sink.close();
+            }
+        }
+    }
+}
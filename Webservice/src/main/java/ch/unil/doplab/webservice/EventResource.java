@@ -0,0 +1,84 @@
+package ch.unil.doplab.webservice;
+
+import ch.unil.doplab.studybuddy.domain.UserDirectory;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.NotFoundException;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.PathParam;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.sse.Sse;
+import jakarta.ws.rs.sse.SseEventSink;
+
+import java.io.IOException;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Server-sent events for a user's dashboard: offers on their listings, status
+ * changes of their offers and inbound messages, so clients no longer poll.
+ * Quiet streams carry a comment as a heartbeat, which also notices clients
+ * that went away.
+ */
+@Path("/users/{userId}/events")
+@Authenticated
+public class EventResource {
+
+    static final String OFFER = "offer";
+    static final String MESSAGE = "message";
+
+    /** A client that cannot take one event within this time is dropped. */
+    private static final long SEND_TIMEOUT_SECONDS = 10;
+
+    @Inject
+    private UserDirectory directory;
+
+    @Inject
+    private EventBus events;
+
+    @GET
+    @Produces(MediaType.SERVER_SENT_EVENTS)
+    public void stream(@PathParam("userId") UUID userId, @Context SseEventSink eventSink, @Context Sse sse) {
+        if (directory.findById(userId).isEmpty()) {
+            throw new NotFoundException();
+        }
+        events.subscribe(userId, new EventBus.Sink() {
+            @Override
+            public void send(EventBus.Event event) throws Exception {
+                if (eventSink.isClosed()) {
+                    throw new IllegalStateException("Client disconnected");
+                }
+                eventSink.send(sse.newEventBuilder()
+                                .id(Long.toString(event.id()))
+                                .name(event.type())
+                                .mediaType(MediaType.APPLICATION_JSON_TYPE)
+                                .data(String.class, event.data())
+                                .build())
+                        .toCompletableFuture()
+                        .get(SEND_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            }
+
+            @Override
+            public void heartbeat() throws Exception {
+                if (eventSink.isClosed()) {
+                    throw new IllegalStateException("Client disconnected");
+                }
+                // A comment line, which EventSource clients skip
+                eventSink.send(sse.newEventBuilder().comment("heartbeat").build())
+                        .toCompletableFuture()
+                        .get(SEND_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            }
+
+            @Override
+            public void close() {
+                try {
+                    eventSink.close();
+                } catch (IOException e) {
+                    // The connection is already gone
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,81 @@
+package ch.unil.doplab.webservice;
+
+import jakarta.ws.rs.WebApplicationException;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.ext.Provider;
+import jakarta.ws.rs.ext.RuntimeDelegate;
+import jakarta.ws.rs.ext.WriterInterceptor;
+import jakarta.ws.rs.ext.WriterInterceptorContext;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.Set;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compresses response bodies with gzip when the client accepts it. The stream is
+ * wrapped rather than buffered, so streamed responses stay streamed. Images,
+ * audio, video and archives are already compressed and are sent as they are.
+ * A strong ETag on a compressed body is made weak, since the bytes it names
+ * are no longer the ones sent.
+ */
+@Provider
+public class GzipWriterInterceptor implements WriterInterceptor {
+
+    private static final int BUFFER_SIZE = 8192;
+    private static final Set<String> COMPRESSED_TYPES = Set.of(
+            "application/zip", "application/gzip", "application/x-gzip", "application/x-7z-compressed",
+            "application/x-bzip2", "application/x-xz", "application/zstd");
+
+    @Context
+    private HttpHeaders headers;
+
+    @Override
+    public void aroundWriteTo(WriterInterceptorContext context) throws IOException, WebApplicationException {
+        if (!compressible(context.getMediaType())) {
+            context.proceed();
+            return;
+        }
+        context.getHeaders().putSingle(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        String acceptEncoding = headers.getHeaderString(HttpHeaders.ACCEPT_ENCODING);
+        if (acceptEncoding == null || !acceptEncoding.contains("gzip")
+                || context.getHeaders().containsKey(HttpHeaders.CONTENT_ENCODING)) {
+            context.proceed();
+            return;
+        }
+        context.getHeaders().putSingle(HttpHeaders.CONTENT_ENCODING, "gzip");
+        context.getHeaders().remove(HttpHeaders.CONTENT_LENGTH);
+        Object etag = context.getHeaders().getFirst(HttpHeaders.ETAG);
+        if (etag != null) {
+            EntityTag tag = etag instanceof EntityTag entityTag ? entityTag
+                    : RuntimeDelegate.getInstance().createHeaderDelegate(EntityTag.class).fromString(etag.toString());
+            context.getHeaders().putSingle(HttpHeaders.ETAG, new EntityTag(tag.getValue(), true));
+        }
+        OutputStream original = context.getOutputStream();
+        GZIPOutputStream gzip = new GZIPOutputStream(original, BUFFER_SIZE, true);
+        context.setOutputStream(gzip);
+        try {
+            context.proceed();
+        } finally {
+            gzip.finish();
+            context.setOutputStream(original);
+        }
+    }
+
+    /** Whether gzip can shrink a body of this type; SVG is the one image format that is text. */
+    static boolean compressible(MediaType type) {
+        if (type == null) {
+            return true;
+        }
+        String kind = type.getType().toLowerCase(Locale.ROOT);
+        String subtype = type.getSubtype().toLowerCase(Locale.ROOT);
+        if (kind.equals("image")) {
+            return subtype.equals("svg+xml");
+        }
+        return !kind.equals("audio") && !kind.equals("video") && !COMPRESSED_TYPES.contains(kind + "/" + subtype);
+    }
+}
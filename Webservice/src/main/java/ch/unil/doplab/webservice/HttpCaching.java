@@ -0,0 +1,78 @@
+package ch.unil.doplab.webservice;
+
+import ch.unil.doplab.studybuddy.domain.Property;
+import jakarta.ws.rs.core.CacheControl;
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.Request;
+import jakarta.ws.rs.core.Response;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.function.Supplier;
+
+/**
+ * Validators for conditional GETs. Properties are tagged from their ID and
+ * updatedAt, search results from the catalog version and the query. When the
+ * client's copy is still current the response is a 304 built before any
+ * entity is serialized.
+ *
+ * Those JSON tags are weak: the same state is sent gzipped or not, byte for
+ * byte different, and a 304 must carry the tag the client holds either way.
+ * Immutable content is never compressed and keeps strong tags.
+ */
+final class HttpCaching {
+
+    private static final CacheControl REVALIDATE = revalidate();
+    private static final CacheControl IMMUTABLE = immutable();
+
+    private HttpCaching() {
+    }
+
+    static EntityTag tag(Property property) {
+        Instant updatedAt = property.getUpdatedAt().atZone(ZoneId.systemDefault()).toInstant();
+        return new EntityTag(property.getPropertyId() + "-" + Long.toHexString(updatedAt.getEpochSecond())
+                + "." + Integer.toHexString(updatedAt.getNano()), true);
+    }
+
+    static Date lastModified(Property property) {
+        return Date.from(property.getUpdatedAt().atZone(ZoneId.systemDefault()).toInstant());
+    }
+
+    static EntityTag tag(long catalogVersion, String query) {
+        return new EntityTag("v" + Long.toHexString(catalogVersion) + "-"
+                + Integer.toHexString(query == null ? 0 : query.hashCode()), true);
+    }
+
+    static Response conditional(Request request, EntityTag tag, Date lastModified, Supplier<Response.ResponseBuilder> entity) {
+        Response.ResponseBuilder notModified = request.evaluatePreconditions(lastModified, tag);
+        Response.ResponseBuilder builder = notModified != null ? notModified : entity.get();
+        return builder.tag(tag).lastModified(lastModified).cacheControl(REVALIDATE).build();
+    }
+
+    static Response conditional(Request request, Property property, Supplier<Response.ResponseBuilder> entity) {
+        return conditional(request, tag(property), lastModified(property), entity);
+    }
+
+    /** For content that never changes under its URL, such as content-addressed images: cached for a year without revalidation. */
+    static Response immutable(Request request, EntityTag tag, Supplier<Response.ResponseBuilder> entity) {
+        Response.ResponseBuilder notModified = request.evaluatePreconditions(tag);
+        Response.ResponseBuilder builder = notModified != null ? notModified : entity.get();
+        return builder.tag(tag).cacheControl(IMMUTABLE).build();
+    }
+
+    private static CacheControl revalidate() {
+        CacheControl cacheControl = new CacheControl();
+        cacheControl.setNoCache(true);
+        cacheControl.setNoTransform(false);
+        return cacheControl;
+    }
+
+    private static CacheControl immutable() {
+        CacheControl cacheControl = new CacheControl();
+        cacheControl.setMaxAge(365 * 24 * 60 * 60);
+        cacheControl.setNoTransform(false);
+        cacheControl.getCacheExtension().put("immutable", null);
+        return cacheControl;
+    }
+}
@@ -0,0 +1,76 @@
+package ch.unil.doplab.webservice;
+
+import ch.unil.doplab.studybuddy.storage.ImagePipeline;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.NotFoundException;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.PathParam;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.Request;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.util.Locale;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Serves listing photos and their thumbnails straight from the files with
+ * FileChannel.transferTo. An image URL names its content hash, so responses
+ * never change and are cached without revalidation.
+ */
+@Path("/images")
+public class ImageResource {
+
+    @Inject
+    private ImagePipeline images;
+
+    @GET
+    @Path("/{hash}")
+    public Response original(@PathParam("hash") String hash, @Context Request request) {
+        if (!images.contains(hash)) {
+            throw new NotFoundException();
+        }
+        return HttpCaching.immutable(request, new EntityTag(hash), () -> {
+            StreamingOutput body = out -> images.copyTo(hash, Channels.newChannel(out));
+            try {
+                return Response.ok(body, images.mediaType(hash)).header("Content-Length", images.size(hash));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /** Regenerates the thumbnail on the image pool if it was dropped from the cache. */
+    @GET
+    @Path("/{hash}/{size}")
+    public CompletionStage<Response> thumbnail(@PathParam("hash") String hash, @PathParam("size") String sizeName,
+                                               @Context Request request) {
+        ImagePipeline.Size size = size(sizeName);
+        if (!images.contains(hash)) {
+            throw new NotFoundException();
+        }
+        EntityTag tag = new EntityTag(hash + "-" + size.name().toLowerCase(Locale.ROOT));
+        return AsyncExecutor.unwrapped(images.generate(hash).thenApply(done -> HttpCaching.immutable(request, tag, () -> {
+            StreamingOutput body = out -> images.copyThumbnailTo(hash, size, Channels.newChannel(out));
+            try {
+                return Response.ok(body, ImagePipeline.THUMBNAIL_TYPE)
+                        .header("Content-Length", images.thumbnailSize(hash, size));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        })));
+    }
+
+    private static ImagePipeline.Size size(String name) {
+        try {
+            return ImagePipeline.Size.valueOf(name.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new NotFoundException();
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package ch.unil.doplab.webservice;
+
+import ch.unil.doplab.studybuddy.domain.DomainJournal;
+import ch.unil.doplab.studybuddy.domain.SnapshotStore;
+import ch.unil.doplab.studybuddy.domain.UserDirectory;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.Startup;
+import jakarta.inject.Inject;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Rebuilds the in-memory catalog, offers and users from the latest snapshot
+ * and the journal records after it when the application starts, before the
+ * first request is served. Afterwards a new snapshot is taken periodically so
+ * the log stays short and the next startup replays little of it.
+ */
+@ApplicationScoped
+public class JournalRecovery {
+
+    private static final Logger LOGGER = Logger.getLogger(JournalRecovery.class.getName());
+    private static final long SNAPSHOT_INTERVAL = Long.getLong("realestate.snapshot.interval.minutes", 15);
+
+    @Inject
+    private DomainJournal journal;
+
+    @Inject
+    private SnapshotStore snapshots;
+
+    @Inject
+    private PropertyCatalog catalog;
+
+    @Inject
+    private OfferBook offers;
+
+    @Inject
+    private UserDirectory directory;
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "snapshot-compaction");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    void recover(@Observes Startup startup) {
+        long start = System.nanoTime();
+        DomainJournal.State state;
+        try {
+            state = snapshots.recover(journal);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot replay the journal", e);
+        }
+        state.getUsers().forEach(directory::register);
+        state.getProperties().forEach(catalog::add);
+        state.getOffers().forEach(offers::add);
+        LOGGER.info(() -> String.format("Recovered %d users, %d properties and %d offers up to record %d in %d ms",
+                state.getUsers().size(), state.getProperties().size(), state.getOffers().size(),
+                state.getLastSequence(), (System.nanoTime() - start) / 1_000_000));
+        if (SNAPSHOT_INTERVAL > 0) {
+            scheduler.scheduleWithFixedDelay(this::compact, SNAPSHOT_INTERVAL, SNAPSHOT_INTERVAL, TimeUnit.MINUTES);
+        }
+    }
+
+    private void compact() {
+        try {
+            long sequence = snapshots.compact(journal);
+            LOGGER.fine(() -> "Wrote snapshot up to record " + sequence);
+        } catch (IOException | RuntimeException e) {
+            // The log still holds everything; the next run tries again
+            LOGGER.log(Level.WARNING, "Cannot write snapshot", e);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,172 @@
+package ch.unil.doplab.webservice;
+
+import ch.unil.doplab.studybuddy.domain.Message;
+import ch.unil.doplab.studybuddy.domain.Offer;
+import ch.unil.doplab.studybuddy.domain.Property;
+import ch.unil.doplab.studybuddy.domain.PropertySummary;
+import ch.unil.doplab.studybuddy.domain.User;
+import jakarta.json.Json;
+import jakarta.json.stream.JsonGenerator;
+import jakarta.json.stream.JsonGeneratorFactory;
+import jakarta.ws.rs.core.StreamingOutput;
+
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Writes domain objects with the streaming JSON-P generator, so responses are
+ * produced item by item without building an intermediate object tree.
+ */
+final class JsonWriters {
+
+    private static final JsonGeneratorFactory GENERATORS = Json.createGeneratorFactory(Map.of());
+
+    private JsonWriters() {
+    }
+
+    static JsonGenerator generator(OutputStream out) {
+        return GENERATORS.createGenerator(out);
+    }
+
+    static <T> StreamingOutput single(T item, BiConsumer<JsonGenerator, T> writer) {
+        return out -> {
+            try (JsonGenerator json = generator(out)) {
+                writer.accept(json, item);
+            }
+        };
+    }
+
+    /** Renders a single item to a string, for payloads that are not written straight to a response. */
+    static <T> String toJson(T item, BiConsumer<JsonGenerator, T> writer) {
+        StringWriter out = new StringWriter();
+        try (JsonGenerator json = GENERATORS.createGenerator(out)) {
+            writer.accept(json, item);
+        }
+        return out.toString();
+    }
+
+    /**
+     * Streams up to {@code limit} items as {"items":[...],"nextCursor":...}; the cursor
+     * is the key of the last item written when more items may follow.
+     */
+    static <T> StreamingOutput page(Stream<T> items, int limit, BiConsumer<JsonGenerator, T> writer,
+                                    Function<T, String> cursorOf) {
+        return out -> {
+            try (JsonGenerator json = generator(out); Stream<T> stream = items) {
+                json.writeStartObject();
+                json.writeStartArray("items");
+                Iterator<T> iterator = stream.iterator();
+                T last = null;
+                int written = 0;
+                while (written < limit && iterator.hasNext()) {
+                    last = iterator.next();
+                    writer.accept(json, last);
+                    written++;
+                }
+                json.writeEnd();
+                if (written == limit && iterator.hasNext()) {
+                    json.write("nextCursor", cursorOf.apply(last));
+                } else {
+                    json.writeNull("nextCursor");
+                }
+                json.writeEnd();
+            }
+        };
+    }
+
+    static void property(JsonGenerator json, Property property) {
+        json.writeStartObject()
+                .write("propertyId", property.getPropertyId().toString());
+        writeNullable(json, "ownerId", property.getOwnerId());
+        writeNullable(json, "title", property.getTitle());
+        writeNullable(json, "description", property.getDescription());
+        writeNullable(json, "location", property.getLocation());
+        json.write("price", property.getPrice())
+                .write("size", property.getSize());
+        writeNullable(json, "type", property.getType());
+        writeNullable(json, "status", property.getStatus());
+        json.writeStartObject("features");
+        property.getFeatures().forEach((key, value) -> writeValue(json, key, value));
+        json.writeEnd();
+        json.writeStartArray("images");
+        property.getImages().forEach(json::write);
+        json.writeEnd();
+        json.write("createdAt", property.getCreatedAt().toString())
+                .write("updatedAt", property.getUpdatedAt().toString())
+                .writeEnd();
+    }
+
+    /** The fields of a search result; the detail page has the rest. */
+    static void summary(JsonGenerator json, PropertySummary summary) {
+        json.writeStartObject()
+                .write("propertyId", summary.propertyId().toString());
+        writeNullable(json, "ownerId", summary.ownerId());
+        writeNullable(json, "title", summary.title());
+        writeNullable(json, "location", summary.location());
+        json.write("price", summary.price())
+                .write("size", summary.size());
+        writeNullable(json, "type", summary.type());
+        writeNullable(json, "status", summary.status());
+        json.writeEnd();
+    }
+
+    static void offer(JsonGenerator json, Offer offer) {
+        json.writeStartObject()
+                .write("offerId", offer.getOfferId().toString())
+                .write("propertyId", offer.getPropertyId().toString())
+                .write("buyerId", offer.getBuyerId().toString())
+                .write("amount", offer.getAmount())
+                .write("status", offer.getStatus().name())
+                .write("createdAt", offer.getCreatedAt().toString())
+                .writeEnd();
+    }
+
+    static void message(JsonGenerator json, Message message) {
+        json.writeStartObject()
+                .write("messageId", message.getMessageId().toString());
+        writeNullable(json, "senderId", message.getSenderId());
+        writeNullable(json, "recipientId", message.getRecipientId());
+        writeNullable(json, "subject", message.getSubject());
+        writeNullable(json, "content", message.getContent());
+        json.write("sentAt", message.getSentAt().toString())
+                .write("direction", message.getDirection().name())
+                .write("read", message.isRead())
+                .writeEnd();
+    }
+
+    static void user(JsonGenerator json, User user) {
+        json.writeStartObject()
+                .write("userId", user.getUserID().toString())
+                .write("role", user.getRole());
+        writeNullable(json, "username", user.getUsername());
+        writeNullable(json, "firstName", user.getFirstName());
+        writeNullable(json, "lastName", user.getLastName());
+        writeNullable(json, "email", user.getEmail());
+        json.writeEnd();
+    }
+
+    private static void writeNullable(JsonGenerator json, String name, Object value) {
+        if (value == null) {
+            json.writeNull(name);
+        } else {
+            json.write(name, value.toString());
+        }
+    }
+
+    private static void writeValue(JsonGenerator json, String name, Object value) {
+        if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            json.write(name, ((Number) value).longValue());
+        } else if (value instanceof Number number) {
+            json.write(name, number.doubleValue());
+        } else if (value instanceof Boolean bool) {
+            json.write(name, bool);
+        } else {
+            writeNullable(json, name, value);
+        }
+    }
+}
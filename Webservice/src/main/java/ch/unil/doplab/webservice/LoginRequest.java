@@ -0,0 +1,9 @@
+package ch.unil.doplab.webservice;
+
+/**
+ * Body of the request opening a session.
+ */
+public class LoginRequest {
+    public String username;
+    public String password;
+}
@@ -0,0 +1,12 @@
+package ch.unil.doplab.webservice;
+
+import java.util.UUID;
+
+/**
+ * Body of the request sending a message to another user.
+ */
+public class MessageRequest {
+    public UUID recipientId;
+    public String subject;
+    public String content;
+}
@@ -0,0 +1,105 @@
+package ch.unil.doplab.webservice;
+
+import ch.unil.doplab.studybuddy.domain.DomainJournal;
+import ch.unil.doplab.studybuddy.domain.Message;
+import ch.unil.doplab.studybuddy.domain.User;
+import ch.unil.doplab.studybuddy.domain.UserDirectory;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.DefaultValue;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.NotFoundException;
+import jakarta.ws.rs.POST;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.PathParam;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+
+@Path("/users/{userId}/messages")
+@Authenticated
+@Produces(MediaType.APPLICATION_JSON)
+public class MessageResource {
+
+    @Inject
+    private UserDirectory directory;
+
+    @Inject
+    private EventBus events;
+
+    @Inject
+    private DomainJournal journal;
+
+    @GET
+    public Response list(@PathParam("userId") UUID userId,
+                         @QueryParam("direction") String direction,
+                         @QueryParam("q") String query,
+                         @QueryParam("page") @DefaultValue("0") int page,
+                         @QueryParam("limit") @DefaultValue("" + PropertyResource.DEFAULT_PAGE_SIZE) int limit) {
+        if (limit <= 0 || limit > PropertyResource.MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + PropertyResource.MAX_PAGE_SIZE);
+        }
+        if (page < 0) throw new IllegalArgumentException("Page must not be negative");
+        User user = require(userId);
+        List<Message> messages;
+        // Copied under the user's lock, as a send may add to the mailbox while the page is written
+        synchronized (user) {
+            if (query != null && !query.isBlank()) {
+                long from = (long) page * limit;
+                // One extra hit, as for listings, lets the writer tell whether a next page exists
+                messages = from > Integer.MAX_VALUE ? List.of()
+                        : List.copyOf(user.searchMessageRange(query, (int) from, limit + 1));
+            } else if (direction != null) {
+                messages = List.copyOf(page(user.getMessages(
+                        Message.MessageDirection.valueOf(direction.toUpperCase(Locale.ROOT))), page, limit));
+            } else {
+                messages = List.copyOf(page(user.getMessages(), page, limit));
+            }
+        }
+        return Response.ok(JsonWriters.page(messages.stream(), limit, JsonWriters::message,
+                message -> String.valueOf(page + 1))).build();
+    }
+
+    @POST
+    @Consumes(MediaType.APPLICATION_JSON)
+    public Response send(@PathParam("userId") UUID userId, MessageRequest request) {
+        if (request == null) throw new IllegalArgumentException("Message is required");
+        User sender = require(userId);
+        User recipient = directory.findById(request.recipientId)
+                .orElseThrow(() -> new IllegalArgumentException("Unknown recipient: " + request.recipientId));
+        // Both mailboxes change; locking in ID order keeps opposite sends from deadlocking
+        User first = sender.getUserID().compareTo(recipient.getUserID()) <= 0 ? sender : recipient;
+        User second = first == sender ? recipient : sender;
+        Message message;
+        long sequence;
+        synchronized (first) {
+            synchronized (second) {
+                message = sender.sendMessage(recipient, request.subject, request.content);
+                sequence = journal.recordSent(message);
+            }
+        }
+        journal.sync(sequence);
+        events.publish(recipient.getUserID(), EventResource.MESSAGE, () -> JsonWriters.toJson(message, JsonWriters::message));
+        return Response.status(Response.Status.CREATED)
+                .entity(JsonWriters.single(message, JsonWriters::message))
+                .build();
+    }
+
+    private User require(UUID userId) {
+        return directory.findById(userId).orElseThrow(NotFoundException::new);
+    }
+
+    private static List<Message> page(List<Message> messages, int page, int limit) {
+        long from = (long) page * limit;
+        if (from >= messages.size()) {
+            return List.of();
+        }
+        // One extra element lets the writer tell whether a next page exists
+        return messages.subList((int) from, (int) Math.min(messages.size(), from + limit + 1));
+    }
+}
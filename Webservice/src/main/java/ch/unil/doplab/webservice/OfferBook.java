@@ -0,0 +1,36 @@
+package ch.unil.doplab.webservice;
+
+import ch.unil.doplab.studybuddy.domain.Offer;
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * In-memory store of the offers placed through the API, indexed by offer and by property.
+ */
+@ApplicationScoped
+public class OfferBook {
+
+    private final Map<UUID, Offer> byId = new ConcurrentHashMap<>();
+    private final Map<UUID, List<Offer>> byProperty = new ConcurrentHashMap<>();
+
+    public void add(Offer offer) {
+        byId.put(offer.getOfferId(), offer);
+        byProperty.computeIfAbsent(offer.getPropertyId(), id -> new CopyOnWriteArrayList<>()).add(offer);
+    }
+
+    public Optional<Offer> find(UUID offerId) {
+        return offerId == null ? Optional.empty() : Optional.ofNullable(byId.get(offerId));
+    }
+
+    public List<Offer> forProperty(UUID propertyId) {
+        List<Offer> offers = propertyId == null ? null : byProperty.get(propertyId);
+        return offers == null ? Collections.emptyList() : Collections.unmodifiableList(offers);
+    }
+}
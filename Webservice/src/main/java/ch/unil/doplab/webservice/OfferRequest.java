@@ -0,0 +1,12 @@
+package ch.unil.doplab.webservice;
+
+import java.util.UUID;
+
+/**
+ * Body of the request placing an offer on a property.
+ */
+public class OfferRequest {
+    public UUID propertyId;
+    public UUID buyerId;
+    public double amount;
+}
@@ -0,0 +1,216 @@
+package ch.unil.doplab.webservice;
+
+import ch.unil.doplab.studybuddy.domain.Buyer;
+import ch.unil.doplab.studybuddy.domain.DomainJournal;
+import ch.unil.doplab.studybuddy.domain.Offer;
+import ch.unil.doplab.studybuddy.domain.Property;
+import ch.unil.doplab.studybuddy.domain.Seller;
+import ch.unil.doplab.studybuddy.domain.UserDirectory;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.ForbiddenException;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.NotFoundException;
+import jakarta.ws.rs.POST;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.PathParam;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.SecurityContext;
+import jakarta.ws.rs.core.UriInfo;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.stream.Stream;
+
+@Path("/offers")
+@Produces(MediaType.APPLICATION_JSON)
+public class OfferResource {
+
+    @Inject
+    private PropertyCatalog catalog;
+
+    @Inject
+    private OfferBook offers;
+
+    @Inject
+    private UserDirectory directory;
+
+    @Inject
+    private EventBus events;
+
+    @Inject
+    private DomainJournal journal;
+
+    @GET
+    public Response forProperty(@QueryParam("propertyId") UUID propertyId) {
+        if (propertyId == null) throw new IllegalArgumentException("propertyId is required");
+        return Response.ok(JsonWriters.page(offers.forProperty(propertyId).stream(), Integer.MAX_VALUE,
+                JsonWriters::offer, offer -> offer.getOfferId().toString())).build();
+    }
+
+    @GET
+    @Path("/{offerId}")
+    public Response get(@PathParam("offerId") UUID offerId) {
+        return Response.ok(JsonWriters.single(require(offerId), JsonWriters::offer)).build();
+    }
+
+    /** Places an offer for the session user, who must be a buyer; buyerId may be left out. */
+    @POST
+    @Authenticated
+    @Consumes(MediaType.APPLICATION_JSON)
+    public Response place(OfferRequest request, @Context UriInfo uriInfo, @Context SecurityContext security) {
+        if (request == null) throw new IllegalArgumentException("Offer is required");
+        UUID userId = BearerTokenFilter.userId(security);
+        if (request.buyerId != null && !request.buyerId.equals(userId)) {
+            throw new ForbiddenException("Offers can only be placed for oneself");
+        }
+        Property property = catalog.find(request.propertyId)
+                .orElseThrow(() -> new IllegalArgumentException("Unknown property: " + request.propertyId));
+        if (!property.isAvailableForSale()) {
+            throw new IllegalArgumentException("Property is not for sale");
+        }
+        Buyer buyer = directory.findById(userId)
+                .filter(Buyer.class::isInstance)
+                .map(Buyer.class::cast)
+                .orElseThrow(() -> new ForbiddenException("Only buyers can place offers"));
+        Offer offer = buyer.placeOffer(property, request.amount);
+        offers.add(offer);
+        journal.sync(journal.record(offer));
+        publish(property.getOwnerId(), offer);
+        return Response.created(uriInfo.getAbsolutePathBuilder().path(offer.getOfferId().toString()).build())
+                .entity(JsonWriters.single(offer, JsonWriters::offer))
+                .build();
+    }
+
+    @POST
+    @Path("/{offerId}/accept")
+    @Authenticated
+    public Response accept(@PathParam("offerId") UUID offerId, @Context SecurityContext security) {
+        return respond(offerId, BearerTokenFilter.userId(security), true);
+    }
+
+    @POST
+    @Path("/{offerId}/reject")
+    @Authenticated
+    public Response reject(@PathParam("offerId") UUID offerId, @Context SecurityContext security) {
+        return respond(offerId, BearerTokenFilter.userId(security), false);
+    }
+
+    /**
+     * Accepts or rejects many offers in one call, with one result per operation.
+     * Offers of different sellers are handled in parallel, those of one seller in
+     * batch order under the seller's lock, since a seller's offer list is not
+     * thread-safe. An item with an unknown action fails on its own, and one on an
+     * offer for another seller's listing fails with 403.
+     */
+    @POST
+    @Path("/batch")
+    @Authenticated
+    @Consumes(MediaType.APPLICATION_JSON)
+    public Response batch(List<BatchOperation> operations, @Context SecurityContext security) {
+        BatchResult.validate(operations);
+        UUID userId = BearerTokenFilter.userId(security);
+        List<BatchResult<Offer>> results = new ArrayList<>(Collections.nCopies(operations.size(), null));
+        Map<Seller, List<Integer>> bySeller = new LinkedHashMap<>();
+        LongAccumulator lastRecorded = new LongAccumulator(Math::max, 0);
+        for (int i = 0; i < operations.size(); i++) {
+            BatchOperation operation = operations.get(i);
+            try {
+                accept(operation.action);
+            } catch (IllegalArgumentException e) {
+                results.set(i, BatchResult.failed(operation.id, Response.Status.BAD_REQUEST, e.getMessage()));
+                continue;
+            }
+            Optional<Offer> offer = offers.find(operation.id);
+            Optional<Property> property = offer.flatMap(o -> catalog.find(o.getPropertyId()));
+            if (property.isEmpty()) {
+                results.set(i, BatchResult.notFound(operation.id));
+            } else if (!userId.equals(property.get().getOwnerId())) {
+                results.set(i, BatchResult.failed(operation.id, Response.Status.FORBIDDEN, "Not the seller of " + operation.id));
+            } else {
+                Optional<Seller> seller = seller(property.get());
+                if (seller.isEmpty()) {
+                    results.set(i, BatchResult.failed(operation.id, Response.Status.BAD_REQUEST, "Property has no registered seller"));
+                } else {
+                    bySeller.computeIfAbsent(seller.get(), s -> new ArrayList<>()).add(i);
+                }
+            }
+        }
+        Stream<Map.Entry<Seller, List<Integer>>> groups = bySeller.size() >= PropertyCatalog.PARALLEL_THRESHOLD
+                ? bySeller.entrySet().parallelStream() : bySeller.entrySet().stream();
+        groups.forEach(group -> {
+            Seller seller = group.getKey();
+            synchronized (seller) {
+                for (int i : group.getValue()) {
+                    BatchOperation operation = operations.get(i);
+                    Offer offer = offers.find(operation.id).orElseThrow();
+                    try {
+                        seller.respondToOffer(offer, accept(operation.action));
+                        journal.record(offer);
+                        publish(offer.getBuyerId(), offer);
+                        publish(seller.getUserID(), offer);
+                        results.set(i, BatchResult.ok(operation.id, offer));
+                    } catch (IllegalArgumentException | IllegalStateException e) {
+                        results.set(i, BatchResult.failed(operation.id, Response.Status.BAD_REQUEST, e.getMessage()));
+                    }
+                }
+                lastRecorded.accumulate(journal.record(seller));
+            }
+        });
+        journal.sync(lastRecorded.get());
+        return Response.ok(BatchResult.write(results, JsonWriters::offer)).build();
+    }
+
+    private Response respond(UUID offerId, UUID userId, boolean accept) {
+        Offer offer = require(offerId);
+        Property property = catalog.find(offer.getPropertyId()).orElseThrow(NotFoundException::new);
+        if (!userId.equals(property.getOwnerId())) {
+            throw new ForbiddenException("Only the seller can respond to this offer");
+        }
+        Seller seller = seller(property)
+                .orElseThrow(() -> new IllegalArgumentException("Property has no registered seller"));
+        long sequence;
+        synchronized (seller) {
+            seller.respondToOffer(offer, accept);
+            journal.record(offer);
+            sequence = journal.record(seller);
+        }
+        journal.sync(sequence);
+        publish(offer.getBuyerId(), offer);
+        publish(seller.getUserID(), offer);
+        return Response.ok(JsonWriters.single(offer, JsonWriters::offer)).build();
+    }
+
+    private Optional<Seller> seller(Property property) {
+        return directory.findById(property.getOwnerId())
+                .filter(Seller.class::isInstance)
+                .map(Seller.class::cast);
+    }
+
+    private static boolean accept(String action) {
+        return switch (action.trim().toLowerCase(Locale.ROOT)) {
+            case "accept" -> true;
+            case "reject" -> false;
+            default -> throw new IllegalArgumentException("Unknown action: " + action);
+        };
+    }
+
+    private void publish(UUID userId, Offer offer) {
+        events.publish(userId, EventResource.OFFER, () -> JsonWriters.toJson(offer, JsonWriters::offer));
+    }
+
+    private Offer require(UUID offerId) {
+        return offers.find(offerId).orElseThrow(NotFoundException::new);
+    }
+}
@@ -0,0 +1,219 @@
+package ch.unil.doplab.webservice;
+
+import ch.unil.doplab.studybuddy.domain.Property;
+import ch.unil.doplab.studybuddy.domain.PropertySearchCriteria;
+import ch.unil.doplab.studybuddy.domain.PropertySummary;
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * In-memory property catalog. Besides the lookup by ID, listings are kept in a
+ * skip list ordered by (price, ID), so searches walk it lazily from a cursor
+ * instead of sorting the whole catalog. Writes go through the catalog so the
+ * ordering stays in sync with price changes; responses render a copy taken
+ * under the same lock, since a listing's features and images are plain
+ * collections.
+ */
+@ApplicationScoped
+public class PropertyCatalog {
+
+    /** Position in the price ordering; also serves as an opaque pagination cursor. */
+    public record SearchKey(double price, UUID propertyId) implements Comparable<SearchKey> {
+
+        @Override
+        public int compareTo(SearchKey other) {
+            int byPrice = Double.compare(price, other.price);
+            return byPrice != 0 ? byPrice : propertyId.compareTo(other.propertyId);
+        }
+
+        public static SearchKey of(Property property) {
+            return new SearchKey(property.getPrice(), property.getPropertyId());
+        }
+
+        public static SearchKey of(PropertySummary summary) {
+            return new SearchKey(summary.price(), summary.propertyId());
+        }
+
+        public String encode() {
+            ByteBuffer buffer = ByteBuffer.allocate(Double.BYTES + 2 * Long.BYTES)
+                    .putDouble(price)
+                    .putLong(propertyId.getMostSignificantBits())
+                    .putLong(propertyId.getLeastSignificantBits());
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+        }
+
+        public static SearchKey decode(String cursor) {
+            byte[] bytes;
+            try {
+                bytes = Base64.getUrlDecoder().decode(cursor);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            if (bytes.length != Double.BYTES + 2 * Long.BYTES) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            return new SearchKey(buffer.getDouble(), new UUID(buffer.getLong(), buffer.getLong()));
+        }
+    }
+
+    /** One change of a batch, applied to the listing with the given ID. */
+    public record Update<T>(UUID propertyId, Function<Property, T> change) {
+    }
+
+    /** Below this many distinct listings a batch is applied on the calling thread. */
+    static final int PARALLEL_THRESHOLD = 64;
+
+    private final Map<UUID, Property> byId = new ConcurrentHashMap<>();
+    private final Map<UUID, SearchKey> keys = new ConcurrentHashMap<>();
+    private final ConcurrentNavigableMap<SearchKey, Property> byPrice = new ConcurrentSkipListMap<>();
+    private final AtomicLong version = new AtomicLong();
+    private volatile Instant lastModified = Instant.now();
+
+    public synchronized void add(Property property) {
+        if (byId.putIfAbsent(property.getPropertyId(), property) != null) {
+            throw new IllegalArgumentException("Property already exists: " + property.getPropertyId());
+        }
+        index(property);
+        changed();
+    }
+
+    public Optional<Property> find(UUID propertyId) {
+        return propertyId == null ? Optional.empty() : Optional.ofNullable(byId.get(propertyId));
+    }
+
+    /** Applies a read to a listing without racing a write; returns empty when the listing does not exist. */
+    public synchronized <T> Optional<T> read(UUID propertyId, Function<Property, T> view) {
+        Property property = byId.get(propertyId);
+        return property == null ? Optional.empty() : Optional.ofNullable(view.apply(property));
+    }
+
+    /** Applies a change to a listing and re-indexes it; returns empty when the listing does not exist. */
+    public synchronized <T> Optional<T> update(UUID propertyId, Function<Property, T> change) {
+        Property property = byId.get(propertyId);
+        if (property == null) {
+            return Optional.empty();
+        }
+        T result = change.apply(property);
+        SearchKey previous = keys.get(propertyId);
+        if (previous.price() != property.getPrice()) {
+            byPrice.remove(previous);
+            index(property);
+        }
+        changed();
+        return Optional.ofNullable(result);
+    }
+
+    /**
+     * Applies a batch of changes, in parallel across listings and in batch order
+     * for the same listing, then re-indexes the listings whose price moved and
+     * bumps the version once for the whole batch. Changes must not throw; the
+     * result for a missing listing is empty.
+     */
+    public synchronized <T> List<Optional<T>> updateAll(List<Update<T>> updates) {
+        Map<UUID, List<Integer>> positions = new LinkedHashMap<>();
+        for (int i = 0; i < updates.size(); i++) {
+            positions.computeIfAbsent(updates.get(i).propertyId(), id -> new ArrayList<>()).add(i);
+        }
+        List<Optional<T>> results = new ArrayList<>(Collections.nCopies(updates.size(), Optional.empty()));
+        Stream<Map.Entry<UUID, List<Integer>>> groups = positions.size() >= PARALLEL_THRESHOLD
+                ? positions.entrySet().parallelStream() : positions.entrySet().stream();
+        groups.forEach(group -> {
+            Property property = byId.get(group.getKey());
+            if (property != null) {
+                for (int i : group.getValue()) {
+                    // Distinct positions per group, so the parallel writes never overlap
+                    results.set(i, Optional.ofNullable(updates.get(i).change().apply(property)));
+                }
+            }
+        });
+        boolean modified = false;
+        for (UUID propertyId : positions.keySet()) {
+            Property property = byId.get(propertyId);
+            if (property == null) {
+                continue;
+            }
+            modified = true;
+            SearchKey previous = keys.get(propertyId);
+            if (previous.price() != property.getPrice()) {
+                byPrice.remove(previous);
+                index(property);
+            }
+        }
+        if (modified) {
+            changed();
+        }
+        return results;
+    }
+
+    public synchronized boolean remove(UUID propertyId) {
+        Property property = byId.remove(propertyId);
+        if (property == null) {
+            return false;
+        }
+        byPrice.remove(keys.remove(propertyId));
+        changed();
+        return true;
+    }
+
+    /** Lazily streams the matching listings by ascending price, starting after the given key. */
+    public Stream<Property> search(PropertySearchCriteria criteria, SearchKey after) {
+        ConcurrentNavigableMap<SearchKey, Property> range = byPrice;
+        if (after != null) {
+            range = range.tailMap(after, false);
+        } else if (criteria.getMinPrice() != null) {
+            range = range.tailMap(new SearchKey(criteria.getMinPrice(), new UUID(Long.MIN_VALUE, Long.MIN_VALUE)), true);
+        }
+        Stream<Property> listings = range.values().stream();
+        if (criteria.getMaxPrice() != null) {
+            double maxPrice = criteria.getMaxPrice();
+            listings = listings.takeWhile(property -> property.getPrice() <= maxPrice);
+        }
+        return listings.filter(criteria.toPredicate());
+    }
+
+    public Collection<Property> getAll() {
+        return Collections.unmodifiableCollection(byId.values());
+    }
+
+    public int size() {
+        return byId.size();
+    }
+
+    /** Incremented by every write, so cached search results can be validated cheaply. */
+    public long getVersion() {
+        return version.get();
+    }
+
+    public Instant getLastModified() {
+        return lastModified;
+    }
+
+    private void changed() {
+        lastModified = Instant.now();
+        version.incrementAndGet();
+    }
+
+    private void index(Property property) {
+        SearchKey key = SearchKey.of(property);
+        keys.put(property.getPropertyId(), key);
+        byPrice.put(key, property);
+    }
+}
@@ -0,0 +1,16 @@
+package ch.unil.doplab.webservice;
+
+import java.util.UUID;
+
+/**
+ * Body of the property create and update requests; absent fields are left unchanged on update.
+ */
+public class PropertyRequest {
+    public UUID ownerId;
+    public String title;
+    public String description;
+    public String location;
+    public Double price;
+    public Double size;
+    public String type;
+}
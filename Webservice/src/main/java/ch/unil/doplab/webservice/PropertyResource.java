@@ -0,0 +1,332 @@
+package ch.unil.doplab.webservice;
+
+import ch.unil.doplab.studybuddy.domain.DomainJournal;
+import ch.unil.doplab.studybuddy.domain.Property;
+import ch.unil.doplab.studybuddy.domain.PropertySearchCriteria;
+import ch.unil.doplab.studybuddy.domain.Seller;
+import ch.unil.doplab.studybuddy.domain.User;
+import ch.unil.doplab.studybuddy.domain.UserDirectory;
+import ch.unil.doplab.studybuddy.storage.ImagePipeline;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.DELETE;
+import jakarta.ws.rs.DefaultValue;
+import jakarta.ws.rs.ForbiddenException;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.NotFoundException;
+import jakarta.ws.rs.POST;
+import jakarta.ws.rs.PUT;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.PathParam;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Request;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.SecurityContext;
+import jakarta.ws.rs.core.UriInfo;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.channels.Channels;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.function.Consumer;
+
+@Path("/properties")
+@Produces(MediaType.APPLICATION_JSON)
+public class PropertyResource {
+
+    static final int DEFAULT_PAGE_SIZE = 50;
+    static final int MAX_PAGE_SIZE = 500;
+
+    @Inject
+    private PropertyCatalog catalog;
+
+    @Inject
+    private UserDirectory directory;
+
+    @Inject
+    private AsyncExecutor async;
+
+    @Inject
+    private DomainJournal journal;
+
+    @Inject
+    private ImagePipeline images;
+
+    /** Runs the search, and the streaming of its results as summaries, on a virtual thread. */
+    @GET
+    public CompletionStage<Response> search(@QueryParam("location") List<String> locations,
+                           @QueryParam("type") List<String> types,
+                           @QueryParam("minPrice") Double minPrice,
+                           @QueryParam("maxPrice") Double maxPrice,
+                           @QueryParam("cursor") String cursor,
+                           @QueryParam("limit") @DefaultValue("" + DEFAULT_PAGE_SIZE) int limit,
+                           @Context UriInfo uriInfo,
+                           @Context Request request) {
+        if (limit <= 0 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        PropertySearchCriteria.Builder builder = PropertySearchCriteria.builder();
+        locations.forEach(builder::addLocation);
+        types.forEach(type -> builder.addPropertyType(type.toUpperCase(Locale.ROOT)));
+        if (minPrice != null) builder.minPrice(minPrice);
+        if (maxPrice != null) builder.maxPrice(maxPrice);
+        PropertySearchCriteria criteria = builder.build();
+        PropertyCatalog.SearchKey after = cursor == null || cursor.isBlank() ? null : PropertyCatalog.SearchKey.decode(cursor);
+        // Read the version before searching: a concurrent write then yields a new tag on the next poll
+        long version = catalog.getVersion();
+        Date lastModified = Date.from(catalog.getLastModified());
+        String query = uriInfo.getRequestUri().getRawQuery();
+        return async.supply(() -> HttpCaching.conditional(request, HttpCaching.tag(version, query), lastModified,
+                () -> Response.ok(JsonWriters.page(catalog.search(criteria, after).map(Property::toSummary), limit,
+                        JsonWriters::summary, summary -> PropertyCatalog.SearchKey.of(summary).encode()))));
+    }
+
+    @GET
+    @Path("/{propertyId}")
+    public Response get(@PathParam("propertyId") UUID propertyId, @Context Request request) {
+        Property property = catalog.read(propertyId, Property::new).orElseThrow(NotFoundException::new);
+        return HttpCaching.conditional(request, property,
+                () -> Response.ok(JsonWriters.single(property, JsonWriters::property)));
+    }
+
+    /** Lists a property for the session user, who must be a seller; ownerId may be left out. */
+    @POST
+    @Authenticated
+    @Consumes(MediaType.APPLICATION_JSON)
+    public Response create(PropertyRequest request, @Context UriInfo uriInfo, @Context SecurityContext security) {
+        if (request == null) throw new IllegalArgumentException("Property is required");
+        UUID userId = BearerTokenFilter.userId(security);
+        if (request.ownerId != null && !request.ownerId.equals(userId)) {
+            throw new ForbiddenException("Listings can only be created for oneself");
+        }
+        Seller seller = seller(userId);
+        Property property;
+        long sequence;
+        synchronized (seller) {
+            Property created = seller.createProperty(request.title, request.description, request.location,
+                    request.price == null ? 0 : request.price, request.size == null ? 0 : request.size,
+                    type(request.type));
+            property = new Property(created);
+            catalog.add(created);
+            journal.record(created);
+            sequence = journal.record(seller);
+        }
+        journal.sync(sequence);
+        return Response.created(uriInfo.getAbsolutePathBuilder().path(property.getPropertyId().toString()).build())
+                .entity(JsonWriters.single(property, JsonWriters::property))
+                .build();
+    }
+
+    @PUT
+    @Path("/{propertyId}")
+    @Authenticated
+    @Consumes(MediaType.APPLICATION_JSON)
+    public Response update(@PathParam("propertyId") UUID propertyId, PropertyRequest request,
+                           @Context SecurityContext security) {
+        if (request == null) throw new IllegalArgumentException("Property is required");
+        UUID userId = BearerTokenFilter.userId(security);
+        Recorded recorded = catalog.update(propertyId, p -> {
+            requireOwner(p, userId);
+            p.updatePropertyDetails(request.title, request.description, request.location,
+                    request.price == null ? -1 : request.price, request.size == null ? -1 : request.size,
+                    request.type == null ? null : type(request.type));
+            return recorded(p);
+        }).orElseThrow(NotFoundException::new);
+        journal.sync(recorded.sequence());
+        return Response.ok(JsonWriters.single(recorded.property(), JsonWriters::property)).build();
+    }
+
+    /**
+     * Stores an uploaded photo and its thumbnails on a virtual thread, then adds
+     * its URL to the listing. Thumbnails are served under that URL plus the size.
+     */
+    @POST
+    @Path("/{propertyId}/images")
+    @Authenticated
+    @Consumes({"image/*", MediaType.APPLICATION_OCTET_STREAM})
+    public CompletionStage<Response> addImage(@PathParam("propertyId") UUID propertyId, InputStream content,
+                                              @Context UriInfo uriInfo, @Context SecurityContext security) {
+        UUID userId = BearerTokenFilter.userId(security);
+        // Checked before the upload is stored, so strangers cannot fill the image store
+        requireOwner(require(propertyId), userId);
+        return async.supply(() -> {
+            String hash;
+            try {
+                hash = images.ingest(Channels.newChannel(content)).join();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            URI location = uriInfo.getBaseUriBuilder().path(ImageResource.class).path(hash).build();
+            Recorded recorded = catalog.update(propertyId, p -> {
+                requireOwner(p, userId);
+                p.addImage(location.toString());
+                return recorded(p);
+            }).orElseThrow(NotFoundException::new);
+            journal.sync(recorded.sequence());
+            return Response.created(location)
+                    .entity(JsonWriters.single(recorded.property(), JsonWriters::property)).build();
+        });
+    }
+
+    @POST
+    @Path("/{propertyId}/publish")
+    @Authenticated
+    public Response publish(@PathParam("propertyId") UUID propertyId, @Context SecurityContext security) {
+        return changeStatus(propertyId, BearerTokenFilter.userId(security), Property::publish);
+    }
+
+    @POST
+    @Path("/{propertyId}/suspend")
+    @Authenticated
+    public Response suspend(@PathParam("propertyId") UUID propertyId, @Context SecurityContext security) {
+        return changeStatus(propertyId, BearerTokenFilter.userId(security), Property::suspend);
+    }
+
+    @POST
+    @Path("/{propertyId}/close")
+    @Authenticated
+    public Response close(@PathParam("propertyId") UUID propertyId, @Context SecurityContext security) {
+        return changeStatus(propertyId, BearerTokenFilter.userId(security), Property::close);
+    }
+
+    /**
+     * Applies price changes and status transitions to many listings in one call,
+     * with one result per operation. The catalog is re-indexed once per batch.
+     * An item with an unknown action fails on its own, without reaching the catalog,
+     * and one on a listing of another owner fails with 403.
+     */
+    @POST
+    @Path("/batch")
+    @Authenticated
+    @Consumes(MediaType.APPLICATION_JSON)
+    public Response batch(List<BatchOperation> operations, @Context SecurityContext security) {
+        BatchResult.validate(operations);
+        UUID userId = BearerTokenFilter.userId(security);
+        List<BatchResult<Property>> results = new ArrayList<>(Collections.nCopies(operations.size(), null));
+        List<Integer> positions = new ArrayList<>(operations.size());
+        List<PropertyCatalog.Update<BatchResult<Property>>> updates = new ArrayList<>(operations.size());
+        LongAccumulator lastRecorded = new LongAccumulator(Math::max, 0);
+        for (int i = 0; i < operations.size(); i++) {
+            BatchOperation operation = operations.get(i);
+            Consumer<Property> change;
+            try {
+                change = change(operation);
+            } catch (IllegalArgumentException e) {
+                results.set(i, BatchResult.failed(operation.id, Response.Status.BAD_REQUEST, e.getMessage()));
+                continue;
+            }
+            positions.add(i);
+            updates.add(new PropertyCatalog.Update<>(operation.id, property -> {
+                if (!userId.equals(property.getOwnerId())) {
+                    return BatchResult.failed(operation.id, Response.Status.FORBIDDEN, "Not the owner of " + operation.id);
+                }
+                try {
+                    change.accept(property);
+                    lastRecorded.accumulate(journal.record(property));
+                    return BatchResult.ok(operation.id, new Property(property));
+                } catch (IllegalArgumentException | IllegalStateException e) {
+                    return BatchResult.failed(operation.id, Response.Status.BAD_REQUEST, e.getMessage());
+                }
+            }));
+        }
+        List<Optional<BatchResult<Property>>> applied = catalog.updateAll(updates);
+        // One sync up to the batch's last record makes the whole batch durable
+        journal.sync(lastRecorded.get());
+        for (int i = 0; i < applied.size(); i++) {
+            UUID propertyId = operations.get(positions.get(i)).id;
+            results.set(positions.get(i), applied.get(i).orElseGet(() -> BatchResult.notFound(propertyId)));
+        }
+        return Response.ok(BatchResult.write(results, JsonWriters::property)).build();
+    }
+
+    @DELETE
+    @Path("/{propertyId}")
+    @Authenticated
+    public Response delete(@PathParam("propertyId") UUID propertyId, @Context SecurityContext security) {
+        requireOwner(require(propertyId), BearerTokenFilter.userId(security));
+        if (!catalog.remove(propertyId)) {
+            throw new NotFoundException();
+        }
+        journal.sync(journal.removeProperty(propertyId));
+        return Response.noContent().build();
+    }
+
+    private Response changeStatus(UUID propertyId, UUID userId, Consumer<Property> transition) {
+        Recorded recorded = catalog.update(propertyId, p -> {
+            requireOwner(p, userId);
+            transition.accept(p);
+            return recorded(p);
+        }).orElseThrow(NotFoundException::new);
+        journal.sync(recorded.sequence());
+        return Response.ok(JsonWriters.single(recorded.property(), JsonWriters::property)).build();
+    }
+
+    private static Consumer<Property> change(BatchOperation operation) {
+        return switch (operation.action.trim().toLowerCase(Locale.ROOT)) {
+            case "price" -> {
+                Double price = operation.price;
+                yield property -> {
+                    if (price == null || price < 0) {
+                        throw new IllegalArgumentException("Price must be a non-negative number");
+                    }
+                    property.setPrice(price);
+                };
+            }
+            case "publish" -> Property::publish;
+            case "suspend" -> Property::suspend;
+            case "close" -> Property::close;
+            default -> throw new IllegalArgumentException("Unknown action: " + operation.action);
+        };
+    }
+
+    /** A copy of a changed listing and the journal record that has to be synced before answering. */
+    private record Recorded(Property property, long sequence) {
+    }
+
+    private Recorded recorded(Property property) {
+        return new Recorded(new Property(property), journal.record(property));
+    }
+
+    private Property require(UUID propertyId) {
+        return catalog.find(propertyId).orElseThrow(NotFoundException::new);
+    }
+
+    private static void requireOwner(Property property, UUID userId) {
+        if (!userId.equals(property.getOwnerId())) {
+            throw new ForbiddenException("Only the owner can change this listing");
+        }
+    }
+
+    private Seller seller(UUID ownerId) {
+        User owner = directory.findById(ownerId)
+                .orElseThrow(() -> new IllegalArgumentException("Unknown owner: " + ownerId));
+        if (!(owner instanceof Seller seller)) {
+            throw new IllegalArgumentException("Owner must be a seller");
+        }
+        return seller;
+    }
+
+    static Property.PropertyType type(String name) {
+        if (name == null || name.isBlank()) {
+            throw new IllegalArgumentException("Property type is required");
+        }
+        try {
+            return Property.PropertyType.valueOf(name.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown property type: " + name);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package ch.unil.doplab.webservice;
+
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.ext.ExceptionMapper;
+import jakarta.ws.rs.ext.Provider;
+
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Maps a full hashing or image pool to 503 Service Unavailable, asking the
+ * client to retry shortly rather than failing the request as a server error.
+ */
+@Provider
+public class RejectedExecutionExceptionMapper implements ExceptionMapper<RejectedExecutionException> {
+
+    static final int RETRY_AFTER_SECONDS = 1;
+
+    @Override
+    public Response toResponse(RejectedExecutionException exception) {
+        return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+                .type(MediaType.TEXT_PLAIN_TYPE)
+                .entity("Server is busy, retry later")
+                .build();
+    }
+}
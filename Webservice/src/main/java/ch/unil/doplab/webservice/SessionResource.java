@@ -0,0 +1,65 @@
+package ch.unil.doplab.webservice;
+
+import ch.unil.doplab.studybuddy.domain.User;
+import ch.unil.doplab.studybuddy.domain.UserDirectory;
+import ch.unil.doplab.studybuddy.security.CredentialService;
+import ch.unil.doplab.studybuddy.security.SessionManager;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.DELETE;
+import jakarta.ws.rs.HeaderParam;
+import jakarta.ws.rs.POST;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+@Path("/sessions")
+@Produces(MediaType.APPLICATION_JSON)
+public class SessionResource {
+
+    @Inject
+    private UserDirectory directory;
+
+    @Inject
+    private CredentialService credentials;
+
+    @Inject
+    private SessionManager sessions;
+
+    /** Checks the password on the hashing pool; the request thread is released meanwhile. */
+    @POST
+    @Consumes(MediaType.APPLICATION_JSON)
+    public CompletionStage<Response> login(LoginRequest request) {
+        if (request == null) throw new IllegalArgumentException("Credentials are required");
+        Optional<User> user = directory.findByUsername(request.username);
+        if (user.isEmpty()) {
+            return CompletableFuture.completedFuture(unauthorized());
+        }
+        return AsyncExecutor.unwrapped(sessions.login(credentials, user.get(), request.password)
+                .thenApply(token -> token
+                        .map(value -> Response.ok(JsonWriters.single(value, (json, t) -> json.writeStartObject()
+                                .write("token", t)
+                                .write("userId", user.get().getUserID().toString())
+                                .writeEnd())).build())
+                        .orElseGet(SessionResource::unauthorized)));
+    }
+
+    @DELETE
+    public Response logout(@HeaderParam(HttpHeaders.AUTHORIZATION) String authorization) {
+        String token = BearerTokenFilter.token(authorization);
+        if (token != null) {
+            sessions.revoke(token);
+        }
+        return Response.noContent().build();
+    }
+
+    private static Response unauthorized() {
+        return Response.status(Response.Status.UNAUTHORIZED).build();
+    }
+}
@@ -0,0 +1,14 @@
+package ch.unil.doplab.webservice;
+
+/**
+ * Body of the user registration request; the role is either "Buyer" or "Seller".
+ */
+public class UserRequest {
+    public String role;
+    public String firstName;
+    public String lastName;
+    public String email;
+    public String username;
+    public String password;
+    public double budget;
+}
@@ -0,0 +1,79 @@
+package ch.unil.doplab.webservice;
+
+import ch.unil.doplab.studybuddy.domain.Buyer;
+import ch.unil.doplab.studybuddy.domain.DomainJournal;
+import ch.unil.doplab.studybuddy.domain.Seller;
+import ch.unil.doplab.studybuddy.domain.User;
+import ch.unil.doplab.studybuddy.domain.UserDirectory;
+import ch.unil.doplab.studybuddy.security.CredentialService;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.NotFoundException;
+import jakarta.ws.rs.POST;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.PathParam;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.UriInfo;
+
+import java.util.UUID;
+import java.util.concurrent.CompletionStage;
+
+@Path("/users")
+@Produces(MediaType.APPLICATION_JSON)
+public class UserResource {
+
+    @Inject
+    private UserDirectory directory;
+
+    @Inject
+    private CredentialService credentials;
+
+    @Inject
+    private DomainJournal journal;
+
+    @Inject
+    private AsyncExecutor async;
+
+    @GET
+    @Path("/{userId}")
+    public Response get(@PathParam("userId") UUID userId) {
+        User user = directory.findById(userId).orElseThrow(NotFoundException::new);
+        return Response.ok(JsonWriters.single(user, JsonWriters::user)).build();
+    }
+
+    /**
+     * Hashes the password on the hashing pool; the request thread is released
+     * meanwhile. The journal sync then runs on a virtual thread, so the disk
+     * write does not hold a hashing thread.
+     */
+    @POST
+    @Consumes(MediaType.APPLICATION_JSON)
+    public CompletionStage<Response> register(UserRequest request, @Context UriInfo uriInfo) {
+        if (request == null) throw new IllegalArgumentException("User is required");
+        if (directory.isUsernameTaken(request.username)) throw new IllegalArgumentException("Username is already taken");
+        if (directory.isEmailRegistered(request.email)) throw new IllegalArgumentException("Email is already registered");
+        return AsyncExecutor.unwrapped(credentials.hash(request.password).thenApplyAsync(hash -> {
+            User user = newUser(request, hash);
+            directory.register(user);
+            journal.sync(journal.record(user));
+            return Response.created(uriInfo.getAbsolutePathBuilder().path(user.getUserID().toString()).build())
+                    .entity(JsonWriters.single(user, JsonWriters::user))
+                    .build();
+        }, async.executor()));
+    }
+
+    static User newUser(UserRequest request, String passwordHash) {
+        if ("Buyer".equalsIgnoreCase(request.role)) {
+            return new Buyer(request.firstName, request.lastName, request.email, request.username,
+                    passwordHash, request.budget);
+        }
+        if ("Seller".equalsIgnoreCase(request.role)) {
+            return new Seller(request.firstName, request.lastName, request.email, request.username, passwordHash);
+        }
+        throw new IllegalArgumentException("Role must be Buyer or Seller");
+    }
+}
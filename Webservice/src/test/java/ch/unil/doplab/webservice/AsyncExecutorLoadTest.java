@@ -0,0 +1,96 @@
+package ch.unil.doplab.webservice;
+
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.Response;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Load test of a container-sized worker pool handing the blocking part of each
+ * request to AsyncExecutor's virtual threads, and of how failures come back.
+ */
+class AsyncExecutorLoadTest {
+
+    private static final int WORKERS = 32;
+    private static final int REQUESTS = 2_000;
+    private static final long BLOCKING_MILLIS = 20;
+
+    private ExecutorService workers;
+    private AsyncExecutor async;
+
+    @BeforeEach
+    void setUp() {
+        workers = Executors.newFixedThreadPool(WORKERS);
+        async = new AsyncExecutor();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        async.shutdown();
+        workers.shutdown();
+        assertTrue(workers.awaitTermination(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testVirtualThreadsReleaseWorkerThreads() {
+        // More slow requests than workers; timings are left to the benchmarks, which run on a quiet machine
+        assertEquals(REQUESTS, run(() -> async.supply(AsyncExecutorLoadTest::slowOperation)));
+    }
+
+    @Test
+    void testFailuresKeepTheirOriginalType() {
+        CompletionStage<Object> failed = async.supply(() -> {
+            throw new IllegalArgumentException("invalid");
+        });
+
+        Throwable error = failed.handle((value, e) -> e).toCompletableFuture().join();
+        assertInstanceOf(IllegalArgumentException.class, error);
+    }
+
+    @Test
+    void testRejectedWorkIsServiceUnavailable() {
+        ExecutorService full = Executors.newSingleThreadExecutor();
+        full.shutdown();
+        CompletionStage<String> rejected = AsyncExecutor.unwrapped(CompletableFuture.completedFuture("hash")
+                .thenApplyAsync(hash -> hash, full));
+
+        Throwable error = rejected.handle((value, e) -> e).toCompletableFuture().join();
+        Response response = new RejectedExecutionExceptionMapper().toResponse(
+                assertInstanceOf(RejectedExecutionException.class, error));
+        assertEquals(503, response.getStatus());
+        assertEquals(String.valueOf(RejectedExecutionExceptionMapper.RETRY_AFTER_SECONDS),
+                response.getHeaderString(HttpHeaders.RETRY_AFTER));
+    }
+
+    /** Submits every request to the worker pool and waits for all responses; returns how many completed. */
+    private long run(Supplier<CompletionStage<String>> handler) {
+        List<CompletableFuture<String>> responses = new ArrayList<>(REQUESTS);
+        for (int i = 0; i < REQUESTS; i++) {
+            responses.add(CompletableFuture.supplyAsync(handler, workers)
+                    .thenCompose(stage -> stage));
+        }
+        return responses.stream().map(CompletableFuture::join).filter("done"::equals).count();
+    }
+
+    private static String slowOperation() {
+        try {
+            Thread.sleep(BLOCKING_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return "done";
+    }
+}
@@ -0,0 +1,104 @@
+package ch.unil.doplab.webservice;
+
+import ch.unil.doplab.studybuddy.domain.Buyer;
+import ch.unil.doplab.studybuddy.domain.User;
+import ch.unil.doplab.studybuddy.security.SessionManager;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MultivaluedHashMap;
+import jakarta.ws.rs.core.MultivaluedMap;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.SecurityContext;
+import jakarta.ws.rs.core.UriInfo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the BearerTokenFilter class.
+ * Tests rejection of missing, invalid and revoked tokens, and of tokens used on another user's path,
+ * and that an accepted token's user becomes the request's principal.
+ */
+class BearerTokenFilterTest {
+
+    private SessionManager sessions;
+    private BearerTokenFilter filter;
+    private User user;
+    private String token;
+    private final AtomicReference<SecurityContext> security = new AtomicReference<>();
+
+    @BeforeEach
+    void setUp() {
+        sessions = new SessionManager(new byte[32], Duration.ofHours(1), 16);
+        filter = Resources.inject(new BearerTokenFilter(), "sessions", sessions);
+        user = new Buyer("Jane", "Doe", "jane@example.com", "jane", "secret", 500_000);
+        token = sessions.issue(user);
+    }
+
+    @Test
+    void testOwnTokenPasses() {
+        assertNull(filter(user.getUserID(), "Bearer " + token));
+        assertNull(filter(user.getUserID(), "bearer  " + token));
+        assertNull(filter(null, "Bearer " + token));
+    }
+
+    @Test
+    void testOwnTokenSetsTheSessionUser() {
+        filter(user.getUserID(), "Bearer " + token);
+
+        assertEquals(user.getUserID(), BearerTokenFilter.userId(security.get()));
+        assertTrue(security.get().isUserInRole("buyer"));
+        assertFalse(security.get().isUserInRole("seller"));
+    }
+
+    @Test
+    void testMissingInvalidOrRevokedTokenIsUnauthorized() {
+        Response missing = filter(user.getUserID(), null);
+        assertEquals(401, missing.getStatus());
+        assertEquals("Bearer", missing.getHeaderString(HttpHeaders.WWW_AUTHENTICATE));
+        assertEquals(401, filter(user.getUserID(), "Basic " + token).getStatus());
+        assertEquals(401, filter(user.getUserID(), "Bearer " + token + "x").getStatus());
+
+        sessions.revoke(token);
+        assertEquals(401, filter(user.getUserID(), "Bearer " + token).getStatus());
+    }
+
+    @Test
+    void testTokenOfAnotherUserIsForbidden() {
+        assertEquals(403, filter(UUID.randomUUID(), "Bearer " + token).getStatus());
+    }
+
+    /** Runs the filter on a request for the given path user; returns the response it aborted with, if any. */
+    private Response filter(UUID pathUserId, String authorization) {
+        MultivaluedMap<String, String> pathParameters = new MultivaluedHashMap<>();
+        if (pathUserId != null) {
+            pathParameters.putSingle("userId", pathUserId.toString());
+        }
+        UriInfo uriInfo = (UriInfo) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{UriInfo.class},
+                (proxy, method, args) -> method.getName().equals("getPathParameters") ? pathParameters : null);
+        AtomicReference<Response> aborted = new AtomicReference<>();
+        ContainerRequestContext request = (ContainerRequestContext) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{ContainerRequestContext.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "getHeaderString" -> HttpHeaders.AUTHORIZATION.equals(args[0]) ? authorization : null;
+                    case "getUriInfo" -> uriInfo;
+                    case "abortWith" -> {
+                        aborted.set((Response) args[0]);
+                        yield null;
+                    }
+                    case "getSecurityContext" -> null;
+                    case "setSecurityContext" -> {
+                        security.set((SecurityContext) args[0]);
+                        yield null;
+                    }
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+        filter.filter(request);
+        return aborted.get();
+    }
+}
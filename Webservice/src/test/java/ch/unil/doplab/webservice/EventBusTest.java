@@ -0,0 +1,166 @@
+package ch.unil.doplab.webservice;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the EventBus class.
+ * Tests per-user fan-out, slow-consumer eviction, heartbeats and cleanup of failed connections.
+ */
+class EventBusTest {
+
+    private final EventBus bus = new EventBus(4, Duration.ofMinutes(1));
+
+    @AfterEach
+    void tearDown() {
+        bus.shutdown();
+    }
+
+    @Test
+    void testFanOutToEveryConnectionOfTheUser() throws Exception {
+        UUID seller = UUID.randomUUID();
+        RecordingSink first = new RecordingSink(1);
+        RecordingSink second = new RecordingSink(1);
+        RecordingSink other = new RecordingSink(1);
+        bus.subscribe(seller, first);
+        bus.subscribe(seller, second);
+        bus.subscribe(UUID.randomUUID(), other);
+
+        assertEquals(2, bus.publish(seller, "offer", () -> "{}"));
+
+        assertTrue(first.received.await(5, TimeUnit.SECONDS));
+        assertTrue(second.received.await(5, TimeUnit.SECONDS));
+        assertEquals("offer", first.events.get(0).type());
+        assertEquals(first.events.get(0).id(), second.events.get(0).id());
+        assertTrue(other.events.isEmpty());
+    }
+
+    @Test
+    void testPayloadIsNotRenderedWithoutSubscribers() {
+        assertEquals(0, bus.publish(UUID.randomUUID(), "message", () -> fail("rendered")));
+    }
+
+    @Test
+    void testSlowConsumerIsEvicted() throws Exception {
+        UUID buyer = UUID.randomUUID();
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingSink slow = new RecordingSink(1) {
+            @Override
+            public void send(EventBus.Event event) throws Exception {
+                release.await();
+                super.send(event);
+            }
+        };
+        RecordingSink fast = new RecordingSink(10);
+        EventBus.Subscription slowSubscription = bus.subscribe(buyer, slow);
+        bus.subscribe(buyer, fast);
+
+        // One event is held by the blocked writer, four fill the buffer, the next one overflows it.
+        // The fast consumer keeps up because each publish waits for it to catch up.
+        for (int i = 0; i < 10; i++) {
+            bus.publish(buyer, "offer", () -> "{}");
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (fast.events.size() <= i && System.nanoTime() < deadline) {
+                Thread.onSpinWait();
+            }
+        }
+
+        assertFalse(slowSubscription.isOpen());
+        assertTrue(slow.closed);
+        assertEquals(1, bus.getEvictions());
+        assertEquals(1, bus.getSubscriberCount(buyer));
+        assertEquals(10, fast.events.size());
+        release.countDown();
+    }
+
+    @Test
+    void testFailedSinkIsUnsubscribed() throws Exception {
+        UUID user = UUID.randomUUID();
+        RecordingSink broken = new RecordingSink(1) {
+            @Override
+            public void send(EventBus.Event event) {
+                throw new IllegalStateException("Client disconnected");
+            }
+        };
+        EventBus.Subscription subscription = bus.subscribe(user, broken);
+
+        bus.publish(user, "message", () -> "{}");
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (subscription.isOpen() && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertFalse(subscription.isOpen());
+        assertTrue(broken.closed);
+        assertEquals(0, bus.getSubscriberCount());
+        assertEquals(0, bus.getEvictions());
+    }
+
+    @Test
+    void testQuietDisconnectedClientIsDroppedByTheHeartbeat() throws Exception {
+        EventBus quiet = new EventBus(4, Duration.ofMillis(20));
+        try {
+            UUID user = UUID.randomUUID();
+            RecordingSink live = new RecordingSink(1);
+            RecordingSink gone = new RecordingSink(1) {
+                @Override
+                public void heartbeat() {
+                    throw new IllegalStateException("Client disconnected");
+                }
+            };
+            quiet.subscribe(user, live);
+            EventBus.Subscription subscription = quiet.subscribe(user, gone);
+
+            // Nothing is published; only the heartbeat can notice the closed connection
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while ((subscription.isOpen() || live.heartbeats.get() < 2) && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            assertFalse(subscription.isOpen());
+            assertTrue(gone.closed);
+            assertFalse(live.closed);
+            assertTrue(live.heartbeats.get() >= 2);
+            assertEquals(1, quiet.getSubscriberCount(user));
+        } finally {
+            quiet.shutdown();
+        }
+    }
+
+    private static class RecordingSink implements EventBus.Sink {
+
+        final List<EventBus.Event> events = new CopyOnWriteArrayList<>();
+        final CountDownLatch received;
+        final AtomicInteger heartbeats = new AtomicInteger();
+        volatile boolean closed;
+
+        RecordingSink(int expected) {
+            received = new CountDownLatch(expected);
+        }
+
+        @Override
+        public void send(EventBus.Event event) throws Exception {
+            events.add(event);
+            received.countDown();
+        }
+
+        @Override
+        public void heartbeat() throws Exception {
+            heartbeats.incrementAndGet();
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
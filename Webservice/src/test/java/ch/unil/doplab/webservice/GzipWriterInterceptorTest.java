@@ -0,0 +1,102 @@
+package ch.unil.doplab.webservice;
+
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.MultivaluedHashMap;
+import jakarta.ws.rs.core.MultivaluedMap;
+import jakarta.ws.rs.ext.WriterInterceptorContext;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the GzipWriterInterceptor class.
+ * Tests which media types are compressed and the headers, ETag included, of compressed responses.
+ */
+class GzipWriterInterceptorTest {
+
+    private static final byte[] BODY = "{\"items\":[]}".repeat(100).getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    void testJsonIsCompressedWhenAccepted() throws IOException {
+        MultivaluedMap<String, Object> headers = new MultivaluedHashMap<>();
+        headers.putSingle(HttpHeaders.CONTENT_LENGTH, BODY.length);
+        headers.putSingle(HttpHeaders.ETAG, new EntityTag("v1"));
+
+        byte[] written = write(MediaType.APPLICATION_JSON_TYPE, "gzip, deflate", headers);
+
+        assertEquals("gzip", headers.getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(HttpHeaders.ACCEPT_ENCODING, headers.getFirst(HttpHeaders.VARY));
+        assertFalse(headers.containsKey(HttpHeaders.CONTENT_LENGTH));
+        assertEquals(new EntityTag("v1", true), headers.getFirst(HttpHeaders.ETAG));
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(written))) {
+            assertArrayEquals(BODY, in.readAllBytes());
+        }
+        assertArrayEquals(BODY, write(MediaType.APPLICATION_JSON_TYPE, null, new MultivaluedHashMap<>()));
+    }
+
+    @Test
+    void testStrongTagWrittenAsTextIsMadeWeak() throws IOException {
+        MultivaluedMap<String, Object> headers = new MultivaluedHashMap<>();
+        headers.putSingle(HttpHeaders.ETAG, "\"v1\"");
+
+        write(MediaType.APPLICATION_JSON_TYPE, "gzip", headers);
+
+        assertEquals(new EntityTag("v1", true), headers.getFirst(HttpHeaders.ETAG));
+    }
+
+    @Test
+    void testImagesAndArchivesAreSentAsTheyAre() throws IOException {
+        for (String type : new String[]{"image/jpeg", "image/png", "video/mp4", "application/zip"}) {
+            MultivaluedMap<String, Object> headers = new MultivaluedHashMap<>();
+            headers.putSingle(HttpHeaders.CONTENT_LENGTH, BODY.length);
+
+            assertArrayEquals(BODY, write(MediaType.valueOf(type), "gzip", headers), type);
+            assertFalse(headers.containsKey(HttpHeaders.CONTENT_ENCODING), type);
+            assertEquals(BODY.length, headers.getFirst(HttpHeaders.CONTENT_LENGTH), type);
+        }
+        assertTrue(GzipWriterInterceptor.compressible(MediaType.valueOf("image/svg+xml")));
+        assertTrue(GzipWriterInterceptor.compressible(MediaType.TEXT_PLAIN_TYPE));
+    }
+
+    /** Runs the interceptor around a writer of BODY; returns the bytes that reached the client. */
+    private static byte[] write(MediaType type, String acceptEncoding, MultivaluedMap<String, Object> headers)
+            throws IOException {
+        HttpHeaders requestHeaders = (HttpHeaders) Proxy.newProxyInstance(GzipWriterInterceptorTest.class.getClassLoader(),
+                new Class<?>[]{HttpHeaders.class}, (proxy, method, args) ->
+                        method.getName().equals("getHeaderString") && HttpHeaders.ACCEPT_ENCODING.equals(args[0])
+                                ? acceptEncoding : null);
+        ByteArrayOutputStream client = new ByteArrayOutputStream();
+        AtomicReference<OutputStream> out = new AtomicReference<>(client);
+        WriterInterceptorContext context = (WriterInterceptorContext) Proxy.newProxyInstance(
+                GzipWriterInterceptorTest.class.getClassLoader(), new Class<?>[]{WriterInterceptorContext.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "getMediaType" -> type;
+                    case "getHeaders" -> headers;
+                    case "getOutputStream" -> out.get();
+                    case "setOutputStream" -> {
+                        out.set((OutputStream) args[0]);
+                        yield null;
+                    }
+                    case "proceed" -> {
+                        out.get().write(BODY);
+                        yield null;
+                    }
+                    default -> null;
+                });
+        GzipWriterInterceptor interceptor = Resources.inject(new GzipWriterInterceptor(), "headers", requestHeaders);
+
+        interceptor.aroundWriteTo(context);
+        return client.toByteArray();
+    }
+}
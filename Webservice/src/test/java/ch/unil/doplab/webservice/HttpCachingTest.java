@@ -0,0 +1,111 @@
+package ch.unil.doplab.webservice;
+
+import ch.unil.doplab.studybuddy.domain.Property;
+import ch.unil.doplab.studybuddy.domain.Seller;
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.Request;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.ext.RuntimeDelegate;
+import org.glassfish.jersey.internal.MapPropertiesDelegate;
+import org.glassfish.jersey.server.ContainerRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the HttpCaching class.
+ * Tests 304 responses to If-None-Match and If-Modified-Since, and that they skip building the entity.
+ */
+class HttpCachingTest {
+
+    private Property property;
+    private AtomicInteger built;
+
+    @BeforeEach
+    void setUp() {
+        Seller seller = new Seller("John", "Smith", "john@example.com", "john", "secret");
+        property = seller.createProperty("Flat", "Bright", "Lausanne", 850_000, 75, Property.PropertyType.APARTMENT);
+        built = new AtomicInteger();
+    }
+
+    @Test
+    void testConditionalIsNotModifiedForTheCurrentTag() {
+        Response first = HttpCaching.conditional(request(), property, this::entity);
+        EntityTag tag = first.getEntityTag();
+        assertEquals(200, first.getStatus());
+        assertTrue(tag.isWeak());
+
+        Response again = HttpCaching.conditional(request(HttpHeaders.IF_NONE_MATCH, header(tag)), property, this::entity);
+        assertEquals(304, again.getStatus());
+        assertEquals(tag, again.getEntityTag());
+        assertNull(again.getEntity());
+        // A client that dropped the weak marker still matches, as If-None-Match compares weakly
+        assertEquals(304, HttpCaching.conditional(request(HttpHeaders.IF_NONE_MATCH, "\"" + tag.getValue() + "\""),
+                property, this::entity).getStatus());
+        assertEquals(1, built.get());
+
+        assertEquals(200, HttpCaching.conditional(request(HttpHeaders.IF_NONE_MATCH, "W/\"stale\""),
+                property, this::entity).getStatus());
+        assertEquals(2, built.get());
+    }
+
+    @Test
+    void testConditionalIsNotModifiedSinceTheLastModification() {
+        Date lastModified = HttpCaching.lastModified(property);
+
+        Response current = HttpCaching.conditional(request(HttpHeaders.IF_MODIFIED_SINCE, httpDate(lastModified.getTime())),
+                property, this::entity);
+        assertEquals(304, current.getStatus());
+        assertEquals(0, built.get());
+
+        Response stale = HttpCaching.conditional(request(HttpHeaders.IF_MODIFIED_SINCE,
+                httpDate(lastModified.getTime() - 60_000)), property, this::entity);
+        assertEquals(200, stale.getStatus());
+        assertEquals(1, built.get());
+    }
+
+    @Test
+    void testImmutableIsNotModifiedForItsTag() {
+        EntityTag tag = new EntityTag("abc123");
+
+        Response cached = HttpCaching.immutable(request(HttpHeaders.IF_NONE_MATCH, header(tag)), tag, this::entity);
+        assertEquals(304, cached.getStatus());
+        assertFalse(cached.getEntityTag().isWeak());
+        assertEquals(0, built.get());
+
+        Response other = HttpCaching.immutable(request(HttpHeaders.IF_NONE_MATCH, "\"def456\""), tag, this::entity);
+        assertEquals(200, other.getStatus());
+        assertTrue(other.getHeaderString(HttpHeaders.CACHE_CONTROL).contains("immutable"));
+        assertEquals(1, built.get());
+    }
+
+    private static String header(EntityTag tag) {
+        return RuntimeDelegate.getInstance().createHeaderDelegate(EntityTag.class).toString(tag);
+    }
+
+    private Response.ResponseBuilder entity() {
+        built.incrementAndGet();
+        return Response.ok("body");
+    }
+
+    private static Request request(String... headers) {
+        ContainerRequest request = new ContainerRequest(URI.create("http://localhost/api/"),
+                URI.create("http://localhost/api/properties"), "GET", null, new MapPropertiesDelegate(), null);
+        for (int i = 0; i < headers.length; i += 2) {
+            request.header(headers[i], headers[i + 1]);
+        }
+        return request;
+    }
+
+    private static String httpDate(long millis) {
+        return DateTimeFormatter.RFC_1123_DATE_TIME.format(new Date(millis).toInstant().atOffset(ZoneOffset.UTC));
+    }
+}
@@ -0,0 +1,56 @@
+package ch.unil.doplab.webservice;
+
+import ch.unil.doplab.studybuddy.domain.Property;
+import ch.unil.doplab.studybuddy.domain.PropertySearchCriteria;
+import jakarta.json.JsonObject;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the JsonWriters class.
+ * Tests paging: a cursor while items follow, and a null cursor on the last page.
+ */
+class JsonWritersTest {
+
+    @Test
+    void testCursorsWalkTheCatalogUntilTheLastPage() throws IOException {
+        PropertyCatalog catalog = new PropertyCatalog();
+        for (int i = 0; i < 5; i++) {
+            catalog.add(new Property("Flat " + i, UUID.randomUUID(), "", "Lausanne",
+                    100_000 + i * 1_000, 50, Property.PropertyType.APARTMENT));
+        }
+        PropertySearchCriteria criteria = PropertySearchCriteria.builder().build();
+        List<Integer> pageSizes = new ArrayList<>();
+        List<String> prices = new ArrayList<>();
+        PropertyCatalog.SearchKey after = null;
+        do {
+            JsonObject page = Resources.render(JsonWriters.page(catalog.search(criteria, after).map(Property::toSummary),
+                    2, JsonWriters::summary, summary -> PropertyCatalog.SearchKey.of(summary).encode()));
+            pageSizes.add(page.getJsonArray("items").size());
+            page.getJsonArray("items").forEach(item -> prices.add(item.asJsonObject().get("price").toString()));
+            after = page.isNull("nextCursor") ? null : PropertyCatalog.SearchKey.decode(page.getString("nextCursor"));
+        } while (after != null);
+
+        assertEquals(List.of(2, 2, 1), pageSizes);
+        assertEquals(5, prices.stream().distinct().count());
+    }
+
+    @Test
+    void testFullLastPageHasNoCursor() throws IOException {
+        JsonObject first = Resources.render(JsonWriters.page(Stream.of("a", "b", "c"), 2,
+                (json, item) -> json.write(item), item -> item));
+        JsonObject last = Resources.render(JsonWriters.page(Stream.of("c", "d"), 2,
+                (json, item) -> json.write(item), item -> item));
+
+        assertEquals("b", first.getString("nextCursor"));
+        assertEquals(2, last.getJsonArray("items").size());
+        assertTrue(last.isNull("nextCursor"));
+    }
+}
@@ -0,0 +1,74 @@
+package ch.unil.doplab.webservice;
+
+import ch.unil.doplab.studybuddy.domain.Buyer;
+import ch.unil.doplab.studybuddy.domain.Seller;
+import ch.unil.doplab.studybuddy.domain.UserDirectory;
+import jakarta.json.JsonObject;
+import jakarta.ws.rs.NotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the MessageResource class.
+ * Tests paging of a mailbox and of search results, validation of the page size and 404 responses for unknown users.
+ */
+class MessageResourceTest {
+
+    private MessageResource resource;
+    private Buyer buyer;
+
+    @BeforeEach
+    void setUp() {
+        UserDirectory directory = new UserDirectory();
+        buyer = new Buyer("Jane", "Doe", "jane@example.com", "jane", "secret", 500_000);
+        Seller seller = new Seller("Agent", "Smith", "agent@example.com", "agent", "secret");
+        directory.register(buyer);
+        directory.register(seller);
+        for (int i = 0; i < 3; i++) {
+            seller.sendMessage(buyer, "Visit " + i, "Would Tuesday suit you?");
+        }
+        resource = Resources.inject(new MessageResource(), "directory", directory);
+    }
+
+    @Test
+    void testPagesEndWithANullCursor() throws IOException {
+        JsonObject first = Resources.render(resource.list(buyer.getUserID(), null, null, 0, 2));
+        JsonObject last = Resources.render(resource.list(buyer.getUserID(), "received", null, 1, 2));
+
+        assertEquals(2, first.getJsonArray("items").size());
+        assertEquals("1", first.getString("nextCursor"));
+        assertEquals(1, last.getJsonArray("items").size());
+        assertTrue(last.isNull("nextCursor"));
+    }
+
+    @Test
+    void testSearchResultsArePagedLikeTheMailbox() throws IOException {
+        JsonObject first = Resources.render(resource.list(buyer.getUserID(), null, "tuesday", 0, 2));
+        JsonObject last = Resources.render(resource.list(buyer.getUserID(), null, "tuesday", 1, 2));
+
+        assertEquals(2, first.getJsonArray("items").size());
+        assertEquals("1", first.getString("nextCursor"));
+        assertEquals(1, last.getJsonArray("items").size());
+        assertTrue(last.isNull("nextCursor"));
+    }
+
+    @Test
+    void testLimitOutsideItsBoundsIsRejected() {
+        UUID userId = buyer.getUserID();
+
+        assertThrows(IllegalArgumentException.class, () -> resource.list(userId, null, null, 0, 0));
+        assertThrows(IllegalArgumentException.class,
+                () -> resource.list(userId, null, null, 0, PropertyResource.MAX_PAGE_SIZE + 1));
+        assertThrows(IllegalArgumentException.class, () -> resource.list(userId, null, null, -1, 10));
+    }
+
+    @Test
+    void testUnknownUserIsNotFound() {
+        assertThrows(NotFoundException.class, () -> resource.list(UUID.randomUUID(), null, null, 0, 10));
+    }
+}
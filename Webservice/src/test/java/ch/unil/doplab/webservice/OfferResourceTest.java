@@ -0,0 +1,113 @@
+package ch.unil.doplab.webservice;
+
+import ch.unil.doplab.studybuddy.domain.Buyer;
+import ch.unil.doplab.studybuddy.domain.DomainJournal;
+import ch.unil.doplab.studybuddy.domain.Offer;
+import ch.unil.doplab.studybuddy.domain.Property;
+import ch.unil.doplab.studybuddy.domain.Seller;
+import ch.unil.doplab.studybuddy.domain.UserDirectory;
+import jakarta.json.JsonArray;
+import jakarta.json.JsonObject;
+import jakarta.ws.rs.ForbiddenException;
+import jakarta.ws.rs.core.SecurityContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the OfferResource class.
+ * Tests that a batch reports each item's outcome on its own and that only the seller
+ * of a listing responds to its offers.
+ */
+class OfferResourceTest {
+
+    @TempDir
+    Path root;
+
+    private OfferResource resource;
+    private DomainJournal journal;
+    private EventBus events;
+    private Offer first;
+    private Offer second;
+    private SecurityContext seller;
+    private SecurityContext buyer;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        UserDirectory directory = new UserDirectory();
+        Seller seller = new Seller("John", "Smith", "john@example.com", "john", "secret");
+        Buyer buyer = new Buyer("Jane", "Doe", "jane@example.com", "jane", "secret", 1_000_000);
+        directory.register(seller);
+        directory.register(buyer);
+        this.seller = Resources.session(seller.getUserID(), seller.getRole());
+        this.buyer = Resources.session(buyer.getUserID(), buyer.getRole());
+        Property property = seller.createProperty("Flat", "Bright", "Lausanne", 850_000, 75,
+                Property.PropertyType.APARTMENT);
+        property.publish();
+        PropertyCatalog catalog = new PropertyCatalog();
+        catalog.add(property);
+        OfferBook offers = new OfferBook();
+        first = buyer.placeOffer(property, 800_000);
+        second = buyer.placeOffer(property, 820_000);
+        offers.add(first);
+        offers.add(second);
+
+        journal = new DomainJournal(root.resolve("journal"));
+        events = new EventBus(4, Duration.ofMinutes(1));
+        resource = Resources.inject(new OfferResource(), "catalog", catalog);
+        Resources.inject(resource, "offers", offers);
+        Resources.inject(resource, "directory", directory);
+        Resources.inject(resource, "events", events);
+        Resources.inject(resource, "journal", journal);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        events.shutdown();
+        journal.close();
+    }
+
+    @Test
+    void testUnknownBatchActionFailsOnlyItsItem() throws IOException {
+        JsonObject body = Resources.render(resource.batch(List.of(
+                operation(first.getOfferId(), "counter"),
+                operation(second.getOfferId(), "reject"),
+                operation(UUID.randomUUID(), "accept")), seller));
+
+        assertEquals(1, body.getInt("succeeded"));
+        assertEquals(2, body.getInt("failed"));
+        JsonArray results = body.getJsonArray("results");
+        assertEquals(400, results.getJsonObject(0).getInt("status"));
+        assertEquals("Unknown action: counter", results.getJsonObject(0).getString("error"));
+        assertEquals(200, results.getJsonObject(1).getInt("status"));
+        assertEquals(404, results.getJsonObject(2).getInt("status"));
+        assertEquals(Offer.Status.PENDING, first.getStatus());
+        assertEquals(Offer.Status.REJECTED, second.getStatus());
+    }
+
+    @Test
+    void testOnlyTheSellerRespondsToOffers() throws IOException {
+        assertThrows(ForbiddenException.class, () -> resource.accept(first.getOfferId(), buyer));
+
+        JsonObject body = Resources.render(resource.batch(List.of(operation(second.getOfferId(), "reject")), buyer));
+        assertEquals(403, body.getJsonArray("results").getJsonObject(0).getInt("status"));
+        assertEquals(Offer.Status.PENDING, first.getStatus());
+        assertEquals(Offer.Status.PENDING, second.getStatus());
+    }
+
+    private static BatchOperation operation(UUID id, String action) {
+        BatchOperation operation = new BatchOperation();
+        operation.id = id;
+        operation.action = action;
+        return operation;
+    }
+}
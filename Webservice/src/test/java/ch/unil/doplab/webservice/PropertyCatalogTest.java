@@ -0,0 +1,107 @@
+package ch.unil.doplab.webservice;
+
+import ch.unil.doplab.studybuddy.domain.Property;
+import ch.unil.doplab.studybuddy.domain.PropertySearchCriteria;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the PropertyCatalog class.
+ * Tests batch updates: per-item results, re-indexing of moved prices and a single version bump,
+ * and search cursors.
+ */
+class PropertyCatalogTest {
+
+    private PropertyCatalog catalog;
+    private List<Property> listings;
+
+    @BeforeEach
+    void setUp() {
+        catalog = new PropertyCatalog();
+        listings = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            Property property = new Property("Flat " + i, UUID.randomUUID(), "", "Lausanne",
+                    100_000 + i * 1_000, 50, Property.PropertyType.APARTMENT);
+            catalog.add(property);
+            listings.add(property);
+        }
+    }
+
+    @Test
+    void testUpdateAllReindexesOnceForTheBatch() {
+        long version = catalog.getVersion();
+        List<PropertyCatalog.Update<Double>> updates = new ArrayList<>();
+        // Reverse the price order of every listing
+        for (Property property : listings) {
+            double price = 400_000 - property.getPrice();
+            updates.add(new PropertyCatalog.Update<>(property.getPropertyId(), p -> {
+                p.setPrice(price);
+                return price;
+            }));
+        }
+        updates.add(new PropertyCatalog.Update<>(UUID.randomUUID(), p -> 0.0));
+
+        List<Optional<Double>> results = catalog.updateAll(updates);
+
+        assertEquals(201, results.size());
+        assertEquals(Optional.of(300_000.0), results.get(0));
+        assertTrue(results.get(200).isEmpty());
+        assertEquals(version + 1, catalog.getVersion());
+        List<Double> prices = catalog.search(PropertySearchCriteria.builder().build(), null)
+                .map(Property::getPrice)
+                .collect(Collectors.toList());
+        assertEquals(200, prices.size());
+        assertEquals(101_000.0, prices.get(0));
+        assertEquals(300_000.0, prices.get(199));
+    }
+
+    @Test
+    void testUpdatesOfTheSameListingRunInBatchOrder() {
+        UUID propertyId = listings.get(0).getPropertyId();
+        List<PropertyCatalog.Update<String>> updates = List.of(
+                new PropertyCatalog.Update<>(propertyId, p -> {
+                    p.suspend();
+                    return "suspended";
+                }),
+                new PropertyCatalog.Update<>(propertyId, p -> {
+                    p.setPrice(p.getPrice() / 2);
+                    return p.getStatus().name();
+                }));
+
+        List<Optional<String>> results = catalog.updateAll(updates);
+
+        assertEquals(Optional.of("suspended"), results.get(0));
+        assertEquals(Optional.of(Property.PropertyStatus.OFF_MARKET.name()), results.get(1));
+        assertEquals(50_000.0, catalog.search(PropertySearchCriteria.builder().build(), null)
+                .findFirst().orElseThrow().getPrice());
+    }
+
+    @Test
+    void testCursorRoundTripsAndResumesAfterItsKey() {
+        Property tenth = listings.get(9);
+        String cursor = PropertyCatalog.SearchKey.of(tenth).encode();
+
+        PropertyCatalog.SearchKey key = PropertyCatalog.SearchKey.decode(cursor);
+
+        assertEquals(PropertyCatalog.SearchKey.of(tenth), key);
+        assertEquals(PropertyCatalog.SearchKey.of(tenth.toSummary()), key);
+        assertEquals(listings.get(10), catalog.search(PropertySearchCriteria.builder().build(), key)
+                .findFirst().orElseThrow());
+    }
+
+    @Test
+    void testMalformedCursorsAreRejected() {
+        String tooShort = PropertyCatalog.SearchKey.of(listings.get(0)).encode().substring(4);
+
+        assertThrows(IllegalArgumentException.class, () -> PropertyCatalog.SearchKey.decode("not base64!"));
+        assertThrows(IllegalArgumentException.class, () -> PropertyCatalog.SearchKey.decode(tooShort));
+    }
+}
@@ -0,0 +1,110 @@
+package ch.unil.doplab.webservice;
+
+import ch.unil.doplab.studybuddy.domain.DomainJournal;
+import ch.unil.doplab.studybuddy.domain.Property;
+import jakarta.json.JsonArray;
+import jakarta.json.JsonObject;
+import jakarta.ws.rs.ForbiddenException;
+import jakarta.ws.rs.NotAuthorizedException;
+import jakarta.ws.rs.NotFoundException;
+import jakarta.ws.rs.core.SecurityContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the PropertyResource class.
+ * Tests validation of the page size, 404 responses for unknown listings, per-item batch failures
+ * and that only the owner of a listing can change it.
+ */
+class PropertyResourceTest {
+
+    @TempDir
+    Path root;
+
+    private PropertyResource resource;
+    private Property property;
+    private DomainJournal journal;
+    private SecurityContext owner;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        PropertyCatalog catalog = new PropertyCatalog();
+        property = new Property("Flat", UUID.randomUUID(), "", "Lausanne", 100_000, 50,
+                Property.PropertyType.APARTMENT);
+        catalog.add(property);
+        owner = Resources.session(property.getOwnerId(), "Seller");
+        journal = new DomainJournal(root.resolve("journal"));
+        resource = Resources.inject(new PropertyResource(), "catalog", catalog);
+        Resources.inject(resource, "journal", journal);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        journal.close();
+    }
+
+    @Test
+    void testLimitOutsideItsBoundsIsRejected() {
+        assertThrows(IllegalArgumentException.class,
+                () -> resource.search(List.of(), List.of(), null, null, null, 0, null, null));
+        assertThrows(IllegalArgumentException.class, () -> resource.search(List.of(), List.of(), null, null, null,
+                PropertyResource.MAX_PAGE_SIZE + 1, null, null));
+    }
+
+    @Test
+    void testUnknownListingIsNotFound() {
+        UUID unknown = UUID.randomUUID();
+
+        assertThrows(NotFoundException.class, () -> resource.get(unknown, null));
+        assertThrows(NotFoundException.class, () -> resource.publish(unknown, owner));
+        assertThrows(NotFoundException.class, () -> resource.delete(unknown, owner));
+    }
+
+    @Test
+    void testUnknownBatchActionFailsOnlyItsItem() throws IOException {
+        JsonObject body = Resources.render(resource.batch(List.of(
+                operation(property.getPropertyId(), "demolish", null),
+                operation(property.getPropertyId(), "price", 90_000.0),
+                operation(UUID.randomUUID(), "publish", null)), owner));
+
+        assertEquals(1, body.getInt("succeeded"));
+        assertEquals(2, body.getInt("failed"));
+        JsonArray results = body.getJsonArray("results");
+        assertEquals(400, results.getJsonObject(0).getInt("status"));
+        assertEquals("Unknown action: demolish", results.getJsonObject(0).getString("error"));
+        assertEquals(200, results.getJsonObject(1).getInt("status"));
+        assertEquals(404, results.getJsonObject(2).getInt("status"));
+        assertEquals(90_000, property.getPrice());
+    }
+
+    @Test
+    void testOnlyTheOwnerChangesAListing() throws IOException {
+        UUID propertyId = property.getPropertyId();
+        SecurityContext stranger = Resources.session(UUID.randomUUID(), "Seller");
+
+        assertThrows(NotAuthorizedException.class, () -> resource.publish(propertyId, null));
+        assertThrows(ForbiddenException.class, () -> resource.publish(propertyId, stranger));
+        assertThrows(ForbiddenException.class, () -> resource.delete(propertyId, stranger));
+        JsonObject body = Resources.render(resource.batch(List.of(operation(propertyId, "price", 1.0)), stranger));
+        assertEquals(403, body.getJsonArray("results").getJsonObject(0).getInt("status"));
+        assertEquals(100_000, property.getPrice());
+        assertEquals(Property.PropertyStatus.OFF_MARKET, property.getStatus());
+    }
+
+    private static BatchOperation operation(UUID id, String action, Double price) {
+        BatchOperation operation = new BatchOperation();
+        operation.id = id;
+        operation.action = action;
+        operation.price = price;
+        return operation;
+    }
+}
@@ -0,0 +1,74 @@
+package ch.unil.doplab.webservice;
+
+import jakarta.json.Json;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonReader;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.SecurityContext;
+import jakarta.ws.rs.core.StreamingOutput;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.security.Principal;
+import java.util.UUID;
+
+/**
+ * Stands in for the container in resource tests: sets the injected fields,
+ * authenticates requests and writes streamed entities.
+ */
+final class Resources {
+
+    private Resources() {
+    }
+
+    static <T> T inject(T resource, String name, Object value) {
+        try {
+            Field field = resource.getClass().getDeclaredField(name);
+            field.setAccessible(true);
+            field.set(resource, value);
+            return resource;
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot inject " + name, e);
+        }
+    }
+
+    /** The security context BearerTokenFilter sets for a request with a token of the given user. */
+    static SecurityContext session(UUID userId, String role) {
+        BearerTokenFilter.SessionUser principal = new BearerTokenFilter.SessionUser(userId, role);
+        return new SecurityContext() {
+            @Override
+            public Principal getUserPrincipal() {
+                return principal;
+            }
+
+            @Override
+            public boolean isUserInRole(String role) {
+                return principal.role().equalsIgnoreCase(role);
+            }
+
+            @Override
+            public boolean isSecure() {
+                return false;
+            }
+
+            @Override
+            public String getAuthenticationScheme() {
+                return "Bearer";
+            }
+        };
+    }
+
+    static JsonObject render(Response response) throws IOException {
+        return render((StreamingOutput) response.getEntity());
+    }
+
+    static JsonObject render(StreamingOutput body) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        body.write(out);
+        try (JsonReader reader = Json.createReader(new ByteArrayInputStream(out.toByteArray()))) {
+            return reader.readObject();
+        }
+    }
+}
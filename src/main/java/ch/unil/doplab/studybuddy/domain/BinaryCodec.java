@@ -0,0 +1,577 @@
+package ch.unil.doplab.studybuddy.domain;
+
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Compact binary format for the domain objects, for snapshots, caches and
+ * internal transport. Every record starts with a type tag and the format
+ * version. UUIDs are written as two longs, with the nil UUID standing for null;
+ * timestamps as UTC epoch nanoseconds; enums as ordinals; strings as a length
+ * followed by UTF-8 bytes. Feature values keep their type when they are
+ * strings, integers, longs, doubles or booleans, and are written as strings
+ * otherwise.
+ *
+ * A seller references its listings and offers by ID, so they are decoded
+ * against the instances already loaded instead of being duplicated.
+ *
+ * Instances reuse an internal buffer and encoder and are not thread-safe.
+ */
+public final class BinaryCodec {
+
+    public static final byte VERSION = 1;
+
+    static final byte PROPERTY = 1;
+    static final byte OFFER = 2;
+    static final byte MESSAGE = 3;
+    static final byte BUYER = 4;
+    static final byte SELLER = 5;
+    static final byte DETAILS = 6;
+    static final byte PROFILE = 7;
+
+    private static final int MAX_CAPACITY = 64 << 20;
+    private static final UUID NIL = new UUID(0, 0);
+    private static final long NO_TIME = Long.MIN_VALUE;
+
+    private static final byte NULL_VALUE = 0;
+    private static final byte STRING_VALUE = 1;
+    private static final byte INT_VALUE = 2;
+    private static final byte LONG_VALUE = 3;
+    private static final byte DOUBLE_VALUE = 4;
+    private static final byte BOOLEAN_VALUE = 5;
+
+    private static final Property.PropertyType[] PROPERTY_TYPES = Property.PropertyType.values();
+    private static final Property.PropertyStatus[] PROPERTY_STATUSES = Property.PropertyStatus.values();
+    private static final Offer.Status[] OFFER_STATUSES = Offer.Status.values();
+    private static final Message.MessageDirection[] DIRECTIONS = Message.MessageDirection.values();
+
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private ByteBuffer scratch;
+
+    public BinaryCodec() {
+        this(4096);
+    }
+
+    public BinaryCodec(int initialCapacity) {
+        if (initialCapacity <= 0) {
+            throw new IllegalArgumentException("Initial capacity must be positive");
+        }
+        this.scratch = ByteBuffer.allocate(initialCapacity);
+    }
+
+    // Encoding into the internal buffer; the result is only valid until the next call
+
+    public ByteBuffer encode(Property property) {
+        return encode(buffer -> write(property, buffer));
+    }
+
+    public ByteBuffer encode(Offer offer) {
+        return encode(buffer -> write(offer, buffer));
+    }
+
+    public ByteBuffer encode(Message message) {
+        return encode(buffer -> write(message, buffer));
+    }
+
+    public ByteBuffer encode(User user) {
+        return encode(buffer -> write(user, buffer));
+    }
+
+    // Encoding into a caller's buffer; throws BufferOverflowException when it is too small
+
+    public void write(Property property, ByteBuffer buffer) {
+        header(buffer, PROPERTY);
+        putUuid(buffer, property.getPropertyId());
+        putUuid(buffer, property.getOwnerId());
+        putString(buffer, property.getTitle());
+        putString(buffer, property.getDescription());
+        putString(buffer, property.getLocation());
+        buffer.putDouble(property.getPrice());
+        buffer.putDouble(property.getSize());
+        putEnum(buffer, property.getType());
+        putEnum(buffer, property.getStatus());
+        putDetails(buffer, property);
+        putTime(buffer, property.getCreatedAt());
+        putTime(buffer, property.getUpdatedAt());
+    }
+
+    public void write(Offer offer, ByteBuffer buffer) {
+        header(buffer, OFFER);
+        putUuid(buffer, offer.getOfferId());
+        putUuid(buffer, offer.getPropertyId());
+        putUuid(buffer, offer.getBuyerId());
+        buffer.putDouble(offer.getAmount());
+        putTime(buffer, offer.getCreatedAt());
+        putEnum(buffer, offer.getStatus());
+    }
+
+    public void write(Message message, ByteBuffer buffer) {
+        header(buffer, MESSAGE);
+        putMessage(buffer, message);
+    }
+
+    public void write(User user, ByteBuffer buffer) {
+        if (user instanceof Buyer buyer) {
+            header(buffer, BUYER);
+            putUser(buffer, buyer);
+            buffer.putDouble(buyer.getBudget());
+            putStrings(buffer, buyer.getPropertyTypesOfInterest());
+            putDocuments(buffer, buyer);
+        } else if (user instanceof Seller seller) {
+            header(buffer, SELLER);
+            putUser(buffer, seller);
+            buffer.putInt(seller.getOwnedProperties().size());
+            seller.getOwnedProperties().forEach(property -> putUuid(buffer, property.getPropertyId()));
+            buffer.putInt(seller.getReceivedOffers().size());
+            seller.getReceivedOffers().forEach(offer -> putUuid(buffer, offer.getOfferId()));
+        } else {
+            throw new IllegalArgumentException("Unsupported user type: " + user.getClass().getName());
+        }
+    }
+
+    // Decoding; the buffer is left positioned after the record
+
+    public Property readProperty(ByteBuffer buffer) {
+        return decode(buffer, PROPERTY, () -> {
+            UUID propertyId = getUuid(buffer);
+            UUID ownerId = getUuid(buffer);
+            String title = getString(buffer);
+            String description = getString(buffer);
+            String location = getString(buffer);
+            double price = buffer.getDouble();
+            double size = buffer.getDouble();
+            Property.PropertyType type = getEnum(buffer, PROPERTY_TYPES);
+            Property.PropertyStatus status = getEnum(buffer, PROPERTY_STATUSES);
+            Map<String, Object> features = new LinkedHashMap<>();
+            List<String> images = new ArrayList<>();
+            getDetails(buffer, features, images);
+            return new Property(propertyId, ownerId, title, description, location, price, size, type, status,
+                    features, images, getTime(buffer), getTime(buffer));
+        });
+    }
+
+    public Offer readOffer(ByteBuffer buffer) {
+        return decode(buffer, OFFER, () -> new Offer(getUuid(buffer), getUuid(buffer), getUuid(buffer),
+                buffer.getDouble(), getTime(buffer), getEnum(buffer, OFFER_STATUSES)));
+    }
+
+    public Message readMessage(ByteBuffer buffer) {
+        return decode(buffer, MESSAGE, () -> getMessage(buffer));
+    }
+
+    public Buyer readBuyer(ByteBuffer buffer) {
+        return decode(buffer, BUYER, () -> getBuyer(buffer));
+    }
+
+    /** Decodes a seller, resolving its listings and offers by ID; an unknown ID is rejected. */
+    public Seller readSeller(ByteBuffer buffer, Function<UUID, Property> properties, Function<UUID, Offer> offers) {
+        return decode(buffer, SELLER, () -> getSeller(buffer, properties, offers));
+    }
+
+    /** Decodes a buyer or a seller, whichever the record holds. */
+    public User readUser(ByteBuffer buffer, Function<UUID, Property> properties, Function<UUID, Offer> offers) {
+        byte type = peekType(buffer);
+        if (type == BUYER) {
+            return readBuyer(buffer);
+        }
+        if (type == SELLER) {
+            return readSeller(buffer, properties, offers);
+        }
+        throw new IllegalArgumentException("Not a user record: " + type);
+    }
+
+    // Partial records, for stores that keep the scalar fields in columns of their own
+
+    /** Encodes only a listing's features and images. */
+    ByteBuffer encodeDetails(Property property) {
+        return encode(buffer -> {
+            header(buffer, DETAILS);
+            putDetails(buffer, property);
+        });
+    }
+
+    /** Decodes a record written by encodeDetails into the given collections. */
+    void readDetails(ByteBuffer buffer, Map<String, Object> features, List<String> images) {
+        decode(buffer, DETAILS, () -> {
+            getDetails(buffer, features, images);
+            return null;
+        });
+    }
+
+    /** Encodes a user's preferred locations and saved listings, and a buyer's interests and documents. */
+    ByteBuffer encodeProfile(User user) {
+        return encode(buffer -> {
+            header(buffer, PROFILE);
+            putStrings(buffer, user.getPreferredLocations());
+            buffer.putInt(user.getSavedProperties().size());
+            user.getSavedProperties().forEach(propertyId -> putUuid(buffer, propertyId));
+            if (user instanceof Buyer buyer) {
+                putStrings(buffer, buyer.getPropertyTypesOfInterest());
+                putDocuments(buffer, buyer);
+            }
+        });
+    }
+
+    /** Applies a record written by encodeProfile to a user of the same type. */
+    void readProfile(ByteBuffer buffer, User user) {
+        decode(buffer, PROFILE, () -> {
+            getStrings(buffer).forEach(user::addPreferredLocation);
+            int savedCount = getCount(buffer);
+            for (int i = 0; i < savedCount; i++) {
+                user.saveProperty(getUuid(buffer));
+            }
+            if (user instanceof Buyer buyer) {
+                getStrings(buffer).forEach(buyer::addPropertyTypeOfInterest);
+                getDocuments(buffer, buyer);
+            }
+            return null;
+        });
+    }
+
+    /** Returns the type tag of the record at the buffer's position without consuming it. */
+    public static byte peekType(ByteBuffer buffer) {
+        if (buffer.remaining() < 2) {
+            throw new IllegalArgumentException("Truncated record");
+        }
+        return buffer.get(buffer.position());
+    }
+
+    private ByteBuffer encode(Consumer<ByteBuffer> writer) {
+        while (true) {
+            scratch.clear();
+            try {
+                writer.accept(scratch);
+                return scratch.flip();
+            } catch (BufferOverflowException e) {
+                if (scratch.capacity() >= MAX_CAPACITY) {
+                    throw new IllegalArgumentException("Record exceeds " + MAX_CAPACITY + " bytes");
+                }
+                scratch = ByteBuffer.allocate(Math.min(MAX_CAPACITY, scratch.capacity() * 2));
+            }
+        }
+    }
+
+    private interface Reader<T> {
+        T read();
+    }
+
+    private static <T> T decode(ByteBuffer buffer, byte type, Reader<T> reader) {
+        try {
+            byte actual = buffer.get();
+            if (actual != type) {
+                throw new IllegalArgumentException("Expected record type " + type + " but found " + actual);
+            }
+            byte version = buffer.get();
+            if (version != VERSION) {
+                throw new IllegalArgumentException("Unsupported format version: " + version);
+            }
+            return reader.read();
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated record");
+        }
+    }
+
+    private static void header(ByteBuffer buffer, byte type) {
+        buffer.put(type).put(VERSION);
+    }
+
+    private void putUser(ByteBuffer buffer, User user) {
+        putUuid(buffer, user.getUserID());
+        putString(buffer, user.getUsername());
+        putString(buffer, user.getPassword());
+        putString(buffer, user.getFirstName());
+        putString(buffer, user.getLastName());
+        putString(buffer, user.getEmail());
+        putStrings(buffer, user.getPreferredLocations());
+        buffer.putInt(user.getSavedProperties().size());
+        user.getSavedProperties().forEach(propertyId -> putUuid(buffer, propertyId));
+        List<Message> messages = user.getMessages();
+        buffer.putInt(messages.size());
+        messages.forEach(message -> putMessage(buffer, message));
+    }
+
+    /** Fields shared by every user type, in the order putUser writes them. */
+    private record UserFields(UUID userId, String username, String password, String firstName, String lastName,
+                              String email, List<String> preferredLocations, List<UUID> savedProperties,
+                              List<Message> messages) {
+
+        <U extends User> U restore(U user) {
+            user.setUserID(userId);
+            preferredLocations.forEach(user::addPreferredLocation);
+            savedProperties.forEach(user::saveProperty);
+            messages.forEach(user::restoreMessage);
+            return user;
+        }
+    }
+
+    private UserFields getUser(ByteBuffer buffer) {
+        UUID userId = getUuid(buffer);
+        String username = getString(buffer);
+        String password = getString(buffer);
+        String firstName = getString(buffer);
+        String lastName = getString(buffer);
+        String email = getString(buffer);
+        List<String> preferredLocations = getStrings(buffer);
+        int savedCount = getCount(buffer);
+        List<UUID> savedProperties = new ArrayList<>(savedCount);
+        for (int i = 0; i < savedCount; i++) {
+            savedProperties.add(getUuid(buffer));
+        }
+        int messageCount = getCount(buffer);
+        List<Message> messages = new ArrayList<>(messageCount);
+        for (int i = 0; i < messageCount; i++) {
+            messages.add(getMessage(buffer));
+        }
+        return new UserFields(userId, username, password, firstName, lastName, email,
+                preferredLocations, savedProperties, messages);
+    }
+
+    private Buyer getBuyer(ByteBuffer buffer) {
+        UserFields fields = getUser(buffer);
+        Buyer buyer = new Buyer(fields.firstName(), fields.lastName(), fields.email(), fields.username(),
+                fields.password(), buffer.getDouble());
+        getStrings(buffer).forEach(buyer::addPropertyTypeOfInterest);
+        getDocuments(buffer, buyer);
+        return fields.restore(buyer);
+    }
+
+    private void putDocuments(ByteBuffer buffer, Buyer buyer) {
+        buffer.putInt(buyer.getDocuments().size());
+        for (String document : buyer.getDocuments()) {
+            putString(buffer, document);
+            putString(buffer, buyer.getDocumentHash(document));
+        }
+    }
+
+    private static void getDocuments(ByteBuffer buffer, Buyer buyer) {
+        int documentCount = getCount(buffer);
+        for (int i = 0; i < documentCount; i++) {
+            String name = getString(buffer);
+            String hash = getString(buffer);
+            if (hash == null) {
+                buyer.addDocument(name);
+            } else {
+                buyer.addDocument(name, hash);
+            }
+        }
+    }
+
+    private void putDetails(ByteBuffer buffer, Property property) {
+        Map<String, Object> features = property.getFeatures();
+        buffer.putInt(features.size());
+        for (Map.Entry<String, Object> feature : features.entrySet()) {
+            putString(buffer, feature.getKey());
+            putValue(buffer, feature.getValue());
+        }
+        putStrings(buffer, property.getImages());
+    }
+
+    private static void getDetails(ByteBuffer buffer, Map<String, Object> features, List<String> images) {
+        int featureCount = getCount(buffer);
+        for (int i = 0; i < featureCount; i++) {
+            features.put(getString(buffer), getValue(buffer));
+        }
+        images.addAll(getStrings(buffer));
+    }
+
+    private Seller getSeller(ByteBuffer buffer, Function<UUID, Property> properties, Function<UUID, Offer> offers) {
+        UserFields fields = getUser(buffer);
+        Seller seller = new Seller(fields.firstName(), fields.lastName(), fields.email(), fields.username(),
+                fields.password());
+        int propertyCount = getCount(buffer);
+        List<Property> owned = new ArrayList<>(propertyCount);
+        for (int i = 0; i < propertyCount; i++) {
+            owned.add(resolve(properties, getUuid(buffer), "property"));
+        }
+        int offerCount = getCount(buffer);
+        List<Offer> received = new ArrayList<>(offerCount);
+        for (int i = 0; i < offerCount; i++) {
+            received.add(resolve(offers, getUuid(buffer), "offer"));
+        }
+        seller.restoreOwnership(owned, received);
+        return fields.restore(seller);
+    }
+
+    private static <T> T resolve(Function<UUID, T> lookup, UUID id, String kind) {
+        T value = lookup.apply(id);
+        if (value == null) {
+            throw new IllegalArgumentException("Unknown " + kind + ": " + id);
+        }
+        return value;
+    }
+
+    private void putMessage(ByteBuffer buffer, Message message) {
+        putUuid(buffer, message.getMessageId());
+        putUuid(buffer, message.getSenderId());
+        putUuid(buffer, message.getRecipientId());
+        putString(buffer, message.getSubject());
+        putString(buffer, message.getContent());
+        putTime(buffer, message.getSentAt());
+        putEnum(buffer, message.getDirection());
+        buffer.put((byte) (message.isRead() ? 1 : 0));
+    }
+
+    private Message getMessage(ByteBuffer buffer) {
+        return new Message(getUuid(buffer), getUuid(buffer), getUuid(buffer), getString(buffer), getString(buffer),
+                getTime(buffer), getEnum(buffer, DIRECTIONS), buffer.get() != 0);
+    }
+
+    private static void putUuid(ByteBuffer buffer, UUID uuid) {
+        UUID value = uuid == null ? NIL : uuid;
+        buffer.putLong(value.getMostSignificantBits()).putLong(value.getLeastSignificantBits());
+    }
+
+    private static UUID getUuid(ByteBuffer buffer) {
+        long most = buffer.getLong();
+        long least = buffer.getLong();
+        return most == 0 && least == 0 ? null : new UUID(most, least);
+    }
+
+    private static void putTime(ByteBuffer buffer, LocalDateTime time) {
+        if (time == null) {
+            buffer.putLong(NO_TIME);
+        } else {
+            Instant instant = time.toInstant(ZoneOffset.UTC);
+            buffer.putLong(Math.addExact(Math.multiplyExact(instant.getEpochSecond(), 1_000_000_000L), instant.getNano()));
+        }
+    }
+
+    private static LocalDateTime getTime(ByteBuffer buffer) {
+        long nanos = buffer.getLong();
+        if (nanos == NO_TIME) {
+            return null;
+        }
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(nanos, 1_000_000_000L),
+                (int) Math.floorMod(nanos, 1_000_000_000L), ZoneOffset.UTC);
+    }
+
+    private static void putEnum(ByteBuffer buffer, Enum<?> value) {
+        buffer.put((byte) (value == null ? -1 : value.ordinal()));
+    }
+
+    private static <E extends Enum<E>> E getEnum(ByteBuffer buffer, E[] values) {
+        int ordinal = buffer.get();
+        if (ordinal == -1) {
+            return null;
+        }
+        if (ordinal < 0 || ordinal >= values.length) {
+            throw new IllegalArgumentException("Invalid ordinal " + ordinal + " for " + values.getClass().getComponentType().getSimpleName());
+        }
+        return values[ordinal];
+    }
+
+    private void putString(ByteBuffer buffer, String value) {
+        if (value == null) {
+            buffer.putInt(-1);
+            return;
+        }
+        int lengthAt = buffer.position();
+        buffer.putInt(0);
+        encoder.reset();
+        CoderResult result = encoder.encode(CharBuffer.wrap(value), buffer, true);
+        if (result.isUnderflow()) {
+            result = encoder.flush(buffer);
+        }
+        if (result.isOverflow()) {
+            throw new BufferOverflowException();
+        }
+        buffer.putInt(lengthAt, buffer.position() - lengthAt - Integer.BYTES);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length == -1) {
+            return null;
+        }
+        if (length < 0 || length > buffer.remaining()) {
+            throw new IllegalArgumentException("Invalid string length: " + length);
+        }
+        String value;
+        if (buffer.hasArray()) {
+            value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+            buffer.position(buffer.position() + length);
+        } else {
+            byte[] bytes = new byte[length];
+            buffer.get(bytes);
+            value = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return value;
+    }
+
+    private void putStrings(ByteBuffer buffer, Iterable<String> values) {
+        int countAt = buffer.position();
+        buffer.putInt(0);
+        int count = 0;
+        for (String value : values) {
+            putString(buffer, value);
+            count++;
+        }
+        buffer.putInt(countAt, count);
+    }
+
+    private static List<String> getStrings(ByteBuffer buffer) {
+        int count = getCount(buffer);
+        List<String> values = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            values.add(getString(buffer));
+        }
+        return values;
+    }
+
+    private static int getCount(ByteBuffer buffer) {
+        int count = buffer.getInt();
+        // Every element takes at least one byte, which bounds the allocation on corrupt input
+        if (count < 0 || count > buffer.remaining()) {
+            throw new IllegalArgumentException("Invalid element count: " + count);
+        }
+        return count;
+    }
+
+    private void putValue(ByteBuffer buffer, Object value) {
+        if (value == null) {
+            buffer.put(NULL_VALUE);
+        } else if (value instanceof Integer number) {
+            buffer.put(INT_VALUE).putInt(number);
+        } else if (value instanceof Long number) {
+            buffer.put(LONG_VALUE).putLong(number);
+        } else if (value instanceof Double number) {
+            buffer.put(DOUBLE_VALUE).putDouble(number);
+        } else if (value instanceof Boolean bool) {
+            buffer.put(BOOLEAN_VALUE).put((byte) (bool ? 1 : 0));
+        } else {
+            buffer.put(STRING_VALUE);
+            putString(buffer, value.toString());
+        }
+    }
+
+    private static Object getValue(ByteBuffer buffer) {
+        byte tag = buffer.get();
+        return switch (tag) {
+            case NULL_VALUE -> null;
+            case STRING_VALUE -> getString(buffer);
+            case INT_VALUE -> buffer.getInt();
+            case LONG_VALUE -> buffer.getLong();
+            case DOUBLE_VALUE -> buffer.getDouble();
+            case BOOLEAN_VALUE -> buffer.get() != 0;
+            default -> throw new IllegalArgumentException("Invalid value tag: " + tag);
+        };
+    }
+}
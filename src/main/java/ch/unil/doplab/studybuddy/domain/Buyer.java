@@ -1,18 +1,22 @@
 package ch.unil.doplab.studybuddy.domain;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 //
 public class Buyer extends User {
     private double budget;
     private List<String> propertyTypesOfInterest;
-    private List<String> documents;
+    private final Map<String, String> documents; // document name -> content hash in the document store
 
     public Buyer(String firstName, String lastName, String email, String username, String password, double budget) {
         super(firstName, lastName, email, username, password);
         this.budget = budget;
         this.propertyTypesOfInterest = new ArrayList<>();
-        this.documents = new ArrayList<>();
+        this.documents = new LinkedHashMap<>();
 
     }
 
@@ -26,15 +30,34 @@ public class Buyer extends User {
         return new Offer(property.getPropertyId(), this.getUserID(), amount);
     }
 
-    public List<String> getDocuments() {
-        return this.documents;
+    public Set<String> getDocuments() {
+        return Collections.unmodifiableSet(this.documents.keySet());
+    }
+
+    public boolean hasDocument(String documentName) {
+        return this.documents.containsKey(documentName);
+    }
+
+    public String getDocumentHash(String documentName) {
+        return this.documents.get(documentName);
     }
 
     public void addDocument(String documentName) {
-        if (documentName != null && !documentName.isEmpty() && !this.documents.contains(documentName)) {
-            this.documents.add(documentName);
+        if (documentName != null && !documentName.isEmpty()) {
+            this.documents.putIfAbsent(documentName, null);
         }
     }
+
+    public void addDocument(String documentName, String contentHash) {
+        if (documentName == null || documentName.isEmpty()) {
+            throw new IllegalArgumentException("Document name is required");
+        }
+        if (contentHash == null || contentHash.isEmpty()) {
+            throw new IllegalArgumentException("Content hash is required");
+        }
+        this.documents.put(documentName, contentHash);
+    }
+
     public void removeDocument(String documentName) {
         this.documents.remove(documentName);
     }
@@ -0,0 +1,44 @@
+package ch.unil.doplab.studybuddy.domain;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.UnaryOperator;
+
+/**
+ * Holder letting several owners share one mutable value until one of them
+ * needs to modify it, at which point that owner gets its own copy.
+ * Sharing is O(1); the copy is paid only by the first writer.
+ */
+final class CopyOnWrite<T> {
+
+    private final T value;
+    private final UnaryOperator<T> copier;
+    private final AtomicInteger owners = new AtomicInteger(1);
+
+    CopyOnWrite(T value, UnaryOperator<T> copier) {
+        this.value = value;
+        this.copier = copier;
+    }
+
+    T read() {
+        return value;
+    }
+
+    CopyOnWrite<T> share() {
+        owners.incrementAndGet();
+        return this;
+    }
+
+    void release() {
+        owners.decrementAndGet();
+    }
+
+    /** Returns a holder the caller may modify: this one when unshared, otherwise a private copy. */
+    CopyOnWrite<T> forWrite() {
+        if (owners.get() <= 1) {
+            return this;
+        }
+        CopyOnWrite<T> copy = new CopyOnWrite<>(copier.apply(value), copier);
+        release();
+        return copy;
+    }
+}
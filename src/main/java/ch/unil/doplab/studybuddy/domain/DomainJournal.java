@@ -0,0 +1,237 @@
+package ch.unil.doplab.studybuddy.domain;
+
+import ch.unil.doplab.studybuddy.storage.WriteAheadLog;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Records changes to the domain model in a write-ahead log and rebuilds the
+ * model from it on startup. A change is recorded as the full image of the
+ * object after it, encoded with BinaryCodec, so replay is idempotent and the
+ * last image wins; a sent message is recorded once and replayed on both
+ * mailboxes.
+ *
+ * Recording only appends; callers sync once after the records of an
+ * operation, and concurrent operations share the disk sync.
+ */
+public class DomainJournal implements Closeable {
+
+    private static final byte UPSERT = 1;
+    private static final byte SENT = 2;
+    private static final byte REMOVE_PROPERTY = 3;
+    private static final byte REMOVE_USER = 4;
+
+    private final WriteAheadLog log;
+    private final BinaryCodec codec = new BinaryCodec();
+    private ByteBuffer record = ByteBuffer.allocate(4096);
+
+    public DomainJournal(Path directory) throws IOException {
+        this(new WriteAheadLog(directory));
+    }
+
+    public DomainJournal(WriteAheadLog log) {
+        this.log = Objects.requireNonNull(log, "Log must not be null");
+    }
+
+    public synchronized long record(Property property) {
+        return append(UPSERT, codec.encode(property));
+    }
+
+    public synchronized long record(Offer offer) {
+        return append(UPSERT, codec.encode(offer));
+    }
+
+    public synchronized long record(User user) {
+        return append(UPSERT, codec.encode(user));
+    }
+
+    /** Records a message returned by User.sendMessage; replay delivers it to the recipient as well. */
+    public synchronized long recordSent(Message message) {
+        if (message.getDirection() != Message.MessageDirection.SENT) {
+            throw new IllegalArgumentException("Only sent messages are recorded");
+        }
+        return append(SENT, codec.encode(message));
+    }
+
+    public synchronized long removeProperty(UUID propertyId) {
+        return append(REMOVE_PROPERTY, uuid(propertyId));
+    }
+
+    public synchronized long removeUser(UUID userId) {
+        return append(REMOVE_USER, uuid(userId));
+    }
+
+    /** Blocks until every record up to the given sequence number is durable. */
+    public void sync(long sequence) {
+        try {
+            log.sync(sequence);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot sync the journal", e);
+        }
+    }
+
+    public long getLastSequence() {
+        return log.getLastSequence();
+    }
+
+    /** Drops log segments whose records all precede the given sequence number, e.g. once a snapshot covers them. */
+    public int deleteBefore(long sequence) throws IOException {
+        return log.deleteSegmentsBefore(sequence);
+    }
+
+    /** Rebuilds the model from the whole log. */
+    public State replay() throws IOException {
+        return replay(new State());
+    }
+
+    /** Applies the records after the state's last sequence number, e.g. on top of a snapshot. */
+    public State replay(State state) throws IOException {
+        BinaryCodec reader = new BinaryCodec();
+        log.replay(state.lastSequence, (sequence, payload) -> {
+            state.apply(payload, reader);
+            state.lastSequence = sequence;
+        });
+        state.relink();
+        return state;
+    }
+
+    @Override
+    public void close() throws IOException {
+        log.close();
+    }
+
+    private long append(byte operation, ByteBuffer body) {
+        int size = 1 + body.remaining();
+        if (record.capacity() < size) {
+            record = ByteBuffer.allocate(Math.max(size, record.capacity() * 2));
+        }
+        record.clear();
+        record.put(operation).put(body).flip();
+        try {
+            return log.append(record);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot append to the journal", e);
+        }
+    }
+
+    private static ByteBuffer uuid(UUID id) {
+        Objects.requireNonNull(id, "ID must not be null");
+        return ByteBuffer.allocate(2 * Long.BYTES)
+                .putLong(id.getMostSignificantBits())
+                .putLong(id.getLeastSignificantBits())
+                .flip();
+    }
+
+    /** The model rebuilt by a replay: the current listings, offers and users, and the last sequence applied. */
+    public static final class State {
+
+        private final Map<UUID, Property> properties = new LinkedHashMap<>();
+        // Removed listings stay resolvable for the sellers that still own them
+        private final Map<UUID, Property> knownProperties = new HashMap<>();
+        private final Map<UUID, Offer> offers = new LinkedHashMap<>();
+        private final Map<UUID, User> users = new LinkedHashMap<>();
+        private long lastSequence;
+
+        public Collection<Property> getProperties() {
+            return Collections.unmodifiableCollection(properties.values());
+        }
+
+        public Collection<Offer> getOffers() {
+            return Collections.unmodifiableCollection(offers.values());
+        }
+
+        public Collection<User> getUsers() {
+            return Collections.unmodifiableCollection(users.values());
+        }
+
+        public long getLastSequence() {
+            return lastSequence;
+        }
+
+        void put(Property property) {
+            properties.put(property.getPropertyId(), property);
+            knownProperties.put(property.getPropertyId(), property);
+        }
+
+        void putRemoved(Property property) {
+            knownProperties.put(property.getPropertyId(), property);
+        }
+
+        Collection<Property> getKnownProperties() {
+            return knownProperties.values();
+        }
+
+        boolean isLive(Property property) {
+            return properties.containsKey(property.getPropertyId());
+        }
+
+        void setLastSequence(long lastSequence) {
+            this.lastSequence = lastSequence;
+        }
+
+        void put(Offer offer) {
+            offers.put(offer.getOfferId(), offer);
+        }
+
+        void put(User user) {
+            users.put(user.getUserID(), user);
+        }
+
+        Property findProperty(UUID propertyId) {
+            return knownProperties.get(propertyId);
+        }
+
+        Offer findOffer(UUID offerId) {
+            return offers.get(offerId);
+        }
+
+        private void apply(ByteBuffer payload, BinaryCodec codec) {
+            byte operation = payload.get();
+            switch (operation) {
+                case UPSERT -> {
+                    byte type = BinaryCodec.peekType(payload);
+                    if (type == BinaryCodec.PROPERTY) {
+                        put(codec.readProperty(payload));
+                    } else if (type == BinaryCodec.OFFER) {
+                        put(codec.readOffer(payload));
+                    } else {
+                        put(codec.readUser(payload, this::findProperty, this::findOffer));
+                    }
+                }
+                case SENT -> {
+                    Message message = codec.readMessage(payload);
+                    User sender = users.get(message.getSenderId());
+                    User recipient = users.get(message.getRecipientId());
+                    if (sender != null) {
+                        sender.restoreSent(message, recipient);
+                    } else if (recipient != null) {
+                        recipient.restoreMessage(message.receivedCopy());
+                    }
+                }
+                case REMOVE_PROPERTY -> properties.remove(new UUID(payload.getLong(), payload.getLong()));
+                case REMOVE_USER -> users.remove(new UUID(payload.getLong(), payload.getLong()));
+                default -> throw new IllegalArgumentException("Unknown journal operation: " + operation);
+            }
+        }
+
+        /** Points sellers at the latest image of their listings and offers. */
+        private void relink() {
+            for (User user : users.values()) {
+                if (user instanceof Seller seller) {
+                    seller.relink(this::findProperty, offers::get);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package ch.unil.doplab.studybuddy.domain;
+
+import ch.unil.doplab.studybuddy.storage.StatementCache;
+
+import java.nio.ByteBuffer;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Shared plumbing of the JDBC repositories: batched writes and column
+ * conversions. IDs are stored as their 36-character text form and
+ * enums by name, which every embedded database supports.
+ */
+final class Jdbc {
+
+    /** Rows sent per executeBatch; bounds driver memory while still saving most round trips. */
+    static final int BATCH_SIZE = 500;
+
+    @FunctionalInterface
+    interface Binder<T> {
+        void bind(PreparedStatement statement, T item) throws SQLException;
+    }
+
+    @FunctionalInterface
+    interface RowMapper<T> {
+        T map(ResultSet row) throws SQLException;
+    }
+
+    private Jdbc() {
+    }
+
+    /** Runs the statement once per item, sending the rows in batches; returns the number of rows changed. */
+    static <T> int batch(StatementCache statements, String sql, Collection<? extends T> items, Binder<? super T> binder)
+            throws SQLException {
+        if (items.isEmpty()) {
+            return 0;
+        }
+        PreparedStatement statement = statements.prepare(sql);
+        int pending = 0;
+        int rows = 0;
+        try {
+            for (T item : items) {
+                binder.bind(statement, item);
+                statement.addBatch();
+                if (++pending == BATCH_SIZE) {
+                    rows += count(statement.executeBatch());
+                    pending = 0;
+                }
+            }
+            if (pending > 0) {
+                rows += count(statement.executeBatch());
+            }
+        } catch (SQLException e) {
+            // The statement stays cached, so a failed batch must not leak into the next one
+            statement.clearBatch();
+            throw e;
+        }
+        return rows;
+    }
+
+    static <T> List<T> list(PreparedStatement statement, RowMapper<T> mapper) throws SQLException {
+        List<T> results = new ArrayList<>();
+        try (ResultSet rows = statement.executeQuery()) {
+            while (rows.next()) {
+                results.add(mapper.map(rows));
+            }
+        }
+        return results;
+    }
+
+    static String id(UUID id) {
+        return id == null ? null : id.toString();
+    }
+
+    static UUID uuid(ResultSet row, String column) throws SQLException {
+        String value = row.getString(column);
+        return value == null ? null : UUID.fromString(value.trim());
+    }
+
+    static String name(Enum<?> value) {
+        return value == null ? null : value.name();
+    }
+
+    static <E extends Enum<E>> E enumValue(Class<E> type, String name) {
+        return name == null ? null : Enum.valueOf(type, name);
+    }
+
+    static LocalDateTime time(ResultSet row, String column) throws SQLException {
+        return row.getObject(column, LocalDateTime.class);
+    }
+
+    static byte[] bytes(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    private static int count(int[] updates) {
+        int rows = 0;
+        for (int update : updates) {
+            // Drivers may report a successful row without a count
+            rows += update == Statement.SUCCESS_NO_INFO ? 1 : Math.max(update, 0);
+        }
+        return rows;
+    }
+}
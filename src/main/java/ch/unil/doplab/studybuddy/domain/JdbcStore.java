@@ -0,0 +1,122 @@
+package ch.unil.doplab.studybuddy.domain;
+
+import ch.unil.doplab.studybuddy.storage.StatementCache;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Relational storage of the domain model over one JDBC connection: the
+ * schema, and repositories that share the connection's statement cache so
+ * the SQL they run repeatedly is prepared once.
+ *
+ * Closing the store closes the cached statements; the connection belongs to
+ * the caller. Like the connection, a store is used by one thread at a time.
+ */
+public class JdbcStore implements AutoCloseable {
+
+    private static final String[] SCHEMA = {
+            """
+            CREATE TABLE IF NOT EXISTS users (
+                user_id CHAR(36) PRIMARY KEY,
+                role VARCHAR(16) NOT NULL,
+                username VARCHAR(255) UNIQUE,
+                password VARCHAR(255),
+                first_name VARCHAR(255),
+                last_name VARCHAR(255),
+                email VARCHAR(255),
+                budget DOUBLE PRECISION,
+                profile VARBINARY(1000000))""",
+            """
+            CREATE TABLE IF NOT EXISTS properties (
+                property_id CHAR(36) PRIMARY KEY,
+                owner_id CHAR(36),
+                title VARCHAR(1000),
+                description VARCHAR(100000),
+                location VARCHAR(1000),
+                price DOUBLE PRECISION NOT NULL,
+                size_sqm DOUBLE PRECISION NOT NULL,
+                type VARCHAR(16),
+                status VARCHAR(16),
+                details VARBINARY(1000000),
+                created_at TIMESTAMP(9),
+                updated_at TIMESTAMP(9))""",
+            "CREATE INDEX IF NOT EXISTS properties_by_price ON properties (price, property_id)",
+            "CREATE INDEX IF NOT EXISTS properties_by_owner ON properties (owner_id)",
+            """
+            CREATE TABLE IF NOT EXISTS offers (
+                offer_id CHAR(36) PRIMARY KEY,
+                property_id CHAR(36) NOT NULL,
+                buyer_id CHAR(36) NOT NULL,
+                amount DOUBLE PRECISION NOT NULL,
+                created_at TIMESTAMP(9),
+                status VARCHAR(16))""",
+            "CREATE INDEX IF NOT EXISTS offers_by_property ON offers (property_id)",
+            "CREATE INDEX IF NOT EXISTS offers_by_buyer ON offers (buyer_id)",
+            """
+            CREATE TABLE IF NOT EXISTS messages (
+                message_id CHAR(36) PRIMARY KEY,
+                owner_id CHAR(36) NOT NULL,
+                sender_id CHAR(36),
+                recipient_id CHAR(36),
+                subject VARCHAR(1000),
+                content VARCHAR(100000),
+                sent_at TIMESTAMP(9),
+                direction VARCHAR(8),
+                is_read BOOLEAN NOT NULL)""",
+            "CREATE INDEX IF NOT EXISTS messages_by_owner ON messages (owner_id, sent_at, message_id)"
+    };
+
+    private final StatementCache statements;
+    private final PropertyRepository properties;
+    private final OfferRepository offers;
+    private final MessageRepository messages;
+    private final UserRepository users;
+
+    public JdbcStore(Connection connection) {
+        this.statements = new StatementCache(connection);
+        this.properties = new PropertyRepository(statements);
+        this.offers = new OfferRepository(statements);
+        this.messages = new MessageRepository(statements);
+        this.users = new UserRepository(statements, properties, offers, messages);
+    }
+
+    /** Creates the tables and indexes, where they do not exist yet. */
+    public void createSchema() throws SQLException {
+        try (Statement statement = statements.getConnection().createStatement()) {
+            for (String ddl : SCHEMA) {
+                statement.execute(ddl);
+            }
+        }
+    }
+
+    public PropertyRepository properties() {
+        return properties;
+    }
+
+    public OfferRepository offers() {
+        return offers;
+    }
+
+    public MessageRepository messages() {
+        return messages;
+    }
+
+    public UserRepository users() {
+        return users;
+    }
+
+    public StatementCache getStatements() {
+        return statements;
+    }
+
+    public UnitOfWork newUnitOfWork() {
+        return new UnitOfWork(statements.getConnection(), properties, offers, messages, users);
+    }
+
+    @Override
+    public void close() throws SQLException {
+        statements.close();
+    }
+}
@@ -0,0 +1,206 @@
+package ch.unil.doplab.studybuddy.domain;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Messages of one user together with the unread counters and the search index
+ * kept alongside them.
+ *
+ * The stored messages, their index and the counters are copy-on-write, so
+ * User.replaceWith and mergeWith share another mailbox's in O(1). Read state
+ * is kept by position in the counters, not in the stored messages, and the
+ * messages handed out are bound to this mailbox: marking one read copies the
+ * shared counters first and never changes the other mailbox.
+ */
+final class Mailbox {
+
+    /** Messages in delivery order, their IDs and search index; only modified while unshared. */
+    private static final class Contents {
+        private final List<Message> messages;
+        private final Set<UUID> messageIds;
+        private final MessageIndex messageIndex;
+
+        private Contents(List<Message> messages, Set<UUID> messageIds, MessageIndex messageIndex) {
+            this.messages = messages;
+            this.messageIds = messageIds;
+            this.messageIndex = messageIndex;
+        }
+
+        private Contents() {
+            this(new ArrayList<>(), new HashSet<>(), new MessageIndex());
+        }
+
+        private Contents copy() {
+            return new Contents(new ArrayList<>(messages), new HashSet<>(messageIds), messageIndex.copy());
+        }
+    }
+
+    private volatile CopyOnWrite<Contents> contents = new CopyOnWrite<>(new Contents(), Contents::copy);
+    private volatile CopyOnWrite<UnreadCounters> counters =
+            new CopyOnWrite<>(new UnreadCounters(), UnreadCounters::copy);
+
+    boolean add(Message message) {
+        return add(message, message.isRead());
+    }
+
+    private synchronized boolean add(Message message, boolean read) {
+        if (contents.read().messageIds.contains(message.getMessageId())) {
+            return false;
+        }
+        // Store a detached message, so a handle from another mailbox does not keep writing there
+        Message stored = message.isBound() ? new Message(message) : message;
+        contents = contents.forWrite();
+        Contents target = contents.read();
+        int position = target.messages.size();
+        target.messages.add(stored);
+        target.messageIds.add(stored.getMessageId());
+        target.messageIndex.add(stored);
+        counters = counters.forWrite();
+        counters.read().track(position, stored, read);
+        return true;
+    }
+
+    boolean contains(UUID messageId) {
+        return contents.read().messageIds.contains(messageId);
+    }
+
+    boolean isEmpty() {
+        return contents.read().messages.isEmpty();
+    }
+
+    /** The stored message at a position, shared with the mailboxes this one was copied from or to. */
+    Message stored(int position) {
+        return contents.read().messages.get(position);
+    }
+
+    /** The messages in delivery order, each bound to this mailbox; a view, not a copy. */
+    List<Message> messages() {
+        return new AbstractList<>() {
+            @Override
+            public Message get(int index) {
+                return new Message(stored(index), Mailbox.this, index);
+            }
+
+            @Override
+            public int size() {
+                return contents.read().messages.size();
+            }
+        };
+    }
+
+    /** A page of search results, bound to this mailbox. */
+    List<Message> searchPage(String query, int page, int pageSize) {
+        Contents current = contents.read();
+        return bind(current, current.messageIndex.search(query, page, pageSize));
+    }
+
+    /** Search results for a range of ranks, bound to this mailbox. */
+    List<Message> searchRange(String query, int offset, int count) {
+        Contents current = contents.read();
+        return bind(current, current.messageIndex.searchRange(query, offset, count));
+    }
+
+    private List<Message> bind(Contents current, int[] documents) {
+        return Arrays.stream(documents)
+                .mapToObj(document -> new Message(current.messages.get(document), this, document))
+                .toList();
+    }
+
+    UnreadCounters unreadCounters() {
+        return counters.read();
+    }
+
+    /** Whether the message at the position is read here, or null once another one is stored there. */
+    Boolean isRead(int position, Message message) {
+        if (!holds(position, message)) {
+            return null;
+        }
+        return counters.read().isRead(position, message);
+    }
+
+    /** Marks the message at the position read; false once another one is stored there. */
+    synchronized boolean markRead(int position, Message message) {
+        if (!holds(position, message)) {
+            return false;
+        }
+        if (!counters.read().isRead(position, message)) {
+            counters = counters.forWrite();
+            counters.read().markRead(position, message);
+        }
+        return true;
+    }
+
+    synchronized void markAllRead() {
+        counters = counters.forWrite();
+        counters.read().markAllRead();
+    }
+
+    synchronized void markThreadRead(UUID counterpartId) {
+        counters = counters.forWrite();
+        counters.read().markThreadRead(counterpartId);
+    }
+
+    /** Takes the other mailbox's messages and read state, sharing them until either side writes. */
+    void replaceWith(Mailbox other) {
+        if (other == this) {
+            return;
+        }
+        CopyOnWrite<Contents> sharedContents;
+        CopyOnWrite<UnreadCounters> sharedCounters;
+        // One lock at a time, so two mailboxes replacing each other cannot deadlock
+        synchronized (other) {
+            sharedContents = other.contents.share();
+            sharedCounters = other.counters.share();
+        }
+        synchronized (this) {
+            contents.release();
+            counters.release();
+            contents = sharedContents;
+            counters = sharedCounters;
+        }
+    }
+
+    /**
+     * Adds the other mailbox's messages that this one lacks, with their read state.
+     * An empty mailbox shares the other's in O(1) instead.
+     */
+    void mergeWith(Mailbox other) {
+        if (other == this) {
+            return;
+        }
+        if (isEmpty()) {
+            replaceWith(other);
+            return;
+        }
+        List<Message> missing = new ArrayList<>();
+        List<Boolean> read = new ArrayList<>();
+        synchronized (other) {
+            Contents theirs = other.contents.read();
+            if (theirs == contents.read()) {
+                return;
+            }
+            UnreadCounters theirCounters = other.counters.read();
+            for (int position = 0; position < theirs.messages.size(); position++) {
+                Message message = theirs.messages.get(position);
+                if (!contains(message.getMessageId())) {
+                    missing.add(message);
+                    read.add(theirCounters.isRead(position, message));
+                }
+            }
+        }
+        for (int i = 0; i < missing.size(); i++) {
+            add(missing.get(i), read.get(i));
+        }
+    }
+
+    private boolean holds(int position, Message message) {
+        List<Message> messages = contents.read().messages;
+        return position < messages.size() && messages.get(position).getMessageId().equals(message.getMessageId());
+    }
+}
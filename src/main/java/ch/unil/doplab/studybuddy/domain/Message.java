@@ -1,5 +1,6 @@
 package ch.unil.doplab.studybuddy.domain;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.UUID;
 
@@ -13,7 +14,10 @@ public class Message {
     private final String content;
     private final LocalDateTime sentAt;
     private final MessageDirection direction;
-    private boolean read;
+    private volatile boolean read;
+    // Set on the messages a mailbox hands out, whose read state lives in that mailbox
+    private final Mailbox mailbox;
+    private final int position;
 
     private Message(UUID senderId, UUID recipientId, String subject, String content, MessageDirection direction) {
         this.messageId = UUID.randomUUID();
@@ -24,6 +28,23 @@ public class Message {
         this.sentAt = LocalDateTime.now();
         this.direction = direction;
         this.read = direction == MessageDirection.SENT;
+        this.mailbox = null;
+        this.position = -1;
+    }
+
+    /** Rebuilds a message with its original identity and read flag, for decoding. */
+    Message(UUID messageId, UUID senderId, UUID recipientId, String subject, String content,
+            LocalDateTime sentAt, MessageDirection direction, boolean read) {
+        this.messageId = messageId;
+        this.senderId = senderId;
+        this.recipientId = recipientId;
+        this.subject = subject;
+        this.content = content;
+        this.sentAt = sentAt;
+        this.direction = direction;
+        this.read = read;
+        this.mailbox = null;
+        this.position = -1;
     }
 
     public Message(Message other) {
@@ -34,7 +55,23 @@ public class Message {
         this.content = other.content;
         this.sentAt = other.sentAt;
         this.direction = other.direction;
-        this.read = other.read;
+        this.read = other.isRead();
+        this.mailbox = null;
+        this.position = -1;
+    }
+
+    /** The message at a position of a mailbox, reading and marking its read state there. */
+    Message(Message stored, Mailbox mailbox, int position) {
+        this.messageId = stored.messageId;
+        this.senderId = stored.senderId;
+        this.recipientId = stored.recipientId;
+        this.subject = stored.subject;
+        this.content = stored.content;
+        this.sentAt = stored.sentAt;
+        this.direction = stored.direction;
+        this.read = stored.read;
+        this.mailbox = mailbox;
+        this.position = position;
     }
 
     public static Message outbound(UUID senderId, UUID recipientId, String subject, String content) {
@@ -45,6 +82,15 @@ public class Message {
         return new Message(senderId, recipientId, subject, content, MessageDirection.RECEIVED);
     }
 
+    /**
+     * The recipient's copy of a sent message. Its ID is derived from the sent
+     * one, so replaying a send recreates the same copy.
+     */
+    Message receivedCopy() {
+        UUID copyId = UUID.nameUUIDFromBytes((messageId + "/received").getBytes(StandardCharsets.UTF_8));
+        return new Message(copyId, senderId, recipientId, subject, content, sentAt, MessageDirection.RECEIVED, false);
+    }
+
     public UUID getMessageId() { return messageId; }
     public UUID getSenderId() { return senderId; }
     public UUID getRecipientId() { return recipientId; }
@@ -52,8 +98,34 @@ public class Message {
     public String getContent() { return content; }
     public LocalDateTime getSentAt() { return sentAt; }
     public MessageDirection getDirection() { return direction; }
-    public boolean isRead() { return read; }
-    public void markAsRead() { this.read = true; }
+    public boolean isRead() {
+        Boolean stored = mailbox == null ? null : mailbox.isRead(position, this);
+        return stored != null ? stored : read;
+    }
+
+    public void markAsRead() {
+        if (mailbox == null || !mailbox.markRead(position, this)) {
+            this.read = true;
+        }
+    }
+
+    /** Whether this is the mailbox's own handle on its stored message, rather than a detached copy. */
+    boolean isBound() {
+        return mailbox != null;
+    }
+
+    /** Messages are equal when they have the same ID, whichever mailbox handed them out. */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Message message)) return false;
+        return messageId.equals(message.messageId);
+    }
+
+    @Override
+    public int hashCode() {
+        return messageId.hashCode();
+    }
 
     @Override
     public String toString() {
@@ -64,7 +136,7 @@ public class Message {
                 ", subject='" + subject + '\'' +
                 ", sentAt=" + sentAt +
                 ", direction=" + direction +
-                ", read=" + read +
+                ", read=" + isRead() +
                 '}';
     }
 }
@@ -0,0 +1,185 @@
+package ch.unil.doplab.studybuddy.domain;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Inverted index over the subject and content of a single mailbox.
+ * Documents are numbered in delivery order so every posting list stays sorted
+ * and multi-term queries are answered by intersecting them. Searches return
+ * document numbers, which are the messages' positions in the mailbox.
+ */
+final class MessageIndex {
+
+    private static final int SUBJECT_WEIGHT = 3;
+    private static final int CONTENT_WEIGHT = 1;
+
+    private static final class Postings {
+        private int[] documents = new int[4];
+        private int[] weights = new int[4];
+        private int size;
+
+        private void add(int document, int weight) {
+            if (size > 0 && documents[size - 1] == document) {
+                weights[size - 1] += weight;
+                return;
+            }
+            if (size == documents.length) {
+                documents = Arrays.copyOf(documents, size * 2);
+                weights = Arrays.copyOf(weights, size * 2);
+            }
+            documents[size] = document;
+            weights[size] = weight;
+            size++;
+        }
+
+        private Postings copy() {
+            Postings copy = new Postings();
+            copy.documents = Arrays.copyOf(documents, Math.max(size, 1));
+            copy.weights = Arrays.copyOf(weights, Math.max(size, 1));
+            copy.size = size;
+            return copy;
+        }
+    }
+
+    private record Hit(int document, double score) {
+    }
+
+    private static final int[] NO_DOCUMENTS = new int[0];
+
+    private final Map<String, Postings> postings = new HashMap<>();
+    private int documentCount;
+
+    synchronized void add(Message message) {
+        int document = documentCount++;
+        for (String term : tokenize(message.getSubject())) {
+            postings.computeIfAbsent(term, t -> new Postings()).add(document, SUBJECT_WEIGHT);
+        }
+        for (String term : tokenize(message.getContent())) {
+            postings.computeIfAbsent(term, t -> new Postings()).add(document, CONTENT_WEIGHT);
+        }
+    }
+
+    /** A copy that shares nothing with this index, for a mailbox that stops sharing it. */
+    synchronized MessageIndex copy() {
+        MessageIndex copy = new MessageIndex();
+        postings.forEach((term, list) -> copy.postings.put(term, list.copy()));
+        copy.documentCount = documentCount;
+        return copy;
+    }
+
+    /**
+     * Returns the documents containing every term of the query, best matches first
+     * and most recent first among equal scores.
+     */
+    int[] search(String query, int page, int pageSize) {
+        if (page < 0) throw new IllegalArgumentException("Page must not be negative");
+        if (pageSize <= 0) throw new IllegalArgumentException("Page size must be positive");
+        long offset = (long) page * pageSize;
+        return offset > Integer.MAX_VALUE ? NO_DOCUMENTS : searchRange(query, (int) offset, pageSize);
+    }
+
+    /** Like search, for up to count results starting at the given rank. */
+    synchronized int[] searchRange(String query, int offset, int count) {
+        if (offset < 0) throw new IllegalArgumentException("Offset must not be negative");
+        if (count <= 0) throw new IllegalArgumentException("Count must be positive");
+        Set<String> terms = new LinkedHashSet<>(tokenize(query));
+        if (terms.isEmpty()) {
+            return NO_DOCUMENTS;
+        }
+        List<Postings> lists = new ArrayList<>(terms.size());
+        for (String term : terms) {
+            Postings list = postings.get(term);
+            if (list == null) {
+                return NO_DOCUMENTS;
+            }
+            lists.add(list);
+        }
+        lists.sort((a, b) -> Integer.compare(a.size, b.size));
+
+        long limit = (long) offset + count;
+        PriorityQueue<Hit> top = new PriorityQueue<>(MessageIndex::compareHits);
+        int[] cursors = new int[lists.size()];
+        Postings shortest = lists.get(0);
+        candidates:
+        for (int i = 0; i < shortest.size; i++) {
+            int document = shortest.documents[i];
+            double score = score(shortest, i);
+            for (int l = 1; l < lists.size(); l++) {
+                Postings list = lists.get(l);
+                int position = advance(list, cursors[l], document);
+                cursors[l] = position;
+                if (position == list.size) {
+                    break candidates;
+                }
+                if (list.documents[position] != document) {
+                    continue candidates;
+                }
+                score += score(list, position);
+            }
+            top.offer(new Hit(document, score));
+            if (top.size() > limit) {
+                top.poll();
+            }
+        }
+
+        List<Hit> ranked = new ArrayList<>(top);
+        ranked.sort((a, b) -> compareHits(b, a));
+        if (offset >= ranked.size()) {
+            return NO_DOCUMENTS;
+        }
+        return ranked.subList(offset, (int) Math.min(ranked.size(), limit)).stream()
+                .mapToInt(Hit::document)
+                .toArray();
+    }
+
+    private double score(Postings list, int position) {
+        double idf = Math.log(1.0 + (double) documentCount / list.size);
+        return (1.0 + Math.log(list.weights[position])) * idf;
+    }
+
+    private static int advance(Postings list, int from, int document) {
+        int low = from;
+        int high = list.size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (list.documents[mid] < document) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static int compareHits(Hit a, Hit b) {
+        int byScore = Double.compare(a.score(), b.score());
+        return byScore != 0 ? byScore : Integer.compare(a.document(), b.document());
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return Collections.emptyList();
+        }
+        List<String> terms = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean partOfTerm = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (partOfTerm && start < 0) {
+                start = i;
+            } else if (!partOfTerm && start >= 0) {
+                terms.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return terms;
+    }
+}
@@ -0,0 +1,99 @@
+package ch.unil.doplab.studybuddy.domain;
+
+import ch.unil.doplab.studybuddy.storage.StatementCache;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Stores mailbox messages in the messages table, one row per copy: the
+ * sender's outbound copy and the recipient's received copy are owned by
+ * different users and are read and marked separately.
+ *
+ * Mailboxes are paged newest first with a keyset on (sent time, ID).
+ */
+public class MessageRepository {
+
+    private static final String COLUMNS = "message_id, owner_id, sender_id, recipient_id, subject, content, sent_at, "
+            + "direction, is_read";
+    private static final String INSERT = "INSERT INTO messages (" + COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String MARK_READ = "UPDATE messages SET is_read = ? WHERE message_id = ?";
+    private static final String SELECT = "SELECT " + COLUMNS + " FROM messages";
+    private static final String MAILBOX = SELECT + " WHERE owner_id = ? ORDER BY sent_at, message_id";
+    private static final String FIRST_PAGE = SELECT
+            + " WHERE owner_id = ? ORDER BY sent_at DESC, message_id DESC LIMIT ?";
+    private static final String NEXT_PAGE = SELECT
+            + " WHERE owner_id = ? AND (sent_at < ? OR (sent_at = ? AND message_id < ?))"
+            + " ORDER BY sent_at DESC, message_id DESC LIMIT ?";
+
+    private final StatementCache statements;
+
+    public MessageRepository(StatementCache statements) {
+        this.statements = Objects.requireNonNull(statements, "Statements must not be null");
+    }
+
+    /** Stores the given copies; for a message returned by User.sendMessage, store it and its received copy. */
+    public int insertAll(Collection<Message> messages) throws SQLException {
+        return Jdbc.<Message>batch(statements, INSERT, messages, (statement, message) -> {
+            statement.setString(1, Jdbc.id(message.getMessageId()));
+            statement.setString(2, Jdbc.id(ownerOf(message)));
+            statement.setString(3, Jdbc.id(message.getSenderId()));
+            statement.setString(4, Jdbc.id(message.getRecipientId()));
+            statement.setString(5, message.getSubject());
+            statement.setString(6, message.getContent());
+            statement.setObject(7, message.getSentAt());
+            statement.setString(8, Jdbc.name(message.getDirection()));
+            statement.setBoolean(9, message.isRead());
+        });
+    }
+
+    public int updateReadFlags(Collection<Message> messages) throws SQLException {
+        return Jdbc.<Message>batch(statements, MARK_READ, messages, (statement, message) -> {
+            statement.setBoolean(1, message.isRead());
+            statement.setString(2, Jdbc.id(message.getMessageId()));
+        });
+    }
+
+    /** A user's whole mailbox, oldest first. */
+    public List<Message> findMailbox(UUID ownerId) throws SQLException {
+        PreparedStatement statement = statements.prepare(MAILBOX);
+        statement.setString(1, Jdbc.id(ownerId));
+        return Jdbc.list(statement, MessageRepository::map);
+    }
+
+    /** Returns up to limit messages of a mailbox, newest first, starting after the given one or from the newest when it is null. */
+    public List<Message> findPage(UUID ownerId, Message after, int limit) throws SQLException {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be positive");
+        }
+        PreparedStatement statement;
+        if (after == null) {
+            statement = statements.prepare(FIRST_PAGE);
+            statement.setString(1, Jdbc.id(ownerId));
+            statement.setInt(2, limit);
+        } else {
+            statement = statements.prepare(NEXT_PAGE);
+            statement.setString(1, Jdbc.id(ownerId));
+            statement.setObject(2, after.getSentAt());
+            statement.setObject(3, after.getSentAt());
+            statement.setString(4, Jdbc.id(after.getMessageId()));
+            statement.setInt(5, limit);
+        }
+        return Jdbc.list(statement, MessageRepository::map);
+    }
+
+    static UUID ownerOf(Message message) {
+        return message.getDirection() == Message.MessageDirection.SENT ? message.getSenderId() : message.getRecipientId();
+    }
+
+    private static Message map(ResultSet row) throws SQLException {
+        return new Message(Jdbc.uuid(row, "message_id"), Jdbc.uuid(row, "sender_id"), Jdbc.uuid(row, "recipient_id"),
+                row.getString("subject"), row.getString("content"), Jdbc.time(row, "sent_at"),
+                Jdbc.enumValue(Message.MessageDirection.class, row.getString("direction")), row.getBoolean("is_read"));
+    }
+}
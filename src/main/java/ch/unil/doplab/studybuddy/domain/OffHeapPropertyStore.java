@@ -0,0 +1,355 @@
+package ch.unil.doplab.studybuddy.domain;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Keeps the searchable fields of listings outside the Java heap, for
+ * catalogs with millions of listings where a Property object graph per
+ * listing makes garbage collection pauses grow with the catalog.
+ *
+ * Each listing is one fixed-width record in a direct buffer: ID, owner ID,
+ * price, size, location code, type, status and a live flag. Records live in
+ * chunks allocated as the store grows, so growing never copies them, and the
+ * ID index is an open-addressing table of record numbers in a direct buffer
+ * as well. Locations are stored as their TermDictionary code.
+ *
+ * Searches scan the records with absolute reads and hand matches to a
+ * reusable PropertyView, so a scan allocates nothing per listing. Everything
+ * else about a listing, such as its description, features and images, is
+ * fetched through the loader given to the constructor, e.g. from the journal
+ * or a repository, when a caller asks for the full Property.
+ *
+ * Reads run concurrently; writes take an exclusive lock.
+ */
+public class OffHeapPropertyStore {
+
+    static final int RECORD_SIZE = 56;
+    static final int ID_HIGH = 0;
+    static final int ID_LOW = 8;
+    static final int OWNER_HIGH = 16;
+    static final int OWNER_LOW = 24;
+    static final int PRICE = 32;
+    static final int SIZE = 40;
+    static final int LOCATION = 48;
+    static final int TYPE = 52;
+    static final int STATUS = 53;
+    static final int FLAGS = 54;
+
+    static final byte LIVE = 1;
+
+    private static final int DEFAULT_CHUNK_RECORDS = 1 << 16;
+    private static final int EMPTY = 0;
+    private static final int TOMBSTONE = -1;
+    private static final Property.PropertyType[] TYPES = Property.PropertyType.values();
+    private static final Property.PropertyStatus[] STATUSES = Property.PropertyStatus.values();
+
+    private final int chunkRecords;
+    private final Function<UUID, Optional<Property>> loader;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final List<ByteBuffer> chunks = new ArrayList<>();
+    private int[] freeSlots = new int[16];
+    private int freeCount;
+    private int slotCount;
+    private int size;
+    // Record number + 1 per entry; EMPTY and TOMBSTONE mark free entries
+    private ByteBuffer index = ByteBuffer.allocateDirect(16 * Integer.BYTES);
+    private int indexMask = 15;
+    private int indexUsed;
+
+    /** Creates a store that fetches full listings through the given loader. */
+    public OffHeapPropertyStore(Function<UUID, Optional<Property>> loader) {
+        this(DEFAULT_CHUNK_RECORDS, loader);
+    }
+
+    OffHeapPropertyStore(int chunkRecords, Function<UUID, Optional<Property>> loader) {
+        if (Integer.bitCount(chunkRecords) != 1) {
+            throw new IllegalArgumentException("Chunk size must be a power of two");
+        }
+        this.chunkRecords = chunkRecords;
+        this.loader = Objects.requireNonNull(loader, "Loader must not be null");
+    }
+
+    /** Adds a listing, or overwrites the searchable fields of one already stored. */
+    public void put(Property property) {
+        Objects.requireNonNull(property, "Property must not be null");
+        UUID id = property.getPropertyId();
+        lock.writeLock().lock();
+        try {
+            int entry = find(id.getMostSignificantBits(), id.getLeastSignificantBits());
+            int slot;
+            if (entry >= 0) {
+                slot = index.getInt(entry * Integer.BYTES) - 1;
+            } else {
+                slot = allocateSlot();
+                insert(id.getMostSignificantBits(), id.getLeastSignificantBits(), slot);
+                size++;
+            }
+            write(slot, property);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean remove(UUID propertyId) {
+        lock.writeLock().lock();
+        try {
+            int entry = find(propertyId.getMostSignificantBits(), propertyId.getLeastSignificantBits());
+            if (entry < 0) {
+                return false;
+            }
+            int slot = index.getInt(entry * Integer.BYTES) - 1;
+            index.putInt(entry * Integer.BYTES, TOMBSTONE);
+            chunk(slot).put(offset(slot) + FLAGS, (byte) 0);
+            if (freeCount == freeSlots.length) {
+                freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+            }
+            freeSlots[freeCount++] = slot;
+            size--;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean contains(UUID propertyId) {
+        lock.readLock().lock();
+        try {
+            return find(propertyId.getMostSignificantBits(), propertyId.getLeastSignificantBits()) >= 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Runs the reader on a view of the listing; the view is only valid during the call. */
+    public <R> Optional<R> read(UUID propertyId, Function<PropertyView, R> reader) {
+        lock.readLock().lock();
+        try {
+            int entry = find(propertyId.getMostSignificantBits(), propertyId.getLeastSignificantBits());
+            if (entry < 0) {
+                return Optional.empty();
+            }
+            int slot = index.getInt(entry * Integer.BYTES) - 1;
+            return Optional.ofNullable(reader.apply(new PropertyView(this, chunk(slot), offset(slot))));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Fetches the full listing, cold fields included, through the loader. */
+    public Optional<Property> load(UUID propertyId) {
+        return contains(propertyId) ? loader.apply(propertyId) : Optional.empty();
+    }
+
+    /**
+     * Passes every listing matching the criteria to the visitor, with the same
+     * rules as PropertySearchCriteria.toPredicate, and returns how many matched.
+     * The visitor receives one reused view, valid only until it returns.
+     */
+    public int forEachMatch(PropertySearchCriteria criteria, Consumer<PropertyView> visitor) {
+        Objects.requireNonNull(criteria, "Criteria must not be null");
+        double minPrice = criteria.getMinPrice() == null ? Double.NEGATIVE_INFINITY : criteria.getMinPrice();
+        double maxPrice = criteria.getMaxPrice() == null ? Double.POSITIVE_INFINITY : criteria.getMaxPrice();
+        int typeMask = -1;
+        if (!criteria.getPropertyTypes().isEmpty()) {
+            typeMask = 0;
+            for (Property.PropertyType type : TYPES) {
+                if (criteria.getPropertyTypes().contains(type.toString())) {
+                    typeMask |= 1 << type.ordinal();
+                }
+            }
+        }
+        lock.readLock().lock();
+        try {
+            PropertyView view = new PropertyView(this, null, 0);
+            int matches = 0;
+            for (int slot = 0; slot < slotCount; slot++) {
+                ByteBuffer chunk = chunk(slot);
+                int offset = offset(slot);
+                if ((chunk.get(offset + FLAGS) & LIVE) == 0) {
+                    continue;
+                }
+                double price = chunk.getDouble(offset + PRICE);
+                if (price < minPrice || price > maxPrice) {
+                    continue;
+                }
+                if (typeMask != -1) {
+                    byte type = chunk.get(offset + TYPE);
+                    if (type < 0 || (typeMask & 1 << type) == 0) {
+                        continue;
+                    }
+                }
+                if (!criteria.acceptsLocation(chunk.getInt(offset + LOCATION))) {
+                    continue;
+                }
+                view.moveTo(chunk, offset);
+                visitor.accept(view);
+                matches++;
+            }
+            return matches;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** IDs of the listings matching the criteria, in storage order, up to the limit. */
+    public List<UUID> search(PropertySearchCriteria criteria, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be positive");
+        }
+        List<UUID> results = new ArrayList<>(Math.min(limit, 1024));
+        forEachMatch(criteria, view -> {
+            if (results.size() < limit) {
+                results.add(view.getPropertyId());
+            }
+        });
+        return results;
+    }
+
+    /** Bytes held outside the heap by the records and the ID index. */
+    public long getOffHeapBytes() {
+        lock.readLock().lock();
+        try {
+            return (long) chunks.size() * chunkRecords * RECORD_SIZE + index.capacity();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    static String location(int code) {
+        return TermDictionary.LOCATIONS.decode(code);
+    }
+
+    Optional<Property> loadFull(UUID propertyId) {
+        return loader.apply(propertyId);
+    }
+
+    static Property.PropertyType type(byte ordinal) {
+        return ordinal < 0 ? null : TYPES[ordinal];
+    }
+
+    static Property.PropertyStatus status(byte ordinal) {
+        return ordinal < 0 ? null : STATUSES[ordinal];
+    }
+
+    private void write(int slot, Property property) {
+        ByteBuffer chunk = chunk(slot);
+        int offset = offset(slot);
+        UUID id = property.getPropertyId();
+        UUID owner = property.getOwnerId();
+        chunk.putLong(offset + ID_HIGH, id.getMostSignificantBits());
+        chunk.putLong(offset + ID_LOW, id.getLeastSignificantBits());
+        chunk.putLong(offset + OWNER_HIGH, owner == null ? 0 : owner.getMostSignificantBits());
+        chunk.putLong(offset + OWNER_LOW, owner == null ? 0 : owner.getLeastSignificantBits());
+        chunk.putDouble(offset + PRICE, property.getPrice());
+        chunk.putDouble(offset + SIZE, property.getSize());
+        chunk.putInt(offset + LOCATION, property.getLocationCode());
+        chunk.put(offset + TYPE, (byte) (property.getType() == null ? -1 : property.getType().ordinal()));
+        chunk.put(offset + STATUS, (byte) (property.getStatus() == null ? -1 : property.getStatus().ordinal()));
+        chunk.put(offset + FLAGS, LIVE);
+    }
+
+    private int allocateSlot() {
+        if (freeCount > 0) {
+            return freeSlots[--freeCount];
+        }
+        if (slotCount == chunks.size() * chunkRecords) {
+            chunks.add(ByteBuffer.allocateDirect(chunkRecords * RECORD_SIZE));
+        }
+        return slotCount++;
+    }
+
+    private ByteBuffer chunk(int slot) {
+        return chunks.get(slot / chunkRecords);
+    }
+
+    private int offset(int slot) {
+        return (slot & (chunkRecords - 1)) * RECORD_SIZE;
+    }
+
+    /** Index entry holding the given ID, or -1. */
+    private int find(long high, long low) {
+        int entry = hash(high, low) & indexMask;
+        while (true) {
+            int value = index.getInt(entry * Integer.BYTES);
+            if (value == EMPTY) {
+                return -1;
+            }
+            if (value != TOMBSTONE) {
+                int slot = value - 1;
+                ByteBuffer chunk = chunk(slot);
+                int offset = offset(slot);
+                if (chunk.getLong(offset + ID_HIGH) == high && chunk.getLong(offset + ID_LOW) == low) {
+                    return entry;
+                }
+            }
+            entry = (entry + 1) & indexMask;
+        }
+    }
+
+    private void insert(long high, long low, int slot) {
+        // Kept at most half full, counting tombstones, so probe sequences stay short
+        if ((indexUsed + 1) * 2 > indexMask + 1) {
+            rehash();
+        }
+        int entry = hash(high, low) & indexMask;
+        while (true) {
+            int value = index.getInt(entry * Integer.BYTES);
+            if (value == EMPTY || value == TOMBSTONE) {
+                if (value == EMPTY) {
+                    indexUsed++;
+                }
+                index.putInt(entry * Integer.BYTES, slot + 1);
+                return;
+            }
+            entry = (entry + 1) & indexMask;
+        }
+    }
+
+    private void rehash() {
+        int capacity = indexMask + 1;
+        // Grow only when live entries, not tombstones, fill the table
+        int newCapacity = size * 4 > capacity ? capacity * 2 : capacity;
+        ByteBuffer old = index;
+        index = ByteBuffer.allocateDirect(newCapacity * Integer.BYTES);
+        indexMask = newCapacity - 1;
+        indexUsed = 0;
+        for (int entry = 0; entry < capacity; entry++) {
+            int value = old.getInt(entry * Integer.BYTES);
+            if (value != EMPTY && value != TOMBSTONE) {
+                int slot = value - 1;
+                ByteBuffer chunk = chunk(slot);
+                int offset = offset(slot);
+                int target = hash(chunk.getLong(offset + ID_HIGH), chunk.getLong(offset + ID_LOW)) & indexMask;
+                while (index.getInt(target * Integer.BYTES) != EMPTY) {
+                    target = (target + 1) & indexMask;
+                }
+                index.putInt(target * Integer.BYTES, value);
+                indexUsed++;
+            }
+        }
+    }
+
+    private static int hash(long high, long low) {
+        long mixed = (high ^ low) * 0x9E3779B97F4A7C15L;
+        return (int) (mixed ^ mixed >>> 32);
+    }
+}
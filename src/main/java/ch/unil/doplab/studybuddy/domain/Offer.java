@@ -26,6 +26,16 @@ public class Offer {
         this.status = Status.PENDING;
     }
 
+    /** Rebuilds an offer with its original identity and state, for decoding. */
+    Offer(UUID offerId, UUID propertyId, UUID buyerId, double amount, LocalDateTime createdAt, Status status) {
+        this.offerId = offerId;
+        this.propertyId = propertyId;
+        this.buyerId = buyerId;
+        this.amount = amount;
+        this.createdAt = createdAt;
+        this.status = status;
+    }
+
     public UUID getOfferId() { return offerId; }
     public UUID getPropertyId() { return propertyId; }
     public UUID getBuyerId() { return buyerId; }
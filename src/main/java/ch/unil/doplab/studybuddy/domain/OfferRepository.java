@@ -0,0 +1,84 @@
+package ch.unil.doplab.studybuddy.domain;
+
+import ch.unil.doplab.studybuddy.storage.StatementCache;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Stores offers in the offers table. An offer only changes its status after
+ * it is placed, so updates write that column alone.
+ */
+public class OfferRepository {
+
+    private static final String COLUMNS = "offer_id, property_id, buyer_id, amount, created_at, status";
+    private static final String INSERT = "INSERT INTO offers (" + COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String UPDATE_STATUS = "UPDATE offers SET status = ? WHERE offer_id = ?";
+    private static final String SELECT = "SELECT " + COLUMNS + " FROM offers";
+    private static final String BY_ID = SELECT + " WHERE offer_id = ?";
+    private static final String BY_PROPERTY = SELECT + " WHERE property_id = ? ORDER BY created_at, offer_id";
+    private static final String BY_BUYER = SELECT + " WHERE buyer_id = ? ORDER BY created_at, offer_id";
+    // Seller.respondToOffer is what adds an offer to the seller's received offers
+    private static final String RECEIVED = "SELECT o.offer_id, o.property_id, o.buyer_id, o.amount, o.created_at, o.status"
+            + " FROM offers o JOIN properties p ON p.property_id = o.property_id"
+            + " WHERE p.owner_id = ? AND o.status IN ('ACCEPTED', 'REJECTED') ORDER BY o.created_at, o.offer_id";
+
+    private final StatementCache statements;
+
+    public OfferRepository(StatementCache statements) {
+        this.statements = Objects.requireNonNull(statements, "Statements must not be null");
+    }
+
+    public int insertAll(Collection<Offer> offers) throws SQLException {
+        return Jdbc.<Offer>batch(statements, INSERT, offers, (statement, offer) -> {
+            statement.setString(1, Jdbc.id(offer.getOfferId()));
+            statement.setString(2, Jdbc.id(offer.getPropertyId()));
+            statement.setString(3, Jdbc.id(offer.getBuyerId()));
+            statement.setDouble(4, offer.getAmount());
+            statement.setObject(5, offer.getCreatedAt());
+            statement.setString(6, Jdbc.name(offer.getStatus()));
+        });
+    }
+
+    public int updateStatuses(Collection<Offer> offers) throws SQLException {
+        return Jdbc.<Offer>batch(statements, UPDATE_STATUS, offers, (statement, offer) -> {
+            statement.setString(1, Jdbc.name(offer.getStatus()));
+            statement.setString(2, Jdbc.id(offer.getOfferId()));
+        });
+    }
+
+    public Optional<Offer> findById(UUID offerId) throws SQLException {
+        return find(BY_ID, offerId).stream().findFirst();
+    }
+
+    public List<Offer> findByProperty(UUID propertyId) throws SQLException {
+        return find(BY_PROPERTY, propertyId);
+    }
+
+    public List<Offer> findByBuyer(UUID buyerId) throws SQLException {
+        return find(BY_BUYER, buyerId);
+    }
+
+    /** The offers a seller has responded to on their listings, oldest first. */
+    public List<Offer> findReceived(UUID sellerId) throws SQLException {
+        return find(RECEIVED, sellerId);
+    }
+
+    private List<Offer> find(String sql, UUID id) throws SQLException {
+        PreparedStatement statement = statements.prepare(sql);
+        statement.setString(1, Jdbc.id(id));
+        return Jdbc.list(statement, OfferRepository::map);
+    }
+
+    private static Offer map(ResultSet row) throws SQLException {
+        return new Offer(Jdbc.uuid(row, "offer_id"), Jdbc.uuid(row, "property_id"), Jdbc.uuid(row, "buyer_id"),
+                row.getDouble("amount"), Jdbc.time(row, "created_at"),
+                Jdbc.enumValue(Offer.Status.class, row.getString("status")));
+    }
+}
@@ -2,7 +2,14 @@ package ch.unil.doplab.studybuddy.domain;
 
 import java.time.LocalDateTime;
 import java.util.*;
-
+import java.util.function.Supplier;
+
+/**
+ * A listing. The description, features and images are its details: a
+ * listing read for a search or a listing page may be created without them,
+ * and they are then loaded on first use, so results that are only shown as
+ * summaries never carry them.
+ */
 public class Property {
     // iu
     public enum PropertyType {
@@ -25,23 +32,37 @@ public class Property {
         OFF_MARKET
     }
 
+    private static final int BEDROOMS = TermDictionary.FEATURE_KEYS.find("bedrooms");
+    private static final int BATHROOMS = TermDictionary.FEATURE_KEYS.find("bathrooms");
+
     private final UUID propertyId;
     private UUID ownerId;
     private String title;
     private String description;
     private String location;
+    private int locationCode = TermDictionary.NONE;
     private double price;
     private double size; // in square meters
     private PropertyType type;
-    private final Map<String, Object> features;
-    private final List<String> images;
+    // Feature keys by their code in TermDictionary.FEATURE_KEYS, each value at its key's index
+    private int[] featureKeys;
+    private Object[] featureValues;
+    private int featureCount;
+    private List<String> images;
     private PropertyStatus status;
     private final LocalDateTime createdAt;
     private LocalDateTime updatedAt;
+    // Set until the details are loaded; the volatile write that clears it publishes them
+    private volatile Supplier<Details> detailsLoader;
+
+    /** The fields of a listing that are loaded on demand. */
+    record Details(String description, Map<String, Object> features, List<String> images) {
+    }
 
     public Property() {
         this.propertyId = UUID.randomUUID();
-        this.features = new LinkedHashMap<>();
+        this.featureKeys = new int[0];
+        this.featureValues = new Object[0];
         this.images = new ArrayList<>();
         this.createdAt = LocalDateTime.now();
         this.updatedAt = LocalDateTime.now();
@@ -54,10 +75,51 @@ public class Property {
         this.title = title;
         this.ownerId = ownerId;
         this.description = description;
-        this.location = location;
+        assignLocation(location);
+        this.price = price;
+        this.size = size;
+        this.type = type;
+    }
+
+    /** Rebuilds a listing with its original identity and timestamps, for decoding. */
+    Property(UUID propertyId, UUID ownerId, String title, String description, String location, double price,
+             double size, PropertyType type, PropertyStatus status, Map<String, Object> features,
+             List<String> images, LocalDateTime createdAt, LocalDateTime updatedAt) {
+        this.propertyId = propertyId;
+        this.ownerId = ownerId;
+        this.title = title;
+        assignLocation(location);
+        this.price = price;
+        this.size = size;
+        this.type = type;
+        this.status = status;
+        applyDetails(new Details(description, features, images));
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+    }
+
+    /** Copies the listing with its details, so the copy can be read while the original changes. */
+    public Property(Property other) {
+        this(other.propertyId, other.ownerId, other.title, other.getDescription(), other.location, other.price,
+                other.size, other.type, other.status, other.getFeatures(), other.getImages(), other.createdAt,
+                other.updatedAt);
+    }
+
+    /** Rebuilds a listing without its details, which the loader supplies on first use. */
+    Property(UUID propertyId, UUID ownerId, String title, String location, double price, double size,
+             PropertyType type, PropertyStatus status, LocalDateTime createdAt, LocalDateTime updatedAt,
+             Supplier<Details> detailsLoader) {
+        this.propertyId = propertyId;
+        this.ownerId = ownerId;
+        this.title = title;
+        assignLocation(location);
         this.price = price;
         this.size = size;
         this.type = type;
+        this.status = status;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+        this.detailsLoader = Objects.requireNonNull(detailsLoader, "Details loader must not be null");
     }
 
     // Getters and Setters
@@ -84,10 +146,12 @@ public class Property {
     }
 
     public String getDescription() {
+        loadDetails();
         return description;
     }
 
     public void setDescription(String description) {
+        loadDetails();
         this.description = description;
         this.updatedAt = LocalDateTime.now();
     }
@@ -97,10 +161,21 @@ public class Property {
     }
 
     public void setLocation(String location) {
-        this.location = location;
+        assignLocation(location);
         this.updatedAt = LocalDateTime.now();
     }
 
+    /** The location's code in TermDictionary.LOCATIONS, or NONE; equal for spellings that differ only in case or spacing. */
+    public int getLocationCode() {
+        return locationCode;
+    }
+
+    // Shared instances and codes, since a few hundred places are repeated across every listing
+    private void assignLocation(String location) {
+        this.location = TermDictionary.LOCATIONS.intern(location);
+        this.locationCode = TermDictionary.LOCATIONS.encode(this.location);
+    }
+
     public double getPrice() {
         return price;
     }
@@ -128,20 +203,70 @@ public class Property {
         this.updatedAt = LocalDateTime.now();
     }
 
+    /** The features in the order they were added, each under the first spelling seen for its key. */
     public Map<String, Object> getFeatures() {
+        loadDetails();
+        Map<String, Object> features = new LinkedHashMap<>(featureCount);
+        for (int i = 0; i < featureCount; i++) {
+            features.put(TermDictionary.FEATURE_KEYS.decode(featureKeys[i]), featureValues[i]);
+        }
         return Collections.unmodifiableMap(features);
     }
 
     public void addFeature(String key, Object value) {
-        features.put(key, value);
+        loadDetails();
+        putFeature(key, value);
         this.updatedAt = LocalDateTime.now();
     }
 
     public void removeFeature(String key) {
-        features.remove(key);
+        loadDetails();
+        int index = featureIndex(TermDictionary.FEATURE_KEYS.find(key));
+        if (index >= 0) {
+            featureCount--;
+            System.arraycopy(featureKeys, index + 1, featureKeys, index, featureCount - index);
+            System.arraycopy(featureValues, index + 1, featureValues, index, featureCount - index);
+            featureValues[featureCount] = null;
+        }
         this.updatedAt = LocalDateTime.now();
     }
 
+    // Every listing repeats the same few keys, so a listing keeps their codes, not the strings
+    private void putFeature(String key, Object value) {
+        int code = TermDictionary.FEATURE_KEYS.encode(key);
+        if (code == TermDictionary.NONE) {
+            throw new IllegalArgumentException("Feature key is required");
+        }
+        int index = featureIndex(code);
+        if (index < 0) {
+            if (featureCount == featureKeys.length) {
+                featureKeys = Arrays.copyOf(featureKeys, Math.max(4, featureCount * 2));
+                featureValues = Arrays.copyOf(featureValues, featureKeys.length);
+            }
+            index = featureCount++;
+            featureKeys[index] = code;
+        }
+        featureValues[index] = value;
+    }
+
+    /** The index of the feature with the given key code, or -1; listings have a handful of features. */
+    private int featureIndex(int code) {
+        if (code == TermDictionary.NONE) {
+            return -1;
+        }
+        for (int i = 0; i < featureCount; i++) {
+            if (featureKeys[i] == code) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private Object feature(int code) {
+        int index = featureIndex(code);
+        return index < 0 ? null : featureValues[index];
+    }
+
     public PropertyStatus getStatus() {
         return status;
     }
@@ -152,22 +277,52 @@ public class Property {
     }
 
     public List<String> getImages() {
+        loadDetails();
         return Collections.unmodifiableList(images);
     }
 
     public void addImage(String imageUrl) {
         if (imageUrl != null && !imageUrl.isBlank()) {
+            loadDetails();
             this.images.add(imageUrl);
             this.updatedAt = LocalDateTime.now();
         }
     }
 
     public void removeImage(String imageUrl) {
+        loadDetails();
         if (this.images.remove(imageUrl)) {
             this.updatedAt = LocalDateTime.now();
         }
     }
 
+    /** Whether the description, features and images are in memory. */
+    public boolean isDetailsLoaded() {
+        return detailsLoader == null;
+    }
+
+    /** Loads the details if the listing was created without them. */
+    void loadDetails() {
+        if (detailsLoader != null) {
+            synchronized (this) {
+                Supplier<Details> loader = detailsLoader;
+                if (loader != null) {
+                    applyDetails(loader.get());
+                    detailsLoader = null;
+                }
+            }
+        }
+    }
+
+    private void applyDetails(Details details) {
+        this.description = details.description();
+        this.featureKeys = new int[details.features().size()];
+        this.featureValues = new Object[featureKeys.length];
+        this.featureCount = 0;
+        details.features().forEach(this::putFeature);
+        this.images = new ArrayList<>(details.images());
+    }
+
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
@@ -195,8 +350,11 @@ public class Property {
     public void updatePropertyDetails(String title, String description, String location,
                                     double price, double size, PropertyType type) {
         if (title != null) this.title = title;
-        if (description != null) this.description = description;
-        if (location != null) this.location = location;
+        if (description != null) {
+            loadDetails();
+            this.description = description;
+        }
+        if (location != null) assignLocation(location);
         if (price >= 0) this.price = price;
         if (size >= 0) this.size = size;
         if (type != null) this.type = type;
@@ -217,29 +375,34 @@ public class Property {
     }
 
     public int getBedroomCount() {
-        Object bedrooms = features.get("bedrooms");
+        loadDetails();
+        Object bedrooms = feature(BEDROOMS);
         return bedrooms instanceof Integer ? (Integer) bedrooms : 0;
     }
 
     public int getBathroomCount() {
-        Object bathrooms = features.get("bathrooms");
+        loadDetails();
+        Object bathrooms = feature(BATHROOMS);
         return bathrooms instanceof Integer ? (Integer) bathrooms : 0;
     }
 
+    /** Returns the summary fields of this listing; does not load the details. */
+    public PropertySummary toSummary() {
+        return PropertySummary.of(this);
+    }
+
+    // Summary fields only: logging a listing should neither copy its description nor load its details
     @Override
     public String toString() {
         return "Property{" +
                 "propertyId=" + propertyId +
                 ", title='" + title + '\'' +
                 ", ownerId=" + ownerId +
-                ", description='" + description + '\'' +
                 ", location='" + location + '\'' +
                 ", price=" + price +
                 ", size=" + size +
                 ", type=" + type +
-                ", features=" + features +
                 ", status=" + status +
-                ", images=" + images.size() + " items" +
                 ", pricePerM2=" + computePricePerSquareMeter() +
                 '}';
     }
@@ -0,0 +1,195 @@
+package ch.unil.doplab.studybuddy.domain;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Matches buyers and listings in both directions. Listings are indexed by type
+ * and price and buyers by budget, so each query only scores the candidates that
+ * fit the budget (within the configured tolerance) and the buyer's interests.
+ * Large candidate sets are scored in parallel.
+ */
+public class PropertyMatcher {
+
+    private static final int PARALLEL_THRESHOLD = 2048;
+    private static final double BUDGET_WEIGHT = 0.5;
+    private static final double TYPE_WEIGHT = 0.3;
+    private static final double LOCATION_WEIGHT = 0.2;
+
+    public static class Match<T> {
+        private final T candidate;
+        private final double score;
+
+        private Match(T candidate, double score) {
+            this.candidate = candidate;
+            this.score = score;
+        }
+
+        public T getCandidate() { return candidate; }
+        public double getScore() { return score; }
+    }
+
+    // Snapshots of the indexed values, so stale index entries can be removed after a change
+    private record IndexedProperty(Property property, Property.PropertyType type, double price) {
+    }
+
+    private record IndexedBuyer(Buyer buyer, double budget) {
+    }
+
+    private final double budgetTolerance;
+    private final Map<UUID, IndexedProperty> properties = new HashMap<>();
+    private final Map<Property.PropertyType, NavigableMap<Double, Set<Property>>> propertiesByType =
+            new EnumMap<>(Property.PropertyType.class);
+    private final Map<UUID, IndexedBuyer> buyers = new HashMap<>();
+    private final NavigableMap<Double, Set<Buyer>> buyersByBudget = new TreeMap<>();
+
+    public PropertyMatcher(double budgetTolerance) {
+        if (budgetTolerance < 0) throw new IllegalArgumentException("Budget tolerance must not be negative");
+        this.budgetTolerance = budgetTolerance;
+    }
+
+    /** Adds or re-indexes a listing; call again after its price or type changed. */
+    public synchronized void addProperty(Property property) {
+        Objects.requireNonNull(property, "Property must not be null");
+        removeProperty(property.getPropertyId());
+        if (property.getType() == null) {
+            return;
+        }
+        IndexedProperty indexed = new IndexedProperty(property, property.getType(), property.getPrice());
+        properties.put(property.getPropertyId(), indexed);
+        propertiesByType.computeIfAbsent(indexed.type(), t -> new TreeMap<>())
+                .computeIfAbsent(indexed.price(), p -> new LinkedHashSet<>())
+                .add(property);
+    }
+
+    public synchronized boolean removeProperty(UUID propertyId) {
+        IndexedProperty indexed = properties.remove(propertyId);
+        if (indexed == null) {
+            return false;
+        }
+        NavigableMap<Double, Set<Property>> byPrice = propertiesByType.get(indexed.type());
+        Set<Property> bucket = byPrice.get(indexed.price());
+        bucket.remove(indexed.property());
+        if (bucket.isEmpty()) byPrice.remove(indexed.price());
+        return true;
+    }
+
+    /** Adds or re-indexes a buyer; call again after the budget changed. */
+    public synchronized void addBuyer(Buyer buyer) {
+        Objects.requireNonNull(buyer, "Buyer must not be null");
+        removeBuyer(buyer.getUserID());
+        IndexedBuyer indexed = new IndexedBuyer(buyer, buyer.getBudget());
+        buyers.put(buyer.getUserID(), indexed);
+        buyersByBudget.computeIfAbsent(indexed.budget(), b -> new LinkedHashSet<>()).add(buyer);
+    }
+
+    public synchronized boolean removeBuyer(UUID buyerId) {
+        IndexedBuyer indexed = buyers.remove(buyerId);
+        if (indexed == null) {
+            return false;
+        }
+        Set<Buyer> bucket = buyersByBudget.get(indexed.budget());
+        bucket.remove(indexed.buyer());
+        if (bucket.isEmpty()) buyersByBudget.remove(indexed.budget());
+        return true;
+    }
+
+    public synchronized List<Match<Property>> topPropertiesFor(Buyer buyer, int limit) {
+        Objects.requireNonNull(buyer, "Buyer must not be null");
+        requirePositive(limit);
+        Set<Property.PropertyType> types = typesOfInterest(buyer);
+        double ceiling = buyer.getBudget() * (1 + budgetTolerance);
+        int[] locations = locationCodes(buyer);
+        List<Property> candidates = new ArrayList<>();
+        propertiesByType.forEach((type, byPrice) -> {
+            if (types.isEmpty() || types.contains(type)) {
+                byPrice.headMap(ceiling, true).values().forEach(candidates::addAll);
+            }
+        });
+        return top(candidates.stream().filter(Property::isAvailableForSale), candidates.size(),
+                property -> score(buyer, types, locations, property), limit);
+    }
+
+    public synchronized List<Match<Buyer>> topBuyersFor(Property property, int limit) {
+        Objects.requireNonNull(property, "Property must not be null");
+        requirePositive(limit);
+        double floor = property.getPrice() / (1 + budgetTolerance);
+        List<Buyer> candidates = new ArrayList<>();
+        buyersByBudget.tailMap(floor, true).values().forEach(candidates::addAll);
+        return top(candidates.stream(), candidates.size(), buyer -> {
+            Set<Property.PropertyType> types = typesOfInterest(buyer);
+            return types.isEmpty() || types.contains(property.getType())
+                    ? score(buyer, types, locationCodes(buyer), property) : -1;
+        }, limit);
+    }
+
+    private double score(Buyer buyer, Set<Property.PropertyType> types, int[] locations, Property property) {
+        double budget = buyer.getBudget();
+        double price = property.getPrice();
+        double budgetFit;
+        if (budget <= 0) {
+            budgetFit = 0;
+        } else if (price <= budget) {
+            // Listings using most of the budget fit better than much cheaper ones
+            budgetFit = price / budget;
+        } else {
+            double overshoot = (price - budget) / budget;
+            budgetFit = budgetTolerance == 0 ? 0 : Math.max(0, 1 - overshoot / budgetTolerance) * 0.5;
+        }
+        double typeFit = types.isEmpty() ? 0.5 : types.contains(property.getType()) ? 1 : 0;
+        double locationFit = buyer.getPreferredLocations().isEmpty() ? 0.5
+                : property.getLocationCode() != TermDictionary.NONE
+                        && Arrays.binarySearch(locations, property.getLocationCode()) >= 0 ? 1 : 0;
+        return BUDGET_WEIGHT * budgetFit + TYPE_WEIGHT * typeFit + LOCATION_WEIGHT * locationFit;
+    }
+
+    /** The buyer's preferred locations as sorted dictionary codes, so scoring compares ints; no listing has the others. */
+    private static int[] locationCodes(Buyer buyer) {
+        return buyer.getPreferredLocations().stream()
+                .mapToInt(TermDictionary.LOCATIONS::find)
+                .filter(code -> code != TermDictionary.NONE)
+                .sorted()
+                .toArray();
+    }
+
+    private static Set<Property.PropertyType> typesOfInterest(Buyer buyer) {
+        Set<Property.PropertyType> types = new LinkedHashSet<>();
+        for (String name : buyer.getPropertyTypesOfInterest()) {
+            try {
+                types.add(Property.PropertyType.valueOf(name.trim().toUpperCase(Locale.ROOT)));
+            } catch (IllegalArgumentException ignored) {
+                // Unknown types simply never match
+            }
+        }
+        return types;
+    }
+
+    private static <T> List<Match<T>> top(Stream<T> candidates, int candidateCount,
+                                          ToDoubleFunction<T> scorer, int limit) {
+        Stream<T> stream = candidateCount >= PARALLEL_THRESHOLD ? candidates.parallel() : candidates;
+        return stream.map(candidate -> new Match<>(candidate, scorer.applyAsDouble(candidate)))
+                .filter(match -> match.score >= 0)
+                .sorted(Comparator.comparingDouble((Match<T> match) -> match.score).reversed())
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    private static void requirePositive(int limit) {
+        if (limit <= 0) throw new IllegalArgumentException("Limit must be positive");
+    }
+}
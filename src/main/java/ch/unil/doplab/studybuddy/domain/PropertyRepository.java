@@ -0,0 +1,260 @@
+package ch.unil.doplab.studybuddy.domain;
+
+import ch.unil.doplab.studybuddy.storage.StatementCache;
+
+import java.nio.ByteBuffer;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.BiFunction;
+import java.util.stream.Collectors;
+
+/**
+ * Stores listings in the properties table. Features and images, which are
+ * always read together with their listing, share one binary column encoded
+ * with BinaryCodec; every other field has a column of its own, so an update
+ * can write only the fields that changed.
+ *
+ * Listings are paged with a keyset on (price, ID) rather than an offset, so
+ * each page is a single range scan of the price index however deep it is.
+ *
+ * Pages and owner listings are read without the description and details
+ * columns; each listing loads them with one more query the first time they
+ * are used, so a result list that is only summarized never reads them.
+ */
+public class PropertyRepository {
+
+    /** The updatable columns, and the value each one holds for a listing. */
+    enum Column {
+        OWNER("owner_id", (property, codec) -> Jdbc.id(property.getOwnerId())),
+        TITLE("title", (property, codec) -> property.getTitle()),
+        DESCRIPTION("description", (property, codec) -> property.isDetailsLoaded()
+                ? property.getDescription() : Row.UNLOADED),
+        LOCATION("location", (property, codec) -> property.getLocation()),
+        PRICE("price", (property, codec) -> property.getPrice()),
+        SIZE("size_sqm", (property, codec) -> property.getSize()),
+        TYPE("type", (property, codec) -> Jdbc.name(property.getType())),
+        STATUS("status", (property, codec) -> Jdbc.name(property.getStatus())),
+        DETAILS("details", (property, codec) -> property.isDetailsLoaded()
+                ? Jdbc.bytes(codec.encodeDetails(property)) : Row.UNLOADED),
+        UPDATED_AT("updated_at", (property, codec) -> property.getUpdatedAt());
+
+        final String column;
+        private final BiFunction<Property, BinaryCodec, Object> value;
+
+        Column(String column, BiFunction<Property, BinaryCodec, Object> value) {
+            this.column = column;
+            this.value = value;
+        }
+    }
+
+    /** The column values of one listing, indexed by Column ordinal. */
+    record Row(UUID propertyId, Object[] values) {
+
+        /** Value of a detail column while the listing's details are not loaded. */
+        static final Object UNLOADED = new Object();
+
+        /**
+         * Details that are still not loaded cannot have changed. Details loaded
+         * since the clean row was taken count as changed, and are written again.
+         */
+        Set<Column> changedSince(Row clean) {
+            Set<Column> changed = EnumSet.noneOf(Column.class);
+            for (Column column : Column.values()) {
+                Object value = values[column.ordinal()];
+                if (value != UNLOADED && !Objects.deepEquals(value, clean.values[column.ordinal()])) {
+                    changed.add(column);
+                }
+            }
+            return changed;
+        }
+    }
+
+    /** Position of a page: the price and ID of the last listing of the previous page. */
+    public record PriceKey(double price, UUID propertyId) {
+
+        public PriceKey {
+            Objects.requireNonNull(propertyId, "Property ID must not be null");
+        }
+
+        public static PriceKey of(Property property) {
+            return new PriceKey(property.getPrice(), property.getPropertyId());
+        }
+    }
+
+    private static final String COLUMNS = EnumSet.allOf(Column.class).stream()
+            .map(column -> column.column)
+            .collect(Collectors.joining(", "));
+    private static final String SELECT = "SELECT property_id, created_at, " + COLUMNS + " FROM properties";
+    private static final String SELECT_SUMMARY = "SELECT property_id, created_at, "
+            + EnumSet.complementOf(EnumSet.of(Column.DESCRIPTION, Column.DETAILS)).stream()
+            .map(column -> column.column)
+            .collect(Collectors.joining(", ")) + " FROM properties";
+    private static final String INSERT = "INSERT INTO properties (property_id, created_at, " + COLUMNS + ") VALUES (?, ?"
+            + ", ?".repeat(Column.values().length) + ")";
+    private static final String DELETE = "DELETE FROM properties WHERE property_id = ?";
+    private static final String BY_ID = SELECT + " WHERE property_id = ?";
+    private static final String DETAILS_BY_ID = "SELECT description, details FROM properties WHERE property_id = ?";
+    private static final String BY_OWNER = SELECT_SUMMARY + " WHERE owner_id = ? ORDER BY created_at, property_id";
+    private static final String FIRST_PAGE = SELECT_SUMMARY + " ORDER BY price, property_id LIMIT ?";
+    private static final String NEXT_PAGE = SELECT_SUMMARY
+            + " WHERE price > ? OR (price = ? AND property_id > ?) ORDER BY price, property_id LIMIT ?";
+    private static final String COUNT = "SELECT COUNT(*) FROM properties";
+
+    private final StatementCache statements;
+    private final BinaryCodec codec = new BinaryCodec();
+
+    public PropertyRepository(StatementCache statements) {
+        this.statements = Objects.requireNonNull(statements, "Statements must not be null");
+    }
+
+    public int insertAll(Collection<Property> properties) throws SQLException {
+        return Jdbc.<Property>batch(statements, INSERT, properties, (statement, property) -> {
+            property.loadDetails();
+            statement.setString(1, Jdbc.id(property.getPropertyId()));
+            statement.setObject(2, property.getCreatedAt());
+            bind(statement, 3, row(property), EnumSet.allOf(Column.class));
+        });
+    }
+
+    /** Writes every column of the given listings. */
+    public int updateAll(Collection<Property> properties) throws SQLException {
+        List<Row> rows = new ArrayList<>(properties.size());
+        for (Property property : properties) {
+            property.loadDetails();
+            rows.add(row(property));
+        }
+        return update(EnumSet.allOf(Column.class), rows);
+    }
+
+    public int deleteAll(Collection<UUID> propertyIds) throws SQLException {
+        return Jdbc.<UUID>batch(statements, DELETE, propertyIds,
+                (statement, propertyId) -> statement.setString(1, Jdbc.id(propertyId)));
+    }
+
+    public Optional<Property> findById(UUID propertyId) throws SQLException {
+        PreparedStatement statement = statements.prepare(BY_ID);
+        statement.setString(1, Jdbc.id(propertyId));
+        return Jdbc.list(statement, this::map).stream().findFirst();
+    }
+
+    /** Returns the owner's listings, with their details loaded on first use. */
+    public List<Property> findByOwner(UUID ownerId) throws SQLException {
+        PreparedStatement statement = statements.prepare(BY_OWNER);
+        statement.setString(1, Jdbc.id(ownerId));
+        return Jdbc.list(statement, this::mapSummary);
+    }
+
+    /**
+     * Returns up to limit listings by ascending price, starting after the given
+     * key, or from the cheapest when it is null. Their details are loaded on first use.
+     */
+    public List<Property> findPage(PriceKey after, int limit) throws SQLException {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be positive");
+        }
+        PreparedStatement statement;
+        if (after == null) {
+            statement = statements.prepare(FIRST_PAGE);
+            statement.setInt(1, limit);
+        } else {
+            statement = statements.prepare(NEXT_PAGE);
+            statement.setDouble(1, after.price());
+            statement.setDouble(2, after.price());
+            statement.setString(3, Jdbc.id(after.propertyId()));
+            statement.setInt(4, limit);
+        }
+        return Jdbc.list(statement, this::mapSummary);
+    }
+
+    public long count() throws SQLException {
+        try (ResultSet result = statements.prepare(COUNT).executeQuery()) {
+            result.next();
+            return result.getLong(1);
+        }
+    }
+
+    Row row(Property property) {
+        Object[] values = new Object[Column.values().length];
+        for (Column column : Column.values()) {
+            values[column.ordinal()] = column.value.apply(property, codec);
+        }
+        return new Row(property.getPropertyId(), values);
+    }
+
+    /** Writes the given columns of each row, in one batch; the SQL, and so the cached statement, depends on the columns only. */
+    int update(Set<Column> columns, Collection<Row> rows) throws SQLException {
+        if (columns.isEmpty()) {
+            return 0;
+        }
+        String sql = columns.stream()
+                .map(column -> column.column + " = ?")
+                .collect(Collectors.joining(", ", "UPDATE properties SET ", " WHERE property_id = ?"));
+        return Jdbc.batch(statements, sql, rows, (statement, row) -> {
+            int next = bind(statement, 1, row, columns);
+            statement.setString(next, Jdbc.id(row.propertyId()));
+        });
+    }
+
+    private static int bind(PreparedStatement statement, int first, Row row, Set<Column> columns) throws SQLException {
+        int index = first;
+        for (Column column : columns) {
+            statement.setObject(index++, row.values()[column.ordinal()]);
+        }
+        return index;
+    }
+
+    private Property.Details findDetails(UUID propertyId) throws SQLException {
+        PreparedStatement statement = statements.prepare(DETAILS_BY_ID);
+        statement.setString(1, Jdbc.id(propertyId));
+        List<Property.Details> details = Jdbc.list(statement, this::mapDetails);
+        if (details.isEmpty()) {
+            throw new IllegalStateException("Listing no longer stored: " + propertyId);
+        }
+        return details.get(0);
+    }
+
+    private Property.Details mapDetails(ResultSet row) throws SQLException {
+        Map<String, Object> features = new LinkedHashMap<>();
+        List<String> images = new ArrayList<>();
+        byte[] details = row.getBytes("details");
+        if (details != null) {
+            codec.readDetails(ByteBuffer.wrap(details), features, images);
+        }
+        return new Property.Details(row.getString("description"), features, images);
+    }
+
+    private Property mapSummary(ResultSet row) throws SQLException {
+        UUID propertyId = Jdbc.uuid(row, "property_id");
+        return new Property(propertyId, Jdbc.uuid(row, "owner_id"), row.getString("title"),
+                row.getString("location"), row.getDouble("price"), row.getDouble("size_sqm"),
+                Jdbc.enumValue(Property.PropertyType.class, row.getString("type")),
+                Jdbc.enumValue(Property.PropertyStatus.class, row.getString("status")),
+                Jdbc.time(row, "created_at"), Jdbc.time(row, "updated_at"), () -> {
+                    try {
+                        return findDetails(propertyId);
+                    } catch (SQLException e) {
+                        throw new IllegalStateException("Cannot load the details of listing " + propertyId, e);
+                    }
+                });
+    }
+
+    private Property map(ResultSet row) throws SQLException {
+        Property.Details details = mapDetails(row);
+        return new Property(Jdbc.uuid(row, "property_id"), Jdbc.uuid(row, "owner_id"), row.getString("title"),
+                details.description(), row.getString("location"), row.getDouble("price"),
+                row.getDouble("size_sqm"), Jdbc.enumValue(Property.PropertyType.class, row.getString("type")),
+                Jdbc.enumValue(Property.PropertyStatus.class, row.getString("status")), details.features(),
+                details.images(), Jdbc.time(row, "created_at"), Jdbc.time(row, "updated_at"));
+    }
+}
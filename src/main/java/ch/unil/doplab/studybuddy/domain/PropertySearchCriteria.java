@@ -1,6 +1,8 @@
 package ch.unil.doplab.studybuddy.domain;
 
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.Objects;
 import java.util.Set;
@@ -8,23 +10,62 @@ import java.util.function.Predicate;
 
 public class PropertySearchCriteria {
     private final Set<String> locations;
+    // Sorted TermDictionary.LOCATIONS codes, so matching compares ints. Locations
+    // no listing had yet are kept by key; only codes assigned later can match them.
+    private final int[] locationCodes;
+    private final Set<String> unknownLocations;
+    private final int knownCodes;
     private final Double minPrice;
     private final Double maxPrice;
     private final Set<String> propertyTypes;
 
     private PropertySearchCriteria(Builder builder) {
         this.locations = builder.locations.isEmpty() ? Collections.emptySet() : Collections.unmodifiableSet(new LinkedHashSet<>(builder.locations));
+        // Looked up, never encoded, so queries do not grow the dictionary
+        this.knownCodes = TermDictionary.LOCATIONS.size();
+        Set<String> unknown = new HashSet<>();
+        this.locationCodes = locations.stream()
+                .mapToInt(location -> {
+                    int code = TermDictionary.LOCATIONS.find(location);
+                    if (code == TermDictionary.NONE) {
+                        unknown.add(TermDictionary.key(location));
+                    }
+                    return code;
+                })
+                .filter(code -> code != TermDictionary.NONE)
+                .sorted().distinct().toArray();
+        this.unknownLocations = unknown.isEmpty() ? Collections.emptySet() : unknown;
         this.minPrice = builder.minPrice;
         this.maxPrice = builder.maxPrice;
         this.propertyTypes = builder.propertyTypes.isEmpty() ? Collections.emptySet() : Collections.unmodifiableSet(new LinkedHashSet<>(builder.propertyTypes));
     }
 
+    public Set<String> getLocations() { return locations; }
+    public Double getMinPrice() { return minPrice; }
+    public Double getMaxPrice() { return maxPrice; }
+    public Set<String> getPropertyTypes() { return propertyTypes; }
+
+    /** Whether a listing with the given location code satisfies the location constraint. */
+    public boolean acceptsLocation(int locationCode) {
+        if (locations.isEmpty()) {
+            return true;
+        }
+        if (locationCode == TermDictionary.NONE) {
+            return false;
+        }
+        if (Arrays.binarySearch(locationCodes, locationCode) >= 0) {
+            return true;
+        }
+        return !unknownLocations.isEmpty() && locationCode >= knownCodes
+                && unknownLocations.contains(TermDictionary.key(TermDictionary.LOCATIONS.decode(locationCode)));
+    }
+
     public Predicate<Property> toPredicate() {
         return property -> matchesLocation(property) && matchesPrice(property) && matchesType(property);
     }
 
     private boolean matchesLocation(Property property) {
-        return locations.isEmpty() || (property.getLocation() != null && locations.contains(property.getLocation()));
+        return acceptsLocation(property.getLocationCode());
     }
 
     private boolean matchesPrice(Property property) {
@@ -47,7 +88,7 @@ public class PropertySearchCriteria {
 
         public Builder addLocation(String location) {
             if (location != null && !location.isBlank()) {
-                locations.add(location.trim());
+                locations.add(TermDictionary.normalize(location));
             }
             return this;
         }
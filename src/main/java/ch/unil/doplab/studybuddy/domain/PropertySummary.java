@@ -0,0 +1,29 @@
+package ch.unil.doplab.studybuddy.domain;
+
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * The fields a search result or listing page shows. It leaves out the
+ * description, features and images, which only the detail page needs, so
+ * results are cheap to hold, sort and serialize. Summaries are immutable
+ * copies and do not follow later changes to the listing.
+ */
+public record PropertySummary(UUID propertyId, UUID ownerId, String title, String location, double price,
+                              double size, Property.PropertyType type, Property.PropertyStatus status) {
+
+    public PropertySummary {
+        Objects.requireNonNull(propertyId, "Property ID must not be null");
+    }
+
+    /** Copies the summary fields; does not load the listing's details. */
+    public static PropertySummary of(Property property) {
+        return new PropertySummary(property.getPropertyId(), property.getOwnerId(), property.getTitle(),
+                property.getLocation(), property.getPrice(), property.getSize(), property.getType(),
+                property.getStatus());
+    }
+
+    public double computePricePerSquareMeter() {
+        return size > 0 ? price / size : 0.0;
+    }
+}
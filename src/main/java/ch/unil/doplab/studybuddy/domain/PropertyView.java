@@ -0,0 +1,89 @@
+package ch.unil.doplab.studybuddy.domain;
+
+import java.nio.ByteBuffer;
+import java.util.Optional;
+import java.util.UUID;
+
+import static ch.unil.doplab.studybuddy.domain.OffHeapPropertyStore.ID_HIGH;
+import static ch.unil.doplab.studybuddy.domain.OffHeapPropertyStore.ID_LOW;
+import static ch.unil.doplab.studybuddy.domain.OffHeapPropertyStore.LOCATION;
+import static ch.unil.doplab.studybuddy.domain.OffHeapPropertyStore.OWNER_HIGH;
+import static ch.unil.doplab.studybuddy.domain.OffHeapPropertyStore.OWNER_LOW;
+import static ch.unil.doplab.studybuddy.domain.OffHeapPropertyStore.PRICE;
+import static ch.unil.doplab.studybuddy.domain.OffHeapPropertyStore.SIZE;
+import static ch.unil.doplab.studybuddy.domain.OffHeapPropertyStore.STATUS;
+import static ch.unil.doplab.studybuddy.domain.OffHeapPropertyStore.TYPE;
+
+/**
+ * Flyweight over one record of an OffHeapPropertyStore. It reads the
+ * searchable fields straight from the record instead of copying them, and is
+ * repositioned from record to record during a scan, so it is only valid while
+ * the store hands it out. Call load for the full listing.
+ */
+public final class PropertyView {
+
+    private final OffHeapPropertyStore store;
+    private ByteBuffer chunk;
+    private int offset;
+
+    PropertyView(OffHeapPropertyStore store, ByteBuffer chunk, int offset) {
+        this.store = store;
+        this.chunk = chunk;
+        this.offset = offset;
+    }
+
+    void moveTo(ByteBuffer chunk, int offset) {
+        this.chunk = chunk;
+        this.offset = offset;
+    }
+
+    public UUID getPropertyId() {
+        return new UUID(chunk.getLong(offset + ID_HIGH), chunk.getLong(offset + ID_LOW));
+    }
+
+    public UUID getOwnerId() {
+        long high = chunk.getLong(offset + OWNER_HIGH);
+        long low = chunk.getLong(offset + OWNER_LOW);
+        return high == 0 && low == 0 ? null : new UUID(high, low);
+    }
+
+    public double getPrice() {
+        return chunk.getDouble(offset + PRICE);
+    }
+
+    public double getSize() {
+        return chunk.getDouble(offset + SIZE);
+    }
+
+    public String getLocation() {
+        return OffHeapPropertyStore.location(chunk.getInt(offset + LOCATION));
+    }
+
+    public Property.PropertyType getType() {
+        return OffHeapPropertyStore.type(chunk.get(offset + TYPE));
+    }
+
+    public Property.PropertyStatus getStatus() {
+        return OffHeapPropertyStore.status(chunk.get(offset + STATUS));
+    }
+
+    public boolean isAvailableForSale() {
+        return getStatus() == Property.PropertyStatus.FOR_SALE;
+    }
+
+    public double computePricePerSquareMeter() {
+        double size = getSize();
+        return size > 0 ? getPrice() / size : 0;
+    }
+
+    /** Fetches the full listing, with its cold fields, through the store's loader. */
+    public Optional<Property> load() {
+        return store.loadFull(getPropertyId());
+    }
+
+    @Override
+    public String toString() {
+        return "PropertyView{id=" + getPropertyId() + ", price=" + getPrice() + ", location=" + getLocation()
+                + ", type=" + getType() + ", status=" + getStatus() + "}";
+    }
+}
@@ -0,0 +1,60 @@
+package ch.unil.doplab.studybuddy.domain;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Reverse index from a property to the users who saved it, so that watchers
+ * can be notified when a listing changes without scanning every user.
+ * Tracked users keep the index up to date as they save and remove properties.
+ */
+public class SavedPropertyIndex {
+
+    private final Map<UUID, Set<UUID>> watchers = new ConcurrentHashMap<>();
+
+    public void track(User user) {
+        Objects.requireNonNull(user, "User must not be null");
+        user.attachSavedPropertyIndex(this);
+    }
+
+    public void untrack(User user) {
+        Objects.requireNonNull(user, "User must not be null");
+        user.detachSavedPropertyIndex(this);
+    }
+
+    public Set<UUID> getWatchers(UUID propertyId) {
+        Set<UUID> userIds = propertyId == null ? null : watchers.get(propertyId);
+        return userIds == null ? Collections.emptySet() : Collections.unmodifiableSet(userIds);
+    }
+
+    public int countWatchers(UUID propertyId) {
+        return getWatchers(propertyId).size();
+    }
+
+    void add(UUID userId, UUID propertyId) {
+        if (userId != null) {
+            watchers.computeIfAbsent(propertyId, id -> ConcurrentHashMap.newKeySet()).add(userId);
+        }
+    }
+
+    void remove(UUID userId, UUID propertyId) {
+        if (userId != null) {
+            watchers.computeIfPresent(propertyId, (id, userIds) -> {
+                userIds.remove(userId);
+                return userIds.isEmpty() ? null : userIds;
+            });
+        }
+    }
+
+    void addAll(UUID userId, Set<UUID> propertyIds) {
+        propertyIds.forEach(propertyId -> add(userId, propertyId));
+    }
+
+    void removeAll(UUID userId, Set<UUID> propertyIds) {
+        propertyIds.forEach(propertyId -> remove(userId, propertyId));
+    }
+}
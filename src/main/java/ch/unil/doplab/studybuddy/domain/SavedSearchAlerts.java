@@ -0,0 +1,292 @@
+package ch.unil.doplab.studybuddy.domain;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Reverse matcher for standing searches: instead of re-running every saved
+ * search when a listing changes, the listing is matched against an index of
+ * the saved criteria keyed by location, then type, then price bounds.
+ * Alerts are grouped per user and handed to the sink in batches.
+ */
+public class SavedSearchAlerts {
+
+    public enum Reason { NEW_LISTING, PRICE_DROP }
+
+    public static class Alert {
+        private final UUID subscriptionId;
+        private final UUID userId;
+        private final UUID propertyId;
+        private final Reason reason;
+        private final double price;
+
+        private Alert(Subscription subscription, Property property, Reason reason) {
+            this.subscriptionId = subscription.subscriptionId;
+            this.userId = subscription.userId;
+            this.propertyId = property.getPropertyId();
+            this.reason = reason;
+            this.price = property.getPrice();
+        }
+
+        public UUID getSubscriptionId() { return subscriptionId; }
+        public UUID getUserId() { return userId; }
+        public UUID getPropertyId() { return propertyId; }
+        public Reason getReason() { return reason; }
+        public double getPrice() { return price; }
+    }
+
+    private static final class Subscription {
+        private final UUID subscriptionId = UUID.randomUUID();
+        private final UUID userId;
+        private final PropertySearchCriteria criteria;
+
+        private Subscription(UUID userId, PropertySearchCriteria criteria) {
+            this.userId = userId;
+            this.criteria = criteria;
+        }
+    }
+
+    /**
+     * Subscriptions of one location and type by their price bounds, so a price
+     * visits the searches whose range may contain it rather than all of them.
+     * Searches with a single bound are read off one sorted map; those with both
+     * are filed in two and only the shorter of the two candidate ranges is checked.
+     */
+    private static final class PriceIndex {
+        private final Set<Subscription> unbounded = new LinkedHashSet<>();
+        private final NavigableMap<Double, Set<Subscription>> minOnly = new TreeMap<>();
+        private final NavigableMap<Double, Set<Subscription>> maxOnly = new TreeMap<>();
+        private final NavigableMap<Double, Set<Subscription>> byMin = new TreeMap<>();
+        private final NavigableMap<Double, Set<Subscription>> byMax = new TreeMap<>();
+
+        private void add(Subscription subscription) {
+            Double min = subscription.criteria.getMinPrice();
+            Double max = subscription.criteria.getMaxPrice();
+            if (min == null && max == null) {
+                unbounded.add(subscription);
+            } else if (max == null) {
+                file(minOnly, min, subscription);
+            } else if (min == null) {
+                file(maxOnly, max, subscription);
+            } else {
+                file(byMin, min, subscription);
+                file(byMax, max, subscription);
+            }
+        }
+
+        private void remove(Subscription subscription) {
+            Double min = subscription.criteria.getMinPrice();
+            Double max = subscription.criteria.getMaxPrice();
+            if (min == null && max == null) {
+                unbounded.remove(subscription);
+            } else if (max == null) {
+                unfile(minOnly, min, subscription);
+            } else if (min == null) {
+                unfile(maxOnly, max, subscription);
+            } else {
+                unfile(byMin, min, subscription);
+                unfile(byMax, max, subscription);
+            }
+        }
+
+        private boolean isEmpty() {
+            return unbounded.isEmpty() && minOnly.isEmpty() && maxOnly.isEmpty() && byMin.isEmpty();
+        }
+
+        private void collect(double price, Set<Subscription> matches) {
+            matches.addAll(unbounded);
+            minOnly.headMap(price, true).values().forEach(matches::addAll);
+            maxOnly.tailMap(price, true).values().forEach(matches::addAll);
+
+            // A match is in both ranges; step through them together to find the shorter one
+            SortedMap<Double, Set<Subscription>> low = byMin.headMap(price, true);
+            SortedMap<Double, Set<Subscription>> high = byMax.tailMap(price, true);
+            Iterator<Set<Subscription>> lowBuckets = low.values().iterator();
+            Iterator<Set<Subscription>> highBuckets = high.values().iterator();
+            while (lowBuckets.hasNext() && highBuckets.hasNext()) {
+                lowBuckets.next();
+                highBuckets.next();
+            }
+            if (!lowBuckets.hasNext()) {
+                for (Set<Subscription> bucket : low.values()) {
+                    for (Subscription subscription : bucket) {
+                        if (price <= subscription.criteria.getMaxPrice()) matches.add(subscription);
+                    }
+                }
+            } else {
+                for (Set<Subscription> bucket : high.values()) {
+                    for (Subscription subscription : bucket) {
+                        if (price >= subscription.criteria.getMinPrice()) matches.add(subscription);
+                    }
+                }
+            }
+        }
+
+        private static void file(NavigableMap<Double, Set<Subscription>> map, double bound, Subscription subscription) {
+            map.computeIfAbsent(bound, b -> new LinkedHashSet<>()).add(subscription);
+        }
+
+        private static void unfile(NavigableMap<Double, Set<Subscription>> map, double bound, Subscription subscription) {
+            Set<Subscription> bucket = map.get(bound);
+            bucket.remove(subscription);
+            if (bucket.isEmpty()) map.remove(bound);
+        }
+    }
+
+    // Criteria without a location or type constraint are filed under this key
+    private static final String ANY = "";
+
+    // Locations are keyed by TermDictionary.key, so spellings differing in case or spacing meet
+    // without adding the searched places to the dictionary
+    private final Map<String, Map<String, PriceIndex>> index = new HashMap<>();
+    private final Map<UUID, Subscription> subscriptions = new HashMap<>();
+    private final Map<UUID, Map<UUID, Alert>> pending = new LinkedHashMap<>();
+    private final Consumer<Map<UUID, List<Alert>>> sink;
+    private final int batchSize;
+    private int pendingCount;
+
+    public SavedSearchAlerts(Consumer<Map<UUID, List<Alert>>> sink, int batchSize) {
+        if (batchSize <= 0) throw new IllegalArgumentException("Batch size must be positive");
+        this.sink = Objects.requireNonNull(sink, "Sink must not be null");
+        this.batchSize = batchSize;
+    }
+
+    public synchronized UUID subscribe(UUID userId, PropertySearchCriteria criteria) {
+        Objects.requireNonNull(userId, "User ID must not be null");
+        Objects.requireNonNull(criteria, "Criteria must not be null");
+        Subscription subscription = new Subscription(userId, criteria);
+        subscriptions.put(subscription.subscriptionId, subscription);
+        for (String location : locationKeys(criteria)) {
+            for (String type : keys(criteria.getPropertyTypes())) {
+                index.computeIfAbsent(location, l -> new HashMap<>())
+                        .computeIfAbsent(type, t -> new PriceIndex())
+                        .add(subscription);
+            }
+        }
+        return subscription.subscriptionId;
+    }
+
+    public synchronized boolean unsubscribe(UUID subscriptionId) {
+        Subscription subscription = subscriptions.remove(subscriptionId);
+        if (subscription == null) {
+            return false;
+        }
+        PropertySearchCriteria criteria = subscription.criteria;
+        for (String location : locationKeys(criteria)) {
+            Map<String, PriceIndex> byType = index.get(location);
+            for (String type : keys(criteria.getPropertyTypes())) {
+                PriceIndex byPrice = byType.get(type);
+                byPrice.remove(subscription);
+                if (byPrice.isEmpty()) byType.remove(type);
+            }
+            if (byType.isEmpty()) index.remove(location);
+        }
+        return true;
+    }
+
+    public synchronized int getSubscriptionCount() {
+        return subscriptions.size();
+    }
+
+    /** Returns the IDs of the users whose standing searches match the property. */
+    public synchronized Set<UUID> findSubscribers(Property property) {
+        Set<UUID> userIds = new LinkedHashSet<>();
+        matching(property).forEach(subscription -> userIds.add(subscription.userId));
+        return userIds;
+    }
+
+    public void propertyPublished(Property property) {
+        Objects.requireNonNull(property, "Property must not be null");
+        enqueue(property, Reason.NEW_LISTING);
+    }
+
+    public void priceChanged(Property property, double previousPrice) {
+        Objects.requireNonNull(property, "Property must not be null");
+        if (property.getPrice() < previousPrice && property.isAvailableForSale()) {
+            enqueue(property, Reason.PRICE_DROP);
+        }
+    }
+
+    public void flush() {
+        Map<UUID, List<Alert>> batch;
+        synchronized (this) {
+            batch = drain();
+        }
+        if (!batch.isEmpty()) {
+            sink.accept(batch);
+        }
+    }
+
+    private void enqueue(Property property, Reason reason) {
+        Map<UUID, List<Alert>> batch = Collections.emptyMap();
+        synchronized (this) {
+            for (Subscription subscription : matching(property)) {
+                Alert previous = pending.computeIfAbsent(subscription.userId, id -> new LinkedHashMap<>())
+                        .put(property.getPropertyId(), new Alert(subscription, property, reason));
+                if (previous == null) {
+                    pendingCount++;
+                }
+            }
+            if (pendingCount >= batchSize) {
+                batch = drain();
+            }
+        }
+        if (!batch.isEmpty()) {
+            sink.accept(batch);
+        }
+    }
+
+    private Map<UUID, List<Alert>> drain() {
+        Map<UUID, List<Alert>> batch = new LinkedHashMap<>();
+        pending.forEach((userId, alerts) -> batch.put(userId, List.copyOf(alerts.values())));
+        pending.clear();
+        pendingCount = 0;
+        return batch;
+    }
+
+    private List<Subscription> matching(Property property) {
+        Set<Subscription> matches = new LinkedHashSet<>();
+        String type = property.getType() == null ? null : property.getType().toString();
+        for (String location : lookupKeys(TermDictionary.key(property.getLocation()))) {
+            Map<String, PriceIndex> byType = index.get(location);
+            if (byType == null) continue;
+            for (String typeKey : lookupKeys(type)) {
+                PriceIndex byPrice = byType.get(typeKey);
+                if (byPrice != null) {
+                    byPrice.collect(property.getPrice(), matches);
+                }
+            }
+        }
+        return new ArrayList<>(matches);
+    }
+
+    private static Set<String> locationKeys(PropertySearchCriteria criteria) {
+        if (criteria.getLocations().isEmpty()) {
+            return Set.of(ANY);
+        }
+        Set<String> keys = new LinkedHashSet<>();
+        criteria.getLocations().forEach(location -> keys.add(TermDictionary.key(location)));
+        return keys;
+    }
+
+    private static Set<String> keys(Set<String> values) {
+        return values.isEmpty() ? Set.of(ANY) : values;
+    }
+
+    private static List<String> lookupKeys(String value) {
+        return value == null ? List.of(ANY) : List.of(value, ANY);
+    }
+}
@@ -3,6 +3,9 @@ package ch.unil.doplab.studybuddy.domain;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.function.Function;
 
 public class Seller extends User {
     private final List<Property> ownedProperties;
@@ -55,6 +58,18 @@ public class Seller extends User {
         offer.setStatus(accept ? Offer.Status.ACCEPTED : Offer.Status.REJECTED);
     }
 
+    /** Restores the listings and offers of a decoded seller. */
+    void restoreOwnership(List<Property> properties, List<Offer> offers) {
+        ownedProperties.addAll(properties);
+        receivedOffers.addAll(offers);
+    }
+
+    /** Swaps the listings and offers for the instances the lookups return, where they return one. */
+    void relink(Function<UUID, Property> properties, Function<UUID, Offer> offers) {
+        ownedProperties.replaceAll(property -> Objects.requireNonNullElse(properties.apply(property.getPropertyId()), property));
+        receivedOffers.replaceAll(offer -> Objects.requireNonNullElse(offers.apply(offer.getOfferId()), offer));
+    }
+
     @Override
     public String getRole() {
         return "Seller";
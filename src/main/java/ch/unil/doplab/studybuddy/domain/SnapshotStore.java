@@ -0,0 +1,271 @@
+package ch.unil.doplab.studybuddy.domain;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Snapshots of the journaled model, so startup maps one file and replays only
+ * the log records written after it instead of the whole history.
+ *
+ * A snapshot is written to a temporary file, forced to disk and then renamed
+ * atomically, so a crash leaves either the previous snapshot or the new one,
+ * never a partial file under the final name. Snapshots are checked against a
+ * checksum on load, and the two latest are kept so a damaged newest one falls
+ * back to its predecessor; the log is only truncated up to the older of the two.
+ *
+ * Listings are stored in the catalog's (price, ID) order, so the price index
+ * is rebuilt by inserting them in key order. Snapshots are limited to 2 GB,
+ * the size of one mapping.
+ */
+public class SnapshotStore {
+
+    private static final Logger LOGGER = Logger.getLogger(SnapshotStore.class.getName());
+
+    private static final int MAGIC = 0x52454853;
+    private static final byte VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final int RETAINED = 2;
+    private static final String PREFIX = "snapshot-";
+    private static final String SUFFIX = ".snap";
+
+    private static final Comparator<Property> PRICE_ORDER = Comparator.comparingDouble(Property::getPrice)
+            .thenComparing(Property::getPropertyId);
+
+    private final Path directory;
+
+    public SnapshotStore(Path directory) throws IOException {
+        Objects.requireNonNull(directory, "Directory must not be null");
+        this.directory = Files.createDirectories(directory);
+        // Left behind by a crash during a write; the previous snapshot is still intact
+        try (Stream<Path> files = Files.list(this.directory)) {
+            for (Path file : files.filter(file -> file.getFileName().toString().endsWith(".tmp")).toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    /** Loads the latest snapshot and applies the journal records written after it. */
+    public DomainJournal.State recover(DomainJournal journal) throws IOException {
+        return journal.replay(loadLatest().orElseGet(DomainJournal.State::new));
+    }
+
+    /**
+     * Writes a snapshot of the journal's current contents, then drops snapshots
+     * and log segments that are no longer needed. Works from the files rather
+     * than the live objects, so the snapshot is a consistent cut without
+     * pausing writers. Returns the sequence number the snapshot covers.
+     */
+    public long compact(DomainJournal journal) throws IOException {
+        DomainJournal.State state = recover(journal);
+        long sequence = write(state);
+        List<Path> snapshots = snapshots();
+        for (int i = RETAINED; i < snapshots.size(); i++) {
+            Files.deleteIfExists(snapshots.get(i));
+        }
+        if (snapshots.size() >= RETAINED) {
+            journal.deleteBefore(sequenceOf(snapshots.get(RETAINED - 1)) + 1);
+        }
+        return sequence;
+    }
+
+    /** Writes the state as a new snapshot and returns the sequence number it covers. */
+    public long write(DomainJournal.State state) throws IOException {
+        long sequence = state.getLastSequence();
+        Path target = directory.resolve(PREFIX + String.format("%020d", sequence) + SUFFIX);
+        if (Files.exists(target)) {
+            return sequence;
+        }
+        Path temp = Files.createTempFile(directory, PREFIX, ".tmp");
+        try {
+            try (FileChannel out = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                Writer writer = new Writer(out);
+                List<Property> properties = new ArrayList<>(state.getKnownProperties());
+                properties.sort(PRICE_ORDER);
+                BinaryCodec codec = new BinaryCodec();
+                for (Property property : properties) {
+                    writer.put((byte) (state.isLive(property) ? 1 : 0));
+                    writer.put(codec.encode(property));
+                }
+                for (Offer offer : state.getOffers()) {
+                    writer.put(codec.encode(offer));
+                }
+                for (User user : state.getUsers()) {
+                    writer.put(codec.encode(user));
+                }
+                writer.flush();
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE)
+                        .putInt(MAGIC)
+                        .put(VERSION)
+                        .put(new byte[3])
+                        .putLong(sequence)
+                        .putInt(properties.size())
+                        .putInt(state.getOffers().size())
+                        .putInt(state.getUsers().size())
+                        .putInt((int) writer.checksum.getValue())
+                        .putLong(writer.written);
+                header.clear();
+                while (header.hasRemaining()) {
+                    out.write(header, header.position());
+                }
+                out.force(true);
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+            syncDirectory();
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        return sequence;
+    }
+
+    /** Maps the newest snapshot that passes its checksum. */
+    public Optional<DomainJournal.State> loadLatest() throws IOException {
+        for (Path snapshot : snapshots()) {
+            try {
+                return Optional.of(load(snapshot));
+            } catch (IOException | IllegalArgumentException e) {
+                LOGGER.log(Level.WARNING, "Skipping unreadable snapshot " + snapshot, e);
+            }
+        }
+        return Optional.empty();
+    }
+
+    private DomainJournal.State load(Path snapshot) throws IOException {
+        try (FileChannel in = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+            if (in.size() > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot exceeds 2 GB: " + snapshot);
+            }
+            MappedByteBuffer file = in.map(FileChannel.MapMode.READ_ONLY, 0, in.size());
+            if (file.remaining() < HEADER_SIZE || file.getInt() != MAGIC) {
+                throw new IOException("Not a snapshot: " + snapshot);
+            }
+            byte version = file.get();
+            if (version != VERSION) {
+                throw new IOException("Unsupported snapshot version " + version + ": " + snapshot);
+            }
+            file.position(file.position() + 3);
+            long sequence = file.getLong();
+            int propertyCount = file.getInt();
+            int offerCount = file.getInt();
+            int userCount = file.getInt();
+            int expected = file.getInt();
+            long length = file.getLong();
+            if (HEADER_SIZE + length != in.size()) {
+                throw new IOException("Truncated snapshot: " + snapshot);
+            }
+            ByteBuffer body = file.slice(HEADER_SIZE, (int) length);
+            CRC32C checksum = new CRC32C();
+            checksum.update(body.duplicate());
+            if ((int) checksum.getValue() != expected) {
+                throw new IOException("Checksum mismatch: " + snapshot);
+            }
+
+            DomainJournal.State state = new DomainJournal.State();
+            BinaryCodec codec = new BinaryCodec();
+            for (int i = 0; i < propertyCount; i++) {
+                boolean live = body.get() != 0;
+                Property property = codec.readProperty(body);
+                if (live) {
+                    state.put(property);
+                } else {
+                    state.putRemoved(property);
+                }
+            }
+            for (int i = 0; i < offerCount; i++) {
+                state.put(codec.readOffer(body));
+            }
+            for (int i = 0; i < userCount; i++) {
+                state.put(codec.readUser(body, state::findProperty, state::findOffer));
+            }
+            state.setLastSequence(sequence);
+            return state;
+        }
+    }
+
+    /** Snapshot files, newest first. */
+    private List<Path> snapshots() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> {
+                        String name = file.getFileName().toString();
+                        return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+                    })
+                    .sorted(Comparator.reverseOrder())
+                    .toList();
+        }
+    }
+
+    private static long sequenceOf(Path snapshot) {
+        String name = snapshot.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+
+    /** Makes the rename itself durable; not every platform can open a directory for this. */
+    private void syncDirectory() {
+        try (FileChannel dir = FileChannel.open(directory, StandardOpenOption.READ)) {
+            dir.force(true);
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Cannot sync directory " + directory, e);
+        }
+    }
+
+    /** Buffered, checksummed writer for the snapshot body, which starts after the header. */
+    private static final class Writer {
+
+        private final FileChannel out;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        private final CRC32C checksum = new CRC32C();
+        private long written;
+
+        Writer(FileChannel out) throws IOException {
+            this.out = out;
+            out.position(HEADER_SIZE);
+        }
+
+        void put(byte value) throws IOException {
+            if (!buffer.hasRemaining()) {
+                flush();
+            }
+            buffer.put(value);
+        }
+
+        void put(ByteBuffer record) throws IOException {
+            if (buffer.remaining() < record.remaining()) {
+                flush();
+            }
+            if (record.remaining() > buffer.capacity()) {
+                checksum.update(record.duplicate());
+                written += record.remaining();
+                while (record.hasRemaining()) {
+                    out.write(record);
+                }
+            } else {
+                buffer.put(record);
+            }
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            checksum.update(buffer.duplicate());
+            written += buffer.remaining();
+            while (buffer.hasRemaining()) {
+                out.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+}
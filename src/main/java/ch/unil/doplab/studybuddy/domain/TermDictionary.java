@@ -0,0 +1,131 @@
+package ch.unil.doplab.studybuddy.domain;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Maps the terms of a small, heavily repeated vocabulary, such as place
+ * names or feature keys, to dense int codes. Terms are normalized first:
+ * surrounding whitespace is dropped, inner runs of whitespace become one
+ * space and case is ignored, so " lausanne" and "Lausanne" share a code and
+ * hot paths can compare codes instead of strings.
+ *
+ * intern returns one shared instance per spelling, with whitespace
+ * normalized but case kept, so a term is held once in memory however many
+ * listings and users refer to it. decode returns the first spelling seen
+ * for a code.
+ *
+ * Codes are assigned in order from 0 and never reused, so the dictionary only
+ * grows; it is meant for vocabularies of thousands of terms, not free text.
+ * Only owned data, such as listings, should be encoded or interned; queries
+ * look their terms up with find and normalize, which never add anything.
+ * Lookups are lock-free; adding a term takes a lock.
+ */
+public final class TermDictionary {
+
+    /** Code of a null or blank term. */
+    public static final int NONE = -1;
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    /** Place names of listings, buyer preferences and search criteria. */
+    public static final TermDictionary LOCATIONS = new TermDictionary();
+
+    /** Keys of listing features. */
+    public static final TermDictionary FEATURE_KEYS = new TermDictionary("bedrooms", "bathrooms");
+
+    private final Map<String, Integer> codes = new ConcurrentHashMap<>();
+    private final Map<String, String> spellings = new ConcurrentHashMap<>();
+    private volatile String[] terms = new String[64];
+    private int size;
+
+    public TermDictionary(String... seeds) {
+        for (String seed : seeds) {
+            encode(seed);
+        }
+    }
+
+    /** Returns the term's code, assigning the next one if the term is new. */
+    public int encode(String term) {
+        String key = key(term);
+        if (key == null) {
+            return NONE;
+        }
+        Integer code = codes.get(key);
+        return code != null ? code : add(key, display(term));
+    }
+
+    /** Returns the term's code, or NONE if it was never encoded. */
+    public int find(String term) {
+        String key = key(term);
+        if (key == null) {
+            return NONE;
+        }
+        return codes.getOrDefault(key, NONE);
+    }
+
+    /** Returns the first spelling seen for a code, or null for NONE. */
+    public String decode(int code) {
+        if (code == NONE) {
+            return null;
+        }
+        String[] current = terms;
+        if (code < 0 || code >= current.length || current[code] == null) {
+            throw new IllegalArgumentException("Unknown term code: " + code);
+        }
+        return current[code];
+    }
+
+    /** Returns the shared instance of the term's spelling, with whitespace normalized; does not assign a code. */
+    public String intern(String term) {
+        String display = display(term);
+        if (display == null) {
+            return null;
+        }
+        String shared = spellings.putIfAbsent(display, display);
+        return shared != null ? shared : display;
+    }
+
+    public int size() {
+        return codes.size();
+    }
+
+    /** The term with whitespace normalized, as intern would return it, but not shared; null for a null or blank term. */
+    public static String normalize(String term) {
+        return display(term);
+    }
+
+    /** Normalized lookup key: trimmed, single-spaced and lower case; null for a null or blank term. */
+    public static String key(String term) {
+        String display = display(term);
+        return display == null ? null : display.toLowerCase(Locale.ROOT);
+    }
+
+    private synchronized int add(String key, String display) {
+        Integer existing = codes.get(key);
+        if (existing != null) {
+            return existing;
+        }
+        int code = size;
+        String[] current = terms;
+        if (code == current.length) {
+            current = Arrays.copyOf(current, code * 2);
+        }
+        current[code] = display;
+        // Publish the term before the code, so a reader that finds the code can decode it
+        terms = current;
+        size++;
+        codes.put(key, code);
+        return code;
+    }
+
+    private static String display(String term) {
+        if (term == null || term.isBlank()) {
+            return null;
+        }
+        return WHITESPACE.matcher(term.strip()).replaceAll(" ");
+    }
+}
@@ -0,0 +1,178 @@
+package ch.unil.doplab.studybuddy.domain;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Collects the changes of a business operation and writes them in one
+ * transaction, with one JDBC batch per statement instead of a round trip per
+ * object: creating a hundred listings is a single batched INSERT.
+ *
+ * Tracked listings remember the column values they had when they were
+ * tracked or last committed. On commit only the columns that differ are
+ * written, and listings whose changes touch the same columns share a batch.
+ * Offers and messages can only change their status and read flag, which are
+ * tracked the same way. Users are few and small, so a user registered as
+ * dirty is written whole.
+ *
+ * Everything written by a successful commit becomes tracked. After a failed
+ * commit the transaction is rolled back and the pending changes are kept, so
+ * the commit can be retried. Not thread-safe.
+ */
+public class UnitOfWork {
+
+    private record TrackedProperty(Property property, PropertyRepository.Row clean) {
+    }
+
+    private record TrackedOffer(Offer offer, Offer.Status clean) {
+    }
+
+    private record TrackedMessage(Message message, boolean clean) {
+    }
+
+    private final Connection connection;
+    private final PropertyRepository properties;
+    private final OfferRepository offers;
+    private final MessageRepository messages;
+    private final UserRepository users;
+
+    private final Map<UUID, Property> newProperties = new LinkedHashMap<>();
+    private final Map<UUID, Offer> newOffers = new LinkedHashMap<>();
+    private final Map<UUID, Message> newMessages = new LinkedHashMap<>();
+    private final Map<UUID, User> newUsers = new LinkedHashMap<>();
+    private final Map<UUID, User> dirtyUsers = new LinkedHashMap<>();
+    private final Set<UUID> removedProperties = new LinkedHashSet<>();
+    private final Map<UUID, TrackedProperty> trackedProperties = new HashMap<>();
+    private final Map<UUID, TrackedOffer> trackedOffers = new HashMap<>();
+    private final Map<UUID, TrackedMessage> trackedMessages = new HashMap<>();
+
+    UnitOfWork(Connection connection, PropertyRepository properties, OfferRepository offers,
+               MessageRepository messages, UserRepository users) {
+        this.connection = Objects.requireNonNull(connection, "Connection must not be null");
+        this.properties = properties;
+        this.offers = offers;
+        this.messages = messages;
+        this.users = users;
+    }
+
+    public void registerNew(Property property) {
+        newProperties.put(property.getPropertyId(), property);
+        removedProperties.remove(property.getPropertyId());
+    }
+
+    public void registerNew(Offer offer) {
+        newOffers.put(offer.getOfferId(), offer);
+    }
+
+    public void registerNew(User user) {
+        newUsers.put(user.getUserID(), user);
+    }
+
+    /** Registers a message returned by User.sendMessage, together with the recipient's copy. */
+    public void registerSent(Message message) {
+        if (message.getDirection() != Message.MessageDirection.SENT) {
+            throw new IllegalArgumentException("Only sent messages are registered");
+        }
+        Message received = message.receivedCopy();
+        newMessages.put(message.getMessageId(), message);
+        newMessages.put(received.getMessageId(), received);
+    }
+
+    /** Writes the user whole on the next commit. */
+    public void registerDirty(User user) {
+        if (!newUsers.containsKey(user.getUserID())) {
+            dirtyUsers.put(user.getUserID(), user);
+        }
+    }
+
+    public void registerRemoved(Property property) {
+        UUID propertyId = property.getPropertyId();
+        trackedProperties.remove(propertyId);
+        if (newProperties.remove(propertyId) == null) {
+            removedProperties.add(propertyId);
+        }
+    }
+
+    /** Starts tracking a listing loaded from the store; it is written on commit if it changed by then. */
+    public void track(Property property) {
+        trackedProperties.put(property.getPropertyId(), new TrackedProperty(property, properties.row(property)));
+    }
+
+    public void track(Offer offer) {
+        trackedOffers.put(offer.getOfferId(), new TrackedOffer(offer, offer.getStatus()));
+    }
+
+    public void track(Message message) {
+        trackedMessages.put(message.getMessageId(), new TrackedMessage(message, message.isRead()));
+    }
+
+    /** Writes every pending change in one transaction and returns the number of rows written. */
+    public int commit() throws SQLException {
+        Map<Set<PropertyRepository.Column>, List<PropertyRepository.Row>> propertyUpdates = new LinkedHashMap<>();
+        Map<UUID, PropertyRepository.Row> currentRows = new HashMap<>();
+        for (TrackedProperty tracked : trackedProperties.values()) {
+            PropertyRepository.Row row = properties.row(tracked.property());
+            Set<PropertyRepository.Column> changed = row.changedSince(tracked.clean());
+            if (!changed.isEmpty()) {
+                propertyUpdates.computeIfAbsent(changed, columns -> new ArrayList<>()).add(row);
+                currentRows.put(row.propertyId(), row);
+            }
+        }
+        List<Offer> offerUpdates = trackedOffers.values().stream()
+                .filter(tracked -> tracked.offer().getStatus() != tracked.clean())
+                .map(TrackedOffer::offer)
+                .toList();
+        List<Message> messageUpdates = trackedMessages.values().stream()
+                .filter(tracked -> tracked.message().isRead() != tracked.clean())
+                .map(TrackedMessage::message)
+                .toList();
+
+        boolean autoCommit = connection.getAutoCommit();
+        int rows = 0;
+        connection.setAutoCommit(false);
+        try {
+            // Parents first, so the order also suits a schema with foreign keys
+            rows += users.insertAll(newUsers.values());
+            rows += properties.insertAll(newProperties.values());
+            rows += offers.insertAll(newOffers.values());
+            rows += messages.insertAll(newMessages.values());
+            for (Map.Entry<Set<PropertyRepository.Column>, List<PropertyRepository.Row>> update : propertyUpdates.entrySet()) {
+                rows += properties.update(update.getKey(), update.getValue());
+            }
+            rows += offers.updateStatuses(offerUpdates);
+            rows += messages.updateReadFlags(messageUpdates);
+            rows += users.updateAll(dirtyUsers.values());
+            rows += properties.deleteAll(removedProperties);
+            connection.commit();
+        } catch (SQLException | RuntimeException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+
+        currentRows.forEach((propertyId, row) -> trackedProperties.computeIfPresent(propertyId,
+                (id, tracked) -> new TrackedProperty(tracked.property(), row)));
+        newProperties.values().forEach(this::track);
+        newOffers.values().forEach(this::track);
+        offerUpdates.forEach(this::track);
+        newMessages.values().forEach(this::track);
+        messageUpdates.forEach(this::track);
+        newProperties.clear();
+        newOffers.clear();
+        newMessages.clear();
+        newUsers.clear();
+        dirtyUsers.clear();
+        removedProperties.clear();
+        return rows;
+    }
+}
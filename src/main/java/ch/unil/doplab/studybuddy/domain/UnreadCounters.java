@@ -0,0 +1,149 @@
+package ch.unil.doplab.studybuddy.domain;
+
+import java.util.BitSet;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Read state and unread counters of a single mailbox, maintained as messages are
+ * delivered and read. Messages are identified by their position in the mailbox,
+ * so the messages themselves hold no per-mailbox state and can be shared.
+ * Threads are keyed by the counterpart (sender) of the received messages.
+ * Bulk operations advance a read watermark instead of touching every message.
+ */
+final class UnreadCounters {
+
+    private static final class ThreadCounter {
+        private final LongAdder unread = new LongAdder();
+        private volatile int readWatermark;
+    }
+
+    private final LongAdder total = new LongAdder();
+    private final Map<UUID, ThreadCounter> threads = new ConcurrentHashMap<>();
+    /** Positions read one by one, or delivered already read; guarded by itself. */
+    private final BitSet read = new BitSet();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile int size;
+    private volatile int readWatermark;
+
+    /** Records the message delivered at the given position, the next one of the mailbox. */
+    void track(int position, Message message, boolean alreadyRead) {
+        lock.readLock().lock();
+        try {
+            if (alreadyRead) {
+                synchronized (read) {
+                    read.set(position);
+                }
+            } else if (message.getDirection() == Message.MessageDirection.RECEIVED) {
+                add(message.getSenderId(), 1);
+            }
+            size = position + 1;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    boolean isRead(int position, Message message) {
+        if (isCovered(position, message.getSenderId())) {
+            return true;
+        }
+        synchronized (read) {
+            return read.get(position);
+        }
+    }
+
+    void markRead(int position, Message message) {
+        lock.readLock().lock();
+        try {
+            if (isCovered(position, message.getSenderId())) {
+                return;
+            }
+            synchronized (read) {
+                if (read.get(position)) {
+                    return;
+                }
+                read.set(position);
+            }
+            if (message.getDirection() == Message.MessageDirection.RECEIVED) {
+                add(message.getSenderId(), -1);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private boolean isCovered(int position, UUID counterpartId) {
+        if (position < readWatermark) {
+            return true;
+        }
+        ThreadCounter thread = counterpartId == null ? null : threads.get(counterpartId);
+        return thread != null && position < thread.readWatermark;
+    }
+
+    long unreadCount() {
+        return Math.max(0, total.sum());
+    }
+
+    long unreadCount(UUID counterpartId) {
+        ThreadCounter thread = counterpartId == null ? null : threads.get(counterpartId);
+        return thread == null ? 0 : Math.max(0, thread.unread.sum());
+    }
+
+    void markAllRead() {
+        lock.writeLock().lock();
+        try {
+            readWatermark = size;
+            total.reset();
+            threads.values().forEach(thread -> thread.unread.reset());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void markThreadRead(UUID counterpartId) {
+        lock.writeLock().lock();
+        try {
+            ThreadCounter thread = threads.get(counterpartId);
+            if (thread != null) {
+                thread.readWatermark = size;
+                total.add(-thread.unread.sumThenReset());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** A copy that shares nothing with these counters: a bit per message and a counter per thread. */
+    UnreadCounters copy() {
+        lock.writeLock().lock();
+        try {
+            UnreadCounters copy = new UnreadCounters();
+            copy.total.add(total.sum());
+            threads.forEach((counterpartId, thread) -> {
+                ThreadCounter copied = new ThreadCounter();
+                copied.unread.add(thread.unread.sum());
+                copied.readWatermark = thread.readWatermark;
+                copy.threads.put(counterpartId, copied);
+            });
+            synchronized (read) {
+                copy.read.or(read);
+            }
+            copy.size = size;
+            copy.readWatermark = readWatermark;
+            return copy;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void add(UUID counterpartId, long delta) {
+        total.add(delta);
+        if (counterpartId != null) {
+            threads.computeIfAbsent(counterpartId, id -> new ThreadCounter()).unread.add(delta);
+        }
+    }
+}
@@ -1,11 +1,14 @@
 package ch.unil.doplab.studybuddy.domain;
 
-import java.util.ArrayList;
+import ch.unil.doplab.studybuddy.security.CredentialService;
+
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
@@ -21,9 +24,13 @@ public abstract class User {
     private String email;
     
     // Real Estate Specific Data
-    private final List<String> preferredLocations;
-    private final List<String> savedProperties; // List of property IDs
-    private final List<Message> messages;
+    // Copy-on-write, so replaceWith and mergeWith can share them with the source user
+    private CopyOnWrite<Set<String>> preferredLocations;
+    private CopyOnWrite<UuidSet> savedProperties;
+    // Shares its messages, index and counters copy-on-write with the mailbox it replaced or merged
+    private final Mailbox mailbox;
+    private SavedPropertyIndex savedPropertyIndex;
+    private volatile long credentialVersion;
 
     public User() {
         this(null, null, null, null, null);
@@ -40,33 +47,34 @@ public abstract class User {
         this.email = email;
         this.username = username;
         this.password = password;
-        this.preferredLocations = new ArrayList<>();
-        this.savedProperties = new ArrayList<>();
-    this.messages = new ArrayList<>();
+        this.preferredLocations = new CopyOnWrite<>(new LinkedHashSet<>(), LinkedHashSet::new);
+        this.savedProperties = new CopyOnWrite<>(new UuidSet(), UuidSet::new);
+        this.mailbox = new Mailbox();
     }
 
     public void replaceWith(User user) {
         if (user == null) {
             throw new IllegalArgumentException("User must not be null");
         }
+        unindexSavedProperties();
         this.userID = user.userID;
         this.firstName = user.firstName;
         this.lastName = user.lastName;
         this.email = user.email;
         this.username = user.username;
         this.password = user.password;
-        this.preferredLocations.clear();
-        this.preferredLocations.addAll(user.preferredLocations);
-        this.savedProperties.clear();
-        this.savedProperties.addAll(user.savedProperties);
-    this.messages.clear();
-    user.messages.forEach(message -> this.messages.add(new Message(message)));
+        this.credentialVersion++;
+        this.preferredLocations = replace(this.preferredLocations, user.preferredLocations);
+        this.savedProperties = replace(this.savedProperties, user.savedProperties);
+        indexSavedProperties();
+        this.mailbox.replaceWith(user.mailbox);
     }
 
     public void mergeWith(User user) {
         if (user == null) {
             throw new IllegalArgumentException("User must not be null");
         }
+        unindexSavedProperties();
         if (user.userID != null) {
             this.userID = user.userID;
         }
@@ -84,16 +92,12 @@ public abstract class User {
         }
         if (user.password != null) {
             this.password = user.password;
+            this.credentialVersion++;
         }
-        if (!user.preferredLocations.isEmpty()) {
-            this.preferredLocations.addAll(user.preferredLocations);
-        }
-        if (!user.savedProperties.isEmpty()) {
-            this.savedProperties.addAll(user.savedProperties);
-        }
-        if (!user.messages.isEmpty()) {
-            user.messages.forEach(message -> this.messages.add(new Message(message)));
-        }
+        this.preferredLocations = merge(this.preferredLocations, user.preferredLocations);
+        this.savedProperties = merge(this.savedProperties, user.savedProperties);
+        indexSavedProperties();
+        this.mailbox.mergeWith(user.mailbox);
         // identity documents and preferences removed in simplified model
     }
 
@@ -102,7 +106,9 @@ public abstract class User {
     }
 
     public void setUserID(UUID userID) {
+        unindexSavedProperties();
         this.userID = userID;
+        indexSavedProperties();
     }
 
     public String getFirstName() {
@@ -139,6 +145,12 @@ public abstract class User {
 
     public void setPassword(String password) {
         this.password = password;
+        this.credentialVersion++;
+    }
+
+    /** Changes every time the password is replaced, so sessions issued before can be revoked. */
+    public long getCredentialVersion() {
+        return credentialVersion;
     }
 
     public String getEmail() {
@@ -149,40 +161,111 @@ public abstract class User {
         this.email = email;
     }
 
-    public List<String> getPreferredLocations() {
-        return Collections.unmodifiableList(preferredLocations);
+    private static <T> CopyOnWrite<T> replace(CopyOnWrite<T> current, CopyOnWrite<T> replacement) {
+        if (current == replacement) {
+            return current;
+        }
+        current.release();
+        return replacement.share();
+    }
+
+    private static <E, S extends Set<E>> CopyOnWrite<S> merge(CopyOnWrite<S> current, CopyOnWrite<S> other) {
+        if (other.read().isEmpty() || current == other) {
+            return current;
+        }
+        if (current.read().isEmpty()) {
+            return replace(current, other);
+        }
+        CopyOnWrite<S> target = current.forWrite();
+        target.read().addAll(other.read());
+        return target;
+    }
+
+    private Set<String> preferredLocationsForWrite() {
+        preferredLocations = preferredLocations.forWrite();
+        return preferredLocations.read();
+    }
+
+    private UuidSet savedPropertiesForWrite() {
+        savedProperties = savedProperties.forWrite();
+        return savedProperties.read();
+    }
+
+    public Set<String> getPreferredLocations() {
+        return Collections.unmodifiableSet(preferredLocations.read());
     }
 
     public boolean addPreferredLocation(String location) {
         if (location == null || location.isBlank()) {
             throw new IllegalArgumentException("Location must not be blank");
         }
-        return preferredLocations.add(location.trim());
+        return preferredLocationsForWrite().add(TermDictionary.LOCATIONS.intern(location));
     }
 
     public boolean removePreferredLocation(String location) {
         if (location == null || location.isBlank()) {
             return false;
         }
-        return preferredLocations.remove(location.trim());
+        String normalized = TermDictionary.normalize(location);
+        if (!preferredLocations.read().contains(normalized)) {
+            return false;
+        }
+        return preferredLocationsForWrite().remove(normalized);
+    }
+
+    public Set<UUID> getSavedProperties() {
+        return Collections.unmodifiableSet(savedProperties.read());
     }
 
-    public List<String> getSavedProperties() {
-        return Collections.unmodifiableList(savedProperties);
+    public boolean hasSavedProperty(UUID propertyId) {
+        return propertyId != null && savedProperties.read().contains(propertyId);
     }
 
-    public boolean saveProperty(String propertyId) {
-        if (propertyId == null || propertyId.isBlank()) {
-            throw new IllegalArgumentException("Property ID must not be blank");
+    public boolean saveProperty(UUID propertyId) {
+        if (propertyId == null) {
+            throw new IllegalArgumentException("Property ID must not be null");
         }
-        return savedProperties.add(propertyId.trim());
+        boolean added = savedPropertiesForWrite().add(propertyId);
+        if (added && savedPropertyIndex != null) {
+            savedPropertyIndex.add(userID, propertyId);
+        }
+        return added;
     }
 
-    public boolean removeSavedProperty(String propertyId) {
-        if (propertyId == null || propertyId.isBlank()) {
+    public boolean removeSavedProperty(UUID propertyId) {
+        if (propertyId == null) {
             return false;
         }
-        return savedProperties.remove(propertyId.trim());
+        boolean removed = hasSavedProperty(propertyId) && savedPropertiesForWrite().remove(propertyId);
+        if (removed && savedPropertyIndex != null) {
+            savedPropertyIndex.remove(userID, propertyId);
+        }
+        return removed;
+    }
+
+    void attachSavedPropertyIndex(SavedPropertyIndex index) {
+        unindexSavedProperties();
+        this.savedPropertyIndex = index;
+        indexSavedProperties();
+    }
+
+    void detachSavedPropertyIndex(SavedPropertyIndex index) {
+        if (this.savedPropertyIndex == index) {
+            unindexSavedProperties();
+            this.savedPropertyIndex = null;
+        }
+    }
+
+    private void indexSavedProperties() {
+        if (savedPropertyIndex != null) {
+            savedPropertyIndex.addAll(userID, savedProperties.read());
+        }
+    }
+
+    private void unindexSavedProperties() {
+        if (savedPropertyIndex != null) {
+            savedPropertyIndex.removeAll(userID, savedProperties.read());
+        }
     }
 
     public List<Property> searchProperties(Collection<Property> availableProperties, PropertySearchCriteria criteria) {
@@ -208,22 +291,69 @@ public abstract class User {
     public Message sendMessage(User recipient, String subject, String content) {
         Objects.requireNonNull(recipient, "Recipient must not be null");
         Message outbound = Message.outbound(this.userID, recipient.userID, subject, content);
-        this.messages.add(outbound);
-        recipient.receiveMessage(Message.inbound(this.userID, recipient.userID, subject, content));
+        addMessage(outbound);
+        recipient.receiveMessage(outbound.receivedCopy());
         return outbound;
     }
 
     private void receiveMessage(Message message) {
-        this.messages.add(message);
+        addMessage(message);
+    }
+
+    private void addMessage(Message message) {
+        mailbox.add(message);
+    }
+
+    /** Adds a decoded message as is; duplicates are ignored. */
+    void restoreMessage(Message message) {
+        addMessage(message);
+    }
+
+    /** Replays a send recorded in the journal on both mailboxes. */
+    void restoreSent(Message outbound, User recipient) {
+        addMessage(outbound);
+        if (recipient != null) {
+            recipient.receiveMessage(outbound.receivedCopy());
+        }
+    }
+
+    public List<Message> searchMessages(String query, int page, int pageSize) {
+        return mailbox.searchPage(query, page, pageSize);
+    }
+
+    /** Up to count search results starting at the given rank, for callers that page by offset. */
+    public List<Message> searchMessageRange(String query, int offset, int count) {
+        return mailbox.searchRange(query, offset, count);
+    }
+
+    public long getUnreadCount() {
+        return mailbox.unreadCounters().unreadCount();
+    }
+
+    public long getUnreadCount(UUID counterpartId) {
+        return mailbox.unreadCounters().unreadCount(counterpartId);
+    }
+
+    public void markAllMessagesAsRead() {
+        mailbox.markAllRead();
+    }
+
+    public void markThreadAsRead(UUID counterpartId) {
+        Objects.requireNonNull(counterpartId, "Counterpart must not be null");
+        mailbox.markThreadRead(counterpartId);
     }
 
     public List<Message> getMessages() {
-        return Collections.unmodifiableList(messages);
+        return mailbox.messages();
+    }
+
+    Mailbox mailbox() {
+        return mailbox;
     }
 
     public List<Message> getMessages(Message.MessageDirection direction) {
         Objects.requireNonNull(direction, "Direction must not be null");
-        List<Message> filtered = messages.stream()
+        List<Message> filtered = mailbox.messages().stream()
                 .filter(message -> message.getDirection() == direction)
                 .map(Message::new)
                 .collect(Collectors.toList());
@@ -242,14 +372,20 @@ public abstract class User {
         }
     }
 
+    /**
+     * Checks the current password against the stored hash or legacy plaintext
+     * and stores a BCrypt hash of the new one. Hashing runs in the calling
+     * thread; CredentialService.changePassword does the same on its pool.
+     */
     public void changePassword(String currentPassword, String newPassword) {
-        if (!Objects.equals(this.password, currentPassword)) {
+        if (!CredentialService.matches(currentPassword, this.password)) {
             throw new IllegalArgumentException("Current password does not match");
         }
         if (newPassword == null || newPassword.isBlank()) {
             throw new IllegalArgumentException("New password must not be blank");
         }
-        this.password = newPassword;
+        this.password = CredentialService.hashLike(newPassword, this.password);
+        this.credentialVersion++;
     }
 
     public String describe() {
@@ -258,8 +394,8 @@ public abstract class User {
                 ", lastName='" + this.lastName + "'" +
                 ", username='" + this.username + "'" +
                 ", email='" + this.email + "'" +
-                ", preferredLocations=" + preferredLocations +
-        ", savedProperties=" + savedProperties;
+                ", preferredLocations=" + preferredLocations.read() +
+        ", savedProperties=" + savedProperties.read();
     }
 
     @Override
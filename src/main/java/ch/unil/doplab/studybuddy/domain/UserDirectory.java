@@ -0,0 +1,168 @@
+package ch.unil.doplab.studybuddy.domain;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Registry of all users with hash indexes on the user ID and on the lower-cased
+ * username and email. Lookups are lock-free; registrations and identity changes
+ * are serialized so uniqueness is checked and reserved atomically. Usernames and
+ * emails of registered users must be changed through the directory to keep the
+ * indexes in sync.
+ */
+public class UserDirectory {
+
+    private final Map<UUID, User> byId = new ConcurrentHashMap<>();
+    private final Map<String, User> byUsername = new ConcurrentHashMap<>();
+    private final Map<String, User> byEmail = new ConcurrentHashMap<>();
+    private final Map<UUID, Buyer> buyers = new ConcurrentHashMap<>();
+    private final Map<UUID, Seller> sellers = new ConcurrentHashMap<>();
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    public void register(User user) {
+        Objects.requireNonNull(user, "User must not be null");
+        String username = key(user.getUsername(), "Username");
+        String email = key(user.getEmail(), "Email");
+        writeLock.lock();
+        try {
+            if (byId.containsKey(user.getUserID())) {
+                throw new IllegalArgumentException("User is already registered");
+            }
+            if (byUsername.containsKey(username)) {
+                throw new IllegalArgumentException("Username is already taken");
+            }
+            if (byEmail.containsKey(email)) {
+                throw new IllegalArgumentException("Email is already registered");
+            }
+            byId.put(user.getUserID(), user);
+            byUsername.put(username, user);
+            byEmail.put(email, user);
+            if (user instanceof Buyer buyer) {
+                buyers.put(buyer.getUserID(), buyer);
+            } else if (user instanceof Seller seller) {
+                sellers.put(seller.getUserID(), seller);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public boolean remove(UUID userId) {
+        writeLock.lock();
+        try {
+            User user = byId.remove(userId);
+            if (user == null) {
+                return false;
+            }
+            byUsername.remove(key(user.getUsername(), "Username"));
+            byEmail.remove(key(user.getEmail(), "Email"));
+            buyers.remove(userId);
+            sellers.remove(userId);
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public Optional<User> findById(UUID userId) {
+        return userId == null ? Optional.empty() : Optional.ofNullable(byId.get(userId));
+    }
+
+    public Optional<User> findByUsername(String username) {
+        return username == null || username.isBlank() ? Optional.empty() : Optional.ofNullable(byUsername.get(normalize(username)));
+    }
+
+    public Optional<User> findByEmail(String email) {
+        return email == null || email.isBlank() ? Optional.empty() : Optional.ofNullable(byEmail.get(normalize(email)));
+    }
+
+    public boolean isUsernameTaken(String username) {
+        return findByUsername(username).isPresent();
+    }
+
+    public boolean isEmailRegistered(String email) {
+        return findByEmail(email).isPresent();
+    }
+
+    /** Applies User.updateProfile, rejecting an email already used by another user. */
+    public void updateProfile(UUID userId, String firstName, String lastName, String email) {
+        writeLock.lock();
+        try {
+            User user = require(userId);
+            String previous = key(user.getEmail(), "Email");
+            if (email != null && !email.isBlank()) {
+                User owner = byEmail.get(normalize(email));
+                if (owner != null && owner != user) {
+                    throw new IllegalArgumentException("Email is already registered");
+                }
+            }
+            user.updateProfile(firstName, lastName, email);
+            String current = key(user.getEmail(), "Email");
+            if (!current.equals(previous)) {
+                byEmail.remove(previous);
+                byEmail.put(current, user);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public void changeUsername(UUID userId, String username) {
+        String wanted = key(username, "Username");
+        writeLock.lock();
+        try {
+            User user = require(userId);
+            User owner = byUsername.get(wanted);
+            if (owner != null && owner != user) {
+                throw new IllegalArgumentException("Username is already taken");
+            }
+            byUsername.remove(key(user.getUsername(), "Username"));
+            user.setUsername(username.trim());
+            byUsername.put(wanted, user);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public Collection<User> getUsers() {
+        return Collections.unmodifiableCollection(byId.values());
+    }
+
+    public Collection<Buyer> getBuyers() {
+        return Collections.unmodifiableCollection(buyers.values());
+    }
+
+    public Collection<Seller> getSellers() {
+        return Collections.unmodifiableCollection(sellers.values());
+    }
+
+    public int size() {
+        return byId.size();
+    }
+
+    private User require(UUID userId) {
+        User user = userId == null ? null : byId.get(userId);
+        if (user == null) {
+            throw new IllegalArgumentException("Unknown user: " + userId);
+        }
+        return user;
+    }
+
+    private static String key(String value, String field) {
+        if (value == null || value.isBlank()) {
+            throw new IllegalArgumentException(field + " must not be blank");
+        }
+        return normalize(value);
+    }
+
+    private static String normalize(String value) {
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,134 @@
+package ch.unil.doplab.studybuddy.domain;
+
+import ch.unil.doplab.studybuddy.storage.StatementCache;
+
+import java.nio.ByteBuffer;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Stores users in the users table. Preferred locations, saved listings and a
+ * buyer's interests and documents share one binary column encoded with
+ * BinaryCodec. A user is loaded whole: the mailbox comes from the messages
+ * table, and a seller's listings and answered offers from their own tables,
+ * so none of them is stored twice.
+ */
+public class UserRepository {
+
+    private static final String BUYER = "Buyer";
+    private static final String SELLER = "Seller";
+
+    private static final String COLUMNS = "user_id, role, username, password, first_name, last_name, email, budget, "
+            + "profile";
+    private static final String INSERT = "INSERT INTO users (" + COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String UPDATE = "UPDATE users SET role = ?, username = ?, password = ?, first_name = ?, "
+            + "last_name = ?, email = ?, budget = ?, profile = ? WHERE user_id = ?";
+    private static final String DELETE = "DELETE FROM users WHERE user_id = ?";
+    private static final String SELECT = "SELECT " + COLUMNS + " FROM users";
+    private static final String BY_ID = SELECT + " WHERE user_id = ?";
+    private static final String BY_USERNAME = SELECT + " WHERE username = ?";
+
+    private final StatementCache statements;
+    private final PropertyRepository properties;
+    private final OfferRepository offers;
+    private final MessageRepository messages;
+    private final BinaryCodec codec = new BinaryCodec();
+
+    public UserRepository(StatementCache statements) {
+        this(statements, new PropertyRepository(statements), new OfferRepository(statements),
+                new MessageRepository(statements));
+    }
+
+    UserRepository(StatementCache statements, PropertyRepository properties, OfferRepository offers,
+                   MessageRepository messages) {
+        this.statements = Objects.requireNonNull(statements, "Statements must not be null");
+        this.properties = properties;
+        this.offers = offers;
+        this.messages = messages;
+    }
+
+    /** Stores the users' own fields; their messages, listings and offers are stored through their repositories. */
+    public int insertAll(Collection<? extends User> users) throws SQLException {
+        return Jdbc.<User>batch(statements, INSERT, users, (statement, user) -> {
+            statement.setString(1, Jdbc.id(user.getUserID()));
+            bind(statement, 2, user);
+        });
+    }
+
+    public int updateAll(Collection<? extends User> users) throws SQLException {
+        return Jdbc.<User>batch(statements, UPDATE, users, (statement, user) -> {
+            int next = bind(statement, 1, user);
+            statement.setString(next, Jdbc.id(user.getUserID()));
+        });
+    }
+
+    public int deleteAll(Collection<UUID> userIds) throws SQLException {
+        return Jdbc.<UUID>batch(statements, DELETE, userIds,
+                (statement, userId) -> statement.setString(1, Jdbc.id(userId)));
+    }
+
+    public Optional<User> findById(UUID userId) throws SQLException {
+        return find(BY_ID, Jdbc.id(userId));
+    }
+
+    public Optional<User> findByUsername(String username) throws SQLException {
+        return find(BY_USERNAME, username);
+    }
+
+    private Optional<User> find(String sql, String key) throws SQLException {
+        PreparedStatement statement = statements.prepare(sql);
+        statement.setString(1, key);
+        List<User> found = Jdbc.list(statement, this::map);
+        if (found.isEmpty()) {
+            return Optional.empty();
+        }
+        User user = found.get(0);
+        messages.findMailbox(user.getUserID()).forEach(user::restoreMessage);
+        if (user instanceof Seller seller) {
+            seller.restoreOwnership(properties.findByOwner(seller.getUserID()),
+                    offers.findReceived(seller.getUserID()));
+        }
+        return Optional.of(user);
+    }
+
+    private int bind(PreparedStatement statement, int first, User user) throws SQLException {
+        if (!(user instanceof Buyer) && !(user instanceof Seller)) {
+            throw new IllegalArgumentException("Unsupported user type: " + user.getClass().getName());
+        }
+        statement.setString(first, user.getRole());
+        statement.setString(first + 1, user.getUsername());
+        statement.setString(first + 2, user.getPassword());
+        statement.setString(first + 3, user.getFirstName());
+        statement.setString(first + 4, user.getLastName());
+        statement.setString(first + 5, user.getEmail());
+        statement.setDouble(first + 6, user instanceof Buyer buyer ? buyer.getBudget() : 0);
+        statement.setBytes(first + 7, Jdbc.bytes(codec.encodeProfile(user)));
+        return first + 8;
+    }
+
+    private User map(ResultSet row) throws SQLException {
+        String role = row.getString("role");
+        User user;
+        if (BUYER.equals(role)) {
+            user = new Buyer(row.getString("first_name"), row.getString("last_name"), row.getString("email"),
+                    row.getString("username"), row.getString("password"), row.getDouble("budget"));
+        } else if (SELLER.equals(role)) {
+            user = new Seller(row.getString("first_name"), row.getString("last_name"), row.getString("email"),
+                    row.getString("username"), row.getString("password"));
+        } else {
+            throw new IllegalArgumentException("Unknown user role: " + role);
+        }
+        user.setUserID(Jdbc.uuid(row, "user_id"));
+        byte[] profile = row.getBytes("profile");
+        if (profile != null) {
+            codec.readProfile(ByteBuffer.wrap(profile), user);
+        }
+        return user;
+    }
+}
@@ -0,0 +1,179 @@
+package ch.unil.doplab.studybuddy.domain;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+
+/**
+ * Set of UUIDs in insertion order, kept as two parallel long arrays with an
+ * open-addressing index of their positions. A user's saved properties then
+ * take 16 bytes per ID plus a few bytes of index, instead of a hash node, a
+ * linked entry and a UUID object each.
+ *
+ * Adding and lookups are O(1); removing shifts the later IDs and rebuilds the
+ * index, which is O(n) but rare next to reads. The iterator hands out new
+ * UUID instances. Not thread-safe; User shares it copy-on-write.
+ */
+final class UuidSet extends AbstractSet<UUID> {
+
+    private static final int INITIAL_CAPACITY = 4;
+
+    private long[] mostBits;
+    private long[] leastBits;
+    private int size;
+    // Position + 1 of the ID hashed to each slot, 0 for an empty slot; at most half full
+    private int[] slots;
+    private int modifications;
+
+    UuidSet() {
+        this.mostBits = new long[INITIAL_CAPACITY];
+        this.leastBits = new long[INITIAL_CAPACITY];
+        this.slots = new int[INITIAL_CAPACITY * 2];
+    }
+
+    /** A copy that shares nothing with the other set. */
+    UuidSet(UuidSet other) {
+        this.mostBits = other.mostBits.clone();
+        this.leastBits = other.leastBits.clone();
+        this.size = other.size;
+        this.slots = other.slots.clone();
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof UUID id && position(id.getMostSignificantBits(), id.getLeastSignificantBits()) >= 0;
+    }
+
+    @Override
+    public boolean add(UUID id) {
+        long most = id.getMostSignificantBits();
+        long least = id.getLeastSignificantBits();
+        if (position(most, least) >= 0) {
+            return false;
+        }
+        if (size == mostBits.length) {
+            mostBits = Arrays.copyOf(mostBits, size * 2);
+            leastBits = Arrays.copyOf(leastBits, size * 2);
+            slots = new int[size * 4];
+            reindex();
+        }
+        mostBits[size] = most;
+        leastBits[size] = least;
+        size++;
+        slots[freeSlot(most, least)] = size;
+        modifications++;
+        return true;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if (!(o instanceof UUID id)) {
+            return false;
+        }
+        int position = position(id.getMostSignificantBits(), id.getLeastSignificantBits());
+        if (position < 0) {
+            return false;
+        }
+        removeAt(position);
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        size = 0;
+        Arrays.fill(slots, 0);
+        modifications++;
+    }
+
+    @Override
+    public Iterator<UUID> iterator() {
+        return new Iterator<>() {
+            private int next;
+            private int last = -1;
+            private int expectedModifications = modifications;
+
+            @Override
+            public boolean hasNext() {
+                return next < size;
+            }
+
+            @Override
+            public UUID next() {
+                if (expectedModifications != modifications) {
+                    throw new ConcurrentModificationException();
+                }
+                if (next >= size) {
+                    throw new NoSuchElementException();
+                }
+                last = next++;
+                return new UUID(mostBits[last], leastBits[last]);
+            }
+
+            @Override
+            public void remove() {
+                if (last < 0) {
+                    throw new IllegalStateException();
+                }
+                if (expectedModifications != modifications) {
+                    throw new ConcurrentModificationException();
+                }
+                removeAt(last);
+                next = last;
+                last = -1;
+                expectedModifications = modifications;
+            }
+        };
+    }
+
+    private void removeAt(int position) {
+        int moved = size - position - 1;
+        System.arraycopy(mostBits, position + 1, mostBits, position, moved);
+        System.arraycopy(leastBits, position + 1, leastBits, position, moved);
+        size--;
+        Arrays.fill(slots, 0);
+        reindex();
+        modifications++;
+    }
+
+    private void reindex() {
+        for (int position = 0; position < size; position++) {
+            slots[freeSlot(mostBits[position], leastBits[position])] = position + 1;
+        }
+    }
+
+    /** The position of the ID, or -1. */
+    private int position(long most, long least) {
+        int mask = slots.length - 1;
+        for (int slot = hash(most, least) & mask; slots[slot] != 0; slot = (slot + 1) & mask) {
+            int position = slots[slot] - 1;
+            if (mostBits[position] == most && leastBits[position] == least) {
+                return position;
+            }
+        }
+        return -1;
+    }
+
+    private int freeSlot(long most, long least) {
+        int mask = slots.length - 1;
+        int slot = hash(most, least) & mask;
+        while (slots[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static int hash(long most, long least) {
+        long bits = most ^ least;
+        int hash = (int) (bits ^ (bits >>> 32));
+        // Spread the high bits down, since the index only looks at the low ones
+        return hash ^ (hash >>> 16);
+    }
+}
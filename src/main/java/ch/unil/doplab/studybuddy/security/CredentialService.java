@@ -0,0 +1,202 @@
+package ch.unil.doplab.studybuddy.security;
+
+import ch.unil.doplab.studybuddy.domain.User;
+import org.mindrot.jbcrypt.BCrypt;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Hashes and verifies passwords with BCrypt on a dedicated, bounded pool so that
+ * request threads only wait on a future. When the pool and its queue are full,
+ * new work fails fast with a RejectedExecutionException instead of piling up.
+ * Hashes made with an outdated cost, and legacy plaintext passwords, are
+ * upgraded on the next successful login.
+ */
+public class CredentialService implements AutoCloseable {
+
+    public static final int MIN_COST = 4;
+    // jbcrypt rejects log rounds above 30
+    public static final int MAX_COST = 30;
+    /** Cost of hashes made outside the service, for credentials that were plaintext. */
+    public static final int DEFAULT_COST = 10;
+
+    /** Latency of one kind of operation, measured on the hashing threads. */
+    public static class LatencyStats {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        private void record(long nanos) {
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+        }
+
+        public long getCount() { return count.sum(); }
+        public long getMaxNanos() { return maxNanos.get(); }
+
+        public double getMeanNanos() {
+            long n = count.sum();
+            return n == 0 ? 0 : (double) totalNanos.sum() / n;
+        }
+    }
+
+    private final ThreadPoolExecutor executor;
+    private final LatencyStats hashLatency = new LatencyStats();
+    private final LatencyStats verifyLatency = new LatencyStats();
+    private volatile int cost;
+
+    public CredentialService(int cost, int threads, int queueCapacity) {
+        if (threads <= 0) throw new IllegalArgumentException("Threads must be positive");
+        if (queueCapacity <= 0) throw new IllegalArgumentException("Queue capacity must be positive");
+        setCost(cost);
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), daemonThreads(), new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    public int getCost() {
+        return cost;
+    }
+
+    public void setCost(int cost) {
+        if (cost < MIN_COST || cost > MAX_COST) {
+            throw new IllegalArgumentException("Cost must be between " + MIN_COST + " and " + MAX_COST);
+        }
+        this.cost = cost;
+    }
+
+    public CompletableFuture<String> hash(String password) {
+        requirePassword(password);
+        return submit(() -> hashNow(password));
+    }
+
+    public CompletableFuture<Boolean> verify(String password, String storedHash) {
+        return submit(() -> verifyNow(password, storedHash));
+    }
+
+    /**
+     * Checks the password of the user, rehashing the stored credential when it
+     * is plaintext or was hashed with another cost.
+     */
+    public CompletableFuture<Boolean> login(User user, String password) {
+        Objects.requireNonNull(user, "User must not be null");
+        return submit(() -> {
+            String stored = user.getPassword();
+            if (!verifyNow(password, stored)) {
+                return false;
+            }
+            if (needsRehash(stored)) {
+                user.setPassword(hashNow(password));
+            }
+            return true;
+        });
+    }
+
+    /** Replaces the user's credential with a hash of the new password once the current one is verified. */
+    public CompletableFuture<Void> changePassword(User user, String currentPassword, String newPassword) {
+        Objects.requireNonNull(user, "User must not be null");
+        requirePassword(newPassword);
+        return submit(() -> {
+            if (!verifyNow(currentPassword, user.getPassword())) {
+                throw new IllegalArgumentException("Current password does not match");
+            }
+            user.setPassword(hashNow(newPassword));
+            return null;
+        });
+    }
+
+    public boolean needsRehash(String storedHash) {
+        return !isHash(storedHash) || costOf(storedHash) != cost;
+    }
+
+    public LatencyStats getHashLatency() { return hashLatency; }
+    public LatencyStats getVerifyLatency() { return verifyLatency; }
+    public int getQueuedTasks() { return executor.getQueue().size(); }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    private String hashNow(String password) {
+        long start = System.nanoTime();
+        try {
+            return BCrypt.hashpw(password, BCrypt.gensalt(cost));
+        } finally {
+            hashLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    private boolean verifyNow(String password, String storedHash) {
+        if (password == null || storedHash == null) {
+            return false;
+        }
+        long start = System.nanoTime();
+        try {
+            return matches(password, storedHash);
+        } finally {
+            verifyLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Checks a password against a stored credential in the calling thread. The
+     * credential is a BCrypt hash or a legacy plaintext password, which is
+     * compared in constant time.
+     */
+    public static boolean matches(String password, String storedHash) {
+        if (password == null || storedHash == null) {
+            return false;
+        }
+        if (!isHash(storedHash)) {
+            return MessageDigest.isEqual(password.getBytes(StandardCharsets.UTF_8),
+                    storedHash.getBytes(StandardCharsets.UTF_8));
+        }
+        return BCrypt.checkpw(password, storedHash);
+    }
+
+    /** Hashes a password in the calling thread with the cost of the stored hash, or DEFAULT_COST for plaintext. */
+    public static String hashLike(String password, String storedHash) {
+        requirePassword(password);
+        return BCrypt.hashpw(password, BCrypt.gensalt(isHash(storedHash) ? costOf(storedHash) : DEFAULT_COST));
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> task) {
+        return CompletableFuture.supplyAsync(task, executor);
+    }
+
+    static boolean isHash(String value) {
+        return value != null && value.length() == 60 && value.startsWith("$2")
+                && value.charAt(3) == '$' && value.charAt(6) == '$';
+    }
+
+    private static int costOf(String hash) {
+        return Integer.parseInt(hash.substring(4, 6));
+    }
+
+    private static void requirePassword(String password) {
+        if (password == null || password.isBlank()) {
+            throw new IllegalArgumentException("Password must not be blank");
+        }
+    }
+
+    private static ThreadFactory daemonThreads() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "credential-hasher-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
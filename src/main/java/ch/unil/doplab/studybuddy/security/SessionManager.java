@@ -0,0 +1,218 @@
+package ch.unil.doplab.studybuddy.security;
+
+import ch.unil.doplab.studybuddy.domain.User;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Issues HMAC-signed session tokens once a password has been checked, so later
+ * requests are authenticated without touching BCrypt. Sessions live in a
+ * bounded, expiring in-memory cache; when it is full the least recently used
+ * session is dropped. A session stops validating as soon as the user's
+ * credentials change (changePassword, setPassword, replaceWith, mergeWith).
+ *
+ * Tokens are signed with Macs taken from a small pool rather than one per
+ * thread, since requests may run on virtual threads that never sign twice.
+ */
+public class SessionManager {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int SESSION_ID_BYTES = 16;
+    private static final int PAYLOAD_BYTES = SESSION_ID_BYTES + Long.BYTES;
+    private static final int POOLED_MACS = Runtime.getRuntime().availableProcessors() * 2;
+
+    private static final class Session {
+        private final User user;
+        private final long credentialVersion;
+        private final long expiresAt;
+
+        private Session(User user, long expiresAt) {
+            this.user = user;
+            this.credentialVersion = user.getCredentialVersion();
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private final SecretKeySpec key;
+    private final BlockingQueue<Mac> macs = new ArrayBlockingQueue<>(POOLED_MACS);
+    private final SecureRandom random = new SecureRandom();
+    private final Duration timeToLive;
+    private final Clock clock;
+    private final Map<String, Session> sessions;
+
+    public SessionManager(byte[] secret, Duration timeToLive, int maxSessions) {
+        this(secret, timeToLive, maxSessions, Clock.systemUTC());
+    }
+
+    public SessionManager(byte[] secret, Duration timeToLive, int maxSessions, Clock clock) {
+        if (secret == null || secret.length < 32) throw new IllegalArgumentException("Secret must have at least 32 bytes");
+        if (timeToLive == null || timeToLive.isNegative() || timeToLive.isZero()) {
+            throw new IllegalArgumentException("Time to live must be positive");
+        }
+        if (maxSessions <= 0) throw new IllegalArgumentException("Max sessions must be positive");
+        this.key = new SecretKeySpec(secret.clone(), ALGORITHM);
+        this.timeToLive = timeToLive;
+        this.clock = Objects.requireNonNull(clock, "Clock must not be null");
+        this.sessions = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Session> eldest) {
+                return size() > maxSessions;
+            }
+        };
+    }
+
+    /** Checks the password with the credential service and issues a token when it matches. */
+    public CompletableFuture<Optional<String>> login(CredentialService credentials, User user, String password) {
+        Objects.requireNonNull(credentials, "Credential service must not be null");
+        return credentials.login(user, password)
+                .thenApply(valid -> valid ? Optional.of(issue(user)) : Optional.empty());
+    }
+
+    /** Issues a token for a user whose credentials have just been verified. */
+    public String issue(User user) {
+        Objects.requireNonNull(user, "User must not be null");
+        byte[] sessionId = new byte[SESSION_ID_BYTES];
+        random.nextBytes(sessionId);
+        long expiresAt = clock.millis() + timeToLive.toMillis();
+        byte[] payload = ByteBuffer.allocate(PAYLOAD_BYTES).put(sessionId).putLong(expiresAt).array();
+        synchronized (sessions) {
+            sessions.put(encode(sessionId), new Session(user, expiresAt));
+        }
+        return encode(payload) + "." + encode(sign(payload));
+    }
+
+    public Optional<User> validate(String token) {
+        byte[] payload = verifiedPayload(token);
+        if (payload == null) {
+            return Optional.empty();
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(payload);
+        byte[] sessionId = new byte[SESSION_ID_BYTES];
+        buffer.get(sessionId);
+        long now = clock.millis();
+        if (buffer.getLong() <= now) {
+            revoke(token);
+            return Optional.empty();
+        }
+        String id = encode(sessionId);
+        synchronized (sessions) {
+            Session session = sessions.get(id);
+            if (session == null) {
+                return Optional.empty();
+            }
+            if (session.expiresAt <= now || session.credentialVersion != session.user.getCredentialVersion()) {
+                sessions.remove(id);
+                return Optional.empty();
+            }
+            return Optional.of(session.user);
+        }
+    }
+
+    public boolean revoke(String token) {
+        byte[] payload = verifiedPayload(token);
+        if (payload == null) {
+            return false;
+        }
+        byte[] sessionId = new byte[SESSION_ID_BYTES];
+        System.arraycopy(payload, 0, sessionId, 0, SESSION_ID_BYTES);
+        synchronized (sessions) {
+            return sessions.remove(encode(sessionId)) != null;
+        }
+    }
+
+    public int revokeAll(UUID userId) {
+        int revoked = 0;
+        synchronized (sessions) {
+            for (Iterator<Session> it = sessions.values().iterator(); it.hasNext(); ) {
+                if (Objects.equals(it.next().user.getUserID(), userId)) {
+                    it.remove();
+                    revoked++;
+                }
+            }
+        }
+        return revoked;
+    }
+
+    /** Drops expired sessions; validation also drops them lazily. */
+    public int purgeExpired() {
+        long now = clock.millis();
+        int purged = 0;
+        synchronized (sessions) {
+            for (Iterator<Session> it = sessions.values().iterator(); it.hasNext(); ) {
+                if (it.next().expiresAt <= now) {
+                    it.remove();
+                    purged++;
+                }
+            }
+        }
+        return purged;
+    }
+
+    public int getActiveSessions() {
+        synchronized (sessions) {
+            return sessions.size();
+        }
+    }
+
+    private byte[] verifiedPayload(String token) {
+        if (token == null) {
+            return null;
+        }
+        int dot = token.indexOf('.');
+        if (dot < 0) {
+            return null;
+        }
+        try {
+            byte[] payload = Base64.getUrlDecoder().decode(token.substring(0, dot));
+            byte[] signature = Base64.getUrlDecoder().decode(token.substring(dot + 1));
+            if (payload.length != PAYLOAD_BYTES || !MessageDigest.isEqual(sign(payload), signature)) {
+                return null;
+            }
+            return payload;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private byte[] sign(byte[] payload) {
+        Mac mac = macs.poll();
+        if (mac == null) {
+            mac = newMac();
+        }
+        // doFinal resets the Mac, so it can go back to the pool; a full pool drops it
+        byte[] signature = mac.doFinal(payload);
+        macs.offer(mac);
+        return signature;
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(ALGORITHM + " is not available", e);
+        }
+    }
+
+    private static String encode(byte[] bytes) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+}
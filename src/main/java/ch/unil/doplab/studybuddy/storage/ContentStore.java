@@ -0,0 +1,126 @@
+package ch.unil.doplab.studybuddy.storage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Objects;
+import java.util.regex.Pattern;
+
+/**
+ * Content-addressed file store on the local filesystem. Content is keyed by its
+ * SHA-256 hash, so identical uploads are stored once. Uploads and downloads are
+ * streamed through NIO channels and never held on the heap as a whole.
+ */
+public class ContentStore {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final Pattern HASH = Pattern.compile("[0-9a-f]{64}");
+
+    private final Path objects;
+    private final Path incoming;
+
+    public ContentStore(Path root) throws IOException {
+        Objects.requireNonNull(root, "Root must not be null");
+        this.objects = Files.createDirectories(root.resolve("objects"));
+        this.incoming = Files.createDirectories(root.resolve("incoming"));
+    }
+
+    /** Streams the content into the store and returns its hash. */
+    public String store(ReadableByteChannel source) throws IOException {
+        Objects.requireNonNull(source, "Source must not be null");
+        MessageDigest digest = sha256();
+        Path temp = Files.createTempFile(incoming, "upload-", ".tmp");
+        try {
+            try (FileChannel out = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+                while (source.read(buffer) >= 0) {
+                    buffer.flip();
+                    digest.update(buffer.duplicate());
+                    while (buffer.hasRemaining()) {
+                        out.write(buffer);
+                    }
+                    buffer.clear();
+                }
+                out.force(true);
+            }
+            String hash = HexFormat.of().formatHex(digest.digest());
+            Path target = pathOf(hash);
+            if (!Files.exists(target)) {
+                Files.createDirectories(target.getParent());
+                try {
+                    Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+                } catch (FileAlreadyExistsException e) {
+                    // Stored concurrently by another upload of the same content
+                }
+            }
+            return hash;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    public String store(Path file) throws IOException {
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            return store(in);
+        }
+    }
+
+    public boolean contains(String hash) {
+        return Files.isRegularFile(pathOf(hash));
+    }
+
+    public long size(String hash) throws IOException {
+        return Files.size(pathOf(hash));
+    }
+
+    /** Opens the content for streaming reads; the caller closes the channel. */
+    public FileChannel open(String hash) throws IOException {
+        return FileChannel.open(pathOf(hash), StandardOpenOption.READ);
+    }
+
+    /** Copies the content to the target, letting the OS transfer it without user-space copies where possible. */
+    public long copyTo(String hash, WritableByteChannel target) throws IOException {
+        return transfer(pathOf(hash), target);
+    }
+
+    public boolean delete(String hash) throws IOException {
+        return Files.deleteIfExists(pathOf(hash));
+    }
+
+    static long transfer(Path file, WritableByteChannel target) throws IOException {
+        Objects.requireNonNull(target, "Target must not be null");
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = in.size();
+            long position = 0;
+            while (position < size) {
+                position += in.transferTo(position, size - position, target);
+            }
+            return size;
+        }
+    }
+
+    Path pathOf(String hash) {
+        if (hash == null || !HASH.matcher(hash).matches()) {
+            throw new IllegalArgumentException("Invalid content hash: " + hash);
+        }
+        return objects.resolve(hash.substring(0, 2)).resolve(hash);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
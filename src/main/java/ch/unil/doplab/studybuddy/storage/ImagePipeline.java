@@ -0,0 +1,261 @@
+package ch.unil.doplab.studybuddy.storage;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Stores listing photos and their thumbnails. Originals go to a ContentStore;
+ * thumbnails are cached under the original's hash, one JPEG per Size, so an
+ * image uploaded twice is decoded and scaled once.
+ *
+ * Decoding and scaling run on a dedicated, bounded pool: an image is decoded
+ * once and its sizes are then scaled in parallel. When the pool and its queue
+ * are full, new work fails fast with a RejectedExecutionException. Images over
+ * MAX_PIXELS are rejected from their header, before any pixel is decoded.
+ */
+public class ImagePipeline implements AutoCloseable {
+
+    /** Thumbnail sizes, by the length of the longer edge in pixels. */
+    public enum Size {
+        SMALL(160),
+        MEDIUM(480),
+        LARGE(1200);
+
+        private final int maxEdge;
+
+        Size(int maxEdge) {
+            this.maxEdge = maxEdge;
+        }
+
+        public int getMaxEdge() {
+            return maxEdge;
+        }
+    }
+
+    public static final long MAX_PIXELS = 50_000_000L;
+    public static final String THUMBNAIL_TYPE = "image/jpeg";
+
+    private final ContentStore originals;
+    private final Path thumbnails;
+    private final ThreadPoolExecutor executor;
+
+    public ImagePipeline(ContentStore originals, Path thumbnails, int threads, int queueCapacity) throws IOException {
+        if (threads <= 0) throw new IllegalArgumentException("Threads must be positive");
+        if (queueCapacity <= 0) throw new IllegalArgumentException("Queue capacity must be positive");
+        this.originals = Objects.requireNonNull(originals, "Originals must not be null");
+        this.thumbnails = Files.createDirectories(Objects.requireNonNull(thumbnails, "Thumbnails must not be null"));
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), daemonThreads(), new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Streams the image into the store and returns its hash once every
+     * thumbnail is cached. Fails with an IllegalArgumentException, and does not
+     * keep the upload, when it is not a readable image.
+     */
+    public CompletableFuture<String> ingest(ReadableByteChannel source) throws IOException {
+        String hash = originals.store(source);
+        return generate(hash).thenApply(done -> hash);
+    }
+
+    public CompletableFuture<String> ingest(Path file) throws IOException {
+        String hash = originals.store(file);
+        return generate(hash).thenApply(done -> hash);
+    }
+
+    /** Completes once every thumbnail of a stored image is cached, generating the missing ones. */
+    public CompletableFuture<Void> generate(String hash) {
+        List<Size> missing = new ArrayList<>();
+        for (Size size : Size.values()) {
+            if (!Files.isRegularFile(thumbnailPath(hash, size))) {
+                missing.add(size);
+            }
+        }
+        if (missing.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return CompletableFuture.supplyAsync(() -> decode(hash), executor)
+                .thenCompose(image -> CompletableFuture.allOf(missing.stream()
+                        .map(size -> CompletableFuture.runAsync(() -> writeThumbnail(hash, size, image), executor))
+                        .toArray(CompletableFuture[]::new)));
+    }
+
+    public boolean contains(String hash) {
+        return originals.contains(hash);
+    }
+
+    public boolean containsThumbnail(String hash, Size size) {
+        return Files.isRegularFile(thumbnailPath(hash, size));
+    }
+
+    public long size(String hash) throws IOException {
+        return originals.size(hash);
+    }
+
+    public long thumbnailSize(String hash, Size size) throws IOException {
+        return Files.size(thumbnailPath(hash, size));
+    }
+
+    /** The media type of a stored image, read from its header. */
+    public String mediaType(String hash) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(originals.pathOf(hash).toFile())) {
+            Iterator<ImageReader> readers = in == null ? null : ImageIO.getImageReaders(in);
+            if (readers == null || !readers.hasNext()) {
+                throw new IllegalArgumentException("Not a supported image: " + hash);
+            }
+            String[] types = readers.next().getOriginatingProvider().getMIMETypes();
+            return types != null && types.length > 0 ? types[0] : "application/octet-stream";
+        }
+    }
+
+    /** Copies the original to the target, letting the OS transfer it without user-space copies where possible. */
+    public long copyTo(String hash, WritableByteChannel target) throws IOException {
+        return originals.copyTo(hash, target);
+    }
+
+    /** Copies a cached thumbnail to the target, the same way as copyTo. */
+    public long copyThumbnailTo(String hash, Size size, WritableByteChannel target) throws IOException {
+        return ContentStore.transfer(thumbnailPath(hash, size), target);
+    }
+
+    public int getQueuedTasks() {
+        return executor.getQueue().size();
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    private BufferedImage decode(String hash) {
+        Path file = originals.pathOf(hash);
+        try (ImageInputStream in = ImageIO.createImageInputStream(file.toFile())) {
+            Iterator<ImageReader> readers = in == null ? null : ImageIO.getImageReaders(in);
+            if (readers == null || !readers.hasNext()) {
+                throw rejected(hash, "Not a supported image");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                if ((long) reader.getWidth(0) * reader.getHeight(0) > MAX_PIXELS) {
+                    throw rejected(hash, "Image exceeds " + MAX_PIXELS + " pixels");
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException e) {
+            throw rejected(hash, "Unreadable image");
+        }
+    }
+
+    private IllegalArgumentException rejected(String hash, String reason) {
+        // Identical bytes have the same hash, so no valid image shares this file
+        try {
+            originals.delete(hash);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot delete rejected upload " + hash, e);
+        }
+        return new IllegalArgumentException(reason);
+    }
+
+    private void writeThumbnail(String hash, Size size, BufferedImage image) {
+        Path target = thumbnailPath(hash, size);
+        try {
+            Files.createDirectories(target.getParent());
+            Path temp = Files.createTempFile(thumbnails, "thumbnail-", ".tmp");
+            try {
+                if (!ImageIO.write(scale(image, size.getMaxEdge()), "jpg", temp.toFile())) {
+                    throw new IllegalStateException("No JPEG writer available");
+                }
+                try {
+                    Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+                } catch (FileAlreadyExistsException e) {
+                    // Generated concurrently by another upload of the same image
+                }
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write thumbnail " + target, e);
+        }
+    }
+
+    /**
+     * Fits the image within maxEdge, never enlarging it. Halves it step by step
+     * first, since one bilinear step over a large ratio skips most source pixels.
+     * The result is opaque RGB, as JPEG has no alpha.
+     */
+    static BufferedImage scale(BufferedImage image, int maxEdge) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        double ratio = Math.min(1.0, (double) maxEdge / Math.max(width, height));
+        int targetWidth = Math.max(1, (int) Math.round(width * ratio));
+        int targetHeight = Math.max(1, (int) Math.round(height * ratio));
+
+        BufferedImage current = image;
+        while (width / 2 >= targetWidth && height / 2 >= targetHeight) {
+            width /= 2;
+            height /= 2;
+            current = draw(current, width, height, null);
+        }
+        return draw(current, targetWidth, targetHeight, Color.WHITE);
+    }
+
+    private static BufferedImage draw(BufferedImage source, int width, int height, Color background) {
+        BufferedImage target = new BufferedImage(width, height,
+                background == null ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            if (background != null) {
+                graphics.setColor(background);
+                graphics.fillRect(0, 0, width, height);
+            }
+            graphics.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+
+    Path thumbnailPath(String hash, Size size) {
+        // Validates the hash before it becomes part of a path
+        originals.pathOf(hash);
+        return thumbnails.resolve(size.name().toLowerCase(Locale.ROOT)).resolve(hash.substring(0, 2))
+                .resolve(hash + ".jpg");
+    }
+
+    private static ThreadFactory daemonThreads() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "image-worker-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,91 @@
+package ch.unil.doplab.studybuddy.storage;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Keeps the prepared statements of one connection open for reuse, so SQL that
+ * runs many times is parsed and planned once instead of on every call. The
+ * least recently used statement is closed when the cache is full.
+ *
+ * Like the connection it wraps, an instance is meant for one thread at a
+ * time. Closing the cache closes its statements but not the connection.
+ */
+public class StatementCache implements AutoCloseable {
+
+    public static final int DEFAULT_CAPACITY = 64;
+
+    private final Connection connection;
+    private final int capacity;
+    private final Map<String, PreparedStatement> statements = new LinkedHashMap<>(16, 0.75f, true);
+    private long prepareCount;
+
+    public StatementCache(Connection connection) {
+        this(connection, DEFAULT_CAPACITY);
+    }
+
+    public StatementCache(Connection connection, int capacity) {
+        this.connection = Objects.requireNonNull(connection, "Connection must not be null");
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.capacity = capacity;
+    }
+
+    public Connection getConnection() {
+        return connection;
+    }
+
+    /** Returns the statement for the given SQL with its parameters cleared, preparing it on first use. */
+    public PreparedStatement prepare(String sql) throws SQLException {
+        PreparedStatement statement = statements.get(sql);
+        if (statement != null && !statement.isClosed()) {
+            statement.clearParameters();
+            return statement;
+        }
+        statement = connection.prepareStatement(sql);
+        statements.put(sql, statement);
+        prepareCount++;
+        if (statements.size() > capacity) {
+            Iterator<PreparedStatement> eldest = statements.values().iterator();
+            PreparedStatement evicted = eldest.next();
+            eldest.remove();
+            evicted.close();
+        }
+        return statement;
+    }
+
+    /** Number of statements actually prepared; a steady workload keeps this at the number of distinct queries. */
+    public long getPrepareCount() {
+        return prepareCount;
+    }
+
+    public int size() {
+        return statements.size();
+    }
+
+    @Override
+    public void close() throws SQLException {
+        SQLException failure = null;
+        for (PreparedStatement statement : statements.values()) {
+            try {
+                statement.close();
+            } catch (SQLException e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        statements.clear();
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
@@ -0,0 +1,351 @@
+package ch.unil.doplab.studybuddy.storage;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only log of opaque records, split into segment files named after the
+ * sequence number of their first record. Each record is framed as length,
+ * CRC32C checksum, sequence number and payload; a torn record at the end of
+ * the last segment, left by a crash, is cut off when the log is opened.
+ *
+ * Appends only copy the record into a write buffer. Durability is requested
+ * separately with sync, which uses group commit: one caller forces the file
+ * for every record appended so far while the others wait, so concurrent
+ * writers share a single disk sync instead of paying one each.
+ */
+public class WriteAheadLog implements Closeable {
+
+    /** Receives the records of a replay, in sequence order. */
+    @FunctionalInterface
+    public interface RecordHandler {
+        void accept(long sequence, ByteBuffer payload) throws IOException;
+    }
+
+    public static final long DEFAULT_SEGMENT_SIZE = 64L << 20;
+
+    private static final int HEADER_SIZE = Integer.BYTES + Integer.BYTES + Long.BYTES;
+    private static final int BUFFER_SIZE = 256 * 1024;
+    private static final String PREFIX = "wal-";
+    private static final String SUFFIX = ".log";
+
+    private final Path directory;
+    private final long segmentSize;
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final Object syncLock = new Object();
+    private final ByteBuffer pending = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+    private final CRC32C checksum = new CRC32C();
+    private final LongAdder syncs = new LongAdder();
+    private FileChannel segment;
+    private long segmentBytes;
+    private long lastSequence;
+    private volatile long durableSequence;
+    private boolean closed;
+
+    public WriteAheadLog(Path directory) throws IOException {
+        this(directory, DEFAULT_SEGMENT_SIZE);
+    }
+
+    public WriteAheadLog(Path directory, long segmentSize) throws IOException {
+        Objects.requireNonNull(directory, "Directory must not be null");
+        if (segmentSize < HEADER_SIZE) {
+            throw new IllegalArgumentException("Segment size is too small");
+        }
+        this.directory = Files.createDirectories(directory);
+        this.segmentSize = segmentSize;
+        List<Path> segments = segments();
+        if (segments.isEmpty()) {
+            openSegment(1);
+        } else {
+            recover(segments.get(segments.size() - 1));
+        }
+        this.durableSequence = lastSequence;
+    }
+
+    /** Appends a record and returns its sequence number; the record is durable once sync returns for it. */
+    public long append(ByteBuffer payload) throws IOException {
+        int length = payload.remaining();
+        if (length > Integer.MAX_VALUE - HEADER_SIZE) {
+            throw new IllegalArgumentException("Record is too large");
+        }
+        writeLock.lock();
+        try {
+            ensureOpen();
+            long sequence = lastSequence + 1;
+            int frameSize = HEADER_SIZE + length;
+            if (segmentBytes > 0 && segmentBytes + frameSize > segmentSize) {
+                roll(sequence);
+            }
+            checksum.reset();
+            checksum.update(sequenceBytes(sequence));
+            checksum.update(payload.duplicate());
+            header.clear();
+            header.putInt(length).putInt((int) checksum.getValue()).putLong(sequence).flip();
+            if (pending.remaining() < frameSize) {
+                flushPending();
+            }
+            if (frameSize > pending.capacity()) {
+                writeFully(header);
+                writeFully(payload.duplicate());
+            } else {
+                pending.put(header).put(payload.duplicate());
+            }
+            segmentBytes += frameSize;
+            lastSequence = sequence;
+            return sequence;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /** Blocks until every record up to the given sequence number is on disk. */
+    public void sync(long sequence) throws IOException {
+        if (durableSequence >= sequence) {
+            return;
+        }
+        synchronized (syncLock) {
+            // A sync that finished while we waited may already cover this record
+            if (durableSequence >= sequence) {
+                return;
+            }
+            FileChannel channel;
+            long target;
+            writeLock.lock();
+            try {
+                ensureOpen();
+                flushPending();
+                channel = segment;
+                target = lastSequence;
+            } finally {
+                writeLock.unlock();
+            }
+            try {
+                channel.force(false);
+            } catch (ClosedChannelException e) {
+                // The segment was rolled meanwhile, which forces it before closing
+            }
+            syncs.increment();
+            durableSequence = target;
+        }
+    }
+
+    public void sync() throws IOException {
+        sync(getLastSequence());
+    }
+
+    /** Appends a record and waits until it is durable. */
+    public long commit(ByteBuffer payload) throws IOException {
+        long sequence = append(payload);
+        sync(sequence);
+        return sequence;
+    }
+
+    /** Passes every record after the given sequence number to the handler, oldest first. */
+    public void replay(long afterSequence, RecordHandler handler) throws IOException {
+        writeLock.lock();
+        try {
+            ensureOpen();
+            flushPending();
+        } finally {
+            writeLock.unlock();
+        }
+        List<Path> segments = segments();
+        for (int i = 0; i < segments.size(); i++) {
+            if (i + 1 < segments.size() && firstSequence(segments.get(i + 1)) <= afterSequence + 1) {
+                continue;
+            }
+            try (FileChannel channel = FileChannel.open(segments.get(i), StandardOpenOption.READ)) {
+                MappedByteBuffer records = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                while (records.hasRemaining()) {
+                    int start = records.position();
+                    long sequence = readRecord(records);
+                    if (sequence < 0) {
+                        if (i + 1 == segments.size()) {
+                            // A record still being written when the file was mapped
+                            break;
+                        }
+                        throw new IOException("Corrupt record at offset " + start + " of " + segments.get(i));
+                    }
+                    ByteBuffer payload = records.slice(start + HEADER_SIZE, records.position() - start - HEADER_SIZE);
+                    if (sequence > afterSequence) {
+                        handler.accept(sequence, payload.asReadOnlyBuffer());
+                    }
+                }
+            }
+        }
+    }
+
+    /** Deletes the segments that only hold records before the given sequence number; returns how many. */
+    public int deleteSegmentsBefore(long sequence) throws IOException {
+        List<Path> segments = segments();
+        int deleted = 0;
+        // The current segment is never deleted
+        for (int i = 0; i + 1 < segments.size(); i++) {
+            if (firstSequence(segments.get(i + 1)) > sequence) {
+                break;
+            }
+            Files.delete(segments.get(i));
+            deleted++;
+        }
+        return deleted;
+    }
+
+    public long getLastSequence() {
+        writeLock.lock();
+        try {
+            return lastSequence;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public long getDurableSequence() {
+        return durableSequence;
+    }
+
+    /** Number of disk syncs performed; with group commit this is well below the number of commits. */
+    public long getSyncCount() {
+        return syncs.sum();
+    }
+
+    public int getSegmentCount() throws IOException {
+        return segments().size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (syncLock) {
+            writeLock.lock();
+            try {
+                if (closed) {
+                    return;
+                }
+                flushPending();
+                segment.force(false);
+                segment.close();
+                durableSequence = lastSequence;
+                closed = true;
+            } finally {
+                writeLock.unlock();
+            }
+        }
+    }
+
+    private void recover(Path last) throws IOException {
+        segment = FileChannel.open(last, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        lastSequence = firstSequence(last) - 1;
+        long validEnd = 0;
+        if (segment.size() > 0) {
+            MappedByteBuffer records = segment.map(FileChannel.MapMode.READ_ONLY, 0, segment.size());
+            while (records.hasRemaining()) {
+                long sequence = readRecord(records);
+                if (sequence < 0) {
+                    break;
+                }
+                lastSequence = sequence;
+                validEnd = records.position();
+            }
+        }
+        if (validEnd < segment.size()) {
+            segment.truncate(validEnd);
+            segment.force(false);
+        }
+        segment.position(validEnd);
+        segmentBytes = validEnd;
+    }
+
+    /** Reads one frame and returns its sequence number, or -1 when it is torn or corrupt. */
+    private long readRecord(ByteBuffer records) {
+        int start = records.position();
+        if (records.remaining() < HEADER_SIZE) {
+            return -1;
+        }
+        int length = records.getInt();
+        int expected = records.getInt();
+        long sequence = records.getLong();
+        if (length < 0 || length > records.remaining()) {
+            records.position(start);
+            return -1;
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(sequenceBytes(sequence));
+        crc.update(records.slice(records.position(), length));
+        if ((int) crc.getValue() != expected) {
+            records.position(start);
+            return -1;
+        }
+        records.position(records.position() + length);
+        return sequence;
+    }
+
+    private void roll(long nextSequence) throws IOException {
+        flushPending();
+        segment.force(false);
+        segment.close();
+        durableSequence = Math.max(durableSequence, lastSequence);
+        openSegment(nextSequence);
+    }
+
+    private void openSegment(long firstSequence) throws IOException {
+        Path file = directory.resolve(PREFIX + String.format("%020d", firstSequence) + SUFFIX);
+        segment = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        segmentBytes = 0;
+        lastSequence = firstSequence - 1;
+    }
+
+    private void flushPending() throws IOException {
+        pending.flip();
+        writeFully(pending);
+        pending.clear();
+    }
+
+    private void writeFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            segment.write(buffer);
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Log is closed");
+        }
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            List<Path> segments = new ArrayList<>(files
+                    .filter(file -> {
+                        String name = file.getFileName().toString();
+                        return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+                    })
+                    .toList());
+            // Zero-padded names sort in sequence order
+            segments.sort(null);
+            return segments;
+        }
+    }
+
+    private static long firstSequence(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+
+    private static byte[] sequenceBytes(long sequence) {
+        return ByteBuffer.allocate(Long.BYTES).putLong(sequence).array();
+    }
+}
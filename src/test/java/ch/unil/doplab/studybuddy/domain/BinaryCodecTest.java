@@ -0,0 +1,154 @@
+package ch.unil.doplab.studybuddy.domain;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the BinaryCodec class.
+ * Tests round trips of every record type, buffer reuse and rejection of foreign or corrupt records.
+ */
+class BinaryCodecTest {
+
+    private BinaryCodec codec;
+    private Seller seller;
+    private Buyer buyer;
+    private Property property;
+    private Offer offer;
+
+    @BeforeEach
+    void setUp() {
+        codec = new BinaryCodec(64);
+        seller = new Seller("Jane", "Smith", "jane@seller.com", "janesmith", "$2a$12$hash");
+        buyer = new Buyer("John", "Doe", "john@buyer.com", "johndoe", "pass123", 600000);
+        property = seller.createProperty("Chalet à Zermatt", "Vue sur le Cervin", "Zermatt", 1_250_000, 180,
+                Property.PropertyType.HOUSE);
+        property.addFeature("bedrooms", 4);
+        property.addFeature("garage", true);
+        property.addFeature("lotSize", 850.5);
+        property.addFeature("parcel", 12_345_678_901L);
+        property.addFeature("heating", "heat pump");
+        property.addImage("https://example.com/chalet.jpg");
+        seller.publishProperty(property);
+        offer = buyer.placeOffer(property, 1_200_000);
+        seller.respondToOffer(offer, true);
+    }
+
+    @Test
+    void testPropertyRoundTrip() {
+        Property decoded = codec.readProperty(codec.encode(property));
+
+        assertEquals(property.getPropertyId(), decoded.getPropertyId());
+        assertEquals(property.getOwnerId(), decoded.getOwnerId());
+        assertEquals(property.getTitle(), decoded.getTitle());
+        assertEquals(property.getDescription(), decoded.getDescription());
+        assertEquals(property.getPrice(), decoded.getPrice());
+        assertEquals(property.getType(), decoded.getType());
+        assertEquals(Property.PropertyStatus.FOR_SALE, decoded.getStatus());
+        assertEquals(property.getFeatures(), decoded.getFeatures());
+        assertEquals(4, decoded.getBedroomCount());
+        assertEquals(property.getImages(), decoded.getImages());
+        assertEquals(property.getCreatedAt(), decoded.getCreatedAt());
+        assertEquals(property.getUpdatedAt(), decoded.getUpdatedAt());
+    }
+
+    @Test
+    void testNullFieldsRoundTrip() {
+        Property empty = codec.readProperty(codec.encode(new Property()));
+
+        assertNull(empty.getOwnerId());
+        assertNull(empty.getTitle());
+        assertNull(empty.getType());
+        assertTrue(empty.getFeatures().isEmpty());
+    }
+
+    @Test
+    void testOfferAndMessageRoundTrip() {
+        Offer decodedOffer = codec.readOffer(codec.encode(offer));
+        assertEquals(offer.getOfferId(), decodedOffer.getOfferId());
+        assertEquals(offer.getAmount(), decodedOffer.getAmount());
+        assertEquals(Offer.Status.ACCEPTED, decodedOffer.getStatus());
+        assertEquals(offer.getCreatedAt(), decodedOffer.getCreatedAt());
+
+        Message message = buyer.sendMessage(seller, "Visit", "Is Saturday possible?");
+        Message decodedMessage = codec.readMessage(codec.encode(message));
+        assertEquals(message.getMessageId(), decodedMessage.getMessageId());
+        assertEquals(message.getContent(), decodedMessage.getContent());
+        assertEquals(Message.MessageDirection.SENT, decodedMessage.getDirection());
+        assertTrue(decodedMessage.isRead());
+    }
+
+    @Test
+    void testBuyerRoundTrip() {
+        buyer.addPreferredLocation("Lausanne");
+        buyer.saveProperty(property.getPropertyId());
+        buyer.addPropertyTypeOfInterest("HOUSE");
+        buyer.addDocument("passport.pdf", "ab".repeat(32));
+        buyer.addDocument("payslip.pdf");
+        seller.sendMessage(buyer, "Re: Visit", "Saturday works");
+
+        Buyer decoded = codec.readBuyer(codec.encode(buyer));
+
+        assertEquals(buyer.getUserID(), decoded.getUserID());
+        assertEquals(buyer.getUsername(), decoded.getUsername());
+        assertEquals(buyer.getPassword(), decoded.getPassword());
+        assertEquals(buyer.getBudget(), decoded.getBudget());
+        assertEquals(buyer.getPreferredLocations(), decoded.getPreferredLocations());
+        assertEquals(buyer.getSavedProperties(), decoded.getSavedProperties());
+        assertEquals(List.of("HOUSE"), decoded.getPropertyTypesOfInterest());
+        assertEquals("ab".repeat(32), decoded.getDocumentHash("passport.pdf"));
+        assertTrue(decoded.hasDocument("payslip.pdf"));
+        assertEquals(1, decoded.getMessages().size());
+        assertEquals(1, decoded.getUnreadCount());
+    }
+
+    @Test
+    void testSellerResolvesListingsAndOffers() {
+        ByteBuffer encoded = codec.encode(seller);
+        Map<UUID, Property> properties = Map.of(property.getPropertyId(), property);
+        Map<UUID, Offer> offers = Map.of(offer.getOfferId(), offer);
+
+        User decoded = codec.readUser(encoded, properties::get, offers::get);
+
+        Seller decodedSeller = assertInstanceOf(Seller.class, decoded);
+        assertEquals(seller.getUserID(), decodedSeller.getUserID());
+        assertSame(property, decodedSeller.getOwnedProperties().get(0));
+        assertSame(offer, decodedSeller.getReceivedOffers().get(0));
+        assertThrows(IllegalArgumentException.class,
+                () -> codec.readSeller(codec.encode(seller), id -> null, offers::get));
+    }
+
+    @Test
+    void testWritesIntoReusableDirectBuffer() {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(1024);
+        codec.write(property, buffer);
+        codec.write(offer, buffer);
+        buffer.flip();
+
+        assertEquals(property.getPropertyId(), codec.readProperty(buffer).getPropertyId());
+        assertEquals(offer.getOfferId(), codec.readOffer(buffer).getOfferId());
+        assertFalse(buffer.hasRemaining());
+        assertThrows(BufferOverflowException.class, () -> codec.write(property, ByteBuffer.allocate(16)));
+    }
+
+    @Test
+    void testRejectsForeignAndCorruptRecords() {
+        ByteBuffer encodedOffer = codec.encode(offer);
+        assertThrows(IllegalArgumentException.class, () -> codec.readProperty(encodedOffer.duplicate()));
+
+        ByteBuffer future = ByteBuffer.allocate(encodedOffer.remaining()).put(encodedOffer).flip();
+        future.put(1, (byte) (BinaryCodec.VERSION + 1));
+        assertThrows(IllegalArgumentException.class, () -> codec.readOffer(future));
+
+        ByteBuffer truncated = codec.encode(property);
+        truncated.limit(truncated.limit() - 4);
+        assertThrows(IllegalArgumentException.class, () -> codec.readProperty(truncated));
+    }
+}
@@ -0,0 +1,101 @@
+package ch.unil.doplab.studybuddy.domain;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the DomainJournal class.
+ * Tests that replaying the journal rebuilds listings, offers, users and mailboxes.
+ */
+class DomainJournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testReplayRebuildsTheModel() throws IOException {
+        Seller seller = new Seller("Jane", "Smith", "jane@seller.com", "janesmith", "pass456");
+        Buyer buyer = new Buyer("John", "Doe", "john@buyer.com", "johndoe", "pass123", 600000);
+        Property kept;
+        Offer offer;
+        Message sent;
+        try (DomainJournal journal = new DomainJournal(directory)) {
+            journal.record(seller);
+            journal.record(buyer);
+            kept = seller.createProperty("Loft", "Bright", "Lausanne", 550000, 90, Property.PropertyType.LOFT);
+            Property removed = seller.createProperty("Studio", "Small", "Renens", 250000, 25, Property.PropertyType.STUDIO);
+            journal.record(kept);
+            journal.record(removed);
+            journal.record(seller);
+            seller.publishProperty(kept);
+            kept.setPrice(530000);
+            journal.record(kept);
+            journal.removeProperty(removed.getPropertyId());
+            offer = buyer.placeOffer(kept, 520000);
+            journal.record(offer);
+            seller.respondToOffer(offer, true);
+            journal.record(offer);
+            journal.record(seller);
+            sent = buyer.sendMessage(seller, "Keys", "When can I pick them up?");
+            journal.sync(journal.recordSent(sent));
+        }
+
+        DomainJournal.State state;
+        try (DomainJournal journal = new DomainJournal(directory)) {
+            state = journal.replay();
+        }
+
+        assertEquals(List.of(kept.getPropertyId()), state.getProperties().stream().map(Property::getPropertyId).toList());
+        Property property = state.getProperties().iterator().next();
+        assertEquals(530000, property.getPrice());
+        assertEquals(Property.PropertyStatus.FOR_SALE, property.getStatus());
+        assertEquals(Offer.Status.ACCEPTED, state.getOffers().iterator().next().getStatus());
+
+        Map<UUID, User> users = state.getUsers().stream().collect(Collectors.toMap(User::getUserID, Function.identity()));
+        Seller replayedSeller = (Seller) users.get(seller.getUserID());
+        Buyer replayedBuyer = (Buyer) users.get(buyer.getUserID());
+        assertSame(property, replayedSeller.getOwnedProperties().get(0));
+        assertEquals(2, replayedSeller.getOwnedProperties().size());
+        assertSame(state.getOffers().iterator().next(), replayedSeller.getReceivedOffers().get(0));
+        assertEquals(sent.getMessageId(), replayedBuyer.getMessages().get(0).getMessageId());
+        assertEquals(seller.getMessages().get(0).getMessageId(), replayedSeller.getMessages().get(0).getMessageId());
+        assertEquals(1, replayedSeller.getUnreadCount());
+    }
+
+    @Test
+    void testReplayContinuesFromState() throws IOException {
+        Seller seller = new Seller("Jane", "Smith", "jane@seller.com", "janesmith", "pass456");
+        try (DomainJournal journal = new DomainJournal(directory)) {
+            journal.record(seller);
+            DomainJournal.State state = journal.replay();
+            assertEquals(1, state.getLastSequence());
+
+            seller.setFirstName("Janet");
+            journal.record(seller);
+            journal.replay(state);
+
+            assertEquals(2, state.getLastSequence());
+            assertEquals("Janet", state.getUsers().iterator().next().getFirstName());
+        }
+    }
+
+    @Test
+    void testOnlySentMessagesAreRecorded() throws IOException {
+        Seller seller = new Seller("Jane", "Smith", "jane@seller.com", "janesmith", "pass456");
+        Buyer buyer = new Buyer("John", "Doe", "john@buyer.com", "johndoe", "pass123", 600000);
+        buyer.sendMessage(seller, "Hello", "Hi");
+        try (DomainJournal journal = new DomainJournal(directory)) {
+            assertThrows(IllegalArgumentException.class, () -> journal.recordSent(seller.getMessages().get(0)));
+        }
+    }
+}
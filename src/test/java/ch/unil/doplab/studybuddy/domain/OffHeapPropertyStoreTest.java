@@ -0,0 +1,136 @@
+package ch.unil.doplab.studybuddy.domain;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the OffHeapPropertyStore class.
+ * Tests record round trips through views, slot reuse, index growth and search parity with PropertySearchCriteria.
+ */
+class OffHeapPropertyStoreTest {
+
+    private static final String[] CITIES = {"Lausanne", "Geneva", "Nyon", "Vevey", "Montreux"};
+
+    private Map<UUID, Property> cold;
+    private OffHeapPropertyStore store;
+    private Seller seller;
+
+    @BeforeEach
+    void setUp() {
+        cold = new HashMap<>();
+        store = new OffHeapPropertyStore(8, id -> Optional.ofNullable(cold.get(id)));
+        seller = new Seller("Jane", "Smith", "jane@seller.com", "janesmith", "pass456");
+    }
+
+    @Test
+    void testViewReadsStoredFields() {
+        Property property = add(seller.createProperty("Loft", "Bright", "Vevey", 700_000, 120, Property.PropertyType.LOFT));
+        seller.publishProperty(property);
+        store.put(property);
+
+        boolean found = store.read(property.getPropertyId(), view -> {
+            assertEquals(property.getPropertyId(), view.getPropertyId());
+            assertEquals(seller.getUserID(), view.getOwnerId());
+            assertEquals(700_000, view.getPrice());
+            assertEquals(120, view.getSize());
+            assertEquals("Vevey", view.getLocation());
+            assertEquals(Property.PropertyType.LOFT, view.getType());
+            assertTrue(view.isAvailableForSale());
+            assertSame(property, view.load().orElseThrow());
+            return true;
+        }).orElse(false);
+
+        assertTrue(found);
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    void testNullFieldsAndOverwrite() {
+        Property property = add(new Property());
+        store.put(property);
+        assertNull(store.read(property.getPropertyId(), PropertyView::getOwnerId).orElse(null));
+        assertTrue(store.read(property.getPropertyId(), PropertyView::getLocation).isEmpty());
+
+        property.setLocation("Nyon");
+        property.setPrice(410_000);
+        store.put(property);
+
+        assertEquals(1, store.size());
+        assertEquals("Nyon", store.read(property.getPropertyId(), PropertyView::getLocation).orElseThrow());
+        assertEquals(410_000, store.read(property.getPropertyId(), PropertyView::getPrice).orElseThrow());
+    }
+
+    @Test
+    void testRemovedSlotsAreReusedAndIndexGrows() {
+        List<Property> listings = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            Property property = add(seller.createProperty("Flat " + i, "", CITIES[i % CITIES.length], 100_000 + i, 60,
+                    Property.PropertyType.APARTMENT));
+            listings.add(property);
+            store.put(property);
+        }
+        long bytes = store.getOffHeapBytes();
+        for (int i = 0; i < 1000; i += 2) {
+            assertTrue(store.remove(listings.get(i).getPropertyId()));
+        }
+        assertFalse(store.remove(listings.get(0).getPropertyId()));
+        for (int i = 0; i < 1000; i += 2) {
+            store.put(listings.get(i));
+        }
+
+        assertEquals(1000, store.size());
+        assertEquals(bytes, store.getOffHeapBytes());
+        for (Property property : listings) {
+            assertEquals(property.getPrice(), store.read(property.getPropertyId(), PropertyView::getPrice).orElseThrow());
+        }
+        assertFalse(store.contains(UUID.randomUUID()));
+        assertTrue(store.load(UUID.randomUUID()).isEmpty());
+    }
+
+    @Test
+    void testSearchMatchesCriteriaPredicate() {
+        Random random = new Random(42);
+        Property.PropertyType[] types = Property.PropertyType.values();
+        for (int i = 0; i < 500; i++) {
+            store.put(add(seller.createProperty("Listing " + i, "", CITIES[random.nextInt(CITIES.length)],
+                    50_000 + random.nextInt(1_000_000), 40, types[random.nextInt(types.length)])));
+        }
+        Property removed = cold.values().iterator().next();
+        store.remove(removed.getPropertyId());
+        cold.remove(removed.getPropertyId());
+
+        List<PropertySearchCriteria> queries = List.of(
+                PropertySearchCriteria.builder().build(),
+                PropertySearchCriteria.builder().addLocation("Nyon").addLocation("Geneva").maxPrice(500_000).build(),
+                PropertySearchCriteria.builder().addPropertyType("HOUSE").addPropertyType("VILLA").minPrice(300_000).build(),
+                PropertySearchCriteria.builder().addLocation("Zurich").build());
+        for (PropertySearchCriteria criteria : queries) {
+            Set<UUID> expected = cold.values().stream()
+                    .filter(criteria.toPredicate())
+                    .map(Property::getPropertyId)
+                    .collect(Collectors.toSet());
+
+            assertEquals(expected, new HashSet<>(store.search(criteria, 1000)));
+        }
+        assertEquals(3, store.search(PropertySearchCriteria.builder().build(), 3).size());
+        assertThrows(IllegalArgumentException.class, () -> store.search(PropertySearchCriteria.builder().build(), 0));
+    }
+
+    private Property add(Property property) {
+        cold.put(property.getPropertyId(), property);
+        return property;
+    }
+}
@@ -0,0 +1,81 @@
+package ch.unil.doplab.studybuddy.domain;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the PropertyMatcher class.
+ * Tests candidate pruning and ranking in both matching directions.
+ */
+class PropertyMatcherTest {
+
+    private PropertyMatcher matcher;
+    private Buyer buyer;
+    private Property apartment;
+    private Property house;
+    private Property villa;
+
+    @BeforeEach
+    void setUp() {
+        matcher = new PropertyMatcher(0.1);
+        buyer = new Buyer("John", "Doe", "john@buyer.com", "johndoe", "pass123", 600000);
+        buyer.addPropertyTypeOfInterest("APARTMENT");
+        buyer.addPropertyTypeOfInterest("HOUSE");
+        buyer.addPreferredLocation("Lausanne");
+
+        UUID ownerId = UUID.randomUUID();
+        apartment = new Property("Flat", ownerId, "Flat", "Lausanne", 580000, 80, Property.PropertyType.APARTMENT);
+        house = new Property("House", ownerId, "House", "Geneva", 640000, 140, Property.PropertyType.HOUSE);
+        villa = new Property("Villa", ownerId, "Villa", "Lausanne", 590000, 200, Property.PropertyType.VILLA);
+        for (Property property : List.of(apartment, house, villa)) {
+            property.publish();
+            matcher.addProperty(property);
+        }
+    }
+
+    @Test
+    void testTopPropertiesForBuyerPrunesAndRanks() {
+        List<PropertyMatcher.Match<Property>> matches = matcher.topPropertiesFor(buyer, 10);
+
+        assertEquals(2, matches.size()); // Villa is not a type of interest
+        assertEquals(apartment, matches.get(0).getCandidate());
+        assertEquals(house, matches.get(1).getCandidate());
+        assertTrue(matches.get(0).getScore() > matches.get(1).getScore());
+        assertEquals(1, matcher.topPropertiesFor(buyer, 1).size());
+    }
+
+    @Test
+    void testReindexingFollowsPriceChangesAndStatus() {
+        house.setPrice(700000);
+        matcher.addProperty(house);
+        apartment.suspend();
+
+        assertTrue(matcher.topPropertiesFor(buyer, 10).isEmpty());
+        assertTrue(matcher.removeProperty(house.getPropertyId()));
+        assertFalse(matcher.removeProperty(house.getPropertyId()));
+    }
+
+    @Test
+    void testTopBuyersForProperty() {
+        Buyer richer = new Buyer("Jane", "Doe", "jane@buyer.com", "janedoe", "pass123", 2000000);
+        Buyer poorer = new Buyer("Joe", "Doe", "joe@buyer.com", "joedoe", "pass123", 300000);
+        Buyer villaLover = new Buyer("Jim", "Doe", "jim@buyer.com", "jimdoe", "pass123", 650000);
+        villaLover.addPropertyTypeOfInterest("VILLA");
+        matcher.addBuyer(buyer);
+        matcher.addBuyer(richer);
+        matcher.addBuyer(poorer);
+        matcher.addBuyer(villaLover);
+
+        List<PropertyMatcher.Match<Buyer>> matches = matcher.topBuyersFor(apartment, 10);
+
+        assertEquals(2, matches.size());
+        assertEquals(buyer, matches.get(0).getCandidate());
+        assertEquals(richer, matches.get(1).getCandidate());
+        assertThrows(IllegalArgumentException.class, () -> matcher.topBuyersFor(apartment, 0));
+    }
+}
@@ -0,0 +1,140 @@
+package ch.unil.doplab.studybuddy.domain;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the PropertyRepository class.
+ * Tests batched writes, round trips of every field, keyset pagination and lazy details against an in-memory H2 database.
+ */
+class PropertyRepositoryTest {
+
+    private Connection connection;
+    private JdbcStore store;
+    private PropertyRepository repository;
+    private Seller seller;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:" + UUID.randomUUID());
+        store = new JdbcStore(connection);
+        store.createSchema();
+        repository = store.properties();
+        seller = new Seller("Jane", "Smith", "jane@seller.com", "janesmith", "pass456");
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        store.close();
+        connection.close();
+    }
+
+    @Test
+    void testRoundTripKeepsEveryField() throws SQLException {
+        Property property = seller.createProperty("Chalet", "Vue sur le Cervin", "Zermatt", 1_250_000, 180,
+                Property.PropertyType.HOUSE);
+        property.addFeature("bedrooms", 4);
+        property.addFeature("garage", true);
+        property.addImage("https://example.com/chalet.jpg");
+        seller.publishProperty(property);
+
+        assertEquals(1, repository.insertAll(List.of(property)));
+        Property loaded = repository.findById(property.getPropertyId()).orElseThrow();
+
+        assertEquals(property.getOwnerId(), loaded.getOwnerId());
+        assertEquals(property.getTitle(), loaded.getTitle());
+        assertEquals(property.getPrice(), loaded.getPrice());
+        assertEquals(Property.PropertyStatus.FOR_SALE, loaded.getStatus());
+        assertEquals(property.getFeatures(), loaded.getFeatures());
+        assertEquals(property.getImages(), loaded.getImages());
+        assertEquals(property.getCreatedAt(), loaded.getCreatedAt());
+        assertTrue(repository.findById(UUID.randomUUID()).isEmpty());
+    }
+
+    @Test
+    void testBatchInsertReusesOneStatement() throws SQLException {
+        List<Property> listings = new ArrayList<>();
+        for (int i = 0; i < 1200; i++) {
+            listings.add(seller.createProperty("Flat " + i, "", "Nyon", 100_000 + i, 60, Property.PropertyType.APARTMENT));
+        }
+        long prepared = store.getStatements().getPrepareCount();
+
+        assertEquals(1200, repository.insertAll(listings));
+        assertEquals(prepared + 1, store.getStatements().getPrepareCount());
+        assertEquals(1200, repository.count());
+        assertEquals(1200, repository.findByOwner(seller.getUserID()).size());
+
+        listings.forEach(property -> property.setPrice(property.getPrice() + 1));
+        assertEquals(1200, repository.updateAll(listings));
+        assertEquals(100_001, repository.findPage(null, 1).get(0).getPrice());
+
+        assertEquals(2, repository.deleteAll(List.of(listings.get(0).getPropertyId(), listings.get(1).getPropertyId())));
+        assertEquals(1198, repository.count());
+    }
+
+    @Test
+    void testKeysetPagesCoverEveryListingOnce() throws SQLException {
+        List<Property> listings = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            // Equal prices, so pages must also break ties by ID
+            listings.add(seller.createProperty("Flat " + i, "", "Nyon", 100_000 * (i % 4), 60,
+                    Property.PropertyType.APARTMENT));
+        }
+        repository.insertAll(listings);
+
+        List<Property> seen = new ArrayList<>();
+        PropertyRepository.PriceKey after = null;
+        List<Property> page;
+        while (!(page = repository.findPage(after, 7)).isEmpty()) {
+            seen.addAll(page);
+            after = PropertyRepository.PriceKey.of(page.get(page.size() - 1));
+        }
+
+        assertEquals(25, seen.size());
+        assertEquals(25, seen.stream().map(Property::getPropertyId).distinct().count());
+        for (int i = 1; i < seen.size(); i++) {
+            assertTrue(seen.get(i - 1).getPrice() <= seen.get(i).getPrice());
+        }
+        assertThrows(IllegalArgumentException.class, () -> repository.findPage(null, 0));
+    }
+
+    @Test
+    void testPagesLoadDetailsOnFirstUse() throws SQLException {
+        Property property = seller.createProperty("Loft", "Ancienne fabrique", "Vevey", 640_000, 95,
+                Property.PropertyType.LOFT);
+        property.addFeature("bedrooms", 2);
+        repository.insertAll(List.of(property));
+
+        Property listed = repository.findPage(null, 10).get(0);
+        assertFalse(listed.isDetailsLoaded());
+        assertEquals(property.toSummary(), listed.toSummary());
+        assertTrue(listed.toString().contains("Loft"));
+        assertFalse(listed.isDetailsLoaded());
+
+        UnitOfWork unitOfWork = store.newUnitOfWork();
+        unitOfWork.track(listed);
+        listed.setPrice(620_000);
+        assertEquals(1, unitOfWork.commit());
+        assertFalse(listed.isDetailsLoaded());
+
+        assertEquals("Ancienne fabrique", listed.getDescription());
+        assertEquals(2, listed.getBedroomCount());
+        listed.addImage("https://example.com/loft.jpg");
+        unitOfWork.commit();
+
+        Property stored = repository.findById(property.getPropertyId()).orElseThrow();
+        assertEquals(620_000, stored.getPrice());
+        assertEquals(List.of("https://example.com/loft.jpg"), stored.getImages());
+        assertEquals("Ancienne fabrique", stored.getDescription());
+    }
+}
@@ -3,6 +3,8 @@ package ch.unil.doplab.studybuddy.domain;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -274,6 +276,20 @@ class PropertyTest {
         assertNotNull(Property.PropertyStatus.OFF_MARKET);
     }
 
+    @Test
+    void testFeatureKeysDifferingInCaseOrSpacingAreOneFeature() {
+        property.addFeature("Bedrooms", 3);
+        property.addFeature("  bedrooms ", 4);
+        property.addFeature("Garden View", true);
+
+        assertEquals(Map.of("bedrooms", 4, "Garden View", true), property.getFeatures());
+        assertEquals(4, property.getBedroomCount());
+        assertThrows(IllegalArgumentException.class, () -> property.addFeature(" ", 1));
+
+        property.removeFeature("garden  view");
+        assertEquals(Map.of("bedrooms", 4), property.getFeatures());
+    }
+
     @Test
     void testFeaturesAreImmutable() {
         property.addFeature("bedrooms", 3);
@@ -293,4 +309,18 @@ class PropertyTest {
         assertThrows(UnsupportedOperationException.class,
                 () -> images.add("image2.jpg"));
     }
+
+    @Test
+    void testCopyIsIndependentOfTheOriginal() {
+        property.addImage("image1.jpg");
+        property.addFeature("bedrooms", 2);
+
+        Property copy = new Property(property);
+        property.addImage("image2.jpg");
+        property.addFeature("garden", true);
+
+        assertEquals(property, copy);
+        assertEquals(List.of("image1.jpg"), copy.getImages());
+        assertEquals(Map.of("bedrooms", 2), copy.getFeatures());
+    }
 }
@@ -0,0 +1,134 @@
+package ch.unil.doplab.studybuddy.domain;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the SavedSearchAlerts class.
+ * Tests reverse matching of listings against standing searches, by price bounds
+ * among many searches, and alert batching.
+ */
+class SavedSearchAlertsTest {
+
+    private List<Map<UUID, List<SavedSearchAlerts.Alert>>> batches;
+    private SavedSearchAlerts alerts;
+    private UUID buyerId;
+    private Property property;
+
+    @BeforeEach
+    void setUp() {
+        batches = new ArrayList<>();
+        alerts = new SavedSearchAlerts(batches::add, 2);
+        buyerId = UUID.randomUUID();
+        property = new Property("Lake View Flat", UUID.randomUUID(), "Bright flat", "Lausanne",
+                500000, 80, Property.PropertyType.APARTMENT);
+        property.publish();
+    }
+
+    @Test
+    void testFindSubscribersMatchesLocationTypeAndPrice() {
+        UUID otherBuyer = UUID.randomUUID();
+        UUID anyBuyer = UUID.randomUUID();
+        alerts.subscribe(buyerId, PropertySearchCriteria.builder()
+                .addLocation("Lausanne").addLocation("Geneva")
+                .addPropertyType("APARTMENT").maxPrice(600000).build());
+        alerts.subscribe(otherBuyer, PropertySearchCriteria.builder()
+                .addLocation("Lausanne").minPrice(550000).build());
+        alerts.subscribe(anyBuyer, PropertySearchCriteria.builder().build());
+
+        assertEquals(Set.of(buyerId, anyBuyer), alerts.findSubscribers(property));
+
+        property.setPrice(560000);
+        assertEquals(Set.of(buyerId, otherBuyer, anyBuyer), alerts.findSubscribers(property));
+
+        property.setType(Property.PropertyType.HOUSE);
+        assertEquals(Set.of(otherBuyer, anyBuyer), alerts.findSubscribers(property));
+    }
+
+    @Test
+    void testManyMaxOnlyAndBoundedSearches() {
+        Set<UUID> expected = new HashSet<>();
+        List<UUID> bounded = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            UUID userId = UUID.randomUUID();
+            double max = 100_000 + i * 200;
+            alerts.subscribe(userId, PropertySearchCriteria.builder().maxPrice(max).build());
+            if (max >= property.getPrice()) expected.add(userId);
+        }
+        for (int i = 0; i < 1_000; i++) {
+            UUID userId = UUID.randomUUID();
+            double min = 200_000 + i * 500;
+            alerts.subscribe(userId, PropertySearchCriteria.builder().minPrice(min).maxPrice(min + 100_000).build());
+            bounded.add(userId);
+            if (min <= property.getPrice() && property.getPrice() <= min + 100_000) expected.add(userId);
+        }
+
+        assertEquals(expected, alerts.findSubscribers(property));
+
+        UUID subscriptionId = alerts.subscribe(buyerId, PropertySearchCriteria.builder().maxPrice(100_000).build());
+        property.setPrice(100_000);
+        assertTrue(alerts.findSubscribers(property).contains(buyerId));
+        assertTrue(alerts.unsubscribe(subscriptionId));
+        assertFalse(alerts.findSubscribers(property).contains(buyerId));
+        assertFalse(alerts.findSubscribers(property).contains(bounded.get(0)));
+    }
+
+    @Test
+    void testUnsubscribeRemovesFromIndex() {
+        UUID subscriptionId = alerts.subscribe(buyerId, PropertySearchCriteria.builder()
+                .addLocation("Lausanne").build());
+        assertEquals(1, alerts.getSubscriptionCount());
+
+        assertTrue(alerts.unsubscribe(subscriptionId));
+        assertFalse(alerts.unsubscribe(subscriptionId));
+        assertEquals(0, alerts.getSubscriptionCount());
+        assertTrue(alerts.findSubscribers(property).isEmpty());
+    }
+
+    @Test
+    void testAlertsAreBatchedPerUser() {
+        alerts.subscribe(buyerId, PropertySearchCriteria.builder().addLocation("Lausanne").build());
+        alerts.subscribe(buyerId, PropertySearchCriteria.builder().addPropertyType("APARTMENT").build());
+
+        alerts.propertyPublished(property);
+        assertTrue(batches.isEmpty()); // Same user and property alerted once, batch not full yet
+
+        Property second = new Property("Studio", UUID.randomUUID(), "Small", "Lausanne",
+                250000, 30, Property.PropertyType.STUDIO);
+        second.publish();
+        alerts.propertyPublished(second);
+
+        assertEquals(1, batches.size());
+        List<SavedSearchAlerts.Alert> delivered = batches.get(0).get(buyerId);
+        assertEquals(2, delivered.size());
+        assertEquals(SavedSearchAlerts.Reason.NEW_LISTING, delivered.get(0).getReason());
+    }
+
+    @Test
+    void testOnlyPriceDropsAreAlerted() {
+        alerts.subscribe(buyerId, PropertySearchCriteria.builder().maxPrice(480000).build());
+
+        property.setPrice(470000);
+        alerts.priceChanged(property, 500000);
+        property.setPrice(475000);
+        alerts.priceChanged(property, 470000);
+        alerts.flush();
+
+        assertEquals(1, batches.size());
+        SavedSearchAlerts.Alert alert = batches.get(0).get(buyerId).get(0);
+        assertEquals(SavedSearchAlerts.Reason.PRICE_DROP, alert.getReason());
+        assertEquals(470000, alert.getPrice());
+
+        alerts.flush();
+        assertEquals(1, batches.size()); // Nothing pending
+    }
+}
@@ -0,0 +1,137 @@
+package ch.unil.doplab.studybuddy.domain;
+
+import ch.unil.doplab.studybuddy.storage.WriteAheadLog;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the SnapshotStore class.
+ * Tests recovery from a snapshot plus the log tail, compaction and fallback on damaged snapshots.
+ */
+class SnapshotStoreTest {
+
+    @TempDir
+    Path root;
+
+    private Path journalDir;
+    private Path snapshotDir;
+    private Seller seller;
+
+    @BeforeEach
+    void setUp() {
+        journalDir = root.resolve("journal");
+        snapshotDir = root.resolve("snapshots");
+        seller = new Seller("Jane", "Smith", "jane@seller.com", "janesmith", "pass456");
+    }
+
+    @Test
+    void testRecoverFromSnapshotAndLogTail() throws IOException {
+        Property expensive;
+        Property cheap;
+        try (DomainJournal journal = journal()) {
+            SnapshotStore snapshots = new SnapshotStore(snapshotDir);
+            expensive = seller.createProperty("Villa", "Pool", "Montreux", 2_000_000, 300, Property.PropertyType.VILLA);
+            cheap = seller.createProperty("Studio", "Central", "Lausanne", 300_000, 25, Property.PropertyType.STUDIO);
+            journal.record(expensive);
+            journal.record(cheap);
+            journal.record(seller);
+            assertEquals(3, snapshots.compact(journal));
+
+            cheap.setPrice(280_000);
+            journal.record(cheap);
+            journal.removeProperty(expensive.getPropertyId());
+        }
+
+        try (DomainJournal journal = journal()) {
+            DomainJournal.State state = new SnapshotStore(snapshotDir).recover(journal);
+
+            assertEquals(5, state.getLastSequence());
+            assertEquals(List.of(cheap.getPropertyId()), state.getProperties().stream().map(Property::getPropertyId).toList());
+            assertEquals(280_000, state.getProperties().iterator().next().getPrice());
+            Seller recovered = (Seller) state.getUsers().iterator().next();
+            assertEquals(2, recovered.getOwnedProperties().size());
+            assertSame(state.getProperties().iterator().next(), recovered.getOwnedProperties().get(1));
+        }
+    }
+
+    @Test
+    void testSnapshotKeepsPriceOrder() throws IOException {
+        try (DomainJournal journal = journal()) {
+            for (int price : new int[]{500_000, 100_000, 300_000}) {
+                journal.record(seller.createProperty("Flat", "", "Nyon", price, 60, Property.PropertyType.APARTMENT));
+            }
+            SnapshotStore snapshots = new SnapshotStore(snapshotDir);
+            snapshots.compact(journal);
+
+            DomainJournal.State state = snapshots.loadLatest().orElseThrow();
+
+            assertEquals(List.of(100_000.0, 300_000.0, 500_000.0),
+                    state.getProperties().stream().map(Property::getPrice).toList());
+        }
+    }
+
+    @Test
+    void testCompactionTruncatesLogUpToOlderSnapshot() throws IOException {
+        try (DomainJournal journal = new DomainJournal(new WriteAheadLog(journalDir, 512))) {
+            SnapshotStore snapshots = new SnapshotStore(snapshotDir);
+            for (int round = 0; round < 3; round++) {
+                for (int i = 0; i < 20; i++) {
+                    journal.record(seller.createProperty("Flat " + i, "", "Nyon", 100_000 + i, 60, Property.PropertyType.APARTMENT));
+                }
+                snapshots.compact(journal);
+            }
+
+            assertEquals(2, count(snapshotDir, ".snap"));
+            assertEquals(60, snapshots.recover(journal).getProperties().size());
+            assertTrue(count(journalDir, ".log") < 60 * 100 / 512);
+        }
+    }
+
+    @Test
+    void testDamagedSnapshotFallsBackToPrevious() throws IOException {
+        Property property = seller.createProperty("Loft", "", "Vevey", 700_000, 120, Property.PropertyType.LOFT);
+        try (DomainJournal journal = journal()) {
+            SnapshotStore snapshots = new SnapshotStore(snapshotDir);
+            journal.record(property);
+            snapshots.compact(journal);
+            property.setPrice(650_000);
+            journal.record(property);
+            snapshots.compact(journal);
+        }
+        Path newest;
+        try (Stream<Path> files = Files.list(snapshotDir)) {
+            newest = files.sorted().reduce((first, second) -> second).orElseThrow();
+        }
+        try (FileChannel channel = FileChannel.open(newest, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{0x7f}), channel.size() - 1);
+        }
+
+        try (DomainJournal journal = journal()) {
+            SnapshotStore snapshots = new SnapshotStore(snapshotDir);
+            assertEquals(1, snapshots.loadLatest().orElseThrow().getLastSequence());
+            assertEquals(650_000, snapshots.recover(journal).getProperties().iterator().next().getPrice());
+        }
+    }
+
+    private DomainJournal journal() throws IOException {
+        return new DomainJournal(journalDir);
+    }
+
+    private static long count(Path directory, String suffix) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.toString().endsWith(suffix)).count();
+        }
+    }
+}
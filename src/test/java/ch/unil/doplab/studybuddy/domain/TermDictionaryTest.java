@@ -0,0 +1,96 @@
+package ch.unil.doplab.studybuddy.domain;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the TermDictionary class.
+ * Tests normalization, code assignment, shared instances, location matching by code
+ * and that queries never grow the dictionary.
+ */
+class TermDictionaryTest {
+
+    @Test
+    void testSpellingsDifferingInCaseOrSpacingShareACode() {
+        TermDictionary dictionary = new TermDictionary();
+
+        int code = dictionary.encode("La Chaux-de-Fonds");
+
+        assertEquals(0, code);
+        assertEquals(code, dictionary.encode("  la   chaux-de-fonds "));
+        assertEquals(code, dictionary.find("LA CHAUX-DE-FONDS"));
+        assertEquals("La Chaux-de-Fonds", dictionary.decode(code));
+        assertEquals(1, dictionary.encode("Bern"));
+        assertEquals(2, dictionary.size());
+    }
+
+    @Test
+    void testBlankAndUnknownTerms() {
+        TermDictionary dictionary = new TermDictionary("seed");
+
+        assertEquals(TermDictionary.NONE, dictionary.encode(null));
+        assertEquals(TermDictionary.NONE, dictionary.encode("   "));
+        assertEquals(TermDictionary.NONE, dictionary.find("missing"));
+        assertNull(dictionary.decode(TermDictionary.NONE));
+        assertNull(dictionary.intern(" "));
+        assertThrows(IllegalArgumentException.class, () -> dictionary.decode(5));
+    }
+
+    @Test
+    void testInternSharesOneInstancePerSpelling() {
+        TermDictionary dictionary = new TermDictionary();
+        String first = dictionary.intern(new String("Lausanne"));
+
+        assertSame(first, dictionary.intern(" Lausanne "));
+        assertEquals("LAUSANNE", dictionary.intern("LAUSANNE"));
+        assertNotSame(first, dictionary.intern("LAUSANNE"));
+    }
+
+    @Test
+    void testListingsAndCriteriaMatchByCode() {
+        Seller seller = new Seller("Jane", "Smith", "jane@seller.com", "janesmith", "pass456");
+        Property first = seller.createProperty("Flat", "", "Yverdon-les-Bains", 300_000, 60, Property.PropertyType.APARTMENT);
+        Property second = seller.createProperty("Flat", "", new String("Yverdon-les-Bains"), 310_000, 60,
+                Property.PropertyType.APARTMENT);
+        second.addFeature(new String("bedrooms"), 3);
+
+        assertSame(first.getLocation(), second.getLocation());
+        assertSame("bedrooms", second.getFeatures().keySet().iterator().next());
+        assertEquals(3, second.getBedroomCount());
+
+        PropertySearchCriteria criteria = PropertySearchCriteria.builder().addLocation("yverdon-les-bains").build();
+        assertTrue(criteria.toPredicate().test(first));
+        assertFalse(criteria.acceptsLocation(TermDictionary.NONE));
+        assertTrue(PropertySearchCriteria.builder().build().acceptsLocation(TermDictionary.NONE));
+    }
+
+    @Test
+    void testQueriesDoNotGrowTheDictionary() {
+        Seller seller = new Seller("Jane", "Smith", "jane@seller.com", "janesmith", "pass456");
+        Property listing = seller.createProperty("Flat", "", "Lausanne", 300_000, 60, Property.PropertyType.APARTMENT);
+        String place = "Nowhere " + UUID.randomUUID();
+        List<UUID> alerted = new ArrayList<>();
+        SavedSearchAlerts alerts = new SavedSearchAlerts(batch -> alerted.addAll(batch.keySet()), 1);
+        int size = TermDictionary.LOCATIONS.size();
+
+        PropertySearchCriteria criteria = PropertySearchCriteria.builder().addLocation(place).build();
+        alerts.subscribe(UUID.randomUUID(), criteria);
+        listing.removeFeature("Nowhere " + UUID.randomUUID());
+
+        assertEquals(size, TermDictionary.LOCATIONS.size());
+        assertFalse(criteria.toPredicate().test(listing));
+        assertTrue(alerts.findSubscribers(listing).isEmpty());
+
+        // A listing may later bring the place into the dictionary
+        Property later = seller.createProperty("Flat", "", place.toUpperCase(), 300_000, 60,
+                Property.PropertyType.APARTMENT);
+        assertTrue(criteria.toPredicate().test(later));
+        alerts.propertyPublished(later);
+        assertEquals(1, alerted.size());
+    }
+}
@@ -0,0 +1,120 @@
+package ch.unil.doplab.studybuddy.domain;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the UnitOfWork class.
+ * Tests batched inserts, column-level dirty tracking and rollback of a failed commit.
+ */
+class UnitOfWorkTest {
+
+    private Connection connection;
+    private JdbcStore store;
+    private Seller seller;
+    private Buyer buyer;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:" + UUID.randomUUID());
+        store = new JdbcStore(connection);
+        store.createSchema();
+        seller = new Seller("Jane", "Smith", "jane@seller.com", "janesmith", "pass456");
+        buyer = new Buyer("John", "Doe", "john@buyer.com", "johndoe", "pass123", 600_000);
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        store.close();
+        connection.close();
+    }
+
+    @Test
+    void testCommitWritesNewObjectsInOneTransaction() throws SQLException {
+        UnitOfWork work = store.newUnitOfWork();
+        work.registerNew(seller);
+        work.registerNew(buyer);
+        for (int i = 0; i < 10; i++) {
+            work.registerNew(seller.createProperty("Flat " + i, "", "Nyon", 100_000 + i, 60, Property.PropertyType.APARTMENT));
+        }
+        Property listing = seller.getOwnedProperties().get(0);
+        work.registerNew(buyer.placeOffer(listing, 95_000));
+        work.registerSent(buyer.sendMessage(seller, "Visit", "Is Saturday possible?"));
+
+        assertEquals(2 + 10 + 1 + 2, work.commit());
+        assertEquals(0, work.commit());
+        assertTrue(connection.getAutoCommit());
+        assertEquals(10, store.properties().count());
+        assertEquals(1, store.offers().findByProperty(listing.getPropertyId()).size());
+        assertEquals(1, store.messages().findMailbox(seller.getUserID()).size());
+    }
+
+    @Test
+    void testOnlyChangedColumnsAreWritten() throws SQLException {
+        Property listing = seller.createProperty("Loft", "Bright", "Vevey", 700_000, 120, Property.PropertyType.LOFT);
+        UnitOfWork work = store.newUnitOfWork();
+        work.registerNew(listing);
+        work.commit();
+
+        // A concurrent writer changes the title; a price change must not overwrite it
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate("UPDATE properties SET title = 'Renamed'");
+        }
+        listing.setPrice(650_000);
+        assertEquals(1, work.commit());
+
+        Property loaded = store.properties().findById(listing.getPropertyId()).orElseThrow();
+        assertEquals(650_000, loaded.getPrice());
+        assertEquals("Renamed", loaded.getTitle());
+        assertEquals(0, work.commit());
+    }
+
+    @Test
+    void testTracksLoadedObjectsAndRemovals() throws SQLException {
+        Property listing = seller.createProperty("Studio", "", "Lausanne", 300_000, 25, Property.PropertyType.STUDIO);
+        Offer offer = buyer.placeOffer(listing, 290_000);
+        UnitOfWork setup = store.newUnitOfWork();
+        setup.registerNew(listing);
+        setup.registerNew(offer);
+        setup.commit();
+
+        UnitOfWork work = store.newUnitOfWork();
+        Property loaded = store.properties().findById(listing.getPropertyId()).orElseThrow();
+        Offer loadedOffer = store.offers().findById(offer.getOfferId()).orElseThrow();
+        work.track(loaded);
+        work.track(loadedOffer);
+        loaded.publish();
+        loadedOffer.setStatus(Offer.Status.ACCEPTED);
+        assertEquals(2, work.commit());
+        assertEquals(Offer.Status.ACCEPTED, store.offers().findById(offer.getOfferId()).orElseThrow().getStatus());
+
+        work.registerRemoved(loaded);
+        assertEquals(1, work.commit());
+        assertTrue(store.properties().findById(listing.getPropertyId()).isEmpty());
+    }
+
+    @Test
+    void testFailedCommitRollsBackAndKeepsChanges() throws SQLException {
+        UnitOfWork first = store.newUnitOfWork();
+        first.registerNew(seller);
+        first.commit();
+
+        UnitOfWork work = store.newUnitOfWork();
+        work.registerNew(seller.createProperty("Villa", "", "Montreux", 2_000_000, 300, Property.PropertyType.VILLA));
+        // Same ID again violates the primary key after the listing was inserted
+        work.registerNew(seller);
+
+        assertThrows(SQLException.class, work::commit);
+        assertEquals(0, store.properties().count());
+        assertTrue(connection.getAutoCommit());
+    }
+}
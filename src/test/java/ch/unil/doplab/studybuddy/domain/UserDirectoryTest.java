@@ -0,0 +1,115 @@
+package ch.unil.doplab.studybuddy.domain;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the UserDirectory class.
+ * Tests indexed lookups, uniqueness enforcement and role views.
+ */
+class UserDirectoryTest {
+
+    private UserDirectory directory;
+    private Buyer buyer;
+    private Seller seller;
+
+    @BeforeEach
+    void setUp() {
+        directory = new UserDirectory();
+        buyer = new Buyer("John", "Doe", "John@Buyer.com", "JohnDoe", "pass123", 600000);
+        seller = new Seller("Jane", "Smith", "jane@seller.com", "janesmith", "pass456");
+        directory.register(buyer);
+        directory.register(seller);
+    }
+
+    @Test
+    void testLookupsAreCaseInsensitive() {
+        assertEquals(Optional.of(buyer), directory.findByUsername(" johndoe "));
+        assertEquals(Optional.of(buyer), directory.findByEmail("JOHN@buyer.com"));
+        assertEquals(Optional.of(seller), directory.findById(seller.getUserID()));
+        assertTrue(directory.findByUsername("nobody").isEmpty());
+        assertTrue(directory.findById(UUID.randomUUID()).isEmpty());
+    }
+
+    @Test
+    void testRegisterEnforcesUniqueness() {
+        assertThrows(IllegalArgumentException.class, () -> directory.register(
+                new Buyer("Other", "Doe", "other@buyer.com", "JOHNDOE", "pass", 1)));
+        assertThrows(IllegalArgumentException.class, () -> directory.register(
+                new Buyer("Other", "Doe", "john@buyer.com", "other", "pass", 1)));
+        assertThrows(IllegalArgumentException.class, () -> directory.register(buyer));
+        assertThrows(IllegalArgumentException.class, () -> directory.register(
+                new Buyer("Other", "Doe", null, "other", "pass", 1)));
+        assertEquals(2, directory.size());
+    }
+
+    @Test
+    void testUpdateProfileReindexesEmail() {
+        directory.updateProfile(buyer.getUserID(), "Johnny", null, "johnny@buyer.com");
+
+        assertEquals("Johnny", buyer.getFirstName());
+        assertTrue(directory.findByEmail("john@buyer.com").isEmpty());
+        assertEquals(Optional.of(buyer), directory.findByEmail("johnny@buyer.com"));
+        assertThrows(IllegalArgumentException.class,
+                () -> directory.updateProfile(buyer.getUserID(), null, null, "Jane@Seller.com"));
+        assertEquals("johnny@buyer.com", buyer.getEmail());
+    }
+
+    @Test
+    void testChangeUsername() {
+        directory.changeUsername(buyer.getUserID(), "johnny");
+
+        assertEquals(Optional.of(buyer), directory.findByUsername("johnny"));
+        assertFalse(directory.isUsernameTaken("johndoe"));
+        assertThrows(IllegalArgumentException.class, () -> directory.changeUsername(buyer.getUserID(), "JaneSmith"));
+    }
+
+    @Test
+    void testRoleViewsAndRemoval() {
+        assertEquals(List.of(buyer), List.copyOf(directory.getBuyers()));
+        assertEquals(List.of(seller), List.copyOf(directory.getSellers()));
+
+        assertTrue(directory.remove(buyer.getUserID()));
+        assertFalse(directory.remove(buyer.getUserID()));
+        assertTrue(directory.getBuyers().isEmpty());
+        assertFalse(directory.isEmailRegistered("john@buyer.com"));
+    }
+
+    @Test
+    void testConcurrentRegistrationsOfSameUsername() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Boolean>> attempts = new ArrayList<>();
+            for (int i = 0; i < 32; i++) {
+                int n = i;
+                attempts.add(pool.submit(() -> {
+                    try {
+                        directory.register(new Buyer("B", "B", "b" + n + "@buyer.com", "contested", "pass", 1));
+                        return true;
+                    } catch (IllegalArgumentException e) {
+                        return false;
+                    }
+                }));
+            }
+            long winners = 0;
+            for (Future<Boolean> attempt : attempts) {
+                if (attempt.get()) winners++;
+            }
+            assertEquals(1, winners);
+        } finally {
+            pool.shutdown();
+            assertTrue(pool.awaitTermination(5, TimeUnit.SECONDS));
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package ch.unil.doplab.studybuddy.domain;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the UserRepository class.
+ * Tests loading whole buyers and sellers, with their mailboxes, listings and offers, and mailbox paging.
+ */
+class UserRepositoryTest {
+
+    private Connection connection;
+    private JdbcStore store;
+    private Seller seller;
+    private Buyer buyer;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:" + UUID.randomUUID());
+        store = new JdbcStore(connection);
+        store.createSchema();
+        seller = new Seller("Jane", "Smith", "jane@seller.com", "janesmith", "pass456");
+        buyer = new Buyer("John", "Doe", "john@buyer.com", "johndoe", "pass123", 600_000);
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        store.close();
+        connection.close();
+    }
+
+    @Test
+    void testBuyerRoundTrip() throws SQLException {
+        buyer.addPreferredLocation("Lausanne");
+        buyer.addPropertyTypeOfInterest("HOUSE");
+        buyer.addDocument("passport.pdf", "ab".repeat(32));
+        UnitOfWork work = store.newUnitOfWork();
+        work.registerNew(buyer);
+        work.registerNew(seller);
+        work.registerSent(seller.sendMessage(buyer, "Welcome", "Hello"));
+        work.commit();
+
+        Buyer loaded = assertInstanceOf(Buyer.class, store.users().findByUsername("johndoe").orElseThrow());
+
+        assertEquals(buyer.getUserID(), loaded.getUserID());
+        assertEquals(600_000, loaded.getBudget());
+        assertEquals(buyer.getPreferredLocations(), loaded.getPreferredLocations());
+        assertEquals(List.of("HOUSE"), loaded.getPropertyTypesOfInterest());
+        assertEquals("ab".repeat(32), loaded.getDocumentHash("passport.pdf"));
+        assertEquals(1, loaded.getUnreadCount());
+        assertTrue(store.users().findByUsername("nobody").isEmpty());
+    }
+
+    @Test
+    void testSellerLoadsListingsAndAnsweredOffers() throws SQLException {
+        Property listing = seller.createProperty("Loft", "", "Vevey", 700_000, 120, Property.PropertyType.LOFT);
+        seller.publishProperty(listing);
+        Offer answered = buyer.placeOffer(listing, 690_000);
+        seller.respondToOffer(answered, true);
+        Offer pending = buyer.placeOffer(listing, 650_000);
+        UnitOfWork work = store.newUnitOfWork();
+        work.registerNew(seller);
+        work.registerNew(buyer);
+        work.registerNew(listing);
+        work.registerNew(answered);
+        work.registerNew(pending);
+        work.commit();
+
+        Seller loaded = assertInstanceOf(Seller.class, store.users().findById(seller.getUserID()).orElseThrow());
+
+        assertEquals(List.of(listing.getPropertyId()),
+                loaded.getOwnedProperties().stream().map(Property::getPropertyId).toList());
+        assertEquals(List.of(answered.getOfferId()),
+                loaded.getReceivedOffers().stream().map(Offer::getOfferId).toList());
+
+        seller.setEmail("jane@new.com");
+        work.registerDirty(seller);
+        assertEquals(1, work.commit());
+        assertEquals("jane@new.com", store.users().findById(seller.getUserID()).orElseThrow().getEmail());
+    }
+
+    @Test
+    void testMailboxPagesNewestFirst() throws SQLException {
+        UnitOfWork work = store.newUnitOfWork();
+        work.registerNew(buyer);
+        work.registerNew(seller);
+        for (int i = 0; i < 12; i++) {
+            work.registerSent(buyer.sendMessage(seller, "Question " + i, "..."));
+        }
+        work.commit();
+
+        List<Message> seen = new ArrayList<>();
+        Message after = null;
+        List<Message> page;
+        while (!(page = store.messages().findPage(seller.getUserID(), after, 5)).isEmpty()) {
+            seen.addAll(page);
+            after = page.get(page.size() - 1);
+        }
+
+        assertEquals(12, seen.size());
+        assertEquals(12, seen.stream().map(Message::getMessageId).distinct().count());
+        assertTrue(seen.stream().allMatch(message -> message.getDirection() == Message.MessageDirection.RECEIVED));
+        for (int i = 1; i < seen.size(); i++) {
+            assertFalse(seen.get(i - 1).getSentAt().isBefore(seen.get(i).getSentAt()));
+        }
+    }
+}
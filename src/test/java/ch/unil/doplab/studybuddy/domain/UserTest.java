@@ -1,10 +1,13 @@
 package ch.unil.doplab.studybuddy.domain;
 
+import ch.unil.doplab.studybuddy.security.CredentialService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -51,17 +54,59 @@ class UserTest {
 
     @Test
     void testSaveAndRemoveSavedProperty() {
-        assertTrue(user.saveProperty("PROP123"));
+        UUID propertyId = UUID.randomUUID();
+        assertTrue(user.saveProperty(propertyId));
+        assertFalse(user.saveProperty(propertyId)); // No duplicates
         assertEquals(1, user.getSavedProperties().size());
-        assertTrue(user.getSavedProperties().contains("PROP123"));
+        assertTrue(user.hasSavedProperty(propertyId));
 
-        assertTrue(user.removeSavedProperty("PROP123"));
+        assertTrue(user.removeSavedProperty(propertyId));
         assertTrue(user.getSavedProperties().isEmpty());
 
-        assertFalse(user.removeSavedProperty("")); // Invalid input
+        assertFalse(user.removeSavedProperty(null)); // Invalid input
         assertThrows(IllegalArgumentException.class, () -> user.saveProperty(null));
     }
 
+    @Test
+    void testManySavedPropertiesKeepTheirOrder() {
+        List<UUID> saved = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            UUID propertyId = UUID.randomUUID();
+            saved.add(propertyId);
+            assertTrue(user.saveProperty(propertyId));
+        }
+        assertTrue(user.removeSavedProperty(saved.remove(10)));
+        assertTrue(user.removeSavedProperty(saved.remove(0)));
+
+        assertEquals(saved, new ArrayList<>(user.getSavedProperties()));
+        assertEquals(Set.copyOf(saved), user.getSavedProperties());
+        saved.forEach(propertyId -> assertTrue(user.hasSavedProperty(propertyId)));
+        assertFalse(user.saveProperty(saved.get(50)));
+    }
+
+    @Test
+    void testSavedPropertyIndexTracksWatchers() {
+        SavedPropertyIndex index = new SavedPropertyIndex();
+        User other = new Buyer("Jane", "Doe", "jane.doe@example.com", "janedoe", "pass123", 600000.0);
+        UUID propertyId = UUID.randomUUID();
+        user.saveProperty(propertyId);
+
+        index.track(user);
+        index.track(other);
+        other.saveProperty(propertyId);
+        assertEquals(Set.of(user.getUserID(), other.getUserID()), index.getWatchers(propertyId));
+
+        other.removeSavedProperty(propertyId);
+        assertEquals(Set.of(user.getUserID()), index.getWatchers(propertyId));
+
+        UUID newId = UUID.randomUUID();
+        user.setUserID(newId);
+        assertEquals(Set.of(newId), index.getWatchers(propertyId));
+
+        index.untrack(user);
+        assertEquals(0, index.countWatchers(propertyId));
+    }
+
     @Test
     void testSendAndReceiveMessage() {
         User recipient = new Buyer("Jane", "Doe", "jane.doe@example.com", "janedoe", "pass123", 600000.0);
@@ -79,6 +124,169 @@ class UserTest {
         assertEquals(content, recipient.getMessages().get(0).getContent());
     }
 
+    @Test
+    void testUnreadCountersFollowDeliveryAndReads() {
+        User alice = new Buyer("Alice", "A", "alice@example.com", "alice", "pass123", 400000.0);
+        User bob = new Buyer("Bob", "B", "bob@example.com", "bob", "pass123", 400000.0);
+
+        alice.sendMessage(user, "Visit", "Tuesday?");
+        alice.sendMessage(user, "Visit", "Or Wednesday?");
+        bob.sendMessage(user, "Offer", "Still available?");
+
+        assertEquals(3, user.getUnreadCount());
+        assertEquals(2, user.getUnreadCount(alice.getUserID()));
+        assertEquals(1, user.getUnreadCount(bob.getUserID()));
+        assertEquals(0, alice.getUnreadCount());
+
+        Message first = user.getMessages().get(0);
+        first.markAsRead();
+        first.markAsRead(); // Idempotent
+        assertTrue(first.isRead());
+        assertEquals(2, user.getUnreadCount());
+        assertEquals(1, user.getUnreadCount(alice.getUserID()));
+    }
+
+    @Test
+    void testMarkThreadAndAllMessagesAsRead() {
+        User alice = new Buyer("Alice", "A", "alice@example.com", "alice", "pass123", 400000.0);
+        User bob = new Buyer("Bob", "B", "bob@example.com", "bob", "pass123", 400000.0);
+        alice.sendMessage(user, "Visit", "Tuesday?");
+        bob.sendMessage(user, "Offer", "Still available?");
+
+        user.markThreadAsRead(alice.getUserID());
+        assertEquals(1, user.getUnreadCount());
+        assertEquals(0, user.getUnreadCount(alice.getUserID()));
+        assertTrue(user.getMessages().get(0).isRead());
+        assertFalse(user.getMessages().get(1).isRead());
+
+        user.markAllMessagesAsRead();
+        assertEquals(0, user.getUnreadCount());
+        assertTrue(user.getMessages().stream().allMatch(Message::isRead));
+
+        // Reading an already covered message must not drive the counters negative
+        user.getMessages().get(1).markAsRead();
+        assertEquals(0, user.getUnreadCount());
+
+        bob.sendMessage(user, "Offer", "Any news?");
+        assertEquals(1, user.getUnreadCount());
+        assertEquals(1, user.getUnreadCount(bob.getUserID()));
+    }
+
+    @Test
+    void testSearchMessagesRanksAndPaginates() {
+        User agent = new Seller("Agent", "Smith", "agent@example.com", "agent", "pass123");
+        agent.sendMessage(user, "Visit at Rue de Bourg 12", "See you at the entrance.");
+        agent.sendMessage(user, "Documents", "Please bring the visit form to Rue de Bourg.");
+        agent.sendMessage(user, "Offer", "The seller accepted your offer.");
+
+        List<Message> hits = user.searchMessages("rue de BOURG visit", 0, 10);
+        assertEquals(2, hits.size());
+        assertEquals("Visit at Rue de Bourg 12", hits.get(0).getSubject());
+
+        assertEquals(1, user.searchMessages("bourg", 1, 1).size());
+        assertTrue(user.searchMessages("bourg", 2, 1).isEmpty());
+        assertTrue(user.searchMessages("geneva", 0, 10).isEmpty());
+        assertTrue(user.searchMessages("  ", 0, 10).isEmpty());
+        assertEquals(3, agent.searchMessages("the", 0, 10).size());
+        assertThrows(IllegalArgumentException.class, () -> user.searchMessages("bourg", 0, 0));
+        assertEquals(hits, user.searchMessageRange("rue de BOURG visit", 0, 3));
+        assertEquals(hits.subList(1, 2), user.searchMessageRange("rue de BOURG visit", 1, 1));
+    }
+
+    @Test
+    void testReplaceWithSharesUntilModified() {
+        User source = new Buyer("Jane", "Doe", "jane.doe@example.com", "janedoe", "pass123", 600000.0);
+        User sender = new Buyer("Alice", "A", "alice@example.com", "alice", "pass123", 400000.0);
+        source.addPreferredLocation("Geneva");
+        sender.sendMessage(source, "Visit", "Tuesday?");
+        user.addPreferredLocation("Lausanne");
+
+        user.replaceWith(source);
+        assertEquals(source.getUserID(), user.getUserID());
+        assertEquals(Set.of("Geneva"), user.getPreferredLocations());
+        assertEquals(1, user.getMessages().size());
+        assertEquals(1, user.getUnreadCount());
+
+        // Writes on one side are not visible on the other
+        user.addPreferredLocation("Zurich");
+        sender.sendMessage(user, "Visit", "Or Wednesday?");
+        user.markAllMessagesAsRead();
+        assertEquals(Set.of("Geneva"), source.getPreferredLocations());
+        assertEquals(1, source.getMessages().size());
+        assertEquals(1, source.getUnreadCount());
+        assertEquals(2, user.getMessages().size());
+        assertEquals(0, user.getUnreadCount());
+    }
+
+    @Test
+    void testReplaceAndMergeShareTheStoredMessages() {
+        User source = new Buyer("Jane", "Doe", "jane.doe@example.com", "janedoe", "pass123", 600000.0);
+        User sender = new Buyer("Alice", "A", "alice@example.com", "alice", "pass123", 400000.0);
+        sender.sendMessage(source, "Visit", "Tuesday?");
+        sender.sendMessage(source, "Visit", "Or Wednesday?");
+        User merged = new Buyer(null, null, null, null, null, 0);
+
+        user.replaceWith(source);
+        merged.mergeWith(source);
+
+        // The same objects, not copies: replacing costs O(1) whatever the history
+        for (int i = 0; i < 2; i++) {
+            assertSame(source.mailbox().stored(i), user.mailbox().stored(i));
+            assertSame(source.mailbox().stored(i), merged.mailbox().stored(i));
+        }
+        assertEquals(source.getMessages(), user.getMessages());
+
+        // The first write copies the list of references, still not the messages
+        user.getMessages().get(0).markAsRead();
+        sender.sendMessage(user, "Visit", "Thursday then?");
+        assertSame(source.mailbox().stored(1), user.mailbox().stored(1));
+        assertEquals(3, user.getMessages().size());
+        assertEquals(2, source.getMessages().size());
+        assertEquals(2, user.getUnreadCount());
+        assertEquals(2, source.getUnreadCount());
+        assertEquals(List.of("Thursday then?"), user.searchMessages("thursday", 0, 10).stream()
+                .map(Message::getContent).toList());
+        assertTrue(source.searchMessages("thursday", 0, 10).isEmpty());
+    }
+
+    @Test
+    void testMessagesReadOnACopyStayUnreadOnTheSource() {
+        User source = new Buyer("Jane", "Doe", "jane.doe@example.com", "janedoe", "pass123", 600000.0);
+        User sender = new Buyer("Alice", "A", "alice@example.com", "alice", "pass123", 400000.0);
+        sender.sendMessage(source, "Visit", "Tuesday?");
+
+        user.replaceWith(source);
+        user.getMessages().get(0).markAsRead();
+        User merged = new Buyer(null, null, null, null, null, 0);
+        merged.mergeWith(source);
+        merged.getMessages().get(0).markAsRead();
+
+        assertEquals(0, user.getUnreadCount());
+        assertEquals(0, merged.getUnreadCount());
+        assertEquals(1, source.getUnreadCount());
+        assertFalse(source.getMessages().get(0).isRead());
+    }
+
+    @Test
+    void testMergeWithDeduplicates() {
+        User other = new Buyer("Jane", "Doe", "jane.doe@example.com", "janedoe", "pass123", 600000.0);
+        UUID propertyId = UUID.randomUUID();
+        user.saveProperty(propertyId);
+        other.saveProperty(propertyId);
+        other.saveProperty(UUID.randomUUID());
+        other.sendMessage(user, "Visit", "Tuesday?");
+
+        User copy = new Buyer(null, null, null, null, null, 0);
+        copy.mergeWith(user);
+        copy.mergeWith(user);
+        copy.mergeWith(other);
+
+        assertEquals(2, copy.getSavedProperties().size());
+        assertEquals(2, copy.getMessages().size());
+        assertEquals(1, user.getSavedProperties().size());
+        assertEquals(1, user.getMessages().size());
+    }
+
     @Test
     void testUpdateProfile() {
         user.updateProfile("Johnny", "Doe", "johnny.doe@example.com");
@@ -93,7 +301,11 @@ class UserTest {
     @Test
     void testChangePassword() {
         user.changePassword(PASSWORD, "newpass123");
-        assertEquals("newpass123", user.getPassword());
+        assertNotEquals("newpass123", user.getPassword()); // Stored as a hash, not in plaintext
+        assertTrue(CredentialService.matches("newpass123", user.getPassword()));
+
+        user.changePassword("newpass123", "newpass456");
+        assertTrue(CredentialService.matches("newpass456", user.getPassword()));
 
         assertThrows(IllegalArgumentException.class, () -> user.changePassword("wrongpass", "newpass456"));
         assertThrows(IllegalArgumentException.class, () -> user.changePassword(PASSWORD, ""));
@@ -0,0 +1,89 @@
+package ch.unil.doplab.studybuddy.security;
+
+import ch.unil.doplab.studybuddy.domain.Buyer;
+import ch.unil.doplab.studybuddy.domain.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the CredentialService class.
+ * Tests off-thread hashing, verification, rehashing and metrics.
+ */
+class CredentialServiceTest {
+
+    private CredentialService service;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        service = new CredentialService(CredentialService.MIN_COST, 2, 16);
+        user = new Buyer("John", "Doe", "john@buyer.com", "johndoe", "password123", 600000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.close();
+    }
+
+    @Test
+    void testHashAndVerify() {
+        String hash = service.hash("secret").join();
+
+        assertNotEquals("secret", hash);
+        assertTrue(service.verify("secret", hash).join());
+        assertFalse(service.verify("wrong", hash).join());
+        assertFalse(service.verify(null, hash).join());
+        assertEquals(1, service.getHashLatency().getCount());
+        assertEquals(2, service.getVerifyLatency().getCount()); // Null input is rejected without hashing
+        assertTrue(service.getHashLatency().getMaxNanos() > 0);
+    }
+
+    @Test
+    void testLoginUpgradesPlaintextAndOutdatedCost() {
+        assertTrue(service.login(user, "password123").join());
+        String hashed = user.getPassword();
+        assertFalse(service.needsRehash(hashed));
+
+        assertTrue(service.login(user, "password123").join());
+        assertEquals(hashed, user.getPassword()); // Up to date, not rehashed
+
+        service.setCost(CredentialService.MIN_COST + 1);
+        assertTrue(service.needsRehash(hashed));
+        assertTrue(service.login(user, "password123").join());
+        assertNotEquals(hashed, user.getPassword());
+        assertFalse(service.login(user, "wrong").join());
+    }
+
+    @Test
+    void testChangePassword() {
+        service.changePassword(user, "password123", "newpass456").join();
+
+        assertTrue(service.login(user, "newpass456").join());
+        CompletionException error = assertThrows(CompletionException.class,
+                () -> service.changePassword(user, "password123", "other").join());
+        assertInstanceOf(IllegalArgumentException.class, error.getCause());
+        assertThrows(IllegalArgumentException.class, () -> service.changePassword(user, "newpass456", " "));
+    }
+
+    @Test
+    void testUserChangePasswordAfterRehashKeepsTheCost() {
+        assertTrue(service.login(user, "password123").join());
+
+        user.changePassword("password123", "newpass456");
+
+        assertFalse(service.needsRehash(user.getPassword()));
+        assertTrue(service.login(user, "newpass456").join());
+        assertThrows(IllegalArgumentException.class, () -> user.changePassword("password123", "other"));
+    }
+
+    @Test
+    void testRejectsInvalidCost() {
+        assertThrows(IllegalArgumentException.class, () -> service.setCost(3));
+        assertThrows(IllegalArgumentException.class, () -> new CredentialService(31, 1, 1));
+    }
+}
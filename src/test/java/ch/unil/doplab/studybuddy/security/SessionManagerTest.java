@@ -0,0 +1,134 @@
+package ch.unil.doplab.studybuddy.security;
+
+import ch.unil.doplab.studybuddy.domain.Buyer;
+import ch.unil.doplab.studybuddy.domain.Seller;
+import ch.unil.doplab.studybuddy.domain.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the SessionManager class.
+ * Tests token issuing, validation, expiry, eviction and revocation, also from many threads at once.
+ */
+class SessionManagerTest {
+
+    private static final byte[] SECRET = new byte[32];
+
+    private MutableClock clock;
+    private SessionManager sessions;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        Arrays.fill(SECRET, (byte) 7);
+        clock = new MutableClock();
+        sessions = new SessionManager(SECRET, Duration.ofMinutes(30), 2, clock);
+        user = new Buyer("John", "Doe", "john@buyer.com", "johndoe", "password123", 600000);
+    }
+
+    @Test
+    void testIssuedTokenValidates() {
+        String token = sessions.issue(user);
+
+        assertEquals(Optional.of(user), sessions.validate(token));
+        assertTrue(sessions.validate(token + "x").isEmpty());
+        assertTrue(sessions.validate("garbage").isEmpty());
+        assertTrue(sessions.validate(null).isEmpty());
+    }
+
+    @Test
+    void testTokenFromAnotherKeyIsRejected() {
+        byte[] otherSecret = new byte[32];
+        String forged = new SessionManager(otherSecret, Duration.ofMinutes(30), 2, clock).issue(user);
+
+        assertTrue(sessions.validate(forged).isEmpty());
+    }
+
+    @Test
+    void testTokensExpire() {
+        String token = sessions.issue(user);
+        clock.advance(Duration.ofMinutes(31));
+
+        assertTrue(sessions.validate(token).isEmpty());
+        assertEquals(0, sessions.getActiveSessions());
+    }
+
+    @Test
+    void testCredentialChangesRevokeSessions() {
+        String token = sessions.issue(user);
+        user.changePassword("password123", "newpass456");
+        assertTrue(sessions.validate(token).isEmpty());
+
+        String second = sessions.issue(user);
+        user.replaceWith(new Buyer("John", "Doe", "john@buyer.com", "johndoe", "other", 600000));
+        assertTrue(sessions.validate(second).isEmpty());
+    }
+
+    @Test
+    void testExplicitRevocationAndEviction() {
+        User seller = new Seller("Jane", "Smith", "jane@seller.com", "janesmith", "pass456");
+        String first = sessions.issue(user);
+        String second = sessions.issue(user);
+        assertEquals(2, sessions.revokeAll(user.getUserID()));
+        assertTrue(sessions.validate(first).isEmpty());
+        assertTrue(sessions.validate(second).isEmpty());
+
+        String a = sessions.issue(seller);
+        String b = sessions.issue(seller);
+        assertTrue(sessions.revoke(b));
+        assertFalse(sessions.revoke(b));
+
+        sessions.issue(user);
+        sessions.issue(user); // Exceeds the capacity and evicts the oldest session
+        assertTrue(sessions.validate(a).isEmpty());
+    }
+
+    @Test
+    void testTokensSignedConcurrentlyValidate() throws Exception {
+        SessionManager shared = new SessionManager(SECRET, Duration.ofMinutes(30), 1_000, clock);
+        ExecutorService pool = Executors.newFixedThreadPool(16);
+        try {
+            List<Future<Optional<User>>> results = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                results.add(pool.submit(() -> shared.validate(shared.issue(user))));
+            }
+            for (Future<Optional<User>> result : results) {
+                assertEquals(Optional.of(user), result.get());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now = Instant.parse("2026-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() { return ZoneOffset.UTC; }
+
+        @Override
+        public Clock withZone(ZoneId zone) { return this; }
+
+        @Override
+        public Instant instant() { return now; }
+    }
+}
@@ -0,0 +1,89 @@
+package ch.unil.doplab.studybuddy.storage;
+
+import ch.unil.doplab.studybuddy.domain.Buyer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the ContentStore class.
+ * Tests streamed storage, deduplication and retrieval of buyer documents.
+ */
+class ContentStoreTest {
+
+    @TempDir
+    Path root;
+
+    private ContentStore store;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        store = new ContentStore(root);
+    }
+
+    @Test
+    void testStoreAndCopyBack() throws IOException {
+        byte[] content = "proof of funds".repeat(10000).getBytes(StandardCharsets.UTF_8);
+
+        String hash = store.store(channel(content));
+
+        assertTrue(store.contains(hash));
+        assertEquals(content.length, store.size(hash));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(content.length, store.copyTo(hash, Channels.newChannel(out)));
+        assertArrayEquals(content, out.toByteArray());
+    }
+
+    @Test
+    void testIdenticalContentIsStoredOnce() throws IOException {
+        byte[] content = "passport scan".getBytes(StandardCharsets.UTF_8);
+
+        String first = store.store(channel(content));
+        String second = store.store(channel(content));
+
+        assertEquals(first, second);
+        try (Stream<Path> files = Files.walk(root.resolve("objects"))) {
+            assertEquals(1, files.filter(Files::isRegularFile).count());
+        }
+        try (Stream<Path> files = Files.list(root.resolve("incoming"))) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void testRejectsInvalidHashes() {
+        assertThrows(IllegalArgumentException.class, () -> store.open("../../etc/passwd"));
+        assertFalse(store.contains("0".repeat(64)));
+    }
+
+    @Test
+    void testBuyerIndexesDocumentsByHash() throws IOException {
+        Buyer buyer = new Buyer("John", "Doe", "john@buyer.com", "johndoe", "pass123", 600000);
+        String hash = store.store(channel("bank statement".getBytes(StandardCharsets.UTF_8)));
+
+        buyer.addDocument("proof-of-funds.pdf", hash);
+        buyer.addDocument("proof-of-funds.pdf"); // Already indexed, keeps the hash
+
+        assertEquals(1, buyer.getDocuments().size());
+        assertTrue(buyer.hasDocument("proof-of-funds.pdf"));
+        assertEquals(hash, buyer.getDocumentHash("proof-of-funds.pdf"));
+        buyer.removeDocument("proof-of-funds.pdf");
+        assertTrue(buyer.getDocuments().isEmpty());
+    }
+
+    private static ReadableByteChannel channel(byte[] content) {
+        return Channels.newChannel(new ByteArrayInputStream(content));
+    }
+}
@@ -0,0 +1,96 @@
+package ch.unil.doplab.studybuddy.storage;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the ImagePipeline class.
+ * Tests thumbnail generation, the thumbnail cache and rejection of uploads that are not images.
+ */
+class ImagePipelineTest {
+
+    @TempDir
+    Path root;
+
+    private ContentStore originals;
+    private ImagePipeline pipeline;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        originals = new ContentStore(root.resolve("store"));
+        pipeline = new ImagePipeline(originals, root.resolve("thumbnails"), 2, 16);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pipeline.close();
+    }
+
+    @Test
+    void testIngestCachesEverySizeWithinItsBounds() throws Exception {
+        Path photo = root.resolve("photo.png");
+        ImageIO.write(new BufferedImage(1600, 900, BufferedImage.TYPE_INT_ARGB), "png", photo.toFile());
+
+        String hash = pipeline.ingest(photo).get(10, TimeUnit.SECONDS);
+
+        assertTrue(pipeline.contains(hash));
+        assertEquals("image/png", pipeline.mediaType(hash));
+        for (ImagePipeline.Size size : ImagePipeline.Size.values()) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            long length = pipeline.copyThumbnailTo(hash, size, Channels.newChannel(out));
+            BufferedImage thumbnail = ImageIO.read(new ByteArrayInputStream(out.toByteArray()));
+
+            assertEquals(pipeline.thumbnailSize(hash, size), length);
+            assertEquals(size.getMaxEdge(), thumbnail.getWidth());
+            assertEquals(Math.round(900.0 * size.getMaxEdge() / 1600), thumbnail.getHeight());
+        }
+    }
+
+    @Test
+    void testSmallImagesAreNotEnlargedAndRepeatsHitTheCache() throws Exception {
+        Path photo = root.resolve("small.png");
+        ImageIO.write(new BufferedImage(100, 50, BufferedImage.TYPE_INT_RGB), "png", photo.toFile());
+        String hash = pipeline.ingest(photo).get(10, TimeUnit.SECONDS);
+        Path cached = pipeline.thumbnailPath(hash, ImagePipeline.Size.LARGE);
+        assertEquals(100, ImageIO.read(cached.toFile()).getWidth());
+        long modified = Files.getLastModifiedTime(cached).toMillis();
+
+        assertEquals(hash, pipeline.ingest(photo).get(10, TimeUnit.SECONDS));
+        assertEquals(modified, Files.getLastModifiedTime(cached).toMillis());
+
+        Files.delete(cached);
+        pipeline.generate(hash).get(10, TimeUnit.SECONDS);
+        assertTrue(pipeline.containsThumbnail(hash, ImagePipeline.Size.LARGE));
+    }
+
+    @Test
+    void testUploadsThatAreNotImagesAreRejectedAndDropped() throws IOException {
+        byte[] text = "not an image".getBytes(StandardCharsets.UTF_8);
+
+        CompletionException e = assertThrows(CompletionException.class,
+                () -> pipeline.ingest(Channels.newChannel(new ByteArrayInputStream(text))).join());
+
+        assertInstanceOf(IllegalArgumentException.class, e.getCause());
+        try (var files = Files.walk(root.resolve("store").resolve("objects"))) {
+            assertTrue(files.noneMatch(Files::isRegularFile));
+        }
+        assertThrows(IllegalArgumentException.class,
+                () -> pipeline.containsThumbnail("../../etc/passwd", ImagePipeline.Size.SMALL));
+    }
+}
@@ -0,0 +1,75 @@
+package ch.unil.doplab.studybuddy.storage;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the StatementCache class.
+ * Tests statement reuse, eviction of the least recently used statement and closing.
+ */
+class StatementCacheTest {
+
+    private Connection connection;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:" + UUID.randomUUID());
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Test
+    void testReusesPreparedStatements() throws SQLException {
+        try (StatementCache cache = new StatementCache(connection)) {
+            PreparedStatement first = cache.prepare("SELECT ?");
+            first.setInt(1, 42);
+
+            PreparedStatement second = cache.prepare("SELECT ?");
+
+            assertSame(first, second);
+            assertEquals(1, cache.getPrepareCount());
+            // Parameters from the previous use are cleared
+            assertThrows(SQLException.class, second::executeQuery);
+        }
+    }
+
+    @Test
+    void testEvictsLeastRecentlyUsed() throws SQLException {
+        try (StatementCache cache = new StatementCache(connection, 2)) {
+            PreparedStatement one = cache.prepare("SELECT 1");
+            PreparedStatement two = cache.prepare("SELECT 2");
+            cache.prepare("SELECT 1");
+            cache.prepare("SELECT 3");
+
+            assertEquals(2, cache.size());
+            assertTrue(two.isClosed());
+            assertFalse(one.isClosed());
+            assertSame(one, cache.prepare("SELECT 1"));
+            assertEquals(3, cache.getPrepareCount());
+        }
+    }
+
+    @Test
+    void testCloseKeepsConnectionOpen() throws SQLException {
+        StatementCache cache = new StatementCache(connection);
+        PreparedStatement statement = cache.prepare("SELECT 1");
+
+        cache.close();
+
+        assertTrue(statement.isClosed());
+        assertFalse(connection.isClosed());
+        assertThrows(IllegalArgumentException.class, () -> new StatementCache(connection, 0));
+    }
+}
@@ -0,0 +1,150 @@
+package ch.unil.doplab.studybuddy.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the WriteAheadLog class.
+ * Tests replay, segment rolling, torn-tail recovery and group commit.
+ */
+class WriteAheadLogTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testReplayAfterReopen() throws IOException {
+        try (WriteAheadLog log = new WriteAheadLog(directory)) {
+            assertEquals(1, log.append(payload("first")));
+            assertEquals(2, log.commit(payload("second")));
+            assertEquals(3, log.append(payload("third")));
+        }
+
+        try (WriteAheadLog log = new WriteAheadLog(directory)) {
+            assertEquals(3, log.getLastSequence());
+            assertEquals(List.of("second", "third"), replay(log, 1));
+            assertEquals(4, log.append(payload("fourth")));
+        }
+    }
+
+    @Test
+    void testSegmentsRollAndCanBeDeleted() throws IOException {
+        try (WriteAheadLog log = new WriteAheadLog(directory, 128)) {
+            for (int i = 1; i <= 20; i++) {
+                log.append(payload("record-" + i));
+            }
+            assertTrue(log.getSegmentCount() > 3);
+            assertEquals(20, replay(log, 0).size());
+
+            int deleted = log.deleteSegmentsBefore(15);
+
+            assertTrue(deleted > 0);
+            assertEquals(List.of("record-16", "record-17", "record-18", "record-19", "record-20"), replay(log, 15));
+        }
+    }
+
+    @Test
+    void testTornTailIsCutOffOnOpen() throws IOException {
+        try (WriteAheadLog log = new WriteAheadLog(directory)) {
+            log.append(payload("kept"));
+            log.append(payload("torn"));
+        }
+        Path segment;
+        try (Stream<Path> files = Files.list(directory)) {
+            segment = files.findFirst().orElseThrow();
+        }
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 2);
+        }
+
+        try (WriteAheadLog log = new WriteAheadLog(directory)) {
+            assertEquals(1, log.getLastSequence());
+            assertEquals(List.of("kept"), replay(log, 0));
+            assertEquals(2, log.append(payload("rewritten")));
+        }
+        try (WriteAheadLog log = new WriteAheadLog(directory)) {
+            assertEquals(List.of("kept", "rewritten"), replay(log, 0));
+        }
+    }
+
+    @Test
+    void testCorruptRecordInOlderSegmentIsReported() throws IOException {
+        try (WriteAheadLog log = new WriteAheadLog(directory, 32)) {
+            log.append(payload("first-record"));
+            log.append(payload("second-record"));
+        }
+        Path first;
+        try (Stream<Path> files = Files.list(directory)) {
+            first = files.sorted().findFirst().orElseThrow();
+        }
+        try (FileChannel channel = FileChannel.open(first, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{'X'}), channel.size() - 1);
+        }
+
+        try (WriteAheadLog log = new WriteAheadLog(directory, 32)) {
+            assertThrows(IOException.class, () -> replay(log, 0));
+        }
+    }
+
+    @Test
+    void testConcurrentCommitsShareDiskSyncs() throws Exception {
+        int writers = 16;
+        int commitsPerWriter = 50;
+        ExecutorService pool = Executors.newFixedThreadPool(writers);
+        try (WriteAheadLog log = new WriteAheadLog(directory)) {
+            List<Future<?>> done = new ArrayList<>();
+            for (int w = 0; w < writers; w++) {
+                int writer = w;
+                done.add(pool.submit(() -> {
+                    for (int i = 0; i < commitsPerWriter; i++) {
+                        long sequence = log.commit(payload(writer + "-" + i));
+                        assertTrue(log.getDurableSequence() >= sequence);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : done) {
+                future.get();
+            }
+
+            assertEquals(writers * commitsPerWriter, log.getLastSequence());
+            assertTrue(log.getSyncCount() < writers * commitsPerWriter,
+                    "Expected fewer syncs than commits, got " + log.getSyncCount());
+        } finally {
+            pool.shutdown();
+            assertTrue(pool.awaitTermination(5, TimeUnit.SECONDS));
+        }
+    }
+
+    private static ByteBuffer payload(String value) {
+        return ByteBuffer.wrap(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static List<String> replay(WriteAheadLog log, long after) throws IOException {
+        List<String> records = new ArrayList<>();
+        long[] previous = {after};
+        log.replay(after, (sequence, payload) -> {
+            assertEquals(previous[0] + 1, sequence);
+            previous[0] = sequence;
+            records.add(StandardCharsets.UTF_8.decode(payload).toString());
+        });
+        return records;
+    }
+}